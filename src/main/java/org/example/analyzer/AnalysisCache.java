@@ -0,0 +1,492 @@
+package org.example.analyzer;
+
+import sootup.core.types.ClassType;
+import sootup.java.core.JavaSootClass;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AnalysisCache - per-class results of Main, CFG and IRGenerator kept on disk between runs.
+ *
+ * An entry is the console report of one class plus the files written for it (DOT, Jimple),
+ * or, for Main, the ResultFile blocks and JSON records of its methods, stored under
+ * {@code <directory>/<tool>/<className>.cache}. The files never have to be held in memory:
+ * a Recorder tees each one into the entry while the tool streams it into its ArtifactSink,
+ * and a looked-up Entry streams them back out of the cache file.
+ *
+ * An entry is keyed by the SHA-256 of the class file and the class files of its superclasses
+ * and interfaces on the classpath (the types SootUp assigns in the Jimple come from that
+ * hierarchy), the analyzer VERSION, the tool and its configuration (for Main the
+ * AnalysisOptions and outputs, for CFG and IRGenerator the output location). An entry is
+ * used only if none of those changed; otherwise the class is analyzed again and its entry
+ * overwritten. The key is per class: other classes the code only refers to, and the JDK,
+ * are not part of it. Only entries of classes analyzed without errors are stored.
+ *
+ * Lookups and stores may run on several threads; an entry is written to a temporary file
+ * and moved into place when it is committed, so a reader never sees half of one.
+ */
+public class AnalysisCache {
+    /** Bump whenever an analysis or a report format changes, so older entries are not reused. */
+    public static final String VERSION = "21";
+
+    public static final Path DEFAULT_DIRECTORY = Paths.get("target/analysis-cache");
+
+    private static final int MAGIC = 0x41434333; // "ACC3"
+    private static final int CHUNK = 1 << 13;
+
+    private final Path directory;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public AnalysisCache(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** The cache key of a class: hex SHA-256 over VERSION, tool, configuration and class bytes. */
+    public static String key(String tool, String configuration, byte[] classBytes) {
+        return key(tool, configuration, List.of(classBytes));
+    }
+
+    /** The same over several class files, each one prefixed with its length. */
+    public static String key(String tool, String configuration, List<byte[]> classFiles) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        for (String part : new String[]{VERSION, tool, configuration}) {
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        for (byte[] classFile : classFiles) {
+            int length = classFile.length;
+            digest.update(new byte[]{(byte) (length >>> 24), (byte) (length >>> 16), (byte) (length >>> 8), (byte) length});
+            digest.update(classFile);
+        }
+        byte[] hash = digest.digest();
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        return hex.toString();
+    }
+
+    /**
+     * The key of a class of the session over its class file and those of its supertypes, or
+     * null if the class cannot be read or resolved (it is not cached then).
+     */
+    public static String classKey(AnalysisSession session, String tool, String configuration, String className) {
+        try {
+            List<byte[]> classFiles = hierarchyClassFiles(session, className);
+            return classFiles.isEmpty() ? null : key(tool, configuration, classFiles);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The class file of the class, then those of its superclasses and interfaces, transitively
+     * and in a fixed order; a supertype that is not on the classpath ends its branch.
+     */
+    private static List<byte[]> hierarchyClassFiles(AnalysisSession session, String className) throws IOException {
+        List<byte[]> classFiles = new ArrayList<>();
+        Set<String> seen = new HashSet<>(List.of(className));
+        Deque<String> work = new ArrayDeque<>(List.of(className));
+        while (!work.isEmpty()) {
+            String name = work.poll();
+            Optional<byte[]> classFile = session.readClassFile(name);
+            if (classFile.isEmpty()) continue;
+            classFiles.add(classFile.get());
+            Optional<JavaSootClass> resolved = session.getSootClass(name);
+            if (resolved.isEmpty()) continue;
+            List<String> supertypes = new ArrayList<>();
+            resolved.get().getSuperclass().ifPresent(t -> supertypes.add(t.getFullyQualifiedName()));
+            resolved.get().getInterfaces().stream().map(ClassType::getFullyQualifiedName).sorted().forEach(supertypes::add);
+            for (String supertype : supertypes) {
+                if (seen.add(supertype)) work.add(supertype);
+            }
+        }
+        return classFiles;
+    }
+
+    /** The stored entry of the class if its key matches, counted as a hit or a miss. */
+    public Optional<Entry> lookup(String tool, String className, String key) {
+        Optional<Entry> entry = read(path(tool, className), key);
+        (entry.isPresent() ? hits : misses).incrementAndGet();
+        return entry;
+    }
+
+    /** Stores an entry without files, such as the results of one class of the pipeline. */
+    public void store(String tool, String className, String key, Entry entry) throws IOException {
+        try (Recorder recorder = record(tool, className, key)) {
+            recorder.commit(entry);
+        }
+    }
+
+    /**
+     * Starts the entry of a class; it replaces the stored one only once it is committed. If the
+     * entry cannot be created, the Recorder only drops what it is given and commit() fails.
+     */
+    public Recorder record(String tool, String className, String key) {
+        return new Recorder(path(tool, className), className, key);
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Path path(String tool, String className) {
+        return directory.resolve(tool).resolve(className + ".cache");
+    }
+
+    /** Empty if the file is missing, unreadable, of another format or stored under another key. */
+    private static Optional<Entry> read(Path file, String key) {
+        if (!Files.isRegularFile(file)) return Optional.empty();
+        try (DataInputStream in = open(file, key)) {
+            if (in == null) return Optional.empty();
+            // only the names of the files are read here; writeFiles streams their content
+            List<String> files = new ArrayList<>();
+            while (in.readBoolean()) {
+                files.add(in.readUTF());
+                skipChunks(in);
+            }
+            Entry entry = new Entry(readText(in), file, key, files);
+            for (int blocks = in.readInt(); blocks > 0; blocks--) {
+                byte[] block = new byte[in.readInt()];
+                in.readFully(block);
+                entry.addBlock(block);
+            }
+            for (int records = in.readInt(); records > 0; records--) {
+                entry.addRecord(readText(in));
+            }
+            return Optional.of(entry);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** The entry file positioned after its header, or null if it is of another format or key. */
+    private static DataInputStream open(Path file, String key) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            if (in.readInt() == MAGIC && in.readUTF().equals(key)) return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        in.close();
+        return null;
+    }
+
+    private static void skipChunks(DataInputStream in) throws IOException {
+        for (int length = in.readInt(); length > 0; length = in.readInt()) {
+            in.skipNBytes(length);
+        }
+    }
+
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The console report of one class and the paths of the files written for it, relative to
+     * the output root, plus the ResultFile blocks and JSON records of its methods in report
+     * order. The report, blocks and records are in memory; the files are streamed from the
+     * cache file.
+     */
+    public static final class Entry {
+        private final String report;
+        private final Path source;
+        private final String key;
+        private final List<String> files;
+        private final List<byte[]> blocks = new ArrayList<>();
+        private final List<String> records = new ArrayList<>();
+
+        public Entry(String report) {
+            this(report, null, null, List.of());
+        }
+
+        private Entry(String report, Path source, String key, List<String> files) {
+            this.report = report;
+            this.source = source;
+            this.key = key;
+            this.files = files;
+        }
+
+        public String getReport() {
+            return report;
+        }
+
+        public List<String> getFiles() {
+            return Collections.unmodifiableList(files);
+        }
+
+        /** One ResultFileWriter.encode block of a method. */
+        public Entry addBlock(byte[] block) {
+            blocks.add(block);
+            return this;
+        }
+
+        public List<byte[]> getBlocks() {
+            return Collections.unmodifiableList(blocks);
+        }
+
+        /** One JsonRecord line of a method. */
+        public Entry addRecord(String record) {
+            records.add(record);
+            return this;
+        }
+
+        public List<String> getRecords() {
+            return Collections.unmodifiableList(records);
+        }
+
+        /**
+         * Writes the files of the entry again, to a directory or an archive. Fails if the entry
+         * was replaced under another key since it was looked up.
+         */
+        public void writeFiles(ArtifactSink sink) throws IOException {
+            if (files.isEmpty()) return;
+            try (DataInputStream in = open(source, key)) {
+                if (in == null) throw new IOException("Analysis cache entry " + source + " was replaced");
+                for (String relativePath : files) {
+                    if (!in.readBoolean() || !in.readUTF().equals(relativePath)) {
+                        throw new IOException("Analysis cache entry " + source + " was replaced");
+                    }
+                    try (Writer writer = sink.open(relativePath)) {
+                        new InputStreamReader(new ChunkedInput(in), StandardCharsets.UTF_8).transferTo(writer);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * An entry being written: the files are teed into it one at a time as the tool writes
+     * them, then commit() adds the report, blocks and records and moves the entry into place. Closing it without
+     * a commit discards it. A failure to write the entry does not fail the artifacts; it is
+     * thrown by commit().
+     */
+    public static final class Recorder implements Closeable {
+        private final Path file;
+        private Path tmp;
+        private DataOutputStream out;
+        private IOException failure;
+        private boolean done;
+
+        private Recorder(Path file, String className, String key) {
+            this.file = file;
+            try {
+                Files.createDirectories(file.getParent());
+                tmp = Files.createTempFile(file.getParent(), className, ".tmp");
+                out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+                out.writeInt(MAGIC);
+                out.writeUTF(key);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /** The sink with every artifact opened on it also written into this entry. */
+        public ArtifactSink tee(ArtifactSink sink) {
+            return new ArtifactSink() {
+                @Override
+                public Writer open(String relativePath) throws IOException {
+                    Writer artifact = sink.open(relativePath);
+                    Writer copy = Writer.nullWriter();
+                    if (failure == null) {
+                        try {
+                            copy = file(relativePath);
+                        } catch (IOException e) {
+                            failure = e;
+                        }
+                    }
+                    Writer entry = copy;
+                    return new Writer() {
+                        @Override
+                        public void write(char[] buffer, int offset, int length) throws IOException {
+                            artifact.write(buffer, offset, length);
+                            if (failure == null) {
+                                try {
+                                    entry.write(buffer, offset, length);
+                                } catch (IOException e) {
+                                    failure = e;
+                                }
+                            }
+                        }
+
+                        @Override
+                        public void flush() throws IOException {
+                            artifact.flush();
+                        }
+
+                        @Override
+                        public void close() throws IOException {
+                            try {
+                                artifact.close();
+                            } finally {
+                                try {
+                                    entry.close();
+                                } catch (IOException e) {
+                                    if (failure == null) failure = e;
+                                }
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public String location(String relativePath) {
+                    return sink.location(relativePath);
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        /** Streams one file into the entry; it is complete once the Writer is closed. */
+        public Writer file(String relativePath) throws IOException {
+            if (failure != null) throw failure;
+            out.writeBoolean(true);
+            out.writeUTF(relativePath);
+            return new OutputStreamWriter(new ChunkedOutput(out), StandardCharsets.UTF_8);
+        }
+
+        public void commit(String report) throws IOException {
+            commit(new Entry(report));
+        }
+
+        /** Stores the report, blocks and records of the entry after the files teed in so far. */
+        public void commit(Entry entry) throws IOException {
+            if (failure != null) throw failure;
+            out.writeBoolean(false);
+            writeText(out, entry.report);
+            out.writeInt(entry.blocks.size());
+            for (byte[] block : entry.blocks) {
+                out.writeInt(block.length);
+                out.write(block);
+            }
+            out.writeInt(entry.records.size());
+            for (String record : entry.records) writeText(out, record);
+            out.close();
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (done) return;
+            done = true;
+            try {
+                if (out != null) out.close();
+            } finally {
+                if (tmp != null) Files.deleteIfExists(tmp);
+            }
+        }
+    }
+
+    /** Length-prefixed chunks of at most CHUNK bytes, ended by a zero length; closing leaves the stream open. */
+    private static final class ChunkedOutput extends OutputStream {
+        private final DataOutputStream out;
+        private final byte[] chunk = new byte[CHUNK];
+        private int size;
+
+        ChunkedOutput(DataOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (size == chunk.length) writeChunk();
+            chunk[size++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                if (size == chunk.length) writeChunk();
+                int n = Math.min(length, chunk.length - size);
+                System.arraycopy(bytes, offset, chunk, size, n);
+                size += n;
+                offset += n;
+                length -= n;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeChunk();
+            out.writeInt(0);
+        }
+
+        private void writeChunk() throws IOException {
+            if (size == 0) return;
+            out.writeInt(size);
+            out.write(chunk, 0, size);
+            size = 0;
+        }
+    }
+
+    /** Reads what a ChunkedOutput wrote, up to the zero length; closing leaves the stream open. */
+    private static final class ChunkedInput extends InputStream {
+        private final DataInputStream in;
+        private int remaining;
+        private boolean ended;
+
+        ChunkedInput(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!next()) return -1;
+            remaining--;
+            return in.readUnsignedByte();
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) return 0;
+            if (!next()) return -1;
+            int n = in.read(bytes, offset, Math.min(length, remaining));
+            if (n < 0) throw new EOFException();
+            remaining -= n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        private boolean next() throws IOException {
+            if (remaining == 0 && !ended) {
+                remaining = in.readInt();
+                ended = remaining == 0;
+            }
+            return !ended;
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package org.example.analyzer;
+
+import org.example.analyzer.dependency.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sootup.core.graph.StmtGraph;
+import sootup.core.model.Body;
+import sootup.java.core.JavaSootClass;
+import sootup.java.core.JavaSootMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AnalysisPipeline - runs the DEF/USE + dependency analysis of {@link Main} as a staged pipeline.
+ *
+ * Stages, each connected to the next one by a bounded queue:
+ *   1. discovery - feeds the discovered class names
+ *   2. resolve   - AnalysisSession.getSootClass, emits one task per method
+ *   3. load      - AnalysisSession.loadBody (loader workers)
+ *   4. analyze   - DefUseAnalyzer + DependencyAnalyzer (analysis workers)
+ *   5. store     - writes the cache entries of printed classes (with an AnalysisCache)
+ *
+ * Every class header and every method gets a sequence number in the resolve stage.
+ * Reports are printed strictly in sequence order, so the output is identical to a
+ * sequential run no matter how the workers are scheduled. The number of sequence
+ * numbers in flight is bounded as well, which keeps bodies and pending reports
+ * from piling up on the heap when one method is much slower than the rest. Bodies are
+ * loaded with loadBody, which the session does not keep, and dropped once analyzed,
+ * so none outlives its analysis.
+ *
+ * With an AnalysisCache the resolve stage looks every class up by the hash of its class
+ * file first: a hit prints the stored report, appends the stored blocks and writes the
+ * stored records, and skips resolving, loading and analyzing the class; the entry of a
+ * miss is handed to the store stage once all of its methods have been printed, so the
+ * thread that puts the reports in order never waits on the cache. Which of those outputs the
+ * run produces is part of the key, so an entry always holds everything a hit needs.
+ *
+ * With a ResultFileWriter every analyzed method is also encoded in its worker and the
+ * blocks are appended in sequence order, so the file does not depend on the scheduling
+ * either.
+ *
+ * With a JsonLinesWriter every analyzed method becomes one JSON record (see JsonRecord),
+ * written in sequence order, and quiet mode prints no per-method text at all. Neither
+ * builds the text reports unless the logger is at debug level, where they go instead
+ * of to out; errors still go to err.
+ */
+public class AnalysisPipeline {
+    private static final Logger log = LoggerFactory.getLogger(AnalysisPipeline.class);
+
+    private final AnalysisSession session;
+    private final int analysisWorkers;
+    private final int loadWorkers;
+    private final int queueCapacity;
+    private final PrintStream out;
+    private final PrintStream err;
+    private AnalysisOptions options = new AnalysisOptions();
+    private AnalysisCache cache;
+    private ResultFileWriter results;
+    private JsonLinesWriter jsonLines;
+    private boolean quiet;
+
+    public AnalysisPipeline(AnalysisSession session, int workers) {
+        this(session, workers, Math.max(1, workers / 2), workers * 2, System.out, System.err);
+    }
+
+    public AnalysisPipeline(AnalysisSession session, int analysisWorkers, int loadWorkers, int queueCapacity,
+                            PrintStream out, PrintStream err) {
+        if (analysisWorkers < 1 || loadWorkers < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("worker counts and queue capacity must be positive");
+        }
+        this.session = session;
+        this.analysisWorkers = analysisWorkers;
+        this.loadWorkers = loadWorkers;
+        this.queueCapacity = queueCapacity;
+        this.out = out;
+        this.err = err;
+    }
+
+    /** Options passed to every DependencyAnalyzer; set before run(). */
+    public AnalysisPipeline withOptions(AnalysisOptions options) {
+        this.options = options;
+        return this;
+    }
+
+    /** Reuses and stores the per-class reports, blocks and records in the cache; none by default. */
+    public AnalysisPipeline withCache(AnalysisCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /** Appends the results of every analyzed method to the writer; the caller closes it. */
+    public AnalysisPipeline withResultFile(ResultFileWriter results) {
+        this.results = results;
+        return this;
+    }
+
+    /** Writes one JSON record per analyzed method instead of the text report; the caller closes it. */
+    public AnalysisPipeline withJsonLines(JsonLinesWriter jsonLines) {
+        this.jsonLines = jsonLines;
+        return this;
+    }
+
+    /** No text report per class and method; errors are still printed. */
+    public AnalysisPipeline withQuiet(boolean quiet) {
+        this.quiet = quiet;
+        return this;
+    }
+
+    private boolean printsText() {
+        return jsonLines == null && !quiet;
+    }
+
+    private boolean buildsText() {
+        return printsText() || log.isDebugEnabled();
+    }
+
+    public void run(List<String> classNames) throws InterruptedException {
+        BlockingQueue<String> classQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<MethodTask> methodQueue = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<MethodTask> bodyQueue = new ArrayBlockingQueue<>(queueCapacity);
+
+        BlockingQueue<Recording> storeQueue = (cache != null) ? new ArrayBlockingQueue<>(queueCapacity) : null;
+        Recording endOfRecordings = new Recording(-1, null, null);
+
+        // every queued or running task holds one slot, plus one per worker for the report being built
+        ReorderBuffer reports = new ReorderBuffer(3 * queueCapacity + loadWorkers + analysisWorkers + 2, storeQueue);
+        AtomicInteger activeLoaders = new AtomicInteger(loadWorkers);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3 + loadWorkers + analysisWorkers);
+        // stages are collected as they finish: the first one that fails fails the run, the
+        // others would wait forever on the queues or the reorder window it no longer serves
+        CompletionService<Void> completion = new ExecutorCompletionService<>(executor);
+        List<Future<Void>> stages = new ArrayList<>();
+        try {
+            stages.add(completion.submit(() -> discover(classNames, classQueue)));
+            stages.add(completion.submit(() -> resolve(classQueue, methodQueue, reports)));
+            for (int i = 0; i < loadWorkers; i++) {
+                stages.add(completion.submit(() -> load(methodQueue, bodyQueue, reports, activeLoaders)));
+            }
+            for (int i = 0; i < analysisWorkers; i++) {
+                stages.add(completion.submit(() -> analyze(bodyQueue, reports)));
+            }
+            if (storeQueue != null) {
+                stages.add(completion.submit(() -> store(storeQueue, endOfRecordings)));
+            }
+
+            for (int finished = 0; finished < stages.size(); finished++) {
+                // the store stage only ends early by failing; once the others are done, so is printing
+                if (storeQueue != null && finished == stages.size() - 1) storeQueue.put(endOfRecordings);
+                try {
+                    completion.take().get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Analysis pipeline stage failed", e.getCause());
+                }
+            }
+        } finally {
+            stages.forEach(stage -> stage.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    // ---------- STAGES ----------
+
+    private Void discover(List<String> classNames, BlockingQueue<String> classQueue) throws InterruptedException {
+        for (String className : classNames) {
+            classQueue.put(className);
+        }
+        classQueue.put(END_OF_CLASSES);
+        return null;
+    }
+
+    private Void resolve(BlockingQueue<String> classQueue, BlockingQueue<MethodTask> methodQueue,
+                         ReorderBuffer reports) throws InterruptedException {
+        while (true) {
+            String className = classQueue.take();
+            if (className == END_OF_CLASSES) break;
+
+            long headerSeq = reports.reserve();
+            String key = cacheKey(className);
+            if (key != null) {
+                Optional<AnalysisCache.Entry> cached = cache.lookup(CACHE_TOOL, className, key);
+                if (cached.isPresent()) {
+                    AnalysisCache.Entry entry = cached.get();
+                    String text = entry.getReport().isEmpty() ? null : entry.getReport();
+                    reports.complete(headerSeq, text, null, entry.getBlocks(), entry.getRecords());
+                    continue;
+                }
+            }
+
+            Optional<JavaSootClass> opt;
+            try {
+                opt = session.getSootClass(className);
+            } catch (RuntimeException e) {
+                reports.complete(headerSeq, null, "Failed to resolve class " + className + ": " + e + "\n");
+                continue;
+            }
+            if (opt.isEmpty()) {
+                reports.complete(headerSeq, null, "Class not found in view: " + className + "\n");
+                continue;
+            }
+
+            // getMethods() is a hash set; sort by signature so the report order is stable across runs
+            List<JavaSootMethod> methods = new ArrayList<>(opt.get().getMethods());
+            methods.sort(Comparator.comparing(m -> m.getSignature().toString()));
+            // only this stage reserves, so the methods get the sequence numbers right after the header
+            if (key != null) reports.record(headerSeq, headerSeq + methods.size(), className, key);
+            reports.complete(headerSeq, "\n================ CLASS: " + className + " ================\n", null);
+            for (JavaSootMethod m : methods) {
+                methodQueue.put(new MethodTask(reports.reserve(), m));
+            }
+        }
+        for (int i = 0; i < loadWorkers; i++) {
+            methodQueue.put(MethodTask.END);
+        }
+        return null;
+    }
+
+    private Void load(BlockingQueue<MethodTask> methodQueue, BlockingQueue<MethodTask> bodyQueue,
+                      ReorderBuffer reports, AtomicInteger activeLoaders) throws InterruptedException {
+        while (true) {
+            MethodTask task = methodQueue.take();
+            if (task == MethodTask.END) break;
+
+            try {
+                task.body = session.loadBody(task.method);
+            } catch (RuntimeException e) {
+                reports.complete(task.seq, methodHeader(task.method),
+                        "  ! Failed to load body of " + task.method.getName() + ": " + e + "\n");
+                continue;
+            }
+            if (task.body == null) {
+                reports.complete(task.seq, methodHeader(task.method) + "  <no body>\n", null);
+                continue;
+            }
+            bodyQueue.put(task);
+        }
+        // the last loader to finish tells the analysis workers that no more bodies are coming
+        if (activeLoaders.decrementAndGet() == 0) {
+            for (int i = 0; i < analysisWorkers; i++) {
+                bodyQueue.put(MethodTask.END);
+            }
+        }
+        return null;
+    }
+
+    private Void analyze(BlockingQueue<MethodTask> bodyQueue, ReorderBuffer reports) throws InterruptedException {
+        while (true) {
+            MethodTask task = bodyQueue.take();
+            if (task == MethodTask.END) break;
+
+            // the text report is only built if it is printed or logged
+            ByteArrayOutputStream buffer = null;
+            PrintStream report = null;
+            if (buildsText()) {
+                buffer = new ByteArrayOutputStream();
+                report = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+            }
+            String error = null;
+            try {
+                analyzeMethod(task, report);
+            } catch (RuntimeException | StackOverflowError e) {
+                error = "  ! Analysis failed for " + task.method.getName() + ": " + e + "\n";
+            } finally {
+                task.body = null;
+            }
+            String text = null;
+            if (report != null) {
+                report.flush();
+                text = buffer.toString(StandardCharsets.UTF_8);
+            }
+            reports.complete(task.seq, text, error,
+                    task.block != null ? List.of(task.block) : List.of(),
+                    task.record != null ? List.of(task.record) : List.of());
+        }
+        return null;
+    }
+
+    private Void store(BlockingQueue<Recording> storeQueue, Recording end) throws InterruptedException {
+        Recording recording;
+        while ((recording = storeQueue.take()) != end) {
+            recording.store();
+        }
+        return null;
+    }
+
+    /**
+     * Prints the report of the method if report is not null, and sets the ResultFile block
+     * and the JSON record of the task if those are being written.
+     */
+    private void analyzeMethod(MethodTask task, PrintStream report) {
+        JavaSootMethod m = task.method;
+        StmtGraph<?> cfg = task.body.getStmtGraph();
+
+        if (report != null) {
+            report.print(methodHeader(m));
+            report.println("\n=== Analyzing Dependencies for: " + m.getName() + " ===");
+        }
+
+        // Step 1: Analyze DEF/USE sets
+        DefUseAnalyzer defUseAnalyzer = new DefUseAnalyzer(cfg);
+        if (report != null) defUseAnalyzer.printDefUseSets(report);
+
+        // Step 2: Create dependency analyzer
+        DependencyAnalyzer depAnalyzer = new DependencyAnalyzer(cfg, defUseAnalyzer, options);
+        DependencyResult dependencies = depAnalyzer.analyze();
+
+        // Step 3: Print results
+        if (report != null) {
+            dependencies.printResults(report);
+            depAnalyzer.printReachingDefinitions(report);
+            if (options.getGranularity() == AnalysisOptions.Granularity.BASIC_BLOCK) {
+                BasicBlocks blocks = depAnalyzer.getBasicBlocks();
+                report.println("\nBasic blocks: " + blocks.size() + " for " + blocks.getStatementCount()
+                        + " statements (largest " + blocks.getMaxBlockSize() + ", "
+                        + String.format(Locale.ROOT, "%.2f", blocks.getCompressionRatio()) + " per block)");
+            }
+        }
+        String signature = m.getSignature().toString();
+        if (results != null) task.block = ResultFileWriter.encode(signature, depAnalyzer, dependencies);
+        if (jsonLines != null) {
+            task.record = JsonRecord.encode(m.getDeclaringClassType().getFullyQualifiedName(), m.getName(),
+                    signature, defUseAnalyzer, dependencies);
+        }
+    }
+
+    /** Null without a cache or if the class file cannot be read; the class is analyzed then. */
+    private String cacheKey(String className) {
+        if (cache == null) return null;
+        String outputs = (buildsText() ? " text" : "") + (results != null ? " results" : "")
+                + (jsonLines != null ? " jsonl" : "");
+        return AnalysisCache.classKey(session, CACHE_TOOL, options + outputs, className);
+    }
+
+    private static String methodHeader(JavaSootMethod m) {
+        return "\n--- METHOD: " + m.getName() + " ---\n";
+    }
+
+    // ---------- PLUMBING ----------
+
+    static final String CACHE_TOOL = "dependencies";
+
+    private static final String END_OF_CLASSES = new String("<end of classes>");
+
+    private static final class MethodTask {
+        static final MethodTask END = new MethodTask(-1, null);
+
+        final long seq;
+        final JavaSootMethod method;
+        Body body;
+        byte[] block;
+        String record;
+
+        MethodTask(long seq, JavaSootMethod method) {
+            this.seq = seq;
+            this.method = method;
+        }
+    }
+
+    /**
+     * Hands out sequence numbers and prints completed reports, with their blocks and
+     * records, in sequence order.
+     * reserve() blocks once {@code window} sequence numbers are outstanding. Without text
+     * output the reports are logged at debug level instead of printed. A recorded
+     * range of sequence numbers is collected while it is printed and then queued for the
+     * store stage; the queue is bounded, so a slow cache throttles the printing instead of
+     * collecting the classes on the heap.
+     *
+     * A report that cannot be printed still counts as printed, so the reports after it and
+     * the window are not held up; complete() rethrows the first such failure once the ready
+     * reports are done, which fails the calling stage and with it the run.
+     */
+    private final class ReorderBuffer {
+        private final Semaphore window;
+        private final Map<Long, Object[]> pending = new HashMap<>();
+        private final Map<Long, Recording> recordings = new HashMap<>();
+        private final BlockingQueue<Recording> storeQueue;
+        private Recording recording;
+        private UncheckedIOException outputFailure;
+        private long nextToReserve;
+        private long nextToPrint;
+
+        ReorderBuffer(int window, BlockingQueue<Recording> storeQueue) {
+            this.window = new Semaphore(window);
+            this.storeQueue = storeQueue;
+        }
+
+        long reserve() throws InterruptedException {
+            window.acquire();
+            synchronized (this) {
+                return nextToReserve++;
+            }
+        }
+
+        /** Stores the reports of sequence numbers first..last as the cache entry of the class. */
+        synchronized void record(long first, long last, String className, String key) {
+            recordings.put(first, new Recording(last, className, key));
+        }
+
+        void complete(long seq, String text, String error) {
+            complete(seq, text, error, List.of(), List.of());
+        }
+
+        synchronized void complete(long seq, String text, String error, List<byte[]> blocks, List<String> records) {
+            pending.put(seq, new Object[]{text, error, blocks, records});
+            Throwable failure = null;
+            Object[] ready;
+            while ((ready = pending.remove(nextToPrint)) != null) {
+                try {
+                    print(ready);
+                } catch (RuntimeException | Error e) {
+                    if (failure == null) failure = e;
+                    // a class with a report missing is not stored in the cache
+                    if (recording != null) recording.failed = true;
+                } finally {
+                    nextToPrint++;
+                    window.release();
+                }
+            }
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw (RuntimeException) failure;
+            if (outputFailure != null) throw outputFailure;
+        }
+
+        /** A failed write is kept and fails every later complete(); no more blocks are written then. */
+        private void append(byte[] block) {
+            try {
+                results.append(block);
+            } catch (IOException e) {
+                outputFailure = new UncheckedIOException("Failed to write the result file", e);
+            }
+        }
+
+        /** Like append(): JsonLinesWriter.write rethrows the failure of its writer thread. */
+        private void writeRecord(String record) {
+            try {
+                jsonLines.write(record);
+            } catch (IOException e) {
+                outputFailure = new UncheckedIOException("Failed to write the JSON Lines output", e);
+            }
+        }
+
+        private void handOff(Recording finished) {
+            try {
+                storeQueue.put(finished);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing the cache entry of " + finished.className, e);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void print(Object[] ready) {
+            Recording started = recordings.remove(nextToPrint);
+            if (started != null) recording = started;
+            if (ready[0] != null) {
+                if (printsText()) out.print(ready[0]);
+                else log.debug("{}", ((String) ready[0]).strip());
+            }
+            if (ready[1] != null) err.print(ready[1]);
+            List<byte[]> blocks = (List<byte[]>) ready[2];
+            List<String> records = (List<String>) ready[3];
+            for (byte[] block : blocks) {
+                if (outputFailure == null) append(block);
+            }
+            for (String record : records) {
+                if (outputFailure == null) writeRecord(record);
+            }
+            if (recording != null) {
+                if (ready[0] != null) recording.report.append(ready[0]);
+                recording.blocks.addAll(blocks);
+                recording.records.addAll(records);
+                if (ready[1] != null) recording.failed = true;
+                if (nextToPrint == recording.last) {
+                    Recording finished = recording;
+                    recording = null;
+                    if (!finished.failed) handOff(finished);
+                }
+            }
+        }
+    }
+
+    private final class Recording {
+        final long last;
+        final String className;
+        final String key;
+        final StringBuilder report = new StringBuilder();
+        final List<byte[]> blocks = new ArrayList<>();
+        final List<String> records = new ArrayList<>();
+        boolean failed;
+
+        Recording(long last, String className, String key) {
+            this.last = last;
+            this.className = className;
+            this.key = key;
+        }
+
+        /** Runs on the store stage; classes with a failed method never get there, so they are analyzed again next time. */
+        void store() {
+            try {
+                AnalysisCache.Entry entry = new AnalysisCache.Entry(report.toString());
+                blocks.forEach(entry::addBlock);
+                records.forEach(entry::addRecord);
+                cache.store(CACHE_TOOL, className, key, entry);
+            } catch (IOException e) {
+                err.print("  ! Failed to store the analysis cache entry of " + className + ": " + e + "\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.analyzer;
+
+import sootup.core.inputlocation.AnalysisInputLocation;
+import sootup.core.model.Body;
+import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.java.core.JavaSootClass;
+import sootup.java.core.JavaSootMethod;
+import sootup.java.core.views.JavaView;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * AnalysisSession - one JavaView per classpath, shared by every entry point (Main, CFG,
+ * IRGenerator, Ir, CFGGenerator) and by the tests.
+ *
+ * Sessions are interned by their classpath, so asking for the same classpath twice in one
+ * JVM returns the same session and each class file is parsed only once, until close()
+ * drops the session. Resolved classes are cached; all methods are safe to call from
+ * several threads.
+ *
+ * getBody returns the body SootUp memoizes in the method, so it stays reachable for as
+ * long as the session: every call sees the same Stmt objects. loadBody builds a body
+ * nothing else refers to, for callers that look at each method once (AnalysisPipeline);
+ * it is garbage as soon as the caller is done with it.
+ */
+public class AnalysisSession implements AutoCloseable {
+    private static final Map<List<String>, AnalysisSession> SESSIONS = new ConcurrentHashMap<>();
+
+    private final List<String> classPath;
+    private final JavaView view;
+    private final Map<String, Optional<JavaSootClass>> classes = new ConcurrentHashMap<>();
+
+    private AnalysisSession(List<String> classPath) {
+        this.classPath = classPath;
+        List<AnalysisInputLocation> inputLocations = new ArrayList<>();
+        for (String entry : classPath) {
+            inputLocations.add(new JavaClassPathAnalysisInputLocation(entry));
+        }
+        this.view = new JavaView(inputLocations);
+    }
+
+    /** Returns the shared session for the given classpath entries, creating it on first use. */
+    public static AnalysisSession forClassPath(String... classPath) {
+        if (classPath.length == 0) {
+            throw new IllegalArgumentException("classpath must not be empty");
+        }
+        List<String> key = Arrays.stream(classPath)
+                .map(entry -> Paths.get(entry).toAbsolutePath().normalize().toString())
+                .collect(Collectors.toUnmodifiableList());
+        return SESSIONS.computeIfAbsent(key, AnalysisSession::new);
+    }
+
+    public JavaView getView() {
+        return view;
+    }
+
+    public List<String> getClassPath() {
+        return classPath;
+    }
+
+    public Optional<JavaSootClass> getSootClass(String className) {
+        return classes.computeIfAbsent(className,
+                name -> view.getClass(view.getIdentifierFactory().getClassType(name)));
+    }
+
+    /** Returns the body of the method, or null if it has none (abstract / native); the same Body on every call. */
+    public Body getBody(JavaSootMethod method) {
+        return method.hasBody() ? method.getBody() : null;
+    }
+
+    /** A new Body of the method that is not kept anywhere, or null if it has none. */
+    public Body loadBody(JavaSootMethod method) {
+        if (!method.hasBody()) return null;
+        try {
+            return method.getBodySource().resolveBody(method.getModifiers());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the body of " + method.getSignature(), e);
+        }
+    }
+
+    /**
+     * Forgets the session: forClassPath builds a new one for the classpath, and the classes
+     * and bodies of this one can be collected once its callers drop it.
+     */
+    @Override
+    public void close() {
+        SESSIONS.remove(classPath, this);
+        classes.clear();
+    }
+
+    /**
+     * The bytes of the class file of the class, from the first classpath entry (directory or
+     * jar) that has it; empty if none does.
+     */
+    public Optional<byte[]> readClassFile(String className) throws IOException {
+        String relative = className.replace('.', '/') + ".class";
+        for (String entry : classPath) {
+            Path root = Paths.get(entry);
+            if (Files.isDirectory(root)) {
+                Path file = root.resolve(relative);
+                if (Files.isRegularFile(file)) return Optional.of(Files.readAllBytes(file));
+            } else if (Files.isRegularFile(root)) {
+                try (ZipFile jar = new ZipFile(root.toFile())) {
+                    ZipEntry zipEntry = jar.getEntry(relative);
+                    if (zipEntry != null) {
+                        try (InputStream in = jar.getInputStream(zipEntry)) {
+                            return Optional.of(in.readAllBytes());
+                        }
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the top-level classes under the package prefix in the directory entries of the
+     * classpath (inner classes are skipped).
+     */
+    public List<String> findClasses(String packagePrefix) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        String pkgPath = packagePrefix.replace('.', '/');
+
+        for (String entry : classPath) {
+            Path root = Paths.get(entry);
+            if (!Files.isDirectory(root)) continue;
+
+            Path start = root.resolve(pkgPath);
+            if (!Files.exists(start)) continue;
+
+            try (Stream<Path> stream = Files.walk(start)) {
+                stream.filter(p -> p.toString().endsWith(".class"))
+                        .filter(p -> !p.getFileName().toString().contains("$")) // skip inner classes
+                        .map(root::relativize)
+                        .map(p -> p.toString().replace('/', '.').replace('\\', '.').replaceAll("\\.class$", ""))
+                        .filter(name -> !classNames.contains(name))
+                        .forEach(classNames::add);
+            }
+        }
+        return classNames;
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.analyzer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * ArtifactArchive - reads single artifacts back from an archive written by ArtifactSink.Zip.
+ *
+ * Only the central directory at the end of the archive is read on open; an artifact is
+ * inflated when it is asked for, so extracting one method does not touch the others.
+ */
+public class ArtifactArchive implements Closeable {
+    private final ZipFile zip;
+
+    public ArtifactArchive(Path archive) throws IOException {
+        this.zip = new ZipFile(archive.toFile(), StandardCharsets.UTF_8);
+    }
+
+    /** Artifact paths in the order they were written. */
+    public List<String> getNames() {
+        List<String> names = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) names.add(entries.nextElement().getName());
+        return names;
+    }
+
+    public boolean contains(String relativePath) {
+        return zip.getEntry(relativePath) != null;
+    }
+
+    /** The artifact stored under the path, e.g. {@code org_example_Foo/bar.dot}. */
+    public Optional<String> read(String relativePath) throws IOException {
+        ZipEntry entry = zip.getEntry(relativePath);
+        if (entry == null) return Optional.empty();
+        try (InputStream in = zip.getInputStream(entry)) {
+            return Optional.of(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /** The artifact of a method as CFG / IRGenerator name it (the first of several overloads). */
+    public Optional<String> read(String className, String methodName, String extension) throws IOException {
+        return read(ArtifactSink.fileName(className, methodName, extension, new HashSet<>()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.analyzer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ArtifactSink - where CFG and IRGenerator put their per-method .dot / .jimple files.
+ *
+ * Artifacts are named by a relative path, {@code <class>/<method>.<extension>} (see
+ * fileName). A Directory sink writes each one as a file below its root, as the tools
+ * always did; a Zip sink streams them all through one buffered stream into a single
+ * compressed archive, whose central directory (written by close()) is the index
+ * ArtifactArchive reads a single artifact back from.
+ */
+public interface ArtifactSink extends Closeable {
+
+    /** Streams one artifact; it is complete once the Writer is closed. */
+    Writer open(String relativePath) throws IOException;
+
+    default void write(String relativePath, String content) throws IOException {
+        try (Writer writer = open(relativePath)) {
+            writer.write(content);
+        }
+    }
+
+    /** Where the artifact ends up, for the console report. */
+    String location(String relativePath);
+
+    /** Sink for the {@code --zip=<file>} argument if there is one, else a directory below root. */
+    static ArtifactSink forArguments(String zipArgument, Path root) throws IOException {
+        return zipArgument != null ? new Zip(Paths.get(zipArgument)) : new Directory(root);
+    }
+
+    /**
+     * The artifact path of a method: class and method name with unsafe characters replaced.
+     * Overloads would share a name, so a name already in {@code taken} gets a _2, _3, ... suffix.
+     */
+    static String fileName(String className, String methodName, String extension, Set<String> taken) {
+        String safeClass = className.replace('.', '_');
+        String safeMethod = methodName.replaceAll("[^a-zA-Z0-9_]", "_");
+        String name = safeClass + "/" + safeMethod + "." + extension;
+        for (int k = 2; !taken.add(name); k++) {
+            name = safeClass + "/" + safeMethod + "_" + k + "." + extension;
+        }
+        return name;
+    }
+
+    /** One file per artifact below the root directory. */
+    final class Directory implements ArtifactSink {
+        private final Path root;
+
+        public Directory(Path root) throws IOException {
+            this.root = root;
+            Files.createDirectories(root);
+        }
+
+        @Override
+        public Writer open(String relativePath) throws IOException {
+            Path outFile = root.resolve(relativePath);
+            Files.createDirectories(outFile.getParent());
+            return Files.newBufferedWriter(outFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public String location(String relativePath) {
+            return root.resolve(relativePath).toAbsolutePath().toString();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * All artifacts in one zip archive. fileName keeps the names of one run distinct; a
+     * name that does come twice is skipped instead of failing the archive.
+     */
+    final class Zip implements ArtifactSink {
+        private final Path archive;
+        private final ZipOutputStream zip;
+        private final Set<String> written = new HashSet<>();
+
+        public Zip(Path archive) throws IOException {
+            this.archive = archive;
+            Path parent = archive.toAbsolutePath().getParent();
+            if (parent != null) Files.createDirectories(parent);
+            this.zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archive), 1 << 16),
+                    StandardCharsets.UTF_8);
+        }
+
+        /** One artifact at a time: the entry is open until the returned Writer is closed. */
+        @Override
+        public synchronized Writer open(String relativePath) throws IOException {
+            if (!written.add(relativePath)) return Writer.nullWriter();
+            zip.putNextEntry(new ZipEntry(relativePath));
+            return new FilterWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                    zip.closeEntry();
+                }
+            };
+        }
+
+        @Override
+        public String location(String relativePath) {
+            return archive.toAbsolutePath() + "!/" + relativePath;
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            zip.close();
+        }
+    }
+}
@@ -1,31 +1,49 @@
 package org.example.analyzer;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sootup.core.graph.StmtGraph;
-import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.jimple.common.stmt.Stmt;
-import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.core.model.Body;
 import sootup.java.core.JavaSootClass;
 import sootup.java.core.JavaSootMethod;
-import sootup.java.core.views.JavaView;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class CFG {
+    static final String CACHE_TOOL = "cfg";
+    private static final Logger log = LoggerFactory.getLogger(CFG.class);
 
     public static void main(String[] args) throws IOException {
-        String classPath = (args.length > 0) ? args[0] : "target/classes";
-        String packagePrefix = (args.length > 1) ? args[1] : "org.example"; // scan everything under org.example
+        List<String> positional = new ArrayList<>();
+        boolean useCache = true;
+        String zip = null;
+        GraphWriter.Format format = GraphWriter.Format.DOT;
+        GraphWriter.Clustering clustering = GraphWriter.Clustering.NONE;
+        boolean quiet = false;
+        for (String arg : args) {
+            if (arg.equals("--no-cache")) useCache = false;
+            else if (arg.startsWith("--zip=")) zip = arg.substring("--zip=".length());
+            else if (arg.startsWith("--format=")) {
+                format = GraphWriter.Format.valueOf(arg.substring("--format=".length()).toUpperCase(Locale.ROOT));
+            }
+            else if (arg.equals("--clusters=blocks")) clustering = GraphWriter.Clustering.BASIC_BLOCKS;
+            else if (arg.equals("--clusters=loops")) clustering = GraphWriter.Clustering.LOOPS;
+            else if (arg.equals("--quiet")) quiet = true;
+            else positional.add(arg);
+        }
+        String classPath = (positional.size() > 0) ? positional.get(0) : "target/classes";
+        String packagePrefix = (positional.size() > 1) ? positional.get(1) : "org.example"; // scan everything under org.example
 
-        List<AnalysisInputLocation> inputLocations = List.of(
-                new JavaClassPathAnalysisInputLocation(classPath));
-        JavaView view = new JavaView(inputLocations);
+        AnalysisSession session = AnalysisSession.forClassPath(classPath);
 
-        List<String> classNames = findClasses(classPath, packagePrefix);
+        List<String> classNames = session.findClasses(packagePrefix);
 
         if (classNames.isEmpty()) {
             System.err.println("No classes found under package: " + packagePrefix);
@@ -35,68 +53,92 @@ public class CFG {
         System.out.println("Discovered classes:");
         classNames.forEach(c -> System.out.println("  • " + c));
 
-        Path outRoot = Paths.get("target/cfg");
-        Files.createDirectories(outRoot);
-
-        for (String className : classNames) {
-            Optional<JavaSootClass> opt = view.getClass(view.getIdentifierFactory().getClassType(className));
-            if (opt.isEmpty()) {
-                System.err.println("Class not found in view: " + className);
-                continue;
-            }
-            JavaSootClass sc = opt.get();
-            System.out.println("\n================ CLASS: " + className + " ================");
+        // one file per method below target/cfg, or everything in one archive with --zip=<file>
+        ArtifactSink sink = ArtifactSink.forArguments(zip, Paths.get("target/cfg"));
+        String configuration = sink.location("") + " " + format + " " + clustering + (quiet ? " quiet" : "");
+        // classes whose class file is unchanged since the last run are printed and written from the cache
+        AnalysisCache cache = useCache ? new AnalysisCache(AnalysisCache.DEFAULT_DIRECTORY) : null;
+
+        try (sink) {
+            for (String className : classNames) {
+                String key = (cache != null)
+                        ? AnalysisCache.classKey(session, CACHE_TOOL, configuration, className) : null;
+                if (key != null) {
+                    Optional<AnalysisCache.Entry> cached = cache.lookup(CACHE_TOOL, className, key);
+                    if (cached.isPresent()) {
+                        cached.get().writeFiles(sink);
+                        System.out.print(cached.get().getReport());
+                        continue;
+                    }
+                }
 
-            for (JavaSootMethod m : sc.getMethods()) {
-                System.out.println("\n--- METHOD: " + m.getName() + " ---");
-                if (!m.hasBody()) {
-                    System.out.println("  <no body>");
+                Optional<JavaSootClass> opt = session.getSootClass(className);
+                if (opt.isEmpty()) {
+                    System.err.println("Class not found in view: " + className);
                     continue;
                 }
-                var cfg = m.getBody().getStmtGraph();
-
-                // Print CFG in text format
-                printTextCFG(cfg);
-
-                // Also generate DOT format
-                String dot = generateDOTCFG(cfg, m.getName());
-
-                // Write to file: target/cfg/<className>/<methodName>.dot
-                String safeClass = className.replace('.', '_');
-                String safeMethod = m.getName().replaceAll("[^a-zA-Z0-9_]", "_");
-                Path classDir = outRoot.resolve(safeClass);
-                Files.createDirectories(classDir);
-                Path outFile = classDir.resolve(safeMethod + ".dot");
-                try {
-                    Files.writeString(outFile, dot, StandardCharsets.UTF_8,
-                            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                    System.out.println("  -> Wrote CFG to: " + outFile.toAbsolutePath());
-                } catch (IOException e) {
-                    System.err.println("  ! Failed to write CFG: " + e.getMessage());
+                JavaSootClass sc = opt.get();
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                PrintStream report = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+                // the graphs are teed into the cache entry as they are streamed, not kept in memory
+                AnalysisCache.Recorder recorder = (key != null) ? cache.record(CACHE_TOOL, className, key) : null;
+                ArtifactSink out = (recorder != null) ? recorder.tee(sink) : sink;
+                Set<String> taken = new HashSet<>();
+                boolean failed = false;
+                report.println("\n================ CLASS: " + className + " ================");
+
+                try (recorder) {
+                    for (JavaSootMethod m : sc.getMethods()) {
+                        report.println("\n--- METHOD: " + m.getName() + " ---");
+                        Body body = session.getBody(m);
+                        if (body == null) {
+                            report.println("  <no body>");
+                            continue;
+                        }
+                        var cfg = body.getStmtGraph();
+
+                        // Print CFG in text format; with --quiet only at debug level, where it is built only if enabled
+                        if (!quiet) {
+                            printTextCFG(cfg, report);
+                        } else if (log.isDebugEnabled()) {
+                            ByteArrayOutputStream textCfg = new ByteArrayOutputStream();
+                            PrintStream textOut = new PrintStream(textCfg, true, StandardCharsets.UTF_8);
+                            printTextCFG(cfg, textOut);
+                            log.debug("CFG of {}.{}:\n{}", className, m.getName(), textCfg.toString(StandardCharsets.UTF_8).stripTrailing());
+                        }
+
+                        // Stream the graph to <className>/<methodName>.dot below target/cfg or into the archive
+                        String name = ArtifactSink.fileName(className, m.getName(), format.getExtension(), taken);
+                        try {
+                            try (Writer writer = out.open(name)) {
+                                GraphWriter.create(format, writer).write(cfg, m.getName(), clustering);
+                            }
+                            report.println("  -> Wrote CFG to: " + sink.location(name));
+                        } catch (IOException e) {
+                            System.err.println("  ! Failed to write CFG: " + e.getMessage());
+                            failed = true;
+                        }
+                    }
+                    report.flush();
+                    System.out.print(buffer.toString(StandardCharsets.UTF_8));
+
+                    if (recorder != null && !failed) {
+                        try {
+                            recorder.commit(buffer.toString(StandardCharsets.UTF_8));
+                        } catch (IOException e) {
+                            System.err.println("  ! Failed to store the analysis cache entry of " + className + ": " + e.getMessage());
+                        }
+                    }
                 }
             }
         }
-    }
-
-    private static List<String> findClasses(String classesRoot, String packagePrefix) throws IOException {
-        Path root = Paths.get(classesRoot);
-        if (!Files.exists(root)) return List.of();
-
-        String pkgPath = packagePrefix.replace('.', '/');
-        Path start = root.resolve(pkgPath);
-        if (!Files.exists(start)) return List.of();
-
-        try (Stream<Path> stream = Files.walk(start)) {
-            return stream
-                    .filter(p -> p.toString().endsWith(".class"))
-                    .filter(p -> !p.getFileName().toString().contains("$")) // skip inner classes
-                    .map(root::relativize)
-                    .map(p -> p.toString().replace('/', '.').replace('\\', '.').replaceAll("\\.class$", ""))
-                    .collect(Collectors.toList());
+        if (cache != null) {
+            System.out.println("\nAnalysis cache: " + cache.getHits() + " of " + classNames.size()
+                    + " classes reused from " + cache.getDirectory());
         }
     }
 
-    private static void printTextCFG(StmtGraph<?> cfg) {
+    private static void printTextCFG(StmtGraph<?> cfg, PrintStream out) {
         Map<Stmt, Integer> stmtToId = new HashMap<>();
         int nodeId = 1;
 
@@ -106,46 +148,16 @@ public class CFG {
 
         // Print nodes
         for (Map.Entry<Stmt, Integer> entry : stmtToId.entrySet()) {
-            System.out.println("Node " + entry.getValue() + ": " +
+            out.println("Node " + entry.getValue() + ": " +
                     entry.getKey().toString().replace("\n", " "));
         }
 
         // Print edges
-        System.out.println("\nControl Flow Edges:");
-        for (Stmt source : cfg.getNodes()) {
-            for (Stmt target : cfg.successors(source)) {
-                System.out.println("  " + stmtToId.get(source) + " → " + stmtToId.get(target));
-            }
-        }
-    }
-
-    private static String generateDOTCFG(StmtGraph<?> cfg, String methodName) {
-        StringBuilder dot = new StringBuilder();
-        Map<Stmt, Integer> stmtToId = new HashMap<>();
-        int nodeId = 1;
-
-        dot.append("digraph CFG_").append(methodName).append(" {\n");
-        dot.append("  rankdir=TB;\n  node [shape=rectangle, style=filled, fillcolor=lightblue];\n\n");
-
-        for (Stmt stmt : cfg.getNodes()) {
-            stmtToId.put(stmt, nodeId);
-            String label = stmt.toString().replace("\"", "\\\"").replace("\n", "\\l");
-            dot.append("  node").append(nodeId)
-                    .append(" [label=\"").append(label).append("\"];\n");
-            nodeId++;
-        }
-
-        dot.append("\n");
-
+        out.println("\nControl Flow Edges:");
         for (Stmt source : cfg.getNodes()) {
             for (Stmt target : cfg.successors(source)) {
-                dot.append("  node").append(stmtToId.get(source))
-                        .append(" -> node").append(stmtToId.get(target))
-                        .append(";\n");
+                out.println("  " + stmtToId.get(source) + " → " + stmtToId.get(target));
             }
         }
-
-        dot.append("}");
-        return dot.toString();
     }
 }
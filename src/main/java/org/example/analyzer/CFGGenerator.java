@@ -1,13 +1,16 @@
 package org.example.analyzer;
 
-import sootup.core.inputlocation.AnalysisInputLocation;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.graph.StmtGraph;
+import sootup.core.model.Body;
 import sootup.core.model.SootMethod;
-import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
-import sootup.java.core.views.JavaView;
 
 import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -47,30 +50,28 @@ public class CFGGenerator {
     }
 
     public static void generateCFG(Map<String, String> config) {
-        // Setup analysis input location
-        AnalysisInputLocation inputLocation =
-                new JavaClassPathAnalysisInputLocation(config.get("classPath"));
-
-        JavaView view = new JavaView(Collections.singletonList(inputLocation));
+        // Shared session for the configured classpath
+        AnalysisSession session = AnalysisSession.forClassPath(config.get("classPath"));
 
         // Find the target class and method
-        var identifierFactory = view.getIdentifierFactory();
-        var classType = identifierFactory.getClassType(config.get("className"));
-
-        view.getClass(classType).ifPresent(sootClass -> {
+        session.getSootClass(config.get("className")).ifPresent(sootClass -> {
             sootClass.getMethods().stream()
                     .filter(method -> method.getName().equals(config.get("methodName")))
                     .findFirst()
                     .ifPresent(method -> {
                         System.out.println("=== CFG for Method: " + method.getName() + " ===");
-                        generateAndDisplayCFG(method);
+                        displayCFG(method, session.getBody(method));
                     });
         });
     }
 
     public static void generateAndDisplayCFG(SootMethod method) {
+        displayCFG(method, method.getBody());
+    }
+
+    private static void displayCFG(SootMethod method, Body body) {
         // Get the control flow graph
-        StmtGraph<?> cfg = method.getBody().getStmtGraph();
+        StmtGraph<?> cfg = body.getStmtGraph();
 
         System.out.println("\n🔷 Basic Blocks and Control Flow:");
         System.out.println("==================================");
@@ -81,8 +82,14 @@ public class CFGGenerator {
         // Generate DOT format for visualization
         System.out.println("\n🔷 DOT Format (for Graphviz):");
         System.out.println("==============================");
-        String dotFormat = generateDOTCFG(cfg, method.getName());
-        System.out.println(dotFormat);
+        // streamed straight to the console instead of being built as one String first
+        Writer console = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        try {
+            GraphWriter.create(GraphWriter.Format.DOT, console).write(cfg, method.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println();
 
         // Additional analysis
         analyzeCFG(cfg);
@@ -113,36 +120,7 @@ public class CFGGenerator {
     }
 
     public static String generateDOTCFG(StmtGraph<?> cfg, String methodName) {
-        StringBuilder dot = new StringBuilder();
-        Map<Stmt, Integer> stmtToId = new HashMap<>();
-        int nodeId = 1;
-
-        dot.append("digraph CFG_").append(methodName).append(" {\n");
-        dot.append("  rankdir=TB;\n  node [shape=rectangle, style=filled, fillcolor=lightblue];\n\n");
-
-        // Create nodes
-        for (Stmt stmt : cfg.getNodes()) {
-            stmtToId.put(stmt, nodeId);
-            String label = stmt.toString().replace("\"", "\\\"")
-                    .replace("\n", "\\l");
-            dot.append("  node").append(nodeId)
-                    .append(" [label=\"").append(label).append("\"];\n");
-            nodeId++;
-        }
-
-        dot.append("\n");
-
-        // Create edges
-        for (Stmt source : cfg.getNodes()) {
-            for (Stmt target : cfg.successors(source)) {
-                dot.append("  node").append(stmtToId.get(source))
-                        .append(" -> node").append(stmtToId.get(target))
-                        .append(";\n");
-            }
-        }
-
-        dot.append("}");
-        return dot.toString();
+        return GraphWriter.toString(GraphWriter.Format.DOT, cfg, methodName, GraphWriter.Clustering.NONE);
     }
 
     public static void analyzeCFG(StmtGraph<?> cfg) {
@@ -0,0 +1,401 @@
+package org.example.analyzer;
+
+import org.example.analyzer.dependency.BasicBlocks;
+import org.example.analyzer.dependency.Loop;
+import org.example.analyzer.dependency.LoopAnalyzer;
+import org.example.analyzer.dependency.StmtIndex;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * GraphWriter - streams the control-flow graph of a method as DOT, GraphML or JSON.
+ *
+ * Nodes are numbered 1, 2, ... in StmtGraph.getNodes() order and the edges are the normal
+ * successors, as the DOT output of CFG has always been. Every label is escaped character by
+ * character straight into the Writer, so no copy of the graph text is built; the caller
+ * buffers and closes the Writer.
+ *
+ * Statements can be grouped into clusters: the basic blocks of more than one statement,
+ * or the loops of the loop nesting forest (nested as the loops are). DOT writes clusters
+ * as nested {@code subgraph cluster_k}, GraphML as nested graphs, JSON as a "cluster"
+ * field per node plus a list of clusters with their parents.
+ */
+public abstract class GraphWriter {
+    public enum Format {
+        DOT("dot"), GRAPHML("graphml"), JSON("json");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    public enum Clustering { NONE, BASIC_BLOCKS, LOOPS }
+
+    protected final Writer out;
+
+    protected GraphWriter(Writer out) {
+        this.out = out;
+    }
+
+    public static GraphWriter create(Format format, Writer out) {
+        switch (format) {
+            case GRAPHML: return new GraphMl(out);
+            case JSON:    return new Json(out);
+            default:      return new Dot(out);
+        }
+    }
+
+    /** The whole graph as a String, for callers that need one (the Writer is a StringWriter). */
+    public static String toString(Format format, StmtGraph<?> cfg, String name, Clustering clustering) {
+        StringWriter text = new StringWriter();
+        try {
+            create(format, text).write(cfg, name, clustering);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+
+    public void write(StmtGraph<?> cfg, String name) throws IOException {
+        write(cfg, name, Clustering.NONE);
+    }
+
+    public void write(StmtGraph<?> cfg, String name, Clustering clustering) throws IOException {
+        List<Stmt> nodes = new ArrayList<>(cfg.getNodes());
+        Map<Stmt, Integer> stmtToId = new HashMap<>();
+        for (Stmt stmt : nodes) stmtToId.put(stmt, stmtToId.size() + 1);
+        Clusters clusters = clustering == Clustering.NONE ? null : new Clusters(cfg, nodes, stmtToId, clustering);
+
+        begin(name);
+        if (clusters == null) {
+            for (int id = 1; id <= nodes.size(); id++) node(id, nodes.get(id - 1), -1, 0);
+        } else {
+            for (int id = 1; id <= nodes.size(); id++) {
+                if (clusters.of[id] < 0) node(id, nodes.get(id - 1), -1, 0);
+            }
+            for (int c : clusters.roots) writeCluster(clusters, c, nodes, 0);
+        }
+        separator();
+        for (Stmt source : nodes) {
+            for (Stmt target : cfg.successors(source)) edge(stmtToId.get(source), stmtToId.get(target));
+        }
+        end(clusters);
+        out.flush();
+    }
+
+    private void writeCluster(Clusters clusters, int c, List<Stmt> nodes, int depth) throws IOException {
+        beginCluster(c, clusters.labels.get(c), clusters.parents.get(c), depth);
+        for (int id : clusters.members.get(c)) node(id, nodes.get(id - 1), c, depth + 1);
+        for (int child : clusters.children.get(c)) writeCluster(clusters, child, nodes, depth + 1);
+        endCluster(c, depth);
+    }
+
+    protected abstract void begin(String name) throws IOException;
+
+    /** @param cluster the innermost cluster of the node, -1 for none; depth is its nesting depth */
+    protected abstract void node(int id, Stmt stmt, int cluster, int depth) throws IOException;
+
+    protected void beginCluster(int cluster, String label, int parent, int depth) throws IOException {
+    }
+
+    protected void endCluster(int cluster, int depth) throws IOException {
+    }
+
+    /** Between the nodes and the edges. */
+    protected void separator() throws IOException {
+    }
+
+    protected abstract void edge(int source, int target) throws IOException;
+
+    /** @param clusters null without clustering */
+    protected abstract void end(Clusters clusters) throws IOException;
+
+    protected void indent(int depth) throws IOException {
+        for (int i = 0; i <= depth; i++) out.write("  ");
+    }
+
+    /**
+     * Cluster tree over the node numbers: per cluster its label, parent (-1) and nested
+     * clusters, per node its innermost cluster (-1); members in node order.
+     */
+    protected static final class Clusters {
+        final int[] of;
+        final List<String> labels = new ArrayList<>();
+        final List<Integer> parents = new ArrayList<>();
+        final List<List<Integer>> members = new ArrayList<>();
+        final List<List<Integer>> children = new ArrayList<>();
+        final List<Integer> roots = new ArrayList<>();
+
+        Clusters(StmtGraph<?> cfg, List<Stmt> nodes, Map<Stmt, Integer> stmtToId, Clustering clustering) {
+            of = new int[nodes.size() + 1];
+            Arrays.fill(of, -1);
+            StmtIndex index = StmtIndex.of(cfg);
+            if (clustering == Clustering.BASIC_BLOCKS) {
+                BasicBlocks blocks = index.getBasicBlocks();
+                for (int b = 0; b < blocks.size(); b++) {
+                    if (blocks.blockSize(b) < 2) continue;
+                    int c = add("B" + b, -1);
+                    for (int s : blocks.getStatements(b)) of[stmtToId.get(index.get(s))] = c;
+                }
+            } else {
+                List<Loop> loops = LoopAnalyzer.findLoops(index);
+                Map<Loop, Integer> ids = new HashMap<>();
+                // outer loops first, so a parent has its number before its nested loops
+                loops.sort(Comparator.comparingInt(Loop::getNestingDepth));
+                int[] depthOf = new int[of.length];
+                for (Loop loop : loops) {
+                    int header = stmtToId.get(loop.getHeader());
+                    int c = add("loop at node" + header + (loop.isIrreducible() ? " (irreducible)" : ""),
+                            loop.getParentLoop() != null ? ids.get(loop.getParentLoop()) : -1);
+                    ids.put(loop, c);
+                    BitSet body = loop.getBody();
+                    for (int s = body.nextSetBit(0); s >= 0; s = body.nextSetBit(s + 1)) {
+                        int id = stmtToId.get(index.get(s));
+                        if (of[id] < 0 || depthOf[id] <= loop.getNestingDepth()) {
+                            of[id] = c;
+                            depthOf[id] = loop.getNestingDepth();
+                        }
+                    }
+                }
+            }
+            for (int id = 1; id < of.length; id++) {
+                if (of[id] >= 0) members.get(of[id]).add(id);
+            }
+        }
+
+        private int add(String label, int parent) {
+            int c = labels.size();
+            labels.add(label);
+            parents.add(parent);
+            members.add(new ArrayList<>());
+            children.add(new ArrayList<>());
+            if (parent >= 0) children.get(parent).add(c);
+            else roots.add(c);
+            return c;
+        }
+
+        public int size() {
+            return labels.size();
+        }
+    }
+
+    /** Graphviz DOT; without clusters the same text CFG.generateDOTCFG used to build. */
+    private static final class Dot extends GraphWriter {
+        Dot(Writer out) {
+            super(out);
+        }
+
+        @Override
+        protected void begin(String name) throws IOException {
+            out.write("digraph CFG_");
+            out.write(name);
+            out.write(" {\n  rankdir=TB;\n  node [shape=rectangle, style=filled, fillcolor=lightblue];\n\n");
+        }
+
+        @Override
+        protected void node(int id, Stmt stmt, int cluster, int depth) throws IOException {
+            indent(depth);
+            out.write("node" + id + " [label=\"");
+            label(stmt.toString());
+            out.write("\"];\n");
+        }
+
+        @Override
+        protected void beginCluster(int cluster, String label, int parent, int depth) throws IOException {
+            indent(depth);
+            out.write("subgraph cluster_" + cluster + " {\n");
+            indent(depth + 1);
+            out.write("label=\"");
+            label(label);
+            out.write("\";\n");
+        }
+
+        @Override
+        protected void endCluster(int cluster, int depth) throws IOException {
+            indent(depth);
+            out.write("}\n");
+        }
+
+        @Override
+        protected void separator() throws IOException {
+            out.write("\n");
+        }
+
+        @Override
+        protected void edge(int source, int target) throws IOException {
+            out.write("  node" + source + " -> node" + target + ";\n");
+        }
+
+        @Override
+        protected void end(Clusters clusters) throws IOException {
+            out.write("}");
+        }
+
+        /** Quotes escaped, line breaks as left-justified DOT line ends. */
+        private void label(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '"') out.write("\\\"");
+                else if (c == '\n') out.write("\\l");
+                else out.write(c);
+            }
+        }
+    }
+
+    /** GraphML with a "label" node attribute; clusters are nodes holding a nested graph. */
+    private static final class GraphMl extends GraphWriter {
+        private int edges;
+
+        GraphMl(Writer out) {
+            super(out);
+        }
+
+        @Override
+        protected void begin(String name) throws IOException {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                    + "<graphml xmlns=\"http://graphml.graphdrawing.org/xmlns\">\n"
+                    + "  <key id=\"label\" for=\"all\" attr.name=\"label\" attr.type=\"string\"/>\n"
+                    + "  <graph id=\"CFG_");
+            xml(name);
+            out.write("\" edgedefault=\"directed\">\n");
+        }
+
+        @Override
+        protected void node(int id, Stmt stmt, int cluster, int depth) throws IOException {
+            indent(2 * depth);
+            out.write("  <node id=\"node" + id + "\"><data key=\"label\">");
+            xml(stmt.toString());
+            out.write("</data></node>\n");
+        }
+
+        @Override
+        protected void beginCluster(int cluster, String label, int parent, int depth) throws IOException {
+            indent(2 * depth);
+            out.write("  <node id=\"cluster" + cluster + "\"><data key=\"label\">");
+            xml(label);
+            out.write("</data>\n");
+            indent(2 * depth + 1);
+            out.write("  <graph id=\"cluster" + cluster + ":\" edgedefault=\"directed\">\n");
+        }
+
+        @Override
+        protected void endCluster(int cluster, int depth) throws IOException {
+            indent(2 * depth + 1);
+            out.write("  </graph>\n");
+            indent(2 * depth);
+            out.write("  </node>\n");
+        }
+
+        @Override
+        protected void edge(int source, int target) throws IOException {
+            out.write("    <edge id=\"e" + edges++ + "\" source=\"node" + source + "\" target=\"node" + target + "\"/>\n");
+        }
+
+        @Override
+        protected void end(Clusters clusters) throws IOException {
+            out.write("  </graph>\n</graphml>\n");
+        }
+
+        private void xml(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '&': out.write("&amp;"); break;
+                    case '<': out.write("&lt;"); break;
+                    case '>': out.write("&gt;"); break;
+                    case '"': out.write("&quot;"); break;
+                    default:  out.write(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * JSON: {"name": ..., "nodes": [{"id", "label", "cluster"?}], "edges": [{"source", "target"}],
+     * "clusters": [{"id", "label", "parent"}]?}.
+     */
+    private static final class Json extends GraphWriter {
+        private boolean first;
+
+        Json(Writer out) {
+            super(out);
+        }
+
+        @Override
+        protected void begin(String name) throws IOException {
+            out.write("{\"name\": ");
+            string("CFG_" + name);
+            out.write(",\n\"nodes\": [");
+            first = true;
+        }
+
+        @Override
+        protected void node(int id, Stmt stmt, int cluster, int depth) throws IOException {
+            out.write(first ? "\n" : ",\n");
+            first = false;
+            out.write("  {\"id\": " + id + ", \"label\": ");
+            string(stmt.toString());
+            if (cluster >= 0) out.write(", \"cluster\": " + cluster);
+            out.write("}");
+        }
+
+        @Override
+        protected void separator() throws IOException {
+            out.write("\n],\n\"edges\": [");
+            first = true;
+        }
+
+        @Override
+        protected void edge(int source, int target) throws IOException {
+            out.write(first ? "\n" : ",\n");
+            first = false;
+            out.write("  {\"source\": " + source + ", \"target\": " + target + "}");
+        }
+
+        @Override
+        protected void end(Clusters clusters) throws IOException {
+            out.write("\n]");
+            if (clusters != null) {
+                out.write(",\n\"clusters\": [");
+                for (int c = 0; c < clusters.size(); c++) {
+                    out.write(c == 0 ? "\n" : ",\n");
+                    out.write("  {\"id\": " + c + ", \"label\": ");
+                    string(clusters.labels.get(c));
+                    out.write(", \"parent\": " + clusters.parents.get(c) + "}");
+                }
+                out.write("\n]");
+            }
+            out.write("}\n");
+        }
+
+        private void string(String text) throws IOException {
+            out.write('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':  out.write("\\\""); break;
+                    case '\\': out.write("\\\\"); break;
+                    case '\n': out.write("\\n"); break;
+                    case '\r': out.write("\\r"); break;
+                    case '\t': out.write("\\t"); break;
+                    default:
+                        if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+                        else out.write(c);
+                }
+            }
+            out.write('"');
+        }
+    }
+}
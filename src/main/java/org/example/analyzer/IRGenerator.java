@@ -1,30 +1,34 @@
     package org.example.analyzer;
 
-    import sootup.core.inputlocation.AnalysisInputLocation;
-    import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+    import sootup.core.model.Body;
     import sootup.java.core.JavaSootClass;
     import sootup.java.core.JavaSootMethod;
-    import sootup.java.core.views.JavaView;
 
+    import java.io.ByteArrayOutputStream;
     import java.io.IOException;
+    import java.io.PrintStream;
     import java.nio.charset.StandardCharsets;
     import java.nio.file.*;
-    import java.util.List;
-    import java.util.Optional;
-    import java.util.stream.Collectors;
-    import java.util.stream.Stream;
+    import java.util.*;
 
     public class IRGenerator {
+        static final String CACHE_TOOL = "ir";
 
         public static void main(String[] args) throws IOException {
-            String classPath = (args.length > 0) ? args[0] : "target/classes";
-            String packagePrefix = (args.length > 1) ? args[1] : "org.example.programs";
+            List<String> positional = new ArrayList<>();
+            boolean useCache = true;
+            String zip = null;
+            for (String arg : args) {
+                if (arg.equals("--no-cache")) useCache = false;
+                else if (arg.startsWith("--zip=")) zip = arg.substring("--zip=".length());
+                else positional.add(arg);
+            }
+            String classPath = (positional.size() > 0) ? positional.get(0) : "target/classes";
+            String packagePrefix = (positional.size() > 1) ? positional.get(1) : "org.example.programs";
 
-            List<AnalysisInputLocation> inputLocations = List.of(
-                    new JavaClassPathAnalysisInputLocation(classPath));
-            JavaView view = new JavaView(inputLocations);
+            AnalysisSession session = AnalysisSession.forClassPath(classPath);
 
-            List<String> classNames = findClasses(classPath, packagePrefix);
+            List<String> classNames = session.findClasses(packagePrefix);
 
             if (classNames.isEmpty()) {
                 System.err.println("No classes found under package: " + packagePrefix);
@@ -34,60 +38,77 @@
             System.out.println("Discovered classes:");
             classNames.forEach(c -> System.out.println("  • " + c));
 
-            Path outRoot = Paths.get("target/ir");
-            Files.createDirectories(outRoot);
+            // one file per method below target/ir, or everything in one archive with --zip=<file>
+            ArtifactSink sink = ArtifactSink.forArguments(zip, Paths.get("target/ir"));
+            // classes whose class file is unchanged since the last run are printed and written from the cache
+            AnalysisCache cache = useCache ? new AnalysisCache(AnalysisCache.DEFAULT_DIRECTORY) : null;
 
-            for (String className : classNames) {
-                Optional<JavaSootClass> opt = view.getClass(view.getIdentifierFactory().getClassType(className));
-                if (opt.isEmpty()) {
-                    System.err.println("Class not found in view: " + className);
-                    continue;
-                }
-                JavaSootClass sc = opt.get();
-                System.out.println("\n================ CLASS: " + className + " ================");
+            try (sink) {
+                for (String className : classNames) {
+                    String key = (cache != null)
+                            ? AnalysisCache.classKey(session, CACHE_TOOL, sink.location(""), className) : null;
+                    if (key != null) {
+                        Optional<AnalysisCache.Entry> cached = cache.lookup(CACHE_TOOL, className, key);
+                        if (cached.isPresent()) {
+                            cached.get().writeFiles(sink);
+                            System.out.print(cached.get().getReport());
+                            continue;
+                        }
+                    }
 
-                for (JavaSootMethod m : sc.getMethods()) {
-                    System.out.println("\n--- METHOD: " + m.getName() + " ---");
-                    if (!m.hasBody()) {
-                        System.out.println("  <no body>");
+                    Optional<JavaSootClass> opt = session.getSootClass(className);
+                    if (opt.isEmpty()) {
+                        System.err.println("Class not found in view: " + className);
                         continue;
                     }
-                    var body = m.getBody();
-                    // Print to console
-                    System.out.println(body);
+                    JavaSootClass sc = opt.get();
+                    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                    PrintStream report = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+                    // the IR files are teed into the cache entry as they are written
+                    AnalysisCache.Recorder recorder = (key != null) ? cache.record(CACHE_TOOL, className, key) : null;
+                    ArtifactSink out = (recorder != null) ? recorder.tee(sink) : sink;
+                    Set<String> taken = new HashSet<>();
+                    boolean failed = false;
+                    report.println("\n================ CLASS: " + className + " ================");
+
+                    try (recorder) {
+                        for (JavaSootMethod m : sc.getMethods()) {
+                            report.println("\n--- METHOD: " + m.getName() + " ---");
+                            Body body = session.getBody(m);
+                            if (body == null) {
+                                report.println("  <no body>");
+                                continue;
+                            }
+                            // Print to console
+                            String jimple = body.toString();
+                            report.println(jimple);
+
+                            // Write to <className>/<methodName>.jimple below target/ir or in the archive
+                            String name = ArtifactSink.fileName(className, m.getName(), "jimple", taken);
+                            try {
+                                out.write(name, jimple);
+                                report.println("  -> Wrote IR to: " + sink.location(name));
+                            } catch (IOException e) {
+                                System.err.println("  ! Failed to write IR: " + e.getMessage());
+                                failed = true;
+                            }
+                        }
+                        report.flush();
+                        System.out.print(buffer.toString(StandardCharsets.UTF_8));
 
-                    // Write to file: target/ir/<className>/<methodName>.jimple
-                    String safeClass = className.replace('.', '_');
-                    String safeMethod = m.getName().replaceAll("[^a-zA-Z0-9_]", "_");
-                    Path classDir = outRoot.resolve(safeClass);
-                    Files.createDirectories(classDir);
-                    Path outFile = classDir.resolve(safeMethod + ".jimple");
-                    try {
-                        Files.writeString(outFile, body.toString(), StandardCharsets.UTF_8,
-                                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                        System.out.println("  -> Wrote IR to: " + outFile.toAbsolutePath());
-                    } catch (IOException e) {
-                        System.err.println("  ! Failed to write IR: " + e.getMessage());
+                        if (recorder != null && !failed) {
+                            try {
+                                recorder.commit(buffer.toString(StandardCharsets.UTF_8));
+                            } catch (IOException e) {
+                                System.err.println("  ! Failed to store the analysis cache entry of " + className + ": " + e.getMessage());
+                            }
+                        }
                     }
                 }
             }
-        }
-
-        private static List<String> findClasses(String classesRoot, String packagePrefix) throws IOException {
-            Path root = Paths.get(classesRoot);
-            if (!Files.exists(root)) return List.of();
-
-            String pkgPath = packagePrefix.replace('.', '/');
-            Path start = root.resolve(pkgPath);
-            if (!Files.exists(start)) return List.of();
-
-            try (Stream<Path> stream = Files.walk(start)) {
-                return stream
-                        .filter(p -> p.toString().endsWith(".class"))
-                        .filter(p -> !p.getFileName().toString().contains("$")) // skip inner classes
-                        .map(root::relativize)
-                        .map(p -> p.toString().replace('/', '.').replace('\\', '.').replaceAll("\\.class$", ""))
-                        .collect(Collectors.toList());
+            if (cache != null) {
+                System.out.println("\nAnalysis cache: " + cache.getHits() + " of " + classNames.size()
+                        + " classes reused from " + cache.getDirectory());
             }
         }
     }
@@ -1,23 +1,17 @@
 package org.example.analyzer;
-import sootup.core.inputlocation.AnalysisInputLocation;
-import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
+import sootup.core.model.Body;
 import sootup.java.core.JavaSootClass;
 import sootup.java.core.JavaSootMethod;
-import sootup.java.core.views.JavaView;
 
-import java.util.List;
 import java.util.Optional;
 
 public class Ir {
 
 
         public static void generateIRForClass(String className) {
-            String classPath = "target/classes";
-            List<AnalysisInputLocation> inputLocations = List.of(
-                    new JavaClassPathAnalysisInputLocation(classPath));
-            JavaView view = new JavaView(inputLocations);
+            AnalysisSession session = AnalysisSession.forClassPath("target/classes");
 
-            Optional<JavaSootClass> opt = view.getClass(view.getIdentifierFactory().getClassType(className));
+            Optional<JavaSootClass> opt = session.getSootClass(className);
             if (opt.isEmpty()) {
                 System.err.println("Class not found: " + className);
                 return;
@@ -25,9 +19,10 @@ public class Ir {
 
             JavaSootClass sc = opt.get();
             for (JavaSootMethod m : sc.getMethods()) {
-                if (!m.hasBody()) continue;
+                Body body = session.getBody(m);
+                if (body == null) continue;
                 System.out.println("\n--- METHOD: " + m.getName() + " ---");
-                System.out.println(m.getBody()); // this prints Jimple-like IR
+                System.out.println(body); // this prints Jimple-like IR
             }
         }
 
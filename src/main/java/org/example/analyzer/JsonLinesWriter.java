@@ -0,0 +1,113 @@
+package org.example.analyzer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * JsonLinesWriter - writes one JSON record per line from a background thread.
+ *
+ * write() only queues the line, so the pipeline thread that puts the reports in order
+ * never waits on the disk or the console; a single writer thread drains the queue into
+ * a 64 KB buffer. The queue is bounded, so a slow destination throttles the producers
+ * instead of collecting the records on the heap. close() writes what is still queued,
+ * flushes and closes the destination, and rethrows a failure of the writer thread.
+ */
+public final class JsonLinesWriter implements Closeable {
+    private static final String END = new String("<end of records>");
+
+    private final BlockingQueue<String> queue;
+    private final Writer out;
+    private final Thread thread;
+    private volatile IOException failure;
+    private long lineCount;
+
+    public JsonLinesWriter(Writer out, int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.out = new BufferedWriter(out, 1 << 16);
+        this.thread = new Thread(this::drain, "json-lines-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Records to the file, or to System.out for "-"; System.out is flushed but not closed then. */
+    public static JsonLinesWriter open(String destination) throws IOException {
+        if (destination.equals("-")) {
+            Writer console = new OutputStreamWriter(System.out, StandardCharsets.UTF_8) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            return new JsonLinesWriter(console, 1024);
+        }
+        Path path = Path.of(destination);
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return new JsonLinesWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1024);
+    }
+
+    /** Queues one record; it must not contain a line break. */
+    public void write(String record) throws IOException {
+        if (failure != null) throw failure;
+        try {
+            queue.put(record);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while queueing a JSON record");
+        }
+        lineCount++;
+    }
+
+    /** Number of records queued so far. */
+    public long getLineCount() {
+        return lineCount;
+    }
+
+    private void drain() {
+        try {
+            String line;
+            while ((line = queue.take()) != END) {
+                out.write(line);
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            failure = e;
+            // keep taking the records so that writers blocked on a full queue get to see the failure
+            drainAfterFailure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainAfterFailure() {
+        try {
+            while (queue.take() != END) {
+                // discarded
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing the JSON Lines output");
+        } finally {
+            try {
+                if (failure == null) out.flush();
+            } finally {
+                out.close();
+            }
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -1,101 +1,109 @@
 package org.example.analyzer;
 
-import org.example.analyzer.dependency.*;
-import sootup.core.graph.StmtGraph;
-import sootup.core.jimple.common.stmt.Stmt;
-import sootup.java.core.JavaSootMethod;
-import sootup.java.core.views.JavaView;
-import sootup.core.inputlocation.AnalysisInputLocation;
-import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
-import sootup.java.core.JavaSootClass;
-import sootup.core.types.ClassType;
-import sootup.core.model.Body;
+import org.example.analyzer.dependency.AnalysisOptions;
+import org.example.analyzer.dependency.ResultFileWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.*;
+import java.io.PrintStream;
+import java.nio.file.Paths;
 import java.util.*;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class Main {
-    public static void main(String[] args) throws IOException {
-        String classPath = (args.length > 0) ? args[0] : "target/classes";
-        String packagePrefix = (args.length > 1) ? args[1] : "org.example";
+    private static final Logger log = LoggerFactory.getLogger(Main.class);
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // flags may appear anywhere; the rest are positional: classPath packagePrefix [workers]
+        AnalysisOptions options = new AnalysisOptions();
+        List<String> positional = new ArrayList<>();
+        boolean useCache = true;
+        String resultFile = null;
+        String jsonLines = null;
+        boolean quiet = false;
+        for (String arg : args) {
+            if (arg.equals("--nearest")) {
+                options.setAntiOutputMode(AnalysisOptions.AntiOutputMode.NEAREST);
+            } else if (arg.equals("--blocks")) {
+                options.setGranularity(AnalysisOptions.Granularity.BASIC_BLOCK);
+            } else if (arg.equals("--webs")) {
+                options.setDataDependenceForm(AnalysisOptions.DataDependenceForm.WEBS);
+            } else if (arg.equals("--ssa")) {
+                options.setDataflowForm(AnalysisOptions.DataflowForm.SSA);
+            } else if (arg.equals("--no-cache")) {
+                useCache = false;
+            } else if (arg.startsWith("--results=")) {
+                resultFile = arg.substring("--results=".length());
+            } else if (arg.equals("--jsonl")) {
+                jsonLines = "-";
+            } else if (arg.startsWith("--jsonl=")) {
+                jsonLines = arg.substring("--jsonl=".length());
+            } else if (arg.equals("--quiet")) {
+                quiet = true;
+            } else {
+                positional.add(arg);
+            }
+        }
+
+        String classPath = (positional.size() > 0) ? positional.get(0) : "target/classes";
+        String packagePrefix = (positional.size() > 1) ? positional.get(1) : "org.example";
+        int workers = (positional.size() > 2) ? Integer.parseInt(positional.get(2)) : Runtime.getRuntime().availableProcessors();
 
-        List<AnalysisInputLocation> inputLocations = List.of(
-                new JavaClassPathAnalysisInputLocation(classPath));
-        JavaView view = new JavaView(inputLocations);
+        AnalysisSession session = AnalysisSession.forClassPath(classPath);
 
-        List<String> classNames = findClasses(classPath, packagePrefix);
+        List<String> classNames = session.findClasses(packagePrefix);
 
         if (classNames.isEmpty()) {
             System.err.println("No classes found under package: " + packagePrefix);
             return;
         }
 
-        System.out.println("Discovered classes:");
-        classNames.forEach(c -> System.out.println("  • " + c));
-
-        for (String className : classNames) {
-            ClassType classType = view.getIdentifierFactory().getClassType(className);
-            Optional<JavaSootClass> opt = view.getClass(classType);
-
-            if (opt.isEmpty()) {
-                System.err.println("Class not found in view: " + className);
-                continue;
-            }
-
-            JavaSootClass sc = opt.get();
-            System.out.println("\n================ CLASS: " + className + " ================");
-
-            for (JavaSootMethod m : sc.getMethods()) {
-                System.out.println("\n--- METHOD: " + m.getName() + " ---");
+        // with --jsonl (records on System.out) the summary lines go to System.err
+        PrintStream console = "-".equals(jsonLines) ? System.err : System.out;
+        boolean text = jsonLines == null && !quiet;
+        if (text) {
+            console.println("Discovered classes:");
+            classNames.forEach(c -> console.println("  • " + c));
+        } else {
+            log.debug("Discovered {} classes: {}", classNames.size(), classNames);
+        }
 
-                // CORRECT: getBody() returns Body directly, not Optional
-                Body body = m.getBody();
-                if (body == null) {
-                    System.out.println("  <no body>");
-                    continue;
+        // Discovery, class resolution, body loading and analysis run as pipeline stages;
+        // the report is still printed in discovery order.
+        AnalysisPipeline pipeline = new AnalysisPipeline(session, workers).withOptions(options).withQuiet(quiet);
+        // classes whose class file is unchanged since the last run are printed and written from the cache
+        AnalysisCache cache = useCache ? new AnalysisCache(AnalysisCache.DEFAULT_DIRECTORY) : null;
+        pipeline.withCache(cache);
+        JsonLinesWriter records = (jsonLines != null) ? JsonLinesWriter.open(jsonLines) : null;
+        try (records) {
+            pipeline.withJsonLines(records);
+            if (resultFile != null) {
+                // binary results for other tools (see ResultFile)
+                try (ResultFileWriter results = new ResultFileWriter(Paths.get(resultFile))) {
+                    try {
+                        pipeline.withResultFile(results).run(classNames);
+                    } catch (RuntimeException | Error | InterruptedException e) {
+                        // no trailer for a run that did not finish, so the partial file is not taken for a result
+                        results.abort();
+                        throw e;
+                    }
+                    console.println("\nWrote results of " + results.getMethodCount() + " methods to: "
+                            + Paths.get(resultFile).toAbsolutePath());
                 }
-
-                StmtGraph<?> cfg = body.getStmtGraph();
-
-                // NEW: Dependency analysis
-                System.out.println("\n=== Analyzing Dependencies for: " + m.getName() + " ===");
-
-                // Step 1: Analyze DEF/USE sets
-                DefUseAnalyzer defUseAnalyzer = new DefUseAnalyzer(cfg);
-                defUseAnalyzer.printDefUseSets();
-
-                // Step 2: Create dependency analyzer
-                DependencyAnalyzer depAnalyzer = new DependencyAnalyzer(cfg, defUseAnalyzer);
-                DependencyResult dependencies = depAnalyzer.analyze();
-
-                // Step 3: Print results
-                dependencies.printResults();
-                depAnalyzer.printReachingDefinitions();
-
-                // Your existing CFG output code can go here...
+            } else {
+                pipeline.run(classNames);
             }
         }
-    }
-
-    private static List<String> findClasses(String classesRoot, String packagePrefix) throws IOException {
-        Path root = Paths.get(classesRoot);
-        if (!Files.exists(root)) return List.of();
-
-        String pkgPath = packagePrefix.replace('.', '/');
-        Path start = root.resolve(pkgPath);
-        if (!Files.exists(start)) return List.of();
-
-        try (Stream<Path> stream = Files.walk(start)) {
-            return stream
-                    .filter(p -> p.toString().endsWith(".class"))
-                    .filter(p -> !p.getFileName().toString().contains("$")) // skip inner classes
-                    .map(root::relativize)
-                    .map(p -> p.toString().replace('/', '.').replace('\\', '.').replaceAll("\\.class$", ""))
-                    .collect(Collectors.toList());
+        if (records != null && !jsonLines.equals("-")) {
+            console.println("\nWrote " + records.getLineCount() + " JSON records to: "
+                    + Paths.get(jsonLines).toAbsolutePath());
+        }
+        if (cache != null && text) {
+            console.println("\nAnalysis cache: " + cache.getHits() + " of " + classNames.size()
+                    + " classes reused from " + cache.getDirectory());
+        } else if (cache != null) {
+            log.debug("Analysis cache: {} of {} classes reused from {}", cache.getHits(), classNames.size(),
+                    cache.getDirectory());
         }
     }
 }
\ No newline at end of file
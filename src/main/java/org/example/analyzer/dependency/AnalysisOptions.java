@@ -0,0 +1,103 @@
+package org.example.analyzer.dependency;
+
+/**
+ * AnalysisOptions - knobs for DependencyAnalyzer. The defaults reproduce the classic output.
+ *
+ * <pre>
+ *   new AnalysisOptions().setAntiOutputMode(AnalysisOptions.AntiOutputMode.NEAREST)
+ * </pre>
+ */
+public class AnalysisOptions {
+
+    /** Which WAW / WAR / DEF_ORDER pairs to report. */
+    public enum AntiOutputMode {
+        /** Every pair of statements that write (or read and then write) the same variable. */
+        ALL_PAIRS,
+        /**
+         * Only the nearest pairs: the earlier access reaches the later write along some
+         * path with no other write of the variable in between.
+         */
+        NEAREST
+    }
+
+    /** The nodes the dominator, post-dominator, loop and reaching-definitions analyses run on. */
+    public enum Granularity {
+        /** One node per statement. */
+        STATEMENT,
+        /**
+         * One node per basic block; statement-level answers are recovered by a scan
+         * inside the block, so the DependencyResult is the same.
+         */
+        BASIC_BLOCK
+    }
+
+    /** How the ALL_PAIRS WAW / WAR / DEF_ORDER dependencies are kept in the DependencyResult. */
+    public enum DataDependenceForm {
+        /** One stored dependency per pair. */
+        PAIRS,
+        /**
+         * Per-variable def and use sites (DefUseWebs), expanded to pairs on lookup:
+         * k definitions and m uses are k + m entries instead of O(k² + k·m) pairs.
+         * NEAREST already reports only the reduced pairs and keeps them as they are.
+         */
+        WEBS
+    }
+
+    /** How the reaching definitions behind the RAW and loop dependencies are computed. */
+    public enum DataflowForm {
+        /** A bit-set of reaching definitions per statement. */
+        DENSE,
+        /**
+         * SSA form (SsaForm): phi nodes on the dominance frontiers, def-use chains followed
+         * on demand. Same dependencies; memory grows with the definitions and uses.
+         */
+        SSA
+    }
+
+    private AntiOutputMode antiOutputMode = AntiOutputMode.ALL_PAIRS;
+    private Granularity granularity = Granularity.STATEMENT;
+    private DataDependenceForm dataDependenceForm = DataDependenceForm.PAIRS;
+    private DataflowForm dataflowForm = DataflowForm.DENSE;
+
+    public AntiOutputMode getAntiOutputMode() {
+        return antiOutputMode;
+    }
+
+    public AnalysisOptions setAntiOutputMode(AntiOutputMode antiOutputMode) {
+        this.antiOutputMode = antiOutputMode;
+        return this;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public AnalysisOptions setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+        return this;
+    }
+
+    public DataDependenceForm getDataDependenceForm() {
+        return dataDependenceForm;
+    }
+
+    public AnalysisOptions setDataDependenceForm(DataDependenceForm dataDependenceForm) {
+        this.dataDependenceForm = dataDependenceForm;
+        return this;
+    }
+
+    public DataflowForm getDataflowForm() {
+        return dataflowForm;
+    }
+
+    public AnalysisOptions setDataflowForm(DataflowForm dataflowForm) {
+        this.dataflowForm = dataflowForm;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "AnalysisOptions{antiOutputMode=" + antiOutputMode + ", granularity=" + granularity
+                + ", dataDependenceForm=" + dataDependenceForm + ", dataflowForm=" + dataflowForm + "}";
+    }
+}
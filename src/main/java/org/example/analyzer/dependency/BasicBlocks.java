@@ -0,0 +1,223 @@
+package org.example.analyzer.dependency;
+
+import java.util.Arrays;
+
+/**
+ * BasicBlocks - a partition of the statements of one body into basic blocks, with the
+ * FlowGraph edges lifted to blocks.
+ *
+ * Statement s continues the block of p when p -> s is the only edge out of p and the
+ * only edge into s, in the normal graph as well as in the all-edges graph (so a
+ * statement ending a protected block, which StmtGraph.predecessors() links to the
+ * handler, ends its basic block too). Inside a block control runs straight from the
+ * leader to the last statement; every edge between blocks leaves a last statement and
+ * enters a leader. Blocks are numbered in the order of their leaders' statement numbers.
+ *
+ * The dominator, post-dominator, loop and reaching-definitions analyses run on the
+ * block graph and expand their answers to the statements by walking each block:
+ * singletons(graph) is the statement-level graph in the same form, so the analyzers
+ * have a single code path for both granularities.
+ */
+public final class BasicBlocks {
+    private final FlowGraph graph;
+    private final int[] blockOf;        // statement number -> block number
+    private final int[] blockStart;     // statements of b: stmts[blockStart[b] .. blockStart[b + 1]), in flow order
+    private final int[] stmts;
+    private final FlowGraph.Edges successors;
+    private final FlowGraph.Edges predecessors;
+    private final FlowGraph.Edges allSuccessors;
+    private final FlowGraph.Edges allPredecessors;
+
+    private BasicBlocks(FlowGraph graph, int[] blockOf, int[] blockStart, int[] stmts,
+                        FlowGraph.Edges successors, FlowGraph.Edges predecessors,
+                        FlowGraph.Edges allSuccessors, FlowGraph.Edges allPredecessors) {
+        this.graph = graph;
+        this.blockOf = blockOf;
+        this.blockStart = blockStart;
+        this.stmts = stmts;
+        this.successors = successors;
+        this.predecessors = predecessors;
+        this.allSuccessors = allSuccessors;
+        this.allPredecessors = allPredecessors;
+    }
+
+    /** Maximal basic blocks. */
+    public static BasicBlocks of(FlowGraph graph) {
+        int n = graph.size();
+        boolean[] leader = new boolean[n];
+        for (int s = 0; s < n; s++) leader[s] = continued(graph, s) < 0;
+        if (n > 0) leader[0] = true;        // the starting statement, even when a goto leads back to it
+
+        // straight-line cycles nothing enters are left over; their lowest statement leads them
+        boolean[] covered = new boolean[n];
+        for (int l = 0; l < n; l++) {
+            if (leader[l]) cover(graph, l, leader, covered);
+        }
+        for (int s = 0; s < n; s++) {
+            if (covered[s]) continue;
+            leader[s] = true;
+            cover(graph, s, leader, covered);
+        }
+
+        int[] blockOf = new int[n];
+        int[] stmts = new int[n];
+        int[] starts = new int[n + 1];
+        int blocks = 0;
+        int count = 0;
+        for (int l = 0; l < n; l++) {
+            if (!leader[l]) continue;
+            starts[blocks] = count;
+            for (int s = l; s >= 0; s = next(graph, s)) {
+                if (s != l && leader[s]) break;
+                blockOf[s] = blocks;
+                stmts[count++] = s;
+            }
+            blocks++;
+        }
+        starts[blocks] = count;
+
+        int[] blockStart = Arrays.copyOf(starts, blocks + 1);
+        int[] last = new int[blocks];
+        int[] first = new int[blocks];
+        for (int b = 0; b < blocks; b++) {
+            first[b] = stmts[blockStart[b]];
+            last[b] = stmts[blockStart[b + 1] - 1];
+        }
+        FlowGraph.Edges successors = lift(graph.getSuccessors(), last, blockOf);
+        FlowGraph.Edges allPredecessors = lift(graph.getAllPredecessors(), first, blockOf);
+        return new BasicBlocks(graph, blockOf, blockStart, stmts,
+                successors, successors.inverse(), allPredecessors.inverse(), allPredecessors);
+    }
+
+    /** One block per statement: the statement-level graph itself. */
+    public static BasicBlocks singletons(FlowGraph graph) {
+        int n = graph.size();
+        int[] identity = new int[n];
+        int[] blockStart = new int[n + 1];
+        for (int s = 0; s < n; s++) {
+            identity[s] = s;
+            blockStart[s + 1] = s + 1;
+        }
+        return new BasicBlocks(graph, identity, blockStart, identity,
+                graph.getSuccessors(), graph.getPredecessors(),
+                graph.getAllSuccessors(), graph.getAllPredecessors());
+    }
+
+    /** The statement s continues the block of, or -1 when s leads a block. */
+    private static int continued(FlowGraph graph, int s) {
+        FlowGraph.Edges allPreds = graph.getAllPredecessors();
+        if (allPreds.degree(s) != 1 || graph.getPredecessors().degree(s) != 1) return -1;
+        int p = allPreds.target(allPreds.start(s));
+        if (p == s || graph.getPredecessors().target(graph.getPredecessors().start(s)) != p) return -1;
+        if (graph.getSuccessors().degree(p) != 1 || graph.getAllSuccessors().degree(p) != 1) return -1;
+        return p;
+    }
+
+    /** The statement after s in its block, or -1 when s ends it. */
+    private static int next(FlowGraph graph, int s) {
+        FlowGraph.Edges succs = graph.getSuccessors();
+        if (succs.degree(s) != 1) return -1;
+        int t = succs.target(succs.start(s));
+        return continued(graph, t) == s ? t : -1;
+    }
+
+    private static void cover(FlowGraph graph, int leader, boolean[] leaders, boolean[] covered) {
+        for (int s = leader; s >= 0; s = next(graph, s)) {
+            if (s != leader && leaders[s]) break;
+            covered[s] = true;
+        }
+    }
+
+    /** Edges of the given statements (one per block), mapped to blocks. */
+    private static FlowGraph.Edges lift(FlowGraph.Edges edges, int[] stmtOf, int[] blockOf) {
+        int[][] lists = new int[stmtOf.length][];
+        for (int b = 0; b < stmtOf.length; b++) {
+            int s = stmtOf[b];
+            lists[b] = new int[edges.degree(s)];
+            for (int e = edges.start(s), k = 0; e < edges.end(s); e++) lists[b][k++] = blockOf[edges.target(e)];
+        }
+        return FlowGraph.Edges.of(lists);
+    }
+
+    public FlowGraph getFlowGraph() {
+        return graph;
+    }
+
+    /** Number of blocks. */
+    public int size() {
+        return blockStart.length - 1;
+    }
+
+    public int getStatementCount() {
+        return stmts.length;
+    }
+
+    public int getBlock(int stmt) {
+        return blockOf[stmt];
+    }
+
+    public int getLeader(int block) {
+        return stmts[blockStart[block]];
+    }
+
+    public int getLast(int block) {
+        return stmts[blockStart[block + 1] - 1];
+    }
+
+    /** Statements of the block in flow order: stmt(start(b)) .. stmt(end(b) - 1). */
+    public int start(int block) {
+        return blockStart[block];
+    }
+
+    public int end(int block) {
+        return blockStart[block + 1];
+    }
+
+    public int stmt(int position) {
+        return stmts[position];
+    }
+
+    public int blockSize(int block) {
+        return blockStart[block + 1] - blockStart[block];
+    }
+
+    /** The statements of the block, in flow order, as a new array. */
+    public int[] getStatements(int block) {
+        return Arrays.copyOfRange(stmts, blockStart[block], blockStart[block + 1]);
+    }
+
+    /** Normal edges between blocks, as FlowGraph.getSuccessors(). */
+    public FlowGraph.Edges getSuccessors() {
+        return successors;
+    }
+
+    public FlowGraph.Edges getPredecessors() {
+        return predecessors;
+    }
+
+    /** As FlowGraph.getAllSuccessors(), between blocks. */
+    public FlowGraph.Edges getAllSuccessors() {
+        return allSuccessors;
+    }
+
+    public FlowGraph.Edges getAllPredecessors() {
+        return allPredecessors;
+    }
+
+    public int getMaxBlockSize() {
+        int max = 0;
+        for (int b = 0; b < size(); b++) max = Math.max(max, blockSize(b));
+        return max;
+    }
+
+    /** Statements per block; 1 for singletons(). */
+    public double getCompressionRatio() {
+        return size() == 0 ? 1 : (double) stmts.length / size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT, "BasicBlocks{statements=%d, blocks=%d, maxSize=%d, ratio=%.2f}",
+                stmts.length, size(), getMaxBlockSize(), getCompressionRatio());
+    }
+}
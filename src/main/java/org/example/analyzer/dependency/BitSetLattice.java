@@ -0,0 +1,58 @@
+package org.example.analyzer.dependency;
+
+import java.util.BitSet;
+
+/**
+ * BitSetLattice - sets of small numbers (statements, variables, use occurrences) as
+ * bit-vectors, joined by union (may problems: reaching definitions, liveness) or by
+ * intersection (must problems: available expressions, dominators). Both start the
+ * boundary statements from the empty set.
+ */
+public final class BitSetLattice implements Lattice<BitSet> {
+    private final int bits;
+    private final boolean intersection;
+
+    private BitSetLattice(int bits, boolean intersection) {
+        this.bits = bits;
+        this.intersection = intersection;
+    }
+
+    /** Union over bits 0..bits-1, starting from the empty set. */
+    public static BitSetLattice union(int bits) {
+        return new BitSetLattice(bits, false);
+    }
+
+    /** Intersection over bits 0..bits-1, starting from the full set. */
+    public static BitSetLattice intersection(int bits) {
+        return new BitSetLattice(bits, true);
+    }
+
+    @Override
+    public BitSet initial() {
+        BitSet set = new BitSet(bits);
+        if (intersection) set.set(0, bits);
+        return set;
+    }
+
+    @Override
+    public BitSet boundary() {
+        return new BitSet(bits);
+    }
+
+    @Override
+    public BitSet join(BitSet target, BitSet value) {
+        if (intersection) target.and(value);
+        else target.or(value);
+        return target;
+    }
+
+    @Override
+    public BitSet copy(BitSet value) {
+        return (BitSet) value.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "BitSetLattice{" + (intersection ? "intersection" : "union") + ", bits=" + bits + "}";
+    }
+}
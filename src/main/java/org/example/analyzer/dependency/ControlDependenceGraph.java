@@ -0,0 +1,93 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * ControlDependenceGraph - statement Y is control dependent on X exactly when X is in
+ * the post-dominance frontier of Y (Cytron et al.): X has a successor Y post-dominates
+ * but Y does not post-dominate X itself. That covers every statement governed by a
+ * branch, not only the branch's direct successors.
+ *
+ * The frontiers already are the controller lists, so building the graph is one pass
+ * that inverts them into dependent lists. Both directions are stored in compressed
+ * form (offsets plus one array each), sorted by statement number.
+ */
+public final class ControlDependenceGraph {
+    private final StmtIndex index;
+    private final int[] controllerStart;   // controllers of v: controllers[controllerStart[v] .. controllerStart[v + 1])
+    private final int[] controllers;
+    private final int[] dependentStart;    // dependents of v: dependents[dependentStart[v] .. dependentStart[v + 1])
+    private final int[] dependents;
+
+    public ControlDependenceGraph(PostDominatorAnalyzer postDominators) {
+        this.index = postDominators.getStmtIndex();
+        int n = index.size();
+
+        controllerStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            controllerStart[v + 1] = controllerStart[v] + postDominators.getPostDominanceFrontier(v).length;
+        }
+        controllers = new int[controllerStart[n]];
+        dependentStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int[] frontier = postDominators.getPostDominanceFrontier(v);
+            System.arraycopy(frontier, 0, controllers, controllerStart[v], frontier.length);
+            for (int x : frontier) dependentStart[x + 1]++;
+        }
+
+        for (int v = 0; v < n; v++) dependentStart[v + 1] += dependentStart[v];
+        dependents = new int[controllers.length];
+        int[] fill = Arrays.copyOf(dependentStart, n);
+        for (int v = 0; v < n; v++) {
+            for (int i = controllerStart[v]; i < controllerStart[v + 1]; i++) {
+                dependents[fill[controllers[i]]++] = v;
+            }
+        }
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    /** Number of control-dependence edges. */
+    public int size() {
+        return controllers.length;
+    }
+
+    /** Statements {@code stmt} is control dependent on. */
+    public int[] getControllers(int stmt) {
+        return Arrays.copyOfRange(controllers, controllerStart[stmt], controllerStart[stmt + 1]);
+    }
+
+    /** Statements control dependent on {@code stmt}. */
+    public int[] getDependents(int stmt) {
+        return Arrays.copyOfRange(dependents, dependentStart[stmt], dependentStart[stmt + 1]);
+    }
+
+    public Set<Stmt> getControllers(Stmt stmt) {
+        int id = index.indexOf(stmt);
+        return id >= 0 ? toSet(controllers, controllerStart[id], controllerStart[id + 1]) : Collections.emptySet();
+    }
+
+    public Set<Stmt> getDependents(Stmt stmt) {
+        int id = index.indexOf(stmt);
+        return id >= 0 ? toSet(dependents, dependentStart[id], dependentStart[id + 1]) : Collections.emptySet();
+    }
+
+    public boolean isControlDependent(Stmt controlled, Stmt controller) {
+        int y = index.indexOf(controlled);
+        int x = index.indexOf(controller);
+        return y >= 0 && x >= 0 && Arrays.binarySearch(controllers, controllerStart[y], controllerStart[y + 1], x) >= 0;
+    }
+
+    private Set<Stmt> toSet(int[] values, int from, int to) {
+        BitSet bits = new BitSet(index.size());
+        for (int i = from; i < to; i++) bits.set(values[i]);
+        return index.asSet(bits);
+    }
+}
@@ -0,0 +1,250 @@
+package org.example.analyzer.dependency;
+
+import java.util.*;
+
+/**
+ * DataflowSolver - worklist solver for monotone dataflow problems over the statements
+ * of one body, numbered as in StmtIndex.
+ *
+ * A problem is a direction, a Lattice and a TransferFunction:
+ *
+ *   FORWARD:  BEFORE[s] = join of AFTER[p] over the predecessors p,  AFTER[s]  = f(s, BEFORE[s])
+ *   BACKWARD: AFTER[s]  = join of BEFORE[q] over the successors q,   BEFORE[s] = f(s, AFTER[s])
+ *
+ * Only the transfer results are stored; the other side is joined on request. Every
+ * statement is visited at least once; afterwards only the neighbours of a statement
+ * whose result changed go back on the worklist. The worklist hands out the pending
+ * statement that comes first in reverse post-order (forward) or post-order (backward),
+ * so acyclic regions settle in one pass and loops in a few.
+ *
+ * <pre>
+ *   FlowGraph graph = index.getFlowGraph();
+ *   Solution&lt;BitSet&gt; live = new DataflowSolver&lt;&gt;(graph.getAllPredecessors(), graph.getAllSuccessors(),
+ *           Direction.BACKWARD, BitSetLattice.union(vars), TransferFunction.genKill(uses, defs)).solve();
+ * </pre>
+ */
+public final class DataflowSolver<V> {
+
+    public enum Direction { FORWARD, BACKWARD }
+
+    private final FlowGraph.Edges preds;
+    private final FlowGraph.Edges succs;
+    private final Direction direction;
+    private final Lattice<V> lattice;
+    private final TransferFunction<V> transfer;
+
+    /**
+     * @param preds predecessors per statement number
+     * @param succs successors per statement number, the inverse of preds
+     */
+    public DataflowSolver(FlowGraph.Edges preds, FlowGraph.Edges succs, Direction direction,
+                          Lattice<V> lattice, TransferFunction<V> transfer) {
+        this.preds = preds;
+        this.succs = succs;
+        this.direction = direction;
+        this.lattice = lattice;
+        this.transfer = transfer;
+    }
+
+    public Solution<V> solve() {
+        int n = preds.nodeCount();
+        Object[] results = new Object[n];
+        for (int i = 0; i < n; i++) results[i] = lattice.initial();
+        BitSet all = new BitSet(n);
+        all.set(0, n);
+        return solve(results, all);
+    }
+
+    /**
+     * Solves again after an edit to the graph: the statements outside {@code affected}
+     * keep their result from {@code known} (nothing they depend on changed) and are not
+     * visited; the affected ones start from initial() as in solve(). {@code known} holds
+     * stored results as in Solution (AFTER values forward, BEFORE values backward); its
+     * entries for affected statements are ignored and it is not modified.
+     */
+    public Solution<V> resolve(V[] known, BitSet affected) {
+        int n = preds.nodeCount();
+        Object[] results = new Object[n];
+        for (int i = 0; i < n; i++) results[i] = affected.get(i) ? lattice.initial() : known[i];
+        return solve(results, affected);
+    }
+
+    private Solution<V> solve(Object[] results, BitSet pending) {
+        int n = preds.nodeCount();
+        boolean forward = direction == Direction.FORWARD;
+        FlowGraph.Edges inputs = forward ? preds : succs;      // whose results are joined
+        FlowGraph.Edges outputs = forward ? succs : preds;     // who is affected by a change
+
+        int[] order = forward ? reversePostOrder(succs) : postOrder(succs);
+        int[] position = new int[n];
+        for (int p = 0; p < n; p++) position[order[p]] = p;
+
+        int visits = 0;
+        int updates = 0;
+        int passes = pending.isEmpty() ? 0 : 1;
+        int last = -1;
+        BitSet worklist = new BitSet(n);
+        for (int s = pending.nextSetBit(0); s >= 0; s = pending.nextSetBit(s + 1)) worklist.set(position[s]);
+        for (int p = worklist.nextSetBit(0); p >= 0; p = worklist.nextSetBit(0)) {
+            worklist.clear(p);
+            if (p <= last) passes++;        // wrapped around: a loop sent us back
+            last = p;
+            int stmt = order[p];
+            visits++;
+
+            V result = transfer.apply(stmt, join(inputs, stmt, results));
+            if (!result.equals(results[stmt])) {
+                results[stmt] = result;
+                updates++;
+                for (int e = outputs.start(stmt); e < outputs.end(stmt); e++) {
+                    if (pending.get(outputs.target(e))) worklist.set(position[outputs.target(e)]);
+                }
+            }
+        }
+        return new Solution<>(this, results, new Stats(n, visits, updates, passes));
+    }
+
+    @SuppressWarnings("unchecked")
+    private V join(FlowGraph.Edges sources, int stmt, Object[] results) {
+        if (sources.degree(stmt) == 0) return lattice.boundary();
+        V value = lattice.initial();
+        for (int e = sources.start(stmt); e < sources.end(stmt); e++) {
+            value = lattice.join(value, (V) results[sources.target(e)]);
+        }
+        return value;
+    }
+
+    /**
+     * Reverse post-order of a depth-first walk from statement 0. Statements that walk
+     * cannot reach follow, each further walk (from the lowest unvisited number) in its
+     * own reverse post-order.
+     */
+    public static int[] reversePostOrder(FlowGraph.Edges succs) {
+        int n = succs.nodeCount();
+        int[] order = new int[n];
+        int count = 0;
+        boolean[] visited = new boolean[n];
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) continue;
+            int start = count;
+            count = walk(succs, root, visited, stack, next, order, count);
+            // post-order -> reverse post-order for this walk
+            reverse(order, start, count - 1);
+        }
+        return order;
+    }
+
+    /** Reverse post-order of the nodes a depth-first walk from root reaches, and only those. */
+    public static int[] reversePostOrder(FlowGraph.Edges succs, int root) {
+        int n = succs.nodeCount();
+        int[] order = new int[n];
+        int count = walk(succs, root, new boolean[n], new int[n], new int[n], order, 0);
+        reverse(order, 0, count - 1);
+        return Arrays.copyOf(order, count);
+    }
+
+    /** Iterative depth-first walk; appends the post-order of the newly visited nodes at order[count]. */
+    private static int walk(FlowGraph.Edges succs, int root, boolean[] visited, int[] stack, int[] next,
+                            int[] order, int count) {
+        int depth = 0;
+        stack[0] = root;
+        next[0] = 0;
+        visited[root] = true;
+        while (depth >= 0) {
+            int node = stack[depth];
+            if (next[depth] < succs.degree(node)) {
+                int succ = succs.target(succs.start(node) + next[depth]++);
+                if (!visited[succ]) {
+                    visited[succ] = true;
+                    depth++;
+                    stack[depth] = succ;
+                    next[depth] = 0;
+                }
+            } else {
+                order[count++] = node;
+                depth--;
+            }
+        }
+        return count;
+    }
+
+    /** The reverse of reversePostOrder(succs): successors before their predecessors. */
+    public static int[] postOrder(FlowGraph.Edges succs) {
+        int[] order = reversePostOrder(succs);
+        reverse(order, 0, order.length - 1);
+        return order;
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        for (int i = from, j = to; i < j; i++, j--) {
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+    }
+
+    /** The fixpoint: BEFORE / AFTER values per statement number, and how it was reached. */
+    public static final class Solution<V> {
+        private final DataflowSolver<V> solver;
+        private final Object[] results;
+        private final Stats stats;
+
+        private Solution(DataflowSolver<V> solver, Object[] results, Stats stats) {
+            this.solver = solver;
+            this.results = results;
+            this.stats = stats;
+        }
+
+        /** Value on entry to stmt. Stored for backward problems, joined on request otherwise. */
+        @SuppressWarnings("unchecked")
+        public V before(int stmt) {
+            return solver.direction == Direction.BACKWARD
+                    ? (V) results[stmt] : solver.join(solver.preds, stmt, results);
+        }
+
+        /** Value on exit from stmt. Stored for forward problems, joined on request otherwise. */
+        @SuppressWarnings("unchecked")
+        public V after(int stmt) {
+            return solver.direction == Direction.FORWARD
+                    ? (V) results[stmt] : solver.join(solver.succs, stmt, results);
+        }
+
+        public Stats getStats() {
+            return stats;
+        }
+    }
+
+    /** Convergence statistics of one solve() call. */
+    public static final class Stats {
+        private final int statements;
+        private final int visits;
+        private final int updates;
+        private final int passes;
+
+        Stats(int statements, int visits, int updates, int passes) {
+            this.statements = statements;
+            this.visits = visits;
+            this.updates = updates;
+            this.passes = passes;
+        }
+
+        public int getStatements() { return statements; }
+
+        /** Transfer function applications. */
+        public int getVisits() { return visits; }
+
+        /** Visits that changed a result. */
+        public int getUpdates() { return updates; }
+
+        /** Sweeps over the traversal order: 1 plus the number of times the worklist wrapped around. */
+        public int getPasses() { return passes; }
+
+        @Override
+        public String toString() {
+            return "Stats{statements=" + statements + ", visits=" + visits
+                    + ", updates=" + updates + ", passes=" + passes + "}";
+        }
+    }
+}
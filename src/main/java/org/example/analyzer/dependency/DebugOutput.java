@@ -0,0 +1,27 @@
+package org.example.analyzer.dependency;
+
+import org.slf4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * DebugOutput - where the no-argument print methods of the analyzers go: one debug
+ * message on the class's logger. The text is only built when debug is enabled, so the
+ * printers cost nothing otherwise; the PrintStream overloads print unconditionally.
+ */
+final class DebugOutput {
+    private DebugOutput() {
+    }
+
+    static void log(Logger log, Consumer<PrintStream> printer) {
+        if (!log.isDebugEnabled()) return;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, false, StandardCharsets.UTF_8);
+        printer.accept(out);
+        out.flush();
+        log.debug("{}", buffer.toString(StandardCharsets.UTF_8).strip());
+    }
+}
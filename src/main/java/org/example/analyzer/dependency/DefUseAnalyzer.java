@@ -6,125 +6,148 @@
     import sootup.core.jimple.common.stmt.*;
     import sootup.core.jimple.basic.Local;
     import sootup.core.jimple.basic.Value;
+    import org.slf4j.Logger;
+    import org.slf4j.LoggerFactory;
     import sootup.core.graph.StmtGraph;
+    import java.io.PrintStream;
     import java.util.*;
-    import java.util.stream.Collectors;
 
+    /**
+     * DefUseAnalyzer - DEF and USE sets per statement.
+     *
+     * Variables and values are interned in a per-body VariableTable; each statement keeps
+     * its defined / used variables and values as small sorted int arrays, filled from a
+     * single pass over stmt.getUses(). The Set-returning getters are read-only views that
+     * map the numbers back to names and Values.
+     */
     public class DefUseAnalyzer {
+        private static final Logger log = LoggerFactory.getLogger(DefUseAnalyzer.class);
+
+        private static final int[] NONE = new int[0];
+
         private StmtGraph<?> cfg;
-        private Map<Stmt, Set<String>> defSets;
-        private Map<Stmt, Set<String>> useSets;
-        private Map<Stmt, Set<Value>> defValues;
-        private Map<Stmt, Set<Value>> useValues;
+        private StmtIndex index;
+        private VariableTable variables;
+        // per-statement results, indexed by StmtIndex number
+        private int[][] defVars;
+        private int[][] useVars;
+        private int[][] defValues;
+        private int[][] useValues;
+
+        // scratch buffers, reused from statement to statement
+        private int[] varBuffer = new int[8];
+        private int varCount;
+        private int[] valueBuffer = new int[8];
+        private int valueCount;
 
         public DefUseAnalyzer(StmtGraph<?> cfg) {
-            this.cfg = cfg;
-            this.defSets = new HashMap<>();
-            this.useSets = new HashMap<>();
-            this.defValues = new HashMap<>();
-            this.useValues = new HashMap<>();
-            analyzeDefUse();
-        }
-
-        private void analyzeDefUse() {
-            // cfg.getStmts() returns a List, use it directly
-            List<Stmt> stmts = cfg.getStmts();
-
-            for (Stmt stmt : stmts) {
-                defSets.put(stmt, new HashSet<String>());
-                useSets.put(stmt, new HashSet<String>());
-                defValues.put(stmt, new HashSet<Value>());
-                useValues.put(stmt, new HashSet<Value>());
-                analyzeStatement(stmt);
-            }
+            this(StmtIndex.of(cfg));
         }
 
-        private void analyzeStatement(Stmt stmt) {
-            // Get defined variables
-            Set<String> defs = getDefinedVariables(stmt);
-            defSets.get(stmt).addAll(defs);
-
-            // Get defined values
-            Set<Value> defVals = getDefinedValues(stmt);
-            defValues.get(stmt).addAll(defVals);
-
-            // Get used variables
-            Set<String> uses = getUsedVariables(stmt);
-            useSets.get(stmt).addAll(uses);
+        public DefUseAnalyzer(StmtIndex index) {
+            this(index, null);
+        }
 
-            // Get used values
-            Set<Value> useVals = getUsedValues(stmt);
-            useValues.get(stmt).addAll(useVals);
+        /**
+         * DEF and USE sets of an edited body: statements {@code previous} already analyzed
+         * (the same Stmt objects) keep their sets, only new ones are looked at. Variable
+         * and value numbers carry over.
+         */
+        DefUseAnalyzer(StmtIndex index, DefUseAnalyzer previous) {
+            this.cfg = index.getGraph();
+            this.index = index;
+            this.variables = previous != null ? previous.variables.copy() : new VariableTable();
+            this.defVars = new int[index.size()][];
+            this.useVars = new int[index.size()][];
+            this.defValues = new int[index.size()][];
+            this.useValues = new int[index.size()][];
+            analyzeDefUse(previous);
         }
 
-        private Set<String> getDefinedVariables(Stmt stmt) {
-            Set<String> defs = new HashSet<String>();
+        /** DEF and USE sets for an edited version of this body; see DependencyAnalyzer.update(). */
+        public DefUseAnalyzer update(StmtGraph<?> edited) {
+            return new DefUseAnalyzer(StmtIndex.of(edited), this);
+        }
 
-            if (stmt instanceof JAssignStmt) {
-                JAssignStmt assignStmt = (JAssignStmt) stmt;
-                Value lhs = assignStmt.getLeftOp();
-                extractVariablesFromValue(lhs, defs, true);
-            } else if (stmt instanceof JIdentityStmt) {
-                JIdentityStmt identityStmt = (JIdentityStmt) stmt;
-                Value lhs = identityStmt.getLeftOp();
-                if (lhs instanceof Local) {
-                    defs.add(((Local) lhs).getName());
+        private void analyzeDefUse(DefUseAnalyzer previous) {
+            for (int i = 0; i < index.size(); i++) {
+                int old = previous != null ? previous.index.indexOf(index.get(i)) : -1;
+                if (old >= 0) {
+                    defVars[i] = previous.defVars[old];
+                    useVars[i] = previous.useVars[old];
+                    defValues[i] = previous.defValues[old];
+                    useValues[i] = previous.useValues[old];
+                } else {
+                    analyzeStatement(i, index.get(i));
                 }
             }
-
-            return defs;
+            varBuffer = null;
+            valueBuffer = null;
         }
 
-        private Set<Value> getDefinedValues(Stmt stmt) {
-            Set<Value> defVals = new HashSet<Value>();
-
+        private void analyzeStatement(int id, Stmt stmt) {
+            // DEF: the left-hand side of assignments and identity statements
+            varCount = 0;
+            valueCount = 0;
             if (stmt instanceof JAssignStmt) {
-                JAssignStmt assignStmt = (JAssignStmt) stmt;
-                defVals.add(assignStmt.getLeftOp());
+                Value lhs = ((JAssignStmt) stmt).getLeftOp();
+                extractVariablesFromValue(lhs, true);
+                addValue(lhs);
             } else if (stmt instanceof JIdentityStmt) {
-                JIdentityStmt identityStmt = (JIdentityStmt) stmt;
-                defVals.add(identityStmt.getLeftOp());
+                Value lhs = ((JIdentityStmt) stmt).getLeftOp();
+                if (lhs instanceof Local) {
+                    addVariable(variables.intern((Local) lhs));
+                }
+                addValue(lhs);
             }
+            defVars[id] = collect(varBuffer, varCount);
+            defValues[id] = collect(valueBuffer, valueCount);
 
-            return defVals;
-        }
-
-        private Set<String> getUsedVariables(Stmt stmt) {
-            Set<String> uses = new HashSet<String>();
-
-            // stmt.getUses() returns a Stream, convert to List using forEach
+            // USE: one pass over stmt.getUses()
+            varCount = 0;
+            valueCount = 0;
             stmt.getUses().forEach(value -> {
-                extractVariablesFromValue(value, uses, false);
+                extractVariablesFromValue(value, false);
+                addValue(value);
             });
+            useVars[id] = collect(varBuffer, varCount);
+            useValues[id] = collect(valueBuffer, valueCount);
+        }
+
+        private static int[] collect(int[] buffer, int length) {
+            return length == 0 ? NONE : VariableTable.sortedSet(buffer, length);
+        }
 
-            return uses;
+        private void addVariable(int var) {
+            if (varCount == varBuffer.length) varBuffer = Arrays.copyOf(varBuffer, varCount * 2);
+            varBuffer[varCount++] = var;
         }
 
-        private Set<Value> getUsedValues(Stmt stmt) {
-            // Convert Stream to Set using collect
-            return stmt.getUses().collect(java.util.stream.Collectors.toSet());
+        private void addValue(Value value) {
+            if (valueCount == valueBuffer.length) valueBuffer = Arrays.copyOf(valueBuffer, valueCount * 2);
+            valueBuffer[valueCount++] = variables.internValue(value);
         }
 
-        private void extractVariablesFromValue(Value value, Set<String> variables, boolean isDefinition) {
+        private void extractVariablesFromValue(Value value, boolean isDefinition) {
             if (value instanceof Local) {
-                variables.add(((Local) value).getName());
+                addVariable(variables.intern((Local) value));
             } else if (value instanceof AbstractBinopExpr) {
                 AbstractBinopExpr binop = (AbstractBinopExpr) value;
-                extractVariablesFromValue(binop.getOp1(), variables, false);
-                extractVariablesFromValue(binop.getOp2(), variables, false);
+                extractVariablesFromValue(binop.getOp1(), false);
+                extractVariablesFromValue(binop.getOp2(), false);
             } else if (value instanceof JInstanceFieldRef) {
                 JInstanceFieldRef fieldRef = (JInstanceFieldRef) value;
-                extractVariablesFromValue(fieldRef.getBase(), variables, false);
+                extractVariablesFromValue(fieldRef.getBase(), false);
             } else if (value instanceof JArrayRef) {
                 JArrayRef arrayRef = (JArrayRef) value;
-                extractVariablesFromValue(arrayRef.getBase(), variables, isDefinition);
-                extractVariablesFromValue(arrayRef.getIndex(), variables, false);
+                extractVariablesFromValue(arrayRef.getBase(), isDefinition);
+                extractVariablesFromValue(arrayRef.getIndex(), false);
             } else if (value instanceof JCastExpr) {
                 JCastExpr castExpr = (JCastExpr) value;
-                extractVariablesFromValue(castExpr.getOp(), variables, false);
+                extractVariablesFromValue(castExpr.getOp(), false);
             } else if (value instanceof JLengthExpr) {
                 JLengthExpr lengthExpr = (JLengthExpr) value;
-                extractVariablesFromValue(lengthExpr.getOp(), variables, false);
+                extractVariablesFromValue(lengthExpr.getOp(), false);
             } else if (value instanceof JNewExpr || value instanceof JNewArrayExpr ||
                     value instanceof JNewMultiArrayExpr) {
                 // These create new objects, no variables to extract for use
@@ -133,49 +156,74 @@
 
                 // invokeExpr.getArgs() returns a Stream, use forEach
                 invokeExpr.getArgs().forEach(arg -> {
-                    extractVariablesFromValue(arg, variables, false);
+                    extractVariablesFromValue(arg, false);
                 });
 
                 // Handle instance method calls
                 if (invokeExpr instanceof JSpecialInvokeExpr) {
                     JSpecialInvokeExpr specialInvoke = (JSpecialInvokeExpr) invokeExpr;
-                    extractVariablesFromValue(specialInvoke.getBase(), variables, false);
+                    extractVariablesFromValue(specialInvoke.getBase(), false);
                 } else if (invokeExpr instanceof JVirtualInvokeExpr) {
                     JVirtualInvokeExpr virtualInvoke = (JVirtualInvokeExpr) invokeExpr;
-                    extractVariablesFromValue(virtualInvoke.getBase(), variables, false);
+                    extractVariablesFromValue(virtualInvoke.getBase(), false);
                 } else if (invokeExpr instanceof JInterfaceInvokeExpr) {
                     JInterfaceInvokeExpr interfaceInvoke = (JInterfaceInvokeExpr) invokeExpr;
-                    extractVariablesFromValue(interfaceInvoke.getBase(), variables, false);
+                    extractVariablesFromValue(interfaceInvoke.getBase(), false);
                 }
             }
         }
 
         // Getters
+        public StmtIndex getStmtIndex() { return index; }
+
+        public VariableTable getVariableTable() { return variables; }
+
         public Set<String> getDefSet(Stmt stmt) {
-            return defSets.getOrDefault(stmt, new HashSet<String>());
+            int id = index.indexOf(stmt);
+            return id >= 0 ? getDefSet(id) : Collections.emptySet();
         }
 
         public Set<String> getUseSet(Stmt stmt) {
-            return useSets.getOrDefault(stmt, new HashSet<String>());
+            int id = index.indexOf(stmt);
+            return id >= 0 ? getUseSet(id) : Collections.emptySet();
         }
 
         public Set<Value> getDefValues(Stmt stmt) {
-            return defValues.getOrDefault(stmt, new HashSet<Value>());
+            int id = index.indexOf(stmt);
+            return id >= 0 ? getDefValues(id) : Collections.emptySet();
         }
 
         public Set<Value> getUseValues(Stmt stmt) {
-            return useValues.getOrDefault(stmt, new HashSet<Value>());
+            int id = index.indexOf(stmt);
+            return id >= 0 ? getUseValues(id) : Collections.emptySet();
         }
 
-        public Map<Stmt, Set<String>> getAllDefSets() { return defSets; }
-        public Map<Stmt, Set<String>> getAllUseSets() { return useSets; }
+        // Index-based getters used by the other analyzers
+        public Set<String> getDefSet(int id) { return variables.asNames(defVars[id]); }
+        public Set<String> getUseSet(int id) { return variables.asNames(useVars[id]); }
+        public Set<Value> getDefValues(int id) { return variables.asValues(defValues[id]); }
+        public Set<Value> getUseValues(int id) { return variables.asValues(useValues[id]); }
+
+        // Variable / value numbers (see getVariableTable()), sorted; do not modify
+        public int[] getDefVars(int id) { return defVars[id]; }
+        public int[] getUseVars(int id) { return useVars[id]; }
+        public int[] getDefValueIds(int id) { return defValues[id]; }
+        public int[] getUseValueIds(int id) { return useValues[id]; }
 
+        public Map<Stmt, Set<String>> getAllDefSets() { return index.asMap(this::getDefSet); }
+        public Map<Stmt, Set<String>> getAllUseSets() { return index.asMap(this::getUseSet); }
+
+        /** Logs the DEF and USE set of every statement at debug level. */
         public void printDefUseSets() {
-            System.out.println("=== DEF/USE SETS ===");
-            for (Stmt stmt : defSets.keySet()) {
-                System.out.println("Stmt: " + stmt);
-                System.out.println("  DEF: " + defSets.get(stmt));
-                System.out.println("  USE: " + useSets.get(stmt));
+            DebugOutput.log(log, this::printDefUseSets);
+        }
+
+        public void printDefUseSets(PrintStream out) {
+            out.println("=== DEF/USE SETS ===");
+            for (int i = 0; i < index.size(); i++) {
+                out.println("Stmt: " + index.get(i));
+                out.println("  DEF: " + getDefSet(i));
+                out.println("  USE: " + getUseSet(i));
             }
         }
     }
\ No newline at end of file
@@ -0,0 +1,140 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * DefUseWebs - the WAW / WAR / DEF_ORDER dependencies of AntiOutputMode.ALL_PAIRS in
+ * implicit form: per variable, the statements defining it and the statements using it.
+ *
+ * ALL_PAIRS relates every definition of a variable to every other definition (WAW,
+ * plus DEF_ORDER where the earlier one dominates) and to every use (WAR), so a
+ * variable defined k times and used m times stands for O(k² + k·m) pairs but needs
+ * only k + m entries here. forEachPair() expands the pairs of one target statement, in
+ * the order DependencyAnalyzer reports them: per defined variable, the other sites in
+ * statement order, WAW then DEF_ORDER then WAR.
+ */
+public final class DefUseWebs {
+    /** Receives expanded pairs by statement and variable number. */
+    public interface PairSink {
+        void accept(Dependency.Type type, int source, int target, int variable);
+    }
+
+    private final StmtIndex index;
+    private final VariableTable variables;
+    private final DominatorTree dominators;
+    private final int[][] defVars;          // per statement, as in DefUseAnalyzer
+    private final int[] defStart;           // definitions of v: defs[defStart[v] .. defStart[v + 1])
+    private final int[] defs;
+    private final int[] useStart;           // uses of v: uses[useStart[v] .. useStart[v + 1])
+    private final int[] uses;
+
+    DefUseWebs(DefUseAnalyzer defUse, DominatorTree dominators) {
+        this.index = defUse.getStmtIndex();
+        this.variables = defUse.getVariableTable();
+        this.dominators = dominators;
+        int n = index.size();
+        int vars = variables.size();
+
+        defVars = new int[n][];
+        defStart = new int[vars + 1];
+        useStart = new int[vars + 1];
+        for (int i = 0; i < n; i++) {
+            defVars[i] = defUse.getDefVars(i);
+            for (int v : defVars[i]) defStart[v + 1]++;
+            for (int v : defUse.getUseVars(i)) useStart[v + 1]++;
+        }
+        for (int v = 0; v < vars; v++) {
+            defStart[v + 1] += defStart[v];
+            useStart[v + 1] += useStart[v];
+        }
+        defs = new int[defStart[vars]];
+        uses = new int[useStart[vars]];
+        int[] defFill = Arrays.copyOf(defStart, vars);
+        int[] useFill = Arrays.copyOf(useStart, vars);
+        for (int i = 0; i < n; i++) {
+            for (int v : defVars[i]) defs[defFill[v]++] = i;
+            for (int v : defUse.getUseVars(i)) uses[useFill[v]++] = i;
+        }
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    /** Statements defining the variable, in statement order. */
+    public int[] getDefs(int variable) {
+        return Arrays.copyOfRange(defs, defStart[variable], defStart[variable + 1]);
+    }
+
+    /** Statements using the variable, in statement order. */
+    public int[] getUses(int variable) {
+        return Arrays.copyOfRange(uses, useStart[variable], useStart[variable + 1]);
+    }
+
+    /** Stored entries: one per definition and one per use. */
+    public int getSiteCount() {
+        return defs.length + uses.length;
+    }
+
+    /** Calls sink for every WAW / DEF_ORDER / WAR pair whose target is {@code target}. */
+    public void forEachPair(int target, PairSink sink) {
+        for (int v : defVars[target]) {
+            // merge the (sorted) def and use sites: a statement that does both comes once
+            int d = defStart[v];
+            int u = useStart[v];
+            while (d < defStart[v + 1] || u < useStart[v + 1]) {
+                int nextDef = d < defStart[v + 1] ? defs[d] : Integer.MAX_VALUE;
+                int nextUse = u < useStart[v + 1] ? uses[u] : Integer.MAX_VALUE;
+                int other = Math.min(nextDef, nextUse);
+                if (other != target) {
+                    if (other == nextDef) {
+                        sink.accept(Dependency.Type.WAW, other, target, v);
+                        if (!dominators.contains(target) || dominators.isAncestor(other, target)) {
+                            sink.accept(Dependency.Type.DEF_ORDER, other, target, v);
+                        }
+                    }
+                    if (other == nextUse) sink.accept(Dependency.Type.WAR, other, target, v);
+                }
+                if (other == nextDef) d++;
+                if (other == nextUse) u++;
+            }
+        }
+    }
+
+    /** The pairs of one target as Dependency objects. */
+    public List<Dependency> expand(Stmt target) {
+        List<Dependency> deps = new ArrayList<>();
+        int id = index.indexOf(target);
+        if (id >= 0) {
+            forEachPair(id, (type, source, t, v) ->
+                    deps.add(new Dependency(type, index.get(source), index.get(t), variables.getName(v))));
+        }
+        return deps;
+    }
+
+    /** Number of pairs the webs stand for. */
+    public long countPairs() {
+        long[] count = new long[1];
+        for (int i = 0; i < index.size(); i++) forEachPair(i, (type, source, target, v) -> count[0]++);
+        return count[0];
+    }
+
+    /** One line per variable with at least one definition: its def and use sites. */
+    public void print(PrintStream out) {
+        for (int v = 0; v < variables.size(); v++) {
+            if (defStart[v] == defStart[v + 1]) continue;
+            out.println("\nVariable: " + variables.getName(v));
+            out.println("  defs: " + sites(defs, defStart[v], defStart[v + 1]));
+            out.println("  uses: " + sites(uses, useStart[v], useStart[v + 1]));
+        }
+    }
+
+    private String sites(int[] sites, int from, int to) {
+        StringJoiner joiner = new StringJoiner("; ", "[", "]");
+        for (int i = from; i < to; i++) joiner.add(index.get(sites[i]).toString());
+        return joiner.toString();
+    }
+}
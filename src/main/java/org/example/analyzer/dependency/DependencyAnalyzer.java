@@ -1,37 +1,110 @@
 package org.example.analyzer.dependency;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.common.stmt.Stmt;
+import java.io.PrintStream;
 import java.util.*;
-import sootup.core.jimple.common.stmt.JIfStmt;
-import sootup.core.jimple.common.stmt.BranchingStmt;
-import sootup.core.jimple.common.stmt.JGotoStmt;
 
 
 
 public class DependencyAnalyzer {
+    private static final Logger log = LoggerFactory.getLogger(DependencyAnalyzer.class);
+
     private StmtGraph<?> cfg;
+    private StmtIndex index;
     private DefUseAnalyzer defUseAnalyzer;
-    private Map<Stmt, Set<Stmt>> reachingDefinitions;
+    private AnalysisOptions options;
+    private FlowGraph.Edges preds;          // per statement number
+    private BasicBlocks blocks;             // the nodes the dataflow problems are solved on
+    private VariableTable variables;
+    private BitSet[] defSites;              // variable number -> statements defining it
+    private BitSet[] useSites;              // variable number -> statements using it
+    private BitSet[] reachingDefinitions;   // OUT set per statement number; DENSE only, or on request
+    private SsaForm ssa;                    // SSA only
+    private BitSet[] reachingUses;          // NEAREST only: OUT set of use occurrences per statement
+    private BitSet[] useOccurrences;        // variable number -> its use occurrences
+    private int[] useOwner;                 // use occurrence -> statement number
     private DominatorAnalyzer dominatorAnalyzer;
     private LoopAnalyzer loopAnalyzer;
     private PostDominatorAnalyzer postDominatorAnalyzer;
+    private List<DataflowSolver.Stats> solverStats = new ArrayList<>();
+    private BitSet affected;                // update() only: the statements analyzed again
 
 
     public DependencyAnalyzer(StmtGraph<?> cfg, DefUseAnalyzer defUseAnalyzer) {
+        this(cfg, defUseAnalyzer, new AnalysisOptions());
+    }
+
+    public DependencyAnalyzer(StmtGraph<?> cfg, DefUseAnalyzer defUseAnalyzer, AnalysisOptions options) {
         this.cfg = cfg;
         this.defUseAnalyzer = defUseAnalyzer;
-        this.reachingDefinitions = new HashMap<>();
+        this.index = defUseAnalyzer.getStmtIndex();
+        this.variables = defUseAnalyzer.getVariableTable();
+        this.options = options;
+
+        buildEdges();
+        buildVariableIndex();
+        if (options.getDataflowForm() == AnalysisOptions.DataflowForm.SSA) {
+            ssa = new SsaForm(defUseAnalyzer, blocks);
+        } else {
+            analyzeReachingDefinitions();
+        }
+        this.dominatorAnalyzer = new DominatorAnalyzer(blocks);
+        buildStructuralAnalyzers();
+    }
 
-        analyzeReachingDefinitions();
-        this.dominatorAnalyzer = new DominatorAnalyzer(cfg);
-        this.postDominatorAnalyzer = new PostDominatorAnalyzer(cfg);
+    /**
+     * Analyzer for an edited version of this body: statements inserted, removed or
+     * re-linked in a copy of its StmtGraph, as an instrumentation pass does. This
+     * analyzer is left as it is.
+     *
+     * Statements kept from this body (the same Stmt objects) keep their DEF / USE sets.
+     * The affected region is made of the new statements and those whose predecessors or
+     * successors changed, plus everything reachable from them; every path into any other
+     * statement is as before, so its reaching definitions and immediate dominator are
+     * carried over and only the affected region is solved again (per statement, whatever
+     * the granularity). Post-dominators and loops, built in near-linear time, are rebuilt;
+     * with DataflowForm.SSA so is the SSA form.
+     */
+    public DependencyAnalyzer update(StmtGraph<?> edited) {
+        return new DependencyAnalyzer(this, edited);
+    }
 
-        this.loopAnalyzer = new LoopAnalyzer(cfg, dominatorAnalyzer, defUseAnalyzer, reachingDefinitions);
+    private DependencyAnalyzer(DependencyAnalyzer previous, StmtGraph<?> edited) {
+        this.cfg = edited;
+        this.defUseAnalyzer = new DefUseAnalyzer(StmtIndex.of(edited), previous.defUseAnalyzer);
+        this.index = defUseAnalyzer.getStmtIndex();
+        this.variables = defUseAnalyzer.getVariableTable();
+        this.options = previous.options;
+
+        buildEdges();
+        buildVariableIndex();
+        int[] previousIds = new int[index.size()];
+        for (int i = 0; i < previousIds.length; i++) previousIds[i] = previous.index.indexOf(index.get(i));
+        this.affected = affectedRegion(previous, previousIds);
+        if (options.getDataflowForm() == AnalysisOptions.DataflowForm.SSA) {
+            ssa = new SsaForm(defUseAnalyzer, blocks);
+        } else if (previous.reachingDefinitions != null) {
+            updateReachingDefinitions(previous, previousIds);
+        } else {
+            analyzeReachingDefinitions();
+        }
+        this.dominatorAnalyzer = new DominatorAnalyzer(index, previous.dominatorAnalyzer, previousIds, affected);
+        buildStructuralAnalyzers();
+    }
+
+    private void buildStructuralAnalyzers() {
+        this.postDominatorAnalyzer = new PostDominatorAnalyzer(blocks);
+
+        this.loopAnalyzer = ssa != null
+                ? new LoopAnalyzer(dominatorAnalyzer, defUseAnalyzer, ssa)
+                : new LoopAnalyzer(dominatorAnalyzer, defUseAnalyzer, reachingDefinitions);
     }
 
     public DependencyResult analyze() {
-        DependencyResult result = new DependencyResult();
+        DependencyResult result = new DependencyResult(index, variables);
 
         analyzeDataDependencies(result);
         analyzeControlDependencies(result);
@@ -40,140 +113,356 @@ public class DependencyAnalyzer {
         return result;
     }
 
+    private void buildEdges() {
+        // StmtGraph.predecessors() view (see FlowGraph): a handler is reached only from the last
+        // statement of each block it protects, so a definition that a later statement of the block
+        // kills never reaches it. The per-statement exceptional edges would change the results.
+        FlowGraph graph = index.getFlowGraph();
+        preds = graph.getAllPredecessors();
+        blocks = options.getGranularity() == AnalysisOptions.Granularity.BASIC_BLOCK
+                ? index.getBasicBlocks() : BasicBlocks.singletons(graph);
+    }
+
+    private void buildVariableIndex() {
+        int n = index.size();
+        defSites = new BitSet[variables.size()];
+        useSites = new BitSet[variables.size()];
+        for (int var = 0; var < variables.size(); var++) {
+            defSites[var] = new BitSet(n);
+            useSites[var] = new BitSet(n);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int var : defUseAnalyzer.getDefVars(i)) defSites[var].set(i);
+            for (int var : defUseAnalyzer.getUseVars(i)) useSites[var].set(i);
+        }
+    }
+
+    /**
+     * Reaching definitions as a bit-vector problem:
+     *   IN[s]  = union of OUT[p] for all predecessors p
+     *   OUT[s] = GEN[s] ∪ (IN[s] - KILL[s])
+     * GEN[s] is {s} when s defines anything, KILL[s] every definition site of the
+     * variables s defines (s included). KILL is built once per variable and shared by
+     * the statements defining only that variable.
+     */
     private void analyzeReachingDefinitions() {
-        Map<Stmt, Set<Stmt>> in = new HashMap<>();
-        Map<Stmt, Set<Stmt>> out = new HashMap<>();
-        Set<Stmt> allStmts = new HashSet<>(cfg.getStmts());
-
-        // Initialize
-        for (Stmt stmt : allStmts) {
-            in.put(stmt, new HashSet<>());
-            out.put(stmt, new HashSet<>());
-        }
-
-        boolean changed;
-        do {
-            changed = false;
-            for (Stmt stmt : allStmts) {
-                // IN[s] = union of OUT[pred] for all predecessors
-                Set<Stmt> newIn = new HashSet<>();
-                for (Stmt pred : cfg.predecessors(stmt)) {
-                    newIn.addAll(out.get(pred));
-                }
+        BitSet[] gen = new BitSet[index.size()];
+        BitSet[] kill = new BitSet[index.size()];
+        reachingDefinitionsProblem(gen, kill);
 
-                // Update IN set if changed
-                if (!newIn.equals(in.get(stmt))) {
-                    in.put(stmt, newIn);
-                    changed = true;
-                }
+        // Final OUT sets are the reaching definitions
+        reachingDefinitions = solveForward(index.size(), gen, kill);
+    }
 
-                // OUT[s] = GEN[s] ∪ (IN[s] - KILL[s])
-                // GEN: This statement defines variables
-                Set<Stmt> gen = new HashSet<>();
-                if (!defUseAnalyzer.getDefSet(stmt).isEmpty()) {
-                    gen.add(stmt);
-                }
+    private void reachingDefinitionsProblem(BitSet[] gen, BitSet[] kill) {
+        int n = index.size();
+        for (int i = 0; i < n; i++) {
+            int[] defs = defUseAnalyzer.getDefVars(i);
+            if (defs.length == 0) continue;
+            if (defs.length == 1) {
+                kill[i] = defSites[defs[0]];
+            } else {
+                kill[i] = new BitSet(n);
+                for (int var : defs) kill[i].or(defSites[var]);
+            }
+            gen[i] = new BitSet(n);
+            gen[i].set(i);
+        }
+    }
 
-                // KILL: Remove definitions that define the same variables as this statement
-                Set<Stmt> newOut = new HashSet<>(newIn);
-                Set<String> currentDefs = defUseAnalyzer.getDefSet(stmt);
-
-                Iterator<Stmt> iter = newOut.iterator();
-                while (iter.hasNext()) {
-                    Stmt defStmt = iter.next();
-                    Set<String> defVars = defUseAnalyzer.getDefSet(defStmt);
-                    for (String var : currentDefs) {
-                        if (defVars.contains(var)) {
-                            iter.remove();
-                            break;
-                        }
-                    }
+    /**
+     * The statements an edit may have changed the incoming paths of: new statements and
+     * those whose predecessors or successors differ (compared by Stmt, in order), and
+     * every statement reachable from them.
+     */
+    private BitSet affectedRegion(DependencyAnalyzer previous, int[] previousIds) {
+        int n = index.size();
+        FlowGraph graph = index.getFlowGraph();
+        FlowGraph old = previous.index.getFlowGraph();
+        BitSet region = new BitSet(n);
+        int[] work = new int[n];
+        int top = 0;
+        for (int i = 0; i < n; i++) {
+            int was = previousIds[i];
+            if (was < 0 || !sameEdges(graph.getAllPredecessors(), old.getAllPredecessors(), i, was, previousIds)
+                    || !sameEdges(graph.getSuccessors(), old.getSuccessors(), i, was, previousIds)
+                    || !sameEdges(graph.getExceptionalSuccessors(), old.getExceptionalSuccessors(), i, was, previousIds)) {
+                region.set(i);
+                work[top++] = i;
+            }
+        }
+        FlowGraph.Edges succs = graph.getAllSuccessors();
+        while (top > 0) {
+            int s = work[--top];
+            for (int e = succs.start(s); e < succs.end(s); e++) {
+                int t = succs.target(e);
+                if (!region.get(t)) {
+                    region.set(t);
+                    work[top++] = t;
                 }
+            }
+        }
+        return region;
+    }
+
+    private static boolean sameEdges(FlowGraph.Edges now, FlowGraph.Edges before, int stmt, int was, int[] previousIds) {
+        if (now.degree(stmt) != before.degree(was)) return false;
+        for (int k = 0; k < now.degree(stmt); k++) {
+            if (previousIds[now.target(now.start(stmt) + k)] != before.target(before.start(was) + k)) return false;
+        }
+        return true;
+    }
 
-                newOut.addAll(gen);
+    /**
+     * Reaching definitions after an edit: outside the affected region the OUT sets of
+     * {@code previous} are renumbered, inside it the problem is solved again with those
+     * as fixed inputs (DataflowSolver.resolve()).
+     */
+    private void updateReachingDefinitions(DependencyAnalyzer previous, int[] previousIds) {
+        int n = index.size();
+        BitSet[] gen = new BitSet[n];
+        BitSet[] kill = new BitSet[n];
+        reachingDefinitionsProblem(gen, kill);
+
+        int[] newIds = new int[previous.index.size()];
+        Arrays.fill(newIds, -1);
+        for (int i = 0; i < n; i++) if (previousIds[i] >= 0) newIds[previousIds[i]] = i;
+        BitSet[] known = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            if (affected.get(i)) continue;
+            BitSet old = previous.reachingDefinitions[previousIds[i]];
+            known[i] = new BitSet(n);
+            for (int d = old.nextSetBit(0); d >= 0; d = old.nextSetBit(d + 1)) known[i].set(newIds[d]);
+        }
 
-                // Update OUT set if changed
-                if (!newOut.equals(out.get(stmt))) {
-                    out.put(stmt, newOut);
-                    changed = true;
+        FlowGraph graph = index.getFlowGraph();
+        DataflowSolver.Solution<BitSet> solution = new DataflowSolver<>(graph.getAllPredecessors(),
+                graph.getAllSuccessors(), DataflowSolver.Direction.FORWARD, BitSetLattice.union(n),
+                TransferFunction.genKill(gen, kill)).resolve(known, affected);
+        solverStats.add(solution.getStats());
+        reachingDefinitions = new BitSet[n];
+        for (int i = 0; i < n; i++) reachingDefinitions[i] = solution.after(i);
+    }
+
+    /**
+     * Forward gen/kill problem over bits 0..bits-1 on the DataflowSolver; returns the
+     * OUT set per statement. The IN sets are joined again where needed (see in()).
+     *
+     * The problem is solved on the blocks: a block's GEN / KILL compose those of its
+     * statements (GEN = gen[s] ∪ (GEN - kill[s]), KILL = KILL ∪ kill[s], in flow order),
+     * and the statements' OUT sets come from re-applying their own gen / kill to the
+     * block's IN set, one statement after the other.
+     */
+    private BitSet[] solveForward(int bits, BitSet[] gen, BitSet[] kill) {
+        int m = blocks.size();
+        BitSet[] blockGen = new BitSet[m];
+        BitSet[] blockKill = new BitSet[m];
+        for (int b = 0; b < m; b++) {
+            if (blocks.blockSize(b) == 1) {
+                blockGen[b] = gen[blocks.getLeader(b)];
+                blockKill[b] = kill[blocks.getLeader(b)];
+                continue;
+            }
+            BitSet g = new BitSet(bits);
+            BitSet k = new BitSet(bits);
+            for (int p = blocks.start(b); p < blocks.end(b); p++) {
+                int stmt = blocks.stmt(p);
+                if (kill[stmt] != null) {
+                    g.andNot(kill[stmt]);
+                    k.or(kill[stmt]);
                 }
+                if (gen[stmt] != null) g.or(gen[stmt]);
             }
-        } while (changed);
+            blockGen[b] = g;
+            blockKill[b] = k;
+        }
+
+        DataflowSolver.Solution<BitSet> solution = new DataflowSolver<>(blocks.getAllPredecessors(),
+                blocks.getAllSuccessors(), DataflowSolver.Direction.FORWARD, BitSetLattice.union(bits),
+                TransferFunction.genKill(blockGen, blockKill)).solve();
+        solverStats.add(solution.getStats());
 
-        // Copy final OUT sets to reachingDefinitions
-        reachingDefinitions.clear();
-        for (Stmt stmt : allStmts) {
-            reachingDefinitions.put(stmt, out.get(stmt));
+        BitSet[] out = new BitSet[index.size()];
+        for (int b = 0; b < m; b++) {
+            if (blocks.blockSize(b) == 1) {
+                out[blocks.getLeader(b)] = solution.after(b);
+                continue;
+            }
+            BitSet current = solution.before(b);
+            for (int p = blocks.start(b); p < blocks.end(b); p++) {
+                int stmt = blocks.stmt(p);
+                current = (BitSet) current.clone();
+                if (kill[stmt] != null) current.andNot(kill[stmt]);
+                if (gen[stmt] != null) current.or(gen[stmt]);
+                out[stmt] = current;
+            }
         }
+        return out;
+    }
+
+    private BitSet in(BitSet[] out, int stmt) {
+        BitSet in = new BitSet();
+        for (int e = preds.start(stmt); e < preds.end(stmt); e++) in.or(out[preds.target(e)]);
+        return in;
     }
 
     private void analyzeDataDependencies(DependencyResult result) {
-        for (Stmt stmt : cfg.getStmts()) {
-            Set<String> usedVars = defUseAnalyzer.getUseSet(stmt);
-
-            for (String usedVar : usedVars) {
-                for (Stmt defStmt : reachingDefinitions.get(stmt)) {
-                    Set<String> defVars = defUseAnalyzer.getDefSet(defStmt);
-                    if (defVars.contains(usedVar)) {
-                        Dependency dep = new Dependency(Dependency.Type.RAW, defStmt, stmt, usedVar);
-                        result.addDataDependency(dep);
+        boolean nearest = options.getAntiOutputMode() == AnalysisOptions.AntiOutputMode.NEAREST;
+        if (nearest) analyzeReachingUses();
+        boolean webs = !nearest && options.getDataDependenceForm() == AnalysisOptions.DataDependenceForm.WEBS;
+        if (webs) result.setDefUseWebs(new DefUseWebs(defUseAnalyzer, dominatorAnalyzer.getDominatorTree()));
+
+        for (int i = 0; i < index.size(); i++) {
+            for (int usedVar : defUseAnalyzer.getUseVars(i)) {
+                // the reaching definitions that define usedVar
+                if (ssa != null) {
+                    for (int def : ssa.reachingDefinitionsOut(i, usedVar)) {
+                        result.addDataDependency(Dependency.Type.RAW, def, i, usedVar);
                     }
+                    continue;
+                }
+                BitSet reaching = reachingDefinitions[i];
+                BitSet defs = defSites[usedVar];
+                for (int def = reaching.nextSetBit(0); def >= 0; def = reaching.nextSetBit(def + 1)) {
+                    if (defs.get(def)) result.addDataDependency(Dependency.Type.RAW, def, i, usedVar);
                 }
             }
 
-            analyzeAntiAndOutputDependencies(stmt, result);
+            if (nearest) {
+                analyzeNearestAntiAndOutputDependencies(i, result);
+            } else if (!webs) {
+                analyzeAntiAndOutputDependencies(i, result);
+            }
         }
     }
 
-    private void analyzeAntiAndOutputDependencies(Stmt stmt, DependencyResult result) {
-        Set<String> defVars = defUseAnalyzer.getDefSet(stmt);
-
-        for (String defVar : defVars) {
-            for (Stmt otherStmt : reachingDefinitions.keySet()) {
-                if (otherStmt.equals(stmt)) continue;
-
-                Set<String> otherDefs = defUseAnalyzer.getDefSet(otherStmt);
-
-                if (otherDefs.contains(defVar)) {
+    /**
+     * ALL_PAIRS: every other definition of a variable this statement defines is a WAW
+     * source (and a DEF_ORDER source when it dominates this statement), every use of it
+     * a WAR source. Only the def / use sites of the variable are visited.
+     */
+    private void analyzeAntiAndOutputDependencies(int stmtId, DependencyResult result) {
+        for (int var : defUseAnalyzer.getDefVars(stmtId)) {
+            BitSet defs = defSites[var];
+            BitSet uses = useSites[var];
+            BitSet touching = (BitSet) defs.clone();
+            touching.or(uses);
+
+            for (int other = touching.nextSetBit(0); other >= 0; other = touching.nextSetBit(other + 1)) {
+                if (other == stmtId) continue;
+
+                if (defs.get(other)) {
                     // Existing WAW dependency
-                    Dependency wawDep = new Dependency(Dependency.Type.WAW, otherStmt, stmt, defVar);
-                    result.addDataDependency(wawDep);
+                    result.addDataDependency(Dependency.Type.WAW, other, stmtId, var);
 
                     // New DEF_ORDER dependency
-                    if (dominatorAnalyzer.dominates(otherStmt, stmt)) {
-                        Dependency defOrderDep = new Dependency(Dependency.Type.DEF_ORDER, otherStmt, stmt, defVar);
-                        result.addDataDependency(defOrderDep);
+                    if (dominatorAnalyzer.dominates(other, stmtId)) {
+                        result.addDataDependency(Dependency.Type.DEF_ORDER, other, stmtId, var);
                     }
                 }
 
-                Set<String> otherUses = defUseAnalyzer.getUseSet(otherStmt);
-                if (otherUses.contains(defVar)) {
-                    Dependency warDep = new Dependency(Dependency.Type.WAR, otherStmt, stmt, defVar);
-                    result.addDataDependency(warDep);
+                if (uses.get(other)) {
+                    result.addDataDependency(Dependency.Type.WAR, other, stmtId, var);
                 }
             }
         }
     }
 
+    /**
+     * NEAREST: WAW sources are the definitions of the variable that reach this statement
+     * (its reaching-definitions IN set), WAR sources the uses of it that reach this
+     * statement with no write in between. DEF_ORDER is reported for the WAW sources that
+     * dominate this statement.
+     */
+    private void analyzeNearestAntiAndOutputDependencies(int stmtId, DependencyResult result) {
+        int[] defVars = defUseAnalyzer.getDefVars(stmtId);
+        if (defVars.length == 0) return;
+
+        BitSet reachingIn = ssa == null ? in(reachingDefinitions, stmtId) : null;
+        BitSet usesIn = in(reachingUses, stmtId);
+
+        for (int var : defVars) {
+            BitSet defs;
+            if (ssa != null) {
+                defs = new BitSet();
+                for (int def : ssa.reachingDefinitionsIn(stmtId, var)) defs.set(def);
+            } else {
+                defs = (BitSet) defSites[var].clone();
+                defs.and(reachingIn);
+            }
+            BitSet uses = new BitSet();
+            BitSet occurrences = useOccurrences[var];
+            for (int occ = usesIn.nextSetBit(0); occ >= 0; occ = usesIn.nextSetBit(occ + 1)) {
+                if (occurrences.get(occ)) uses.set(useOwner[occ]);
+            }
+            BitSet touching = (BitSet) defs.clone();
+            touching.or(uses);
 
-    private void analyzeControlDependencies(DependencyResult result) {
-        for (Stmt branch : cfg.getStmts()) {
-            if (isBranchStatement(branch)) {
-                for (Stmt succ : cfg.successors(branch)) {
-                    // succ is control dependent on branch
-                    // if succ does NOT post-dominate branch
-                    if (!postDominatorAnalyzer.postDominates(succ, branch)) {
-                        result.addControlDependency(succ, branch);
+            for (int other = touching.nextSetBit(0); other >= 0; other = touching.nextSetBit(other + 1)) {
+                if (other == stmtId) continue;
+
+                if (defs.get(other)) {
+                    result.addDataDependency(Dependency.Type.WAW, other, stmtId, var);
+                    if (dominatorAnalyzer.dominates(other, stmtId)) {
+                        result.addDataDependency(Dependency.Type.DEF_ORDER, other, stmtId, var);
                     }
                 }
+                if (uses.get(other)) {
+                    result.addDataDependency(Dependency.Type.WAR, other, stmtId, var);
+                }
             }
         }
     }
 
+    /**
+     * Reaching uses: a forward gen/kill problem over (statement, variable) use occurrences.
+     * A use reaches a point while no statement on the way has written its variable; a
+     * statement's own write kills its own uses, since the use happens first.
+     */
+    private void analyzeReachingUses() {
+        int n = index.size();
+
+        // number the use occurrences, per variable
+        BitSet[] occurrencesOf = new BitSet[variables.size()];
+        for (int var = 0; var < occurrencesOf.length; var++) occurrencesOf[var] = new BitSet();
+        int[] owner = new int[16];
+        int occurrences = 0;
+        BitSet[] gen = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            for (int var : defUseAnalyzer.getUseVars(i)) {
+                if (occurrences == owner.length) owner = Arrays.copyOf(owner, occurrences * 2);
+                owner[occurrences] = i;
+                occurrencesOf[var].set(occurrences);
+                if (gen[i] == null) gen[i] = new BitSet();
+                gen[i].set(occurrences);
+                occurrences++;
+            }
+        }
+
+        BitSet[] kill = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            for (int var : defUseAnalyzer.getDefVars(i)) {
+                if (occurrencesOf[var].isEmpty()) continue;
+                if (kill[i] == null) kill[i] = new BitSet();
+                kill[i].or(occurrencesOf[var]);
+            }
+            if (gen[i] != null && kill[i] != null) gen[i].andNot(kill[i]);
+        }
 
-    private boolean isBranchStatement(Stmt stmt) {
-        return stmt instanceof JIfStmt || stmt instanceof JGotoStmt || stmt instanceof BranchingStmt ;
+        useOccurrences = occurrencesOf;
+        useOwner = Arrays.copyOf(owner, occurrences);
+        reachingUses = solveForward(occurrences, gen, kill);
+    }
 
+    private void analyzeControlDependencies(DependencyResult result) {
+        // stmt is control dependent on every statement in its post-dominance frontier
+        ControlDependenceGraph cdg = new ControlDependenceGraph(postDominatorAnalyzer);
+        result.setControlDependenceGraph(cdg);
+        for (int stmt = 0; stmt < index.size(); stmt++) {
+            for (int controller : cdg.getControllers(stmt)) {
+                result.addControlDependency(stmt, controller);
+            }
+        }
     }
 
     private void analyzeLoopDependencies(DependencyResult result) {
@@ -181,26 +470,83 @@ public class DependencyAnalyzer {
     }
 
 
+    /**
+     * Reaching definitions (OUT sets) per statement, as a read-only view over the bit-sets.
+     * With DataflowForm.SSA the dense sets are solved on the first call.
+     */
     public Map<Stmt, Set<Stmt>> getReachingDefinitions() {
-        return reachingDefinitions;
+        if (reachingDefinitions == null) analyzeReachingDefinitions();
+        return index.asMap(i -> index.asSet(reachingDefinitions[i]));
+    }
+
+    /** The SSA form the dependencies were computed from, or null with DataflowForm.DENSE. */
+    public SsaForm getSsaForm() {
+        return ssa;
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    /** The blocks the analyses ran on: one statement each unless Granularity.BASIC_BLOCK was chosen. */
+    public BasicBlocks getBasicBlocks() {
+        return blocks;
+    }
+
+    DominatorAnalyzer getDominatorAnalyzer() {
+        return dominatorAnalyzer;
+    }
+
+    LoopAnalyzer getLoopAnalyzer() {
+        return loopAnalyzer;
+    }
+
+    /** After update(): the statements whose reaching definitions and dominators were computed again; else null. */
+    public Set<Stmt> getAffectedStatements() {
+        return affected != null ? index.asSet(affected) : null;
+    }
+
+    /** Convergence statistics of the dataflow problems solved so far (reaching definitions first). */
+    public List<DataflowSolver.Stats> getSolverStats() {
+        return Collections.unmodifiableList(solverStats);
     }
 
 
     // Helper methods
+    /** Logs the reaching definitions of every statement, or the phi nodes with SSA, at debug level. */
     public void printReachingDefinitions() {
-        System.out.println("\n=== REACHING DEFINITIONS ===");
-        for (Stmt stmt : reachingDefinitions.keySet()) {
-            System.out.println("Stmt: " + stmt);
-            System.out.println("  Reaching defs: " + reachingDefinitions.get(stmt).size());
+        DebugOutput.log(log, this::printReachingDefinitions);
+    }
+
+    /** With DataflowForm.SSA the phi nodes are printed instead; the dense sets are not built for it. */
+    public void printReachingDefinitions(PrintStream out) {
+        if (ssa != null) {
+            ssa.print(out, variables);
+            return;
+        }
+        out.println("\n=== REACHING DEFINITIONS ===");
+        for (int i = 0; i < index.size(); i++) {
+            out.println("Stmt: " + index.get(i));
+            out.println("  Reaching defs: " + reachingDefinitions[i].cardinality());
         }
     }
 
+    /** Logs the dominators of every statement followed by the dominator tree at debug level. */
     public void printDominatorAnalysis() {
-        dominatorAnalyzer.printDominators();
-        dominatorAnalyzer.printDominatorTree();
+        DebugOutput.log(log, this::printDominatorAnalysis);
+    }
+
+    public void printDominatorAnalysis(PrintStream out) {
+        dominatorAnalyzer.printDominators(out);
+        dominatorAnalyzer.printDominatorTree(out);
     }
 
+    /** Logs the loop nesting forest with the dependencies inside each loop at debug level. */
     public void printLoopAnalysis() {
-        loopAnalyzer.printLoopAnalysis();
+        DebugOutput.log(log, this::printLoopAnalysis);
+    }
+
+    public void printLoopAnalysis(PrintStream out) {
+        loopAnalyzer.printLoopAnalysis(out);
     }
 }
\ No newline at end of file
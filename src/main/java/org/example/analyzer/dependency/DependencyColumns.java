@@ -0,0 +1,96 @@
+package org.example.analyzer.dependency;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DependencyColumns - Dependency rows as parallel arrays keyed by the target statement:
+ * type, source statement and variable number (-1 for none). Variable numbers come
+ * from the body's VariableTable; names it does not know get numbers below -1.
+ */
+final class DependencyColumns extends KeyedColumns<Dependency> {
+    private static final Dependency.Type[] TYPES = Dependency.Type.values();
+
+    private final VariableTable variables;
+    private final List<String> otherNames = new ArrayList<>();
+    private byte[] types = new byte[16];
+    private int[] sources = new int[16];
+    private int[] vars = new int[16];
+
+    DependencyColumns(StmtIndex index, VariableTable variables) {
+        super(index);
+        this.variables = variables;
+    }
+
+    void add(Dependency.Type type, int source, int target, int variable) {
+        checkStatement(source);
+        int r = append(target);
+        types[r] = (byte) type.ordinal();
+        sources[r] = source;
+        vars[r] = variable;
+    }
+
+    void add(Dependency dep) {
+        add(dep.getType(), statement(dep.getSource()), statement(dep.getTarget()), variableId(dep.getVariable()));
+    }
+
+    Dependency.Type getType(int r) {
+        return TYPES[types[r]];
+    }
+
+    int getSource(int r) {
+        return sources[r];
+    }
+
+    int getTarget(int r) {
+        return keys[r];
+    }
+
+    int getVariable(int r) {
+        return vars[r];
+    }
+
+    private int variableId(String name) {
+        if (name == null) return -1;
+        int id = variables.getId(name);
+        if (id >= 0) return id;
+        id = otherNames.indexOf(name);
+        if (id < 0) {
+            id = otherNames.size();
+            otherNames.add(name);
+        }
+        return -2 - id;
+    }
+
+    String variableName(int id) {
+        return id == -1 ? null : id >= 0 ? variables.getName(id) : otherNames.get(-2 - id);
+    }
+
+    @Override
+    protected Dependency row(int r) {
+        return new Dependency(TYPES[types[r]], index.get(sources[r]), index.get(keys[r]), variableName(vars[r]));
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+        vars = Arrays.copyOf(vars, capacity);
+    }
+
+    @Override
+    protected void permute(int[] order) {
+        byte[] oldTypes = types;
+        int[] oldSources = sources;
+        int[] oldVars = vars;
+        types = new byte[oldTypes.length];
+        sources = new int[oldSources.length];
+        vars = new int[oldVars.length];
+        for (int i = 0; i < size; i++) {
+            types[i] = oldTypes[order[i]];
+            sources[i] = oldSources[order[i]];
+            vars[i] = oldVars[order[i]];
+        }
+    }
+}
@@ -1,82 +1,192 @@
 package org.example.analyzer.dependency;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sootup.core.jimple.common.stmt.Stmt;
+import java.io.PrintStream;
 import java.util.*;
 
+/**
+ * DependencyResult - the dependencies found in one body, stored column-wise: parallel
+ * int arrays (type, source, target, variable) with per-target offsets instead of one
+ * Dependency object per edge. The Map / Set getters are read-only views that build
+ * Dependency and LoopDependency objects as they are iterated.
+ *
+ * With DataDependenceForm.WEBS the ALL_PAIRS WAW / WAR / DEF_ORDER pairs are not stored
+ * at all: a DefUseWebs holds the def and use sites per variable, getDataDependencies()
+ * expands the pairs of a statement when it is looked up, and printResults() prints the
+ * webs instead of the pairs.
+ */
 public class DependencyResult {
-    private Map<Stmt, Set<Dependency>> dataDependencies;
-    private Map<Stmt, Set<Dependency>> controlDependencies;
-    private Map<Stmt, Set<LoopDependency>> loopDependencies;
+    private static final Logger log = LoggerFactory.getLogger(DependencyResult.class);
 
-    public DependencyResult() {
-        this.dataDependencies = new HashMap<>();
-        this.controlDependencies = new HashMap<>();
-        this.loopDependencies = new HashMap<>();
+    private final StmtIndex index;
+    private final DependencyColumns dataDependencies;
+    private final DependencyColumns controlDependencies;
+    private final LoopDependencyColumns loopDependencies;
+    private ControlDependenceGraph controlDependenceGraph;
+    private DefUseWebs webs;
+
+    public DependencyResult(StmtIndex index, VariableTable variables) {
+        this.index = index;
+        this.dataDependencies = new DependencyColumns(index, variables);
+        this.controlDependencies = new DependencyColumns(index, variables);
+        this.loopDependencies = new LoopDependencyColumns(index, variables);
     }
 
     // Add dependencies
     public void addDataDependency(Dependency dep) {
-        dataDependencies.computeIfAbsent(dep.getTarget(), k -> new HashSet<>()).add(dep);
+        if (!dataDependenciesOf(index.indexOf(dep.getTarget())).contains(dep)) dataDependencies.add(dep);
+    }
+
+    /** Appends a data dependency by statement and variable number; each one is added once. */
+    void addDataDependency(Dependency.Type type, int source, int target, int variable) {
+        dataDependencies.add(type, source, target, variable);
     }
 
     public void addControlDependency(Stmt controlled, Stmt controller) {
         Dependency dep = new Dependency(Dependency.Type.CONTROL, controller, controlled, null);
-        controlDependencies.computeIfAbsent(controlled, k -> new HashSet<>()).add(dep);
+        if (!controlDependencies.rowsOf(index.indexOf(controlled)).contains(dep)) controlDependencies.add(dep);
+    }
+
+    void addControlDependency(int controlled, int controller) {
+        controlDependencies.add(Dependency.Type.CONTROL, controller, controlled, -1);
+    }
+
+    /** WAW / WAR / DEF_ORDER pairs in implicit form; they are not added one by one then. */
+    void setDefUseWebs(DefUseWebs webs) {
+        this.webs = webs;
+    }
+
+    public void setControlDependenceGraph(ControlDependenceGraph controlDependenceGraph) {
+        this.controlDependenceGraph = controlDependenceGraph;
     }
 
     public void addLoopDependency(Stmt stmt, LoopDependency loopDep) {
-        loopDependencies.computeIfAbsent(stmt, k -> new HashSet<>()).add(loopDep);
+        if (!loopDependencies.rowsOf(index.indexOf(stmt)).contains(loopDep)) {
+            loopDependencies.add(index.indexOf(stmt), loopDep);
+        }
+    }
+
+    void addLoopDependencies(LoopDependencyColumns deps) {
+        loopDependencies.addAll(deps);
     }
 
     // Getters
+    /** Data dependencies per target statement; pairs implied by the webs are expanded on lookup. */
     public Map<Stmt, Set<Dependency>> getDataDependencies() {
-        return Collections.unmodifiableMap(dataDependencies);
+        if (webs == null) return dataDependencies.asMap();
+        return index.asMap(stmt -> {
+            Set<Dependency> deps = dataDependenciesOf(stmt);
+            return deps.isEmpty() ? null : deps;
+        });
+    }
+
+    private Set<Dependency> dataDependenciesOf(int stmt) {
+        if (webs == null || stmt < 0) return dataDependencies.rowsOf(stmt);
+        Set<Dependency> deps = new LinkedHashSet<>(dataDependencies.rowsOf(stmt));
+        webs.forEachPair(stmt, (type, source, target, variable) -> deps.add(new Dependency(type,
+                index.get(source), index.get(target), dataDependencies.variableName(variable))));
+        return Collections.unmodifiableSet(deps);
+    }
+
+    /** The def-use webs standing for the WAW / WAR / DEF_ORDER pairs, or null if those are stored as pairs. */
+    public DefUseWebs getDefUseWebs() {
+        return webs;
     }
 
     public Map<Stmt, Set<Dependency>> getControlDependencies() {
-        return Collections.unmodifiableMap(controlDependencies);
+        return controlDependencies.asMap();
+    }
+
+    /** The full control-dependence graph, queryable in both directions; null if none was set. */
+    public ControlDependenceGraph getControlDependenceGraph() {
+        return controlDependenceGraph;
     }
 
     public Map<Stmt, Set<LoopDependency>> getLoopDependencies() {
-        return Collections.unmodifiableMap(loopDependencies);
+        return loopDependencies.asMap();
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    /** Number of data dependencies, the pairs implied by the webs included. */
+    public int getDataDependencyCount() {
+        return Math.toIntExact(dataDependencies.size() + (webs != null ? webs.countPairs() : 0));
+    }
+
+    /** Number of data dependency entries actually stored: explicit pairs plus web sites. */
+    public int getStoredDataDependencyCount() {
+        return dataDependencies.size() + (webs != null ? webs.getSiteCount() : 0);
+    }
+
+    public int getControlDependencyCount() {
+        return controlDependencies.size();
+    }
+
+    public int getLoopDependencyCount() {
+        return loopDependencies.size();
+    }
+
+    DependencyColumns getDataColumns() {
+        return dataDependencies;
+    }
+
+    DependencyColumns getControlColumns() {
+        return controlDependencies;
+    }
+
+    LoopDependencyColumns getLoopColumns() {
+        return loopDependencies;
     }
 
     // Utility methods
     public Set<Dependency> getAllDependenciesForStmt(Stmt stmt) {
         Set<Dependency> allDeps = new HashSet<>();
-        if (dataDependencies.containsKey(stmt)) {
-            allDeps.addAll(dataDependencies.get(stmt));
-        }
-        if (controlDependencies.containsKey(stmt)) {
-            allDeps.addAll(controlDependencies.get(stmt));
+        int id = index.indexOf(stmt);
+        if (id >= 0) {
+            allDeps.addAll(dataDependenciesOf(id));
+            allDeps.addAll(controlDependencies.rowsOf(id));
         }
         return allDeps;
     }
 
+    /** Logs the data (or def-use webs), control and loop dependencies per statement at debug level. */
     public void printResults() {
-        System.out.println("=== DETAILED DEPENDENCY ANALYSIS RESULTS ===");
+        DebugOutput.log(log, this::printResults);
+    }
+
+    public void printResults(PrintStream out) {
+        out.println("=== DETAILED DEPENDENCY ANALYSIS RESULTS ===");
 
-        System.out.println("\nData Dependencies (RAW, WAR, WAW):");
-        dataDependencies.forEach((stmt, deps) -> {
+        out.println("\nData Dependencies (RAW, WAR, WAW):");
+        dataDependencies.asMap().forEach((stmt, deps) -> {
             if (!deps.isEmpty()) {
-                System.out.println("\nStmt: " + stmt);
-                deps.forEach(dep -> System.out.println("  " + dep));
+                out.println("\nStmt: " + stmt);
+                deps.forEach(dep -> out.println("  " + dep));
             }
         });
 
-        System.out.println("\nControl Dependencies:");
-        controlDependencies.forEach((stmt, deps) -> {
+        if (webs != null) {
+            out.println("\nDef-Use Webs (WAW / DEF_ORDER between the defs, WAR from the uses to the defs):");
+            webs.print(out);
+        }
+
+        out.println("\nControl Dependencies:");
+        getControlDependencies().forEach((stmt, deps) -> {
             if (!deps.isEmpty()) {
-                System.out.println("\nStmt: " + stmt);
-                deps.forEach(dep -> System.out.println("  " + dep));
+                out.println("\nStmt: " + stmt);
+                deps.forEach(dep -> out.println("  " + dep));
             }
         });
 
-        System.out.println("\nLoop Dependencies:");
-        loopDependencies.forEach((stmt, deps) -> {
+        out.println("\nLoop Dependencies:");
+        getLoopDependencies().forEach((stmt, deps) -> {
             if (!deps.isEmpty()) {
-                System.out.println("\nStmt: " + stmt);
-                deps.forEach(dep -> System.out.println("  " + dep));
+                out.println("\nStmt: " + stmt);
+                deps.forEach(dep -> out.println("  " + dep));
             }
         });
     }
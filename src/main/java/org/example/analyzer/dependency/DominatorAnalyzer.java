@@ -1,179 +1,251 @@
 package org.example.analyzer.dependency;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.common.stmt.Stmt;
+import java.io.PrintStream;
 import java.util.*;
 
+/**
+ * DominatorAnalyzer - immediate dominators by the Cooper-Harvey-Kennedy algorithm
+ * ("A Simple, Fast Dominance Algorithm"): iterate over the reverse post-order,
+ * intersecting the predecessors' dominator-tree paths, until the idom array is stable.
+ *
+ * Only the idom array and the DominatorTree built from it are kept; dominance checks
+ * use the tree's interval numbering and full dominator sets are walked off the tree
+ * on request. Statements the entry does not reach keep the dataflow meaning
+ * of "dominated by every statement" and have no immediate dominator.
+ *
+ * The idom iteration is not a set-valued fixpoint (a changed idom can alter intersections
+ * anywhere below it), so it keeps its own full passes rather than running on
+ * DataflowSolver's worklist; the traversal order comes from DataflowSolver.
+ *
+ * The iteration runs on the blocks of a BasicBlocks partition (one statement per block
+ * unless maximal blocks are passed in). Inside a block every statement is immediately
+ * dominated by the one before it and the leader by the last statement of its block's
+ * immediate dominator, so the statement-level idom array is the same for both.
+ *
+ * The traversal follows the normal edges: handlers are not reached and so dominated by
+ * everything. SsaForm asks for the tree over all edges (exceptional ones included), the
+ * graph the reaching definitions are solved on.
+ */
 public class DominatorAnalyzer {
+    private static final Logger log = LoggerFactory.getLogger(DominatorAnalyzer.class);
+
     private StmtGraph<?> cfg;
-    private Map<Stmt, Set<Stmt>> dominators;
-    private Map<Stmt, Stmt> immediateDominators;
-    private Stmt entryStatement;
+    private StmtIndex index;
+    private FlowGraph graph;
+    private BasicBlocks blocks;
+    private int[] immediateDominators;  // statement number, -1 for none
+    private DominatorTree dominatorTree;
+    private int entry;
+    private boolean allEdges;
 
     public DominatorAnalyzer(StmtGraph<?> cfg) {
-        this.cfg = cfg;
-        this.dominators = new HashMap<>();
-        this.immediateDominators = new HashMap<>();
-        analyze();
+        this(StmtIndex.of(cfg));
+    }
+
+    public DominatorAnalyzer(StmtIndex index) {
+        this(BasicBlocks.singletons(index.getFlowGraph()));
     }
 
-    private void analyze() {
+    public DominatorAnalyzer(BasicBlocks blocks) {
+        this(blocks, false);
+    }
+
+    /** @param allEdges walk the exceptional edges too (FlowGraph.getAllSuccessors()) */
+    DominatorAnalyzer(BasicBlocks blocks, boolean allEdges) {
+        this.allEdges = allEdges;
+        this.graph = blocks.getFlowGraph();
+        this.index = graph.getStmtIndex();
+        this.cfg = index.getGraph();
+        this.blocks = blocks;
+        this.immediateDominators = new int[index.size()];
+        findEntryStatement();
+        computeImmediateDominators(null, null);
+    }
+
+    /**
+     * Dominators of an edited body, one block per statement. Only the {@code affected}
+     * statements (those a path from an edited statement reaches, see
+     * DependencyAnalyzer.update()) are iterated; every other statement keeps its
+     * immediate dominator from {@code previous}, since no path from the entry to it
+     * changed. If the entry changed, everything is computed again.
+     *
+     * @param previousIds per statement number, its number in {@code previous}, or -1 if it is new
+     */
+    DominatorAnalyzer(StmtIndex index, DominatorAnalyzer previous, int[] previousIds, BitSet affected) {
+        this.graph = index.getFlowGraph();
+        this.index = index;
+        this.cfg = index.getGraph();
+        this.blocks = BasicBlocks.singletons(graph);
+        this.immediateDominators = new int[index.size()];
         findEntryStatement();
-        initializeDominators();
-        computeDominators();
-        computeImmediateDominators();
+
+        int[] known = null;
+        if (entry >= 0 && previous.entry >= 0 && previousIds[entry] == previous.entry && !previous.allEdges) {
+            int[] newIds = new int[previous.index.size()];
+            Arrays.fill(newIds, -1);
+            for (int i = 0; i < previousIds.length; i++) if (previousIds[i] >= 0) newIds[previousIds[i]] = i;
+            known = new int[index.size()];
+            for (int i = 0; i < known.length; i++) {
+                int idom = affected.get(i) ? -1 : previous.immediateDominators[previousIds[i]];
+                known[i] = idom >= 0 ? newIds[idom] : -1;
+            }
+        }
+        computeImmediateDominators(known, affected);
     }
 
     private void findEntryStatement() {
-        for (Stmt stmt : cfg.getStmts()) {
-            if (cfg.predecessors(stmt).isEmpty()) {
-                entryStatement = stmt;
+        for (int i = 0; i < index.size(); i++) {
+            if (graph.getAllPredecessors().degree(i) == 0) {
+                entry = i;
                 return;
             }
         }
         // If no entry found, use first statement
-        Iterator<Stmt> stmtIterator = cfg.getStmts().iterator();
-        if (stmtIterator.hasNext()) {
-            entryStatement = stmtIterator.next();
-        }
+        entry = index.size() > 0 ? 0 : -1;
     }
 
-    private void initializeDominators() {
-        Set<Stmt> allStatements = getAllStatements();
-
-        for (Stmt stmt : allStatements) {
-            if (stmt.equals(entryStatement)) {
-                dominators.put(stmt, new HashSet<>(Set.of(stmt)));
-            } else {
-                dominators.put(stmt, new HashSet<>(allStatements));
-            }
+    /** @param known idom per block to keep for the blocks outside {@code affected}; null to compute all */
+    private void computeImmediateDominators(int[] known, BitSet affected) {
+        int n = index.size();
+        Arrays.fill(immediateDominators, -1);
+        BitSet reached = new BitSet(n);
+        if (entry < 0) {
+            dominatorTree = new DominatorTree(index, immediateDominators, reached);
+            return;
         }
-    }
 
-    private void computeDominators() {
+        int entryBlock = blocks.getBlock(entry);
+        int[] reversePostOrder = DataflowSolver.reversePostOrder(
+                allEdges ? blocks.getAllSuccessors() : blocks.getSuccessors(), entryBlock);
+        int[] order = new int[blocks.size()];   // position in reverse post-order, -1 if not reached
+        Arrays.fill(order, -1);
+        for (int i = 0; i < reversePostOrder.length; i++) order[reversePostOrder[i]] = i;
+
+        int[] idom = new int[blocks.size()];    // per block, -1 for none
+        Arrays.fill(idom, -1);
+        FlowGraph.Edges preds = blocks.getAllPredecessors();
+        if (known != null) {
+            for (int block : reversePostOrder) if (!affected.get(block)) idom[block] = known[block];
+        }
+        idom[entryBlock] = entryBlock;
         boolean changed;
-        int iteration = 0;
-        List<Stmt> reversePostOrder = getReversePostOrder();
-
         do {
             changed = false;
-            iteration++;
-
-            for (Stmt stmt : reversePostOrder) {
-                if (stmt.equals(entryStatement)) {
-                    continue;
-                }
-
-                Set<Stmt> newDominators = new HashSet<>(getAllStatements());
-
-                for (Stmt pred : cfg.predecessors(stmt)) {
-                    newDominators.retainAll(dominators.get(pred));
+            for (int block : reversePostOrder) {
+                if (block == entryBlock || known != null && !affected.get(block)) continue;
+
+                int newIdom = -1;
+                for (int e = preds.start(block); e < preds.end(block); e++) {
+                    int pred = preds.target(e);
+                    if (idom[pred] < 0) continue;   // not processed yet, or not reached
+                    newIdom = newIdom < 0 ? pred : intersect(idom, pred, newIdom, order);
                 }
 
-                newDominators.add(stmt);
-
-                if (!newDominators.equals(dominators.get(stmt))) {
-                    dominators.put(stmt, new HashSet<>(newDominators));
+                if (newIdom != idom[block]) {
+                    idom[block] = newIdom;
                     changed = true;
                 }
             }
-        } while (changed && iteration < 100);
-    }
-
-    private void computeImmediateDominators() {
-        for (Stmt stmt : getAllStatements()) {
-            if (stmt.equals(entryStatement)) {
-                immediateDominators.put(stmt, null);
-                continue;
-            }
-
-            Set<Stmt> stmtDominators = new HashSet<>(dominators.get(stmt));
-            stmtDominators.remove(stmt);
-
-            Stmt immediateDom = null;
-            for (Stmt dom : stmtDominators) {
-                if (immediateDom == null) {
-                    immediateDom = dom;
-                } else if (dominators.get(dom).contains(immediateDom)) {
-                    immediateDom = dom;
-                }
+        } while (changed);
+
+        for (int block : reversePostOrder) {
+            if (block != entryBlock && idom[block] < 0) continue;
+            int previous = block == entryBlock ? -1 : blocks.getLast(idom[block]);
+            for (int p = blocks.start(block); p < blocks.end(block); p++) {
+                int stmt = blocks.stmt(p);
+                immediateDominators[stmt] = previous;
+                reached.set(stmt);
+                previous = stmt;
             }
-
-            immediateDominators.put(stmt, immediateDom);
         }
+        dominatorTree = new DominatorTree(index, immediateDominators, reached);
     }
 
-    private Set<Stmt> getAllStatements() {
-        return new HashSet<>(cfg.getStmts());
-    }
-
-    private List<Stmt> getReversePostOrder() {
-        List<Stmt> reversePostOrder = new ArrayList<>();
-        Set<Stmt> visited = new HashSet<>();
-        dfsPostOrder(entryStatement, visited, reversePostOrder);
-        Collections.reverse(reversePostOrder);
-        return reversePostOrder;
-    }
-
-    private void dfsPostOrder(Stmt current, Set<Stmt> visited, List<Stmt> order) {
-        visited.add(current);
-
-        for (Stmt succ : cfg.successors(current)) {
-            if (!visited.contains(succ)) {
-                dfsPostOrder(succ, visited, order);
-            }
+    private static int intersect(int[] idom, int a, int b, int[] order) {
+        while (a != b) {
+            while (order[a] > order[b]) a = idom[a];
+            while (order[b] > order[a]) b = idom[b];
         }
-
-        order.add(current);
+        return a;
     }
 
     // Public API
     public Set<Stmt> getDominators(Stmt stmt) {
-        return Collections.unmodifiableSet(dominators.getOrDefault(stmt, new HashSet<>()));
+        int id = index.indexOf(stmt);
+        if (id < 0) return Collections.emptySet();
+
+        BitSet dominators = new BitSet(index.size());
+        if (!dominatorTree.contains(id)) {
+            dominators.set(0, index.size());
+        } else {
+            for (int d = id; d >= 0; d = immediateDominators[d]) dominators.set(d);
+        }
+        return index.asSet(dominators);
     }
 
     public Stmt getImmediateDominator(Stmt stmt) {
-        return immediateDominators.get(stmt);
+        int id = index.indexOf(stmt);
+        return id >= 0 && immediateDominators[id] >= 0 ? index.get(immediateDominators[id]) : null;
     }
 
     public boolean dominates(Stmt dominator, Stmt dominated) {
-        return dominators.get(dominated).contains(dominator);
+        int d = index.indexOf(dominator);
+        int s = index.indexOf(dominated);
+        if (d < 0 || s < 0) return false;
+        if (!dominatorTree.contains(s)) return true;    // not reached: dominated by everything
+        return dominatorTree.isAncestor(d, s);
+    }
+
+    boolean dominates(int dominator, int dominated) {
+        return !dominatorTree.contains(dominated) || dominatorTree.isAncestor(dominator, dominated);
+    }
+
+    public DominatorTree getDominatorTree() {
+        return dominatorTree;
     }
 
     public Stmt getEntryStatement() {
-        return entryStatement;
+        return entry >= 0 ? index.get(entry) : null;
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
     }
 
+    /** The blocks the iteration ran on. */
+    public BasicBlocks getBasicBlocks() {
+        return blocks;
+    }
+
+    /** Logs the dominator count and immediate dominator of every statement at debug level. */
     public void printDominators() {
-        System.out.println("\n=== DOMINATOR ANALYSIS RESULTS ===");
-        System.out.println("Entry statement: " + entryStatement);
+        DebugOutput.log(log, this::printDominators);
+    }
 
-        for (Stmt stmt : getAllStatements()) {
-            System.out.println("\nStatement: " + stmt);
-            System.out.println("  Dominators: " + dominators.get(stmt).size() + " statements");
+    public void printDominators(PrintStream out) {
+        out.println("\n=== DOMINATOR ANALYSIS RESULTS ===");
+        out.println("Entry statement: " + getEntryStatement());
 
-            Stmt immDom = immediateDominators.get(stmt);
-            System.out.println("  Immediate dominator: " + (immDom != null ? immDom : "ENTRY"));
+        for (int stmt = 0; stmt < index.size(); stmt++) {
+            out.println("\nStatement: " + index.get(stmt));
+            out.println("  Dominators: " + (dominatorTree.contains(stmt) ? dominatorTree.getDepth(stmt) + 1 : index.size()) + " statements");
+
+            int immDom = immediateDominators[stmt];
+            out.println("  Immediate dominator: " + (immDom >= 0 ? index.get(immDom) : "ENTRY"));
         }
     }
 
+    /** Logs the dominator tree, indented by depth, at debug level. */
     public void printDominatorTree() {
-        System.out.println("\n=== DOMINATOR TREE ===");
-        printDominatorTreeRecursive(entryStatement, 0);
+        DebugOutput.log(log, this::printDominatorTree);
     }
 
-    private void printDominatorTreeRecursive(Stmt stmt, int depth) {
-        StringBuilder indent = new StringBuilder();
-        for (int i = 0; i < depth; i++) {
-            indent.append("  ");
-        }
-
-        System.out.println(indent + "└─ " + stmt);
-
-        for (Stmt child : getAllStatements()) {
-            if (stmt.equals(immediateDominators.get(child))) {
-                printDominatorTreeRecursive(child, depth + 1);
-            }
-        }
+    public void printDominatorTree(PrintStream out) {
+        out.println("\n=== DOMINATOR TREE ===");
+        dominatorTree.print(out);
     }
-}
\ No newline at end of file
+}
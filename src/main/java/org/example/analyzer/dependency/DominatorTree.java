@@ -0,0 +1,153 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * DominatorTree - a (post-)dominator tree over statement numbers, built once from an
+ * immediate-dominator array.
+ *
+ * Children are kept in compressed form (one offsets array plus one children array) and
+ * every node gets a pre-order and post-order number from one depth-first walk, so
+ *   a is an ancestor of b  &lt;=&gt;  pre[a] &lt;= pre[b] &amp;&amp; post[b] &lt;= post[a]
+ * is two comparisons. The tree may be a forest (post-dominators have one root per exit).
+ * Statements that are not members (not reached by the analysis) have no numbers.
+ */
+public final class DominatorTree {
+    private final StmtIndex index;
+    private final int[] parent;        // -1 for roots and non-members
+    private final int[] childStart;    // children of v: children[childStart[v] .. childStart[v + 1])
+    private final int[] children;
+    private final int[] roots;
+    private final int[] pre;           // -1 for non-members
+    private final int[] post;
+    private final int[] depth;
+    private final int[] preOrder;      // members in pre-order
+
+    /**
+     * @param idom    immediate dominator per statement, -1 for roots
+     * @param members statements that belong to the tree
+     */
+    DominatorTree(StmtIndex index, int[] idom, BitSet members) {
+        int n = index.size();
+        this.index = index;
+        this.parent = new int[n];
+        this.childStart = new int[n + 1];
+        this.pre = new int[n];
+        this.post = new int[n];
+        this.depth = new int[n];
+        Arrays.fill(pre, -1);
+        Arrays.fill(post, -1);
+        Arrays.fill(depth, -1);
+
+        int rootCount = 0;
+        for (int v = 0; v < n; v++) {
+            parent[v] = members.get(v) ? idom[v] : -1;
+            if (parent[v] >= 0) {
+                childStart[parent[v] + 1]++;
+            } else if (members.get(v)) {
+                rootCount++;
+            }
+        }
+        for (int v = 0; v < n; v++) childStart[v + 1] += childStart[v];
+
+        this.children = new int[childStart[n]];
+        this.roots = new int[rootCount];
+        int[] fill = Arrays.copyOf(childStart, n);
+        rootCount = 0;
+        for (int v = 0; v < n; v++) {
+            if (parent[v] >= 0) {
+                children[fill[parent[v]]++] = v;
+            } else if (members.get(v)) {
+                roots[rootCount++] = v;
+            }
+        }
+
+        this.preOrder = new int[members.cardinality()];
+        number();
+    }
+
+    private void number() {
+        int n = index.size();
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        int preCount = 0;
+        int postCount = 0;
+
+        for (int root : roots) {
+            int top = 0;
+            stack[0] = root;
+            next[0] = childStart[root];
+            depth[root] = 0;
+            pre[root] = preCount;
+            preOrder[preCount++] = root;
+            while (top >= 0) {
+                int node = stack[top];
+                if (next[top] < childStart[node + 1]) {
+                    int child = children[next[top]++];
+                    depth[child] = top + 1;
+                    pre[child] = preCount;
+                    preOrder[preCount++] = child;
+                    stack[++top] = child;
+                    next[top] = childStart[child];
+                } else {
+                    post[node] = postCount++;
+                    top--;
+                }
+            }
+        }
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    public boolean contains(int node) {
+        return pre[node] >= 0;
+    }
+
+    /** Immediate (post-)dominator, or -1 for roots and non-members. */
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    public int[] getChildren(int node) {
+        return Arrays.copyOfRange(children, childStart[node], childStart[node + 1]);
+    }
+
+    public int getChildCount(int node) {
+        return childStart[node + 1] - childStart[node];
+    }
+
+    public int[] getRoots() {
+        return roots.clone();
+    }
+
+    /** Depth below the root of the node's tree, -1 for non-members. */
+    public int getDepth(int node) {
+        return depth[node];
+    }
+
+    /** Does a (reflexively) dominate b in this tree? False if either is not a member. */
+    public boolean isAncestor(int a, int b) {
+        return pre[a] >= 0 && pre[b] >= 0 && pre[a] <= pre[b] && post[b] <= post[a];
+    }
+
+    /** Members in pre-order: every node comes before its children. */
+    public int[] getPreOrder() {
+        return preOrder.clone();
+    }
+
+    /** Prints the tree (each root and its subtree) in pre-order, one indented line per statement. */
+    public void print(PrintStream out) {
+        for (int node : preOrder) {
+            StringBuilder indent = new StringBuilder();
+            for (int i = 0; i < depth[node]; i++) indent.append("  ");
+            Stmt stmt = index.get(node);
+            out.println(indent + "└─ " + stmt);
+        }
+    }
+}
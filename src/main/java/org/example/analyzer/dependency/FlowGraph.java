@@ -0,0 +1,183 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.types.ClassType;
+
+import java.util.*;
+
+/**
+ * FlowGraph - immutable int snapshot of a StmtGraph over the StmtIndex numbering,
+ * built once per body (StmtIndex.getFlowGraph()) and shared by every analyzer.
+ *
+ * Normal and exceptional edges are kept apart, each direction in compressed form
+ * (offsets plus one target array), so traversals in the fixpoint loops index plain int
+ * arrays instead of asking the StmtGraph for fresh lists:
+ *
+ *   for (int e = succs.start(v); e < succs.end(v); e++) visit(succs.target(e));
+ *
+ * Exceptional edges come from StmtGraph.exceptionalSuccessors(): every statement of a
+ * protected block leads to its handlers. StmtGraph.predecessors() has a coarser view:
+ * besides the normal predecessors it lists, for a handler, only the last statement of
+ * each block it protects. getAllPredecessors() keeps exactly that view (it is what the
+ * reaching-definitions equations have always read) and getAllSuccessors() is its inverse.
+ */
+public final class FlowGraph {
+    private final StmtIndex index;
+    private final Edges successors;
+    private final Edges predecessors;
+    private final Edges exceptionalSuccessors;
+    private final Edges exceptionalPredecessors;
+    private final Edges allSuccessors;
+    private final Edges allPredecessors;
+
+    private FlowGraph(StmtIndex index) {
+        this.index = index;
+        StmtGraph<?> cfg = index.getGraph();
+        int n = index.size();
+
+        int[][] normal = new int[n][];
+        int[][] exceptional = new int[n][];
+        int[][] all = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Stmt stmt = index.get(i);
+            normal[i] = cfg.successors(stmt).stream().mapToInt(index::indexOf).toArray();
+            all[i] = cfg.predecessors(stmt).stream().mapToInt(index::indexOf).toArray();
+            // handlers ordered by exception type, as in the StmtIndex walk
+            exceptional[i] = cfg.exceptionalSuccessors(stmt).entrySet().stream()
+                    .sorted(Comparator.comparing((Map.Entry<ClassType, Stmt> e) -> e.getKey().toString()))
+                    .mapToInt(e -> index.indexOf(e.getValue())).toArray();
+        }
+        successors = Edges.of(normal);
+        predecessors = successors.inverse();
+        exceptionalSuccessors = Edges.of(exceptional);
+        exceptionalPredecessors = exceptionalSuccessors.inverse();
+        allPredecessors = Edges.of(all);
+        allSuccessors = allPredecessors.inverse();
+    }
+
+    static FlowGraph of(StmtIndex index) {
+        return new FlowGraph(index);
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    /** Normal control flow: fall-through, branches, switches. */
+    public Edges getSuccessors() {
+        return successors;
+    }
+
+    public Edges getPredecessors() {
+        return predecessors;
+    }
+
+    /** Statement to the handlers that catch what it may throw. */
+    public Edges getExceptionalSuccessors() {
+        return exceptionalSuccessors;
+    }
+
+    public Edges getExceptionalPredecessors() {
+        return exceptionalPredecessors;
+    }
+
+    /** Normal edges, plus an edge from the last statement of each protected block to its handlers. */
+    public Edges getAllSuccessors() {
+        return allSuccessors;
+    }
+
+    /** As StmtGraph.predecessors(). */
+    public Edges getAllPredecessors() {
+        return allPredecessors;
+    }
+
+    /**
+     * Edges - one direction of a graph over 0..n-1 in compressed form: the targets of v are
+     * target(start(v)) .. target(end(v) - 1), in insertion order.
+     */
+    public static final class Edges {
+        private final int[] start;      // targets of v: targets[start[v] .. start[v + 1])
+        private final int[] targets;
+
+        private Edges(int[] start, int[] targets) {
+            this.start = start;
+            this.targets = targets;
+        }
+
+        /** Compressed copy of per-node target lists. */
+        public static Edges of(int[][] lists) {
+            int n = lists.length;
+            int[] start = new int[n + 1];
+            for (int v = 0; v < n; v++) start[v + 1] = start[v] + lists[v].length;
+            int[] targets = new int[start[n]];
+            for (int v = 0; v < n; v++) System.arraycopy(lists[v], 0, targets, start[v], lists[v].length);
+            return new Edges(start, targets);
+        }
+
+        /** Graph over 0..n-1 with the edges from[i] -> to[i], i < count; each node keeps its edges in that order. */
+        static Edges of(int n, int[] from, int[] to, int count) {
+            int[] start = new int[n + 1];
+            for (int i = 0; i < count; i++) start[from[i] + 1]++;
+            for (int v = 0; v < n; v++) start[v + 1] += start[v];
+            int[] targets = new int[count];
+            int[] fill = Arrays.copyOf(start, n);
+            for (int i = 0; i < count; i++) targets[fill[from[i]]++] = to[i];
+            return new Edges(start, targets);
+        }
+
+        /** Every edge reversed; each node's sources come in increasing order. */
+        public Edges inverse() {
+            int n = nodeCount();
+            int[] inverseStart = new int[n + 1];
+            for (int target : targets) inverseStart[target + 1]++;
+            for (int v = 0; v < n; v++) inverseStart[v + 1] += inverseStart[v];
+            int[] sources = new int[targets.length];
+            int[] fill = Arrays.copyOf(inverseStart, n);
+            for (int v = 0; v < n; v++) {
+                for (int e = start[v]; e < start[v + 1]; e++) sources[fill[targets[e]]++] = v;
+            }
+            return new Edges(inverseStart, sources);
+        }
+
+        public int nodeCount() {
+            return start.length - 1;
+        }
+
+        public int edgeCount() {
+            return targets.length;
+        }
+
+        public int start(int v) {
+            return start[v];
+        }
+
+        public int end(int v) {
+            return start[v + 1];
+        }
+
+        public int target(int edge) {
+            return targets[edge];
+        }
+
+        public int degree(int v) {
+            return start[v + 1] - start[v];
+        }
+
+        /** Targets of v, as a new array. */
+        public int[] get(int v) {
+            return Arrays.copyOfRange(targets, start[v], start[v + 1]);
+        }
+
+        public boolean contains(int v, int target) {
+            for (int e = start[v]; e < start[v + 1]; e++) {
+                if (targets[e] == target) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.basic.Value;
+
+import java.util.Set;
+
+/**
+ * JsonRecord - the results of one method as a single line of JSON, for the JSON Lines
+ * output of the pipeline:
+ *
+ *   {"class", "method", "signature",
+ *    "statements": [{"text", "def": [...], "use": [...]}],
+ *    "dependencies": [{"type", "source", "target", "variable"?}],
+ *    "loopDependencies": [{"type", "source", "target", "variable"?, "distance", "loop"}]}
+ *
+ * Statements are referred to by their StmtIndex position and a loop by the position of
+ * its header. Dependencies are grouped by target in statement order, data (webs expanded)
+ * before control, as in the ResultFile.
+ */
+public final class JsonRecord {
+    private final StringBuilder json = new StringBuilder(256);
+
+    private JsonRecord() {
+    }
+
+    public static String encode(String className, String methodName, String signature,
+                                DefUseAnalyzer defUse, DependencyResult result) {
+        JsonRecord record = new JsonRecord();
+        record.json.append("{\"class\": ");
+        record.string(className);
+        record.json.append(", \"method\": ");
+        record.string(methodName);
+        record.json.append(", \"signature\": ");
+        record.string(signature);
+        record.statements(result.getStmtIndex(), defUse);
+        record.dependencies(result);
+        record.loopDependencies(result);
+        record.json.append('}');
+        return record.json.toString();
+    }
+
+    private void statements(StmtIndex index, DefUseAnalyzer defUse) {
+        json.append(", \"statements\": [");
+        for (int i = 0; i < index.size(); i++) {
+            if (i > 0) json.append(", ");
+            json.append("{\"text\": ");
+            string(index.get(i).toString());
+            json.append(", \"def\": ");
+            names(defUse.getDefSet(i));
+            json.append(", \"use\": ");
+            names(defUse.getUseSet(i));
+            json.append('}');
+        }
+        json.append(']');
+    }
+
+    private void dependencies(DependencyResult result) {
+        DependencyColumns data = result.getDataColumns();
+        DependencyColumns control = result.getControlColumns();
+        DefUseWebs webs = result.getDefUseWebs();
+        int n = result.getStmtIndex().size();
+
+        json.append(", \"dependencies\": [");
+        int start = json.length();
+        for (int target = 0; target < n; target++) {
+            for (int r = data.firstRow(target); r < data.endRow(target); r++) {
+                dependency(start, data.getType(r).name(), data.getSource(r), target,
+                        data.variableName(data.getVariable(r)));
+            }
+            if (webs != null) {
+                webs.forEachPair(target, (type, source, t, v) ->
+                        dependency(start, type.name(), source, t, data.variableName(v)));
+            }
+            for (int r = control.firstRow(target); r < control.endRow(target); r++) {
+                dependency(start, control.getType(r).name(), control.getSource(r), target, null);
+            }
+        }
+        json.append(']');
+    }
+
+    private void dependency(int start, String type, int source, int target, String variable) {
+        if (json.length() > start) json.append(", ");
+        json.append("{\"type\": \"").append(type).append("\", \"source\": ").append(source)
+                .append(", \"target\": ").append(target);
+        if (variable != null) {
+            json.append(", \"variable\": ");
+            string(variable);
+        }
+        json.append('}');
+    }
+
+    private void loopDependencies(DependencyResult result) {
+        LoopDependencyColumns loopDeps = result.getLoopColumns();
+        StmtIndex index = result.getStmtIndex();
+
+        json.append(", \"loopDependencies\": [");
+        boolean first = true;
+        for (int stmt = 0; stmt < index.size(); stmt++) {
+            for (int r = loopDeps.firstRow(stmt); r < loopDeps.endRow(stmt); r++) {
+                if (!first) json.append(", ");
+                first = false;
+                json.append("{\"type\": \"").append(loopDeps.getType(r).name())
+                        .append("\", \"source\": ").append(loopDeps.getSource(r))
+                        .append(", \"target\": ").append(loopDeps.getTarget(r));
+                Value value = loopDeps.getValue(r);
+                if (value != null) {
+                    json.append(", \"variable\": ");
+                    string(value.toString());
+                }
+                Loop loop = loopDeps.getLoop(r);
+                json.append(", \"distance\": ").append(loopDeps.getDistance(r))
+                        .append(", \"loop\": ").append(loop != null ? index.indexOf(loop.getHeader()) : -1)
+                        .append('}');
+            }
+        }
+        json.append(']');
+    }
+
+    private void names(Set<String> names) {
+        json.append('[');
+        boolean first = true;
+        for (String name : names) {
+            if (!first) json.append(", ");
+            first = false;
+            string(name);
+        }
+        json.append(']');
+    }
+
+    private void string(String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':  json.append("\\\""); break;
+                case '\\': json.append("\\\\"); break;
+                case '\n': json.append("\\n"); break;
+                case '\r': json.append("\\r"); break;
+                case '\t': json.append("\\t"); break;
+                default:
+                    if (c < 0x20) json.append(String.format("\\u%04x", (int) c));
+                    else json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,191 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+/**
+ * KeyedColumns - rows stored column-wise in parallel primitive arrays, grouped by a
+ * statement number key, with Map / Set views that build a row object only when it is
+ * looked at.
+ *
+ * Groups are ordered by the first appearance of their key, rows within a group by
+ * insertion. The analyzers append all rows of one key at once, so the per-group
+ * offsets are built while appending; rows of a key that comes back later are moved
+ * next to the rest of their group (one stable counting sort) before the next read.
+ * Callers append each row once: the columns do not look for duplicates.
+ */
+abstract class KeyedColumns<T> {
+    protected final StmtIndex index;
+    protected int[] keys = new int[16];
+    protected int size;
+
+    private final int[] groupOf;            // key -> group number, -1 if it has no rows
+    private int[] groupKeys = new int[8];
+    private int[] groupStart = new int[9];  // rows of group g: groupStart[g] .. groupStart[g + 1]
+    private int groups;
+    private boolean contiguous = true;
+
+    KeyedColumns(StmtIndex index) {
+        this.index = index;
+        this.groupOf = new int[index.size()];
+        Arrays.fill(groupOf, -1);
+    }
+
+    /** The number of a statement of this body; a foreign one (indexOf gives -1) is rejected. */
+    protected int statement(Stmt stmt) {
+        int id = index.indexOf(stmt);
+        if (id < 0) throw new IllegalArgumentException("not a statement of this body: " + stmt);
+        return id;
+    }
+
+    /** Rejects a number that is not a statement of this body, so row() never looks up -1. */
+    protected void checkStatement(int id) {
+        if (id < 0 || id >= groupOf.length) throw new IllegalArgumentException("not a statement of this body: " + id);
+    }
+
+    /** Row object for row r, built on each call. */
+    protected abstract T row(int r);
+
+    /** Makes room for {@code capacity} rows in the subclass columns. */
+    protected abstract void grow(int capacity);
+
+    /** Reorders the subclass columns: new row i is old row order[i]. */
+    protected abstract void permute(int[] order);
+
+    /** Appends the key of a new row and returns the row number; the caller fills the other columns. */
+    protected int append(int key) {
+        checkStatement(key);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            grow(size * 2);
+        }
+        if (groupOf[key] < 0) {
+            if (groups + 1 == groupKeys.length) {
+                groupKeys = Arrays.copyOf(groupKeys, groups * 2 + 2);
+                groupStart = Arrays.copyOf(groupStart, groups * 2 + 3);
+            }
+            groupOf[key] = groups;
+            groupKeys[groups] = key;
+            groupStart[groups] = size;
+            groups++;
+        } else if (groupKeys[groups - 1] != key) {
+            contiguous = false;
+        }
+        keys[size] = key;
+        groupStart[groups] = size + 1;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /** Moves the rows of each group together, keeping group and insertion order. */
+    private void regroup() {
+        if (contiguous) return;
+        int[] count = new int[groups + 1];
+        for (int r = 0; r < size; r++) count[groupOf[keys[r]] + 1]++;
+        for (int g = 0; g < groups; g++) count[g + 1] += count[g];
+        System.arraycopy(count, 0, groupStart, 0, groups + 1);
+        int[] order = new int[size];
+        for (int r = 0; r < size; r++) order[count[groupOf[keys[r]]]++] = r;
+
+        int[] oldKeys = keys;
+        keys = new int[oldKeys.length];
+        for (int i = 0; i < size; i++) keys[i] = oldKeys[order[i]];
+        permute(order);
+        contiguous = true;
+    }
+
+    /** First row keyed by stmt; its rows are firstRow(stmt) .. endRow(stmt) - 1. */
+    int firstRow(int stmt) {
+        regroup();
+        int g = stmt >= 0 ? groupOf[stmt] : -1;
+        return g < 0 ? 0 : groupStart[g];
+    }
+
+    int endRow(int stmt) {
+        regroup();
+        int g = stmt >= 0 ? groupOf[stmt] : -1;
+        return g < 0 ? 0 : groupStart[g + 1];
+    }
+
+    /** The rows keyed by stmt, as a live read-only set. */
+    Set<T> rowsOf(int stmt) {
+        return new AbstractSet<T>() {
+            @Override
+            public int size() {
+                return endRow(stmt) - firstRow(stmt);
+            }
+
+            @Override
+            public Iterator<T> iterator() {
+                return rows(firstRow(stmt), endRow(stmt));
+            }
+        };
+    }
+
+    private Iterator<T> rows(int from, int to) {
+        return new Iterator<T>() {
+            int next = from;
+
+            @Override
+            public boolean hasNext() {
+                return next < to;
+            }
+
+            @Override
+            public T next() {
+                if (next >= to) throw new NoSuchElementException();
+                return row(next++);
+            }
+        };
+    }
+
+    /** Read-only Map view: key statement -> its rows, keys in order of first appearance. */
+    Map<Stmt, Set<T>> asMap() {
+        return new AbstractMap<Stmt, Set<T>>() {
+            @Override
+            public Set<T> get(Object key) {
+                int id = index.indexOf(key);
+                return id >= 0 && groupOf[id] >= 0 ? rowsOf(id) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                int id = index.indexOf(key);
+                return id >= 0 && groupOf[id] >= 0;
+            }
+
+            @Override
+            public Set<Entry<Stmt, Set<T>>> entrySet() {
+                return new AbstractSet<Entry<Stmt, Set<T>>>() {
+                    @Override
+                    public int size() {
+                        return groups;
+                    }
+
+                    @Override
+                    public Iterator<Entry<Stmt, Set<T>>> iterator() {
+                        return new Iterator<Entry<Stmt, Set<T>>>() {
+                            int next = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < groups;
+                            }
+
+                            @Override
+                            public Entry<Stmt, Set<T>> next() {
+                                if (next >= groups) throw new NoSuchElementException();
+                                int key = groupKeys[next++];
+                                return new SimpleImmutableEntry<>(index.get(key), rowsOf(key));
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.analyzer.dependency;
+
+/**
+ * Lattice - the value domain of a DataflowSolver problem.
+ *
+ * join() is the confluence operator (union for "may" problems, intersection for "must"
+ * problems) and initial() its identity, which is also where every statement starts.
+ * Statements with no incoming edge in the direction of the problem (the entry of a
+ * forward problem, the exits of a backward one) see boundary() instead.
+ */
+public interface Lattice<V> {
+
+    /** A fresh identity of join(): the starting value of every statement. */
+    V initial();
+
+    /** A fresh value for statements with no incoming edge. */
+    V boundary();
+
+    /** Joins value into target and returns the result; target may be updated in place, value must not be. */
+    V join(V target, V value);
+
+    /** An independent copy of value. */
+    V copy(V value);
+}
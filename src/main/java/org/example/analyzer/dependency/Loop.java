@@ -3,33 +3,64 @@ package org.example.analyzer.dependency;
 import sootup.core.jimple.common.stmt.Stmt;
 import java.util.*;
 
+/**
+ * Loop - one loop of the loop nesting forest: its header, its body as a bit-set over
+ * the statement numbers of the StmtIndex, and the directly nested loops.
+ */
 public class Loop {
     private Stmt header;
-    private Set<Stmt> statements;
+    private StmtIndex index;
+    private BitSet body;
     private Set<Loop> nestedLoops;
     private Loop parentLoop;
+    private boolean irreducible;
 
-    public Loop(Stmt header) {
+    public Loop(Stmt header, StmtIndex index) {
         this.header = header;
-        this.statements = new HashSet<>();
-        this.nestedLoops = new HashSet<>();
-        this.statements.add(header);
+        this.index = index;
+        this.body = new BitSet(index.size());
+        this.nestedLoops = new LinkedHashSet<>();
+        addStatement(header);
     }
 
     public void addStatement(Stmt stmt) {
-        statements.add(stmt);
+        body.set(index.indexOf(stmt));
+    }
+
+    void addStatement(int stmt) {
+        body.set(stmt);
     }
 
     public boolean contains(Stmt stmt) {
-        return statements.contains(stmt);
+        int id = index.indexOf(stmt);
+        return id >= 0 && body.get(id);
+    }
+
+    public boolean contains(int stmt) {
+        return body.get(stmt);
     }
 
     public Stmt getHeader() {
         return header;
     }
 
+    /** The statements of the loop, nested loops included, in index order. */
     public Set<Stmt> getStatements() {
-        return Collections.unmodifiableSet(statements);
+        return index.asSet(body);
+    }
+
+    /** The body as statement numbers; do not modify. */
+    public BitSet getBody() {
+        return body;
+    }
+
+    /** True for a loop with more than one entry (no single header dominates it). */
+    public boolean isIrreducible() {
+        return irreducible;
+    }
+
+    void setIrreducible(boolean irreducible) {
+        this.irreducible = irreducible;
     }
 
     public void addNestedLoop(Loop loop) {
@@ -74,6 +105,6 @@ public class Loop {
 
     @Override
     public String toString() {
-        return "Loop{header=" + header + ", size=" + statements.size() + ", depth=" + getNestingDepth() + "}";
+        return "Loop{header=" + header + ", size=" + body.cardinality() + ", depth=" + getNestingDepth() + "}";
     }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package org.example.analyzer.dependency;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.basic.Local;
 import sootup.core.jimple.common.stmt.*;
@@ -8,17 +10,19 @@ import sootup.core.jimple.basic.Value;
 import sootup.core.jimple.common.ref.JArrayRef;
 import sootup.core.jimple.common.constant.IntConstant;
 
+import java.io.PrintStream;
 import java.util.*;
 
 /**
  * LoopAnalyzer
  *
- * Finds natural loops (via back-edges + dominators), builds loop bodies,
- * then heuristically classifies loop dependencies into:
+ * Builds the loop nesting forest (Havlak; irreducible loops included) with bit-set
+ * loop bodies, direct parent links and a statement -> innermost loop table, then
+ * heuristically classifies loop dependencies into:
  *   - LoopDependency.Type.CARRIED
  *   - LoopDependency.Type.INDEPENDENT
  *
- * The class keeps an internal map of loops->loopDependencies and also exposes
+ * The class keeps the loop dependencies column-wise per use statement and also exposes
  * a public analyzeLoopDependencies(result) method so the outer DependencyAnalyzer
  * can call it (and get the results placed into DependencyResult).
  *
@@ -27,31 +31,62 @@ import java.util.*;
  * want to add SSA / Memory-SSA + affine-subscript solvers (GCD/Banerjee/Omega).
  */
 public class LoopAnalyzer {
+    private static final Logger log = LoggerFactory.getLogger(LoopAnalyzer.class);
+
     private StmtGraph<?> cfg;
     private DominatorAnalyzer dominatorAnalyzer;
     private DefUseAnalyzer defUseAnalyzer;
     /**
-     * reachingDefinitions as provided by DependencyAnalyzer: map from Stmt -> Set<Stmt>
-     * where the set is the reaching definitions for that statement (as in your current RD).
+     * reachingDefinitions as provided by DependencyAnalyzer: per statement number, the
+     * numbers of the definitions reaching it (as in your current RD).
      * We use it heuristically here.
      */
-    private Map<Stmt, Set<Stmt>> reachingDefinitions;
+    private BitSet[] reachingDefinitions;
+    /** Used instead of reachingDefinitions when the analyzer runs on SSA form. */
+    private SsaForm ssa;
 
-    private Map<Stmt, Loop> loops;                             // header -> Loop
-    private Map<Stmt, Set<LoopDependency>> loopDependencies;   // useStmt -> deps
+    private StmtIndex index;
+    private VariableTable variables;
+    private Map<Stmt, Loop> loops;                             // header -> Loop, in header index order
+    private Loop[] innermostLoop;                              // stmt number -> innermost loop (null if none)
+    private LoopDependencyColumns loopDependencies;            // keyed by useStmt number
 
     public LoopAnalyzer(StmtGraph<?> cfg,
                         DominatorAnalyzer dominatorAnalyzer,
                         DefUseAnalyzer defUseAnalyzer,
                         Map<Stmt, Set<Stmt>> reachingDefinitions) {
-        this.cfg = cfg;
+        this(dominatorAnalyzer, defUseAnalyzer, toBitSets(defUseAnalyzer.getStmtIndex(), reachingDefinitions));
+    }
+
+    LoopAnalyzer(DominatorAnalyzer dominatorAnalyzer, DefUseAnalyzer defUseAnalyzer, SsaForm ssa) {
+        this(dominatorAnalyzer, defUseAnalyzer, ssa, null, true);
+    }
+
+    LoopAnalyzer(DominatorAnalyzer dominatorAnalyzer, DefUseAnalyzer defUseAnalyzer, BitSet[] reachingDefinitions) {
+        this(dominatorAnalyzer, defUseAnalyzer, null, reachingDefinitions, true);
+    }
+
+    private LoopAnalyzer(DominatorAnalyzer dominatorAnalyzer, DefUseAnalyzer defUseAnalyzer, SsaForm ssa,
+                         BitSet[] reachingDefinitions, boolean dependencies) {
+        this.ssa = ssa;
+        this.cfg = defUseAnalyzer.getStmtIndex().getGraph();
         this.dominatorAnalyzer = dominatorAnalyzer;
         this.defUseAnalyzer = defUseAnalyzer;
         this.reachingDefinitions = reachingDefinitions;
-        this.loops = new HashMap<>();
-        this.loopDependencies = new HashMap<>();
+        this.index = defUseAnalyzer.getStmtIndex();
+        this.variables = defUseAnalyzer.getVariableTable();
+        this.loops = new LinkedHashMap<>();
+        this.innermostLoop = new Loop[index.size()];
+        this.loopDependencies = new LoopDependencyColumns(index, variables);
         // initial analysis to populate loops & internal loopDependencies
-        analyze();
+        if (dependencies) analyze();
+        else buildLoopForest();
+    }
+
+    /** The loops of the body, headers in index order, without their dependencies (no dataflow is solved). */
+    public static List<Loop> findLoops(StmtIndex index) {
+        LoopAnalyzer forest = new LoopAnalyzer(new DominatorAnalyzer(index), new DefUseAnalyzer(index), null, null, false);
+        return new ArrayList<>(forest.loops.values());
     }
 
     // ---------- PUBLIC API ----------
@@ -67,138 +102,275 @@ public class LoopAnalyzer {
         }
 
         // Add each discovered LoopDependency into the caller's result
-        for (Map.Entry<Stmt, Set<LoopDependency>> e : loopDependencies.entrySet()) {
-            Stmt useStmt = e.getKey();
-            for (LoopDependency ld : e.getValue()) {
-                result.addLoopDependency(useStmt, ld);
-            }
-        }
+        result.addLoopDependencies(loopDependencies);
     }
 
     // ---------- INTERNAL ANALYSIS ----------
 
     /** Top-level internal analysis sequence. */
     private void analyze() {
-        findNaturalLoops();
-        resolveNestedLoops();
+        buildLoopForest();
         computeLoopDependencies();   // populates loopDependencies
     }
 
     /**
-     * Find natural loops by scanning for back-edges: edge (tail -> head) where head dominates tail.
-     * Each header maps to a Loop object.
+     * Builds the loop nesting forest with Havlak's algorithm ("Nesting of Reducible and
+     * Irreducible Loops", with Ramalingam's correction), in near-linear time:
+     *
+     *   1. depth-first numbering from the first statement; statements it does not reach
+     *      (exception handlers) start further walks in index order
+     *   2. an edge v -> w is a back edge when w is a DFS ancestor of v
+     *   3. headers are visited in reverse pre-order: the loop of w is w plus everything
+     *      that reaches a back-edge source of w backwards without leaving w's DFS subtree;
+     *      statements already claimed by an inner loop are represented by that loop's
+     *      header (union-find), so each statement joins exactly one innermost loop
+     *   4. a predecessor from outside the subtree makes the loop irreducible (a second entry)
+     *
+     * For reducible code these are exactly the natural loops, one per header.
+     *
+     * The nodes are the blocks the dominator analysis ran on; a loop header is the leader
+     * of its block, and a block's statements share its innermost loop.
      */
-    private void findNaturalLoops() {
-        for (Stmt tail : cfg.getStmts()) {
-            for (Stmt head : cfg.successors(tail)) {
-                if (dominatorAnalyzer.dominates(head, tail)) {
-                    Loop loop = loops.computeIfAbsent(head, k -> new Loop(head));
-                    collectLoopBody(loop, tail);
+    private void buildLoopForest() {
+        BasicBlocks blocks = dominatorAnalyzer.getBasicBlocks();
+        int n = blocks.size();
+        FlowGraph.Edges succs = blocks.getSuccessors();
+        FlowGraph.Edges preds = blocks.getPredecessors();
+
+        // 1. pre-order numbers and, per node, the last number inside its DFS subtree
+        int[] pre = new int[n];
+        int[] last = new int[n];
+        int[] nodeAt = new int[n];
+        Arrays.fill(pre, -1);
+        int count = 0;
+        int[] stack = new int[n];
+        int[] next = new int[n];
+        for (int root = 0; root < n; root++) {
+            if (pre[root] >= 0) continue;
+            int top = 0;
+            stack[0] = root;
+            next[0] = 0;
+            pre[root] = count;
+            nodeAt[count++] = root;
+            while (top >= 0) {
+                int node = stack[top];
+                if (next[top] < succs.degree(node)) {
+                    int succ = succs.target(succs.start(node) + next[top]++);
+                    if (pre[succ] < 0) {
+                        pre[succ] = count;
+                        nodeAt[count++] = succ;
+                        stack[++top] = succ;
+                        next[top] = 0;
+                    }
+                } else {
+                    last[node] = count - 1;
+                    top--;
                 }
             }
         }
-    }
 
-    /**
-     * Given a header and a back-edge source (tail), collect all nodes in the natural loop.
-     * Classic algorithm: start from tail, walk preds until header reached, include nodes.
-     */
-    private void collectLoopBody(Loop loop, Stmt backEdgeSource) {
-        Deque<Stmt> stack = new ArrayDeque<>();
-        stack.push(backEdgeSource);
-        loop.addStatement(loop.getHeader()); // ensure header included
-
-        while (!stack.isEmpty()) {
-            Stmt current = stack.pop();
-            if (!loop.contains(current)) {
-                loop.addStatement(current);
-                for (Stmt pred : cfg.predecessors(current)) {
-                    // include preds until header (header will be present and dominator ensures loop)
-                    if (!pred.equals(loop.getHeader())) {
-                        stack.push(pred);
+        // 2. back edges and other incoming edges, in pre-order numbers
+        int[][] backPreds = new int[n][];
+        List<List<Integer>> nonBackPreds = new ArrayList<>(n);
+        for (int w = 0; w < n; w++) {
+            int node = nodeAt[w];
+            List<Integer> back = new ArrayList<>();
+            List<Integer> other = new ArrayList<>();
+            for (int e = preds.start(node); e < preds.end(node); e++) {
+                int v = pre[preds.target(e)];
+                if (w <= v && v <= last[node]) back.add(v);      // v inside w's DFS subtree
+                else other.add(v);
+            }
+            backPreds[w] = back.stream().mapToInt(Integer::intValue).toArray();
+            nonBackPreds.add(other);
+        }
+
+        // 3. collapse loops innermost first
+        int[] header = new int[n];          // innermost enclosing loop header, -1 for none
+        Arrays.fill(header, -1);
+        boolean[] isHeader = new boolean[n];
+        boolean[] irreducible = new boolean[n];
+        int[] set = new int[n];             // union-find over pre-order numbers
+        for (int w = 0; w < n; w++) set[w] = w;
+        BitSet inPool = new BitSet(n);
+
+        for (int w = n - 1; w >= 0; w--) {
+            List<Integer> pool = new ArrayList<>();
+            for (int v : backPreds[w]) {
+                if (v == w) {
+                    isHeader[w] = true;     // self loop
+                } else {
+                    int x = find(set, v);
+                    if (!inPool.get(x)) {
+                        inPool.set(x);
+                        pool.add(x);
+                    }
+                }
+            }
+            if (!pool.isEmpty()) isHeader[w] = true;
+
+            Deque<Integer> work = new ArrayDeque<>(pool);
+            int lastInSubtree = last[nodeAt[w]];
+            while (!work.isEmpty()) {
+                int x = work.pop();
+                for (int y : nonBackPreds.get(x)) {
+                    int yy = find(set, y);
+                    if (yy < w || yy > lastInSubtree) {
+                        // entered from outside the header's subtree: a second entry
+                        irreducible[w] = true;
+                        nonBackPreds.get(w).add(yy);
+                    } else if (yy != w && !inPool.get(yy)) {
+                        inPool.set(yy);
+                        pool.add(yy);
+                        work.push(yy);
                     }
                 }
             }
+
+            for (int x : pool) {
+                header[x] = w;
+                set[x] = w;
+                inPool.clear(x);
+            }
         }
-    }
 
-    /**
-     * Post-process to discover nesting relationships among found loops.
-     */
-    private void resolveNestedLoops() {
-        List<Loop> list = new ArrayList<>(loops.values());
-        for (int i = 0; i < list.size(); i++) {
-            for (int j = i + 1; j < list.size(); j++) {
-                Loop a = list.get(i);
-                Loop b = list.get(j);
-                if (isNested(a, b)) {
-                    a.addNestedLoop(b);
-                } else if (isNested(b, a)) {
-                    b.addNestedLoop(a);
-                }
+        // 4. Loop objects in header pre-order (outer loops first), bodies filled inner to outer
+        Loop[] loopAt = new Loop[n];
+        for (int w = 0; w < n; w++) {
+            if (!isHeader[w]) continue;
+            Loop loop = new Loop(index.get(blocks.getLeader(nodeAt[w])), index);
+            loop.setIrreducible(irreducible[w]);
+            loopAt[w] = loop;
+            if (header[w] >= 0) loopAt[header[w]].addNestedLoop(loop);
+        }
+        for (int w = n - 1; w >= 0; w--) {
+            Loop innermost = loopAt[w] != null ? loopAt[w] : (header[w] >= 0 ? loopAt[header[w]] : null);
+            for (int p = blocks.start(nodeAt[w]); p < blocks.end(nodeAt[w]); p++) {
+                innermostLoop[blocks.stmt(p)] = innermost;
+                if (innermost != null) innermost.addStatement(blocks.stmt(p));
             }
+            if (loopAt[w] != null && loopAt[w].getParentLoop() != null) {
+                loopAt[w].getParentLoop().getBody().or(loopAt[w].getBody());
+            }
+        }
+
+        List<Loop> ordered = new ArrayList<>();
+        for (Loop loop : loopAt) if (loop != null) ordered.add(loop);
+        ordered.sort(Comparator.comparingInt(loop -> index.indexOf(loop.getHeader())));
+        for (Loop loop : ordered) loops.put(loop.getHeader(), loop);
+    }
+
+    private static int find(int[] set, int x) {
+        int root = x;
+        while (set[root] != root) root = set[root];
+        while (set[x] != root) {
+            int parent = set[x];
+            set[x] = root;
+            x = parent;
         }
+        return root;
     }
 
-    private boolean isNested(Loop outer, Loop inner) {
-        if (outer.equals(inner)) return false;
-        for (Stmt s : inner.getStatements()) {
-            if (!outer.contains(s)) return false;
+    private static BitSet[] toBitSets(StmtIndex index, Map<Stmt, Set<Stmt>> reaching) {
+        BitSet[] sets = new BitSet[index.size()];
+        for (int i = 0; i < sets.length; i++) {
+            sets[i] = new BitSet(index.size());
+            Set<Stmt> defs = reaching.get(index.get(i));
+            if (defs != null) for (Stmt def : defs) sets[i].set(index.indexOf(def));
         }
-        return true;
+        return sets;
+    }
+
+    private boolean reaches(Stmt def, Stmt at) {
+        if (ssa != null) return ssa.reachesOut(index.indexOf(def), index.indexOf(at));
+        return reachingDefinitions[index.indexOf(at)].get(index.indexOf(def));
     }
 
     /**
      * Compute dependencies for each loop and populate loopDependencies map.
+     *
+     * Sparse: the candidate pairs are the def-use chains (def reaches use and defines a
+     * value the use reads), found once per use from the value's definition sites instead
+     * of testing every pair of every loop body. A chain belongs to every loop that holds
+     * both ends, i.e. the innermost loop of the use and its ancestors, so the chains of an
+     * inner loop are reused as they are lifted to the enclosing loops. Per use, the
+     * dependencies keep the old order: loops in header order, then defs in index order.
      */
     private void computeLoopDependencies() {
-        loopDependencies.clear();
-
-        for (Loop loop : loops.values()) {
-            Set<Stmt> body = loop.getStatements();
-
-            // ensure each stmt has a deps set
-            for (Stmt s : body) {
-                loopDependencies.putIfAbsent(s, new HashSet<>());
+        loopDependencies = new LoopDependencyColumns(index, variables);
+        if (loops.isEmpty()) return;
+
+        // definition sites per value number
+        BitSet[] defSites = new BitSet[variables.valueCount()];
+        for (int i = 0; i < index.size(); i++) {
+            for (int v : defUseAnalyzer.getDefValueIds(i)) {
+                if (defSites[v] == null) defSites[v] = new BitSet(index.size());
+                defSites[v].set(i);
             }
+        }
 
-            // For each pair (defStmt, useStmt) inside the loop where def defines a value that use uses,
-            // decide carried vs independent using heuristics:
-            for (Stmt defStmt : body) {
-                Set<Value> defVals = defUseAnalyzer.getDefValues(defStmt);
-                if (defVals == null || defVals.isEmpty()) continue;
-
-                for (Stmt useStmt : body) {
-                    if (defStmt.equals(useStmt)) {
-                        // same-statement case: may define and use same variable (e.g., x = x + i)
-                        handleSelfStatementDeps(loop, defStmt);
-                        continue;
-                    }
+        List<Loop> enclosing = new ArrayList<>();
+        BitSet chains = new BitSet(index.size());
+        for (int use = 0; use < index.size(); use++) {
+            if (innermostLoop[use] == null) continue;
 
-                    Set<Value> useVals = defUseAnalyzer.getUseValues(useStmt);
-                    if (useVals == null || useVals.isEmpty()) continue;
-
-                    // intersection of defVals and useVals -> variables that flow from defStmt to useStmt
-                    Set<Value> common = new HashSet<>(defVals);
-                    common.retainAll(useVals);
-
-                    for (Value v : common) {
-                        // only consider if defStmt can reach useStmt (using reachingDefinitions)
-                        Set<Stmt> reachingForUse = reachingDefinitions.get(useStmt);
-                        if (reachingForUse != null && reachingForUse.contains(defStmt)) {
-                            // decide carried vs independent
-                            boolean carried = isLoopCarriedDependency(defStmt, useStmt, v, loop);
-                            int distance = carried ? calculateDependencyDistance(defStmt, useStmt, v, loop) : 0;
-                            LoopDependency ld = new LoopDependency(carried ? LoopDependency.Type.CARRIED : LoopDependency.Type.INDEPENDENT,
-                                    v, distance, defStmt, useStmt, loop);
-                            loopDependencies.get(useStmt).add(ld);
-                        }
+            // def-use chains of this use inside its outermost loop (plus the statement itself)
+            chains.clear();
+            for (int v : defUseAnalyzer.getUseValueIds(use)) {
+                if (defSites[v] != null) chains.or(defSites[v]);
+            }
+            if (ssa != null) {
+                // the candidates share a variable with the use, so its own chains are enough
+                BitSet reaching = new BitSet(index.size());
+                for (int def : ssa.reachingDefinitionsOut(use)) reaching.set(def);
+                chains.and(reaching);
+            } else {
+                chains.and(reachingDefinitions[use]);
+            }
+            chains.clear(use);
+            Loop outermost = innermostLoop[use];
+            while (outermost.getParentLoop() != null) outermost = outermost.getParentLoop();
+            chains.and(outermost.getBody());
+            boolean self = VariableTable.intersect(defUseAnalyzer.getDefValueIds(use),
+                    defUseAnalyzer.getUseValueIds(use)).length > 0;
+            if (chains.isEmpty() && !self) continue;
+
+            enclosing.clear();
+            for (Loop l = innermostLoop[use]; l != null; l = l.getParentLoop()) enclosing.add(l);
+            enclosing.sort(Comparator.comparingInt(l -> index.indexOf(l.getHeader())));
+
+            Stmt useStmt = index.get(use);
+            for (Loop loop : enclosing) {
+                BitSet body = loop.getBody();
+                boolean selfDone = !self;
+                for (int def = chains.nextSetBit(0); def >= 0; def = chains.nextSetBit(def + 1)) {
+                    if (!selfDone && def > use) {
+                        handleSelfStatementDeps(loop, useStmt);
+                        selfDone = true;
                     }
+                    if (!body.get(def)) continue;
+                    addChainDeps(loop, index.get(def), useStmt);
                 }
+                if (!selfDone) handleSelfStatementDeps(loop, useStmt);
             }
         }
     }
 
+    /** One dependency per value that flows along the chain def -> use, classified for loop. */
+    private void addChainDeps(Loop loop, Stmt defStmt, Stmt useStmt) {
+        int def = index.indexOf(defStmt);
+        int use = index.indexOf(useStmt);
+        int[] common = VariableTable.intersect(defUseAnalyzer.getDefValueIds(def), defUseAnalyzer.getUseValueIds(use));
+        for (int valueId : common) {
+            Value v = variables.getValue(valueId);
+            // decide carried vs independent
+            boolean carried = isLoopCarriedDependency(defStmt, useStmt, v, loop);
+            int distance = carried ? calculateDependencyDistance(defStmt, useStmt, v, loop) : 0;
+            loopDependencies.add(use, carried ? LoopDependency.Type.CARRIED : LoopDependency.Type.INDEPENDENT,
+                    valueId, distance, def, use, loop);
+        }
+    }
+
     /**
      * Handle the case where a single statement both defines and uses the same value,
      * e.g., x = x + i; This often produces a loop-carried dependency on x (value produced in
@@ -206,28 +378,24 @@ public class LoopAnalyzer {
      * definition reaches the loop header (indicating it flows into next iteration).
      */
     private void handleSelfStatementDeps(Loop loop, Stmt stmt) {
-        Set<Value> defs = defUseAnalyzer.getDefValues(stmt);
-        Set<Value> uses = defUseAnalyzer.getUseValues(stmt);
-
-        if (defs == null || uses == null) return;
-
-        Set<Value> common = new HashSet<>(defs);
-        common.retainAll(uses);
-        if (common.isEmpty()) return;
+        int id = index.indexOf(stmt);
+        int[] common = VariableTable.intersect(defUseAnalyzer.getDefValueIds(id), defUseAnalyzer.getUseValueIds(id));
+        if (common.length == 0) return;
 
         // if this statement's def reaches the loop header, that indicates the def flows to next iter
-        Set<Stmt> reachingAtHeader = reachingDefinitions.get(loop.getHeader());
-        boolean reachesHeader = reachingAtHeader != null && reachingAtHeader.contains(stmt);
+        boolean reachesHeader = reaches(stmt, loop.getHeader());
 
-        for (Value v : common) {
+        for (int valueId : common) {
+            Value v = variables.getValue(valueId);
             LoopDependency.Type type = reachesHeader ? LoopDependency.Type.CARRIED : LoopDependency.Type.INDEPENDENT;
             int distance = type == LoopDependency.Type.CARRIED ? calculateDependencyDistance(stmt, stmt, v, loop) : 0;
-            loopDependencies.get(stmt).add(new LoopDependency(type, v, distance, stmt, stmt, loop));
+            loopDependencies.add(id, type, valueId, distance, id, id, loop);
         }
     }
 
     private Value getArrayIndex(Stmt stmt, Value arrayVar) {
-        for (Value use : defUseAnalyzer.getUseValues(stmt)) {
+        for (int useId : defUseAnalyzer.getUseValueIds(index.indexOf(stmt))) {
+            Value use = variables.getValue(useId);
             if (use instanceof JArrayRef) {
                 JArrayRef arrRef = (JArrayRef) use;
                 if (arrRef.getBase().equals(arrayVar)) {
@@ -285,13 +453,11 @@ public class LoopAnalyzer {
         // 1) Same-statement: if def and use are the same, check if it reaches the loop header.
         //    If it does, the value might flow to the next iteration → carried.
         if (defStmt.equals(useStmt)) {
-            Set<Stmt> reachingAtHeader = reachingDefinitions.get(loop.getHeader());
-            return reachingAtHeader != null && reachingAtHeader.contains(defStmt);
+            return reaches(defStmt, loop.getHeader());
         }
 
         // 2) If the def reaches the loop header, it can flow to the next iteration → loop-carried.
-        Set<Stmt> reachingAtHeader = reachingDefinitions.get(loop.getHeader());
-        if (reachingAtHeader != null && reachingAtHeader.contains(defStmt)) {
+        if (reaches(defStmt, loop.getHeader())) {
             return true;
         }
 
@@ -334,14 +500,9 @@ public class LoopAnalyzer {
      * Very small heuristic for array presence: look at uses (reads) and defs (left-hand values)
      */
     private boolean hasArrayAccess(Stmt stmt) {
-        Set<Value> uses = defUseAnalyzer.getUseValues(stmt);
-        Set<Value> defs = defUseAnalyzer.getDefValues(stmt);
-        if (uses != null) {
-            for (Value v : uses) if (v instanceof JArrayRef) return true;
-        }
-        if (defs != null) {
-            for (Value v : defs) if (v instanceof JArrayRef) return true;
-        }
+        int id = index.indexOf(stmt);
+        for (int v : defUseAnalyzer.getUseValueIds(id)) if (variables.getValue(v) instanceof JArrayRef) return true;
+        for (int v : defUseAnalyzer.getDefValueIds(id)) if (variables.getValue(v) instanceof JArrayRef) return true;
         return false;
     }
 
@@ -363,8 +524,8 @@ public class LoopAnalyzer {
                 (op1.equals(variable) && op2 instanceof IntConstant) ||
                         (op2.equals(variable) && op1 instanceof IntConstant);
 
-        boolean useContains = defUseAnalyzer.getUseValues(useStmt) != null &&
-                defUseAnalyzer.getUseValues(useStmt).contains(variable);
+        boolean useContains = VariableTable.contains(defUseAnalyzer.getUseValueIds(index.indexOf(useStmt)),
+                variables.getValueId(variable));
 
         return looksLikeInc && useContains;
     }
@@ -399,48 +560,60 @@ public class LoopAnalyzer {
     }
 
     public boolean isInLoop(Stmt stmt) {
-        for (Loop l : loops.values()) if (l.contains(stmt)) return true;
-        return false;
+        return getLoopForStatement(stmt) != null;
     }
 
+    /** The innermost loop containing {@code stmt}, or null. */
     public Loop getLoopForStatement(Stmt stmt) {
-        for (Loop l : loops.values()) if (l.contains(stmt)) return l;
-        return null;
+        int id = index.indexOf(stmt);
+        return id >= 0 ? innermostLoop[id] : null;
+    }
+
+    /** The outermost loops; the rest hang below them via getNestedLoops(). */
+    public List<Loop> getTopLevelLoops() {
+        List<Loop> roots = new ArrayList<>();
+        for (Loop l : loops.values()) if (l.getParentLoop() == null) roots.add(l);
+        return roots;
     }
 
     /**
      * Return loop dependencies for a statement (may be empty)
      */
     public Set<LoopDependency> getLoopDependencies(Stmt stmt) {
-        return Collections.unmodifiableSet(loopDependencies.getOrDefault(stmt, new HashSet<>()));
+        int id = index.indexOf(stmt);
+        return id >= 0 ? loopDependencies.rowsOf(id) : Collections.emptySet();
     }
 
+    /** Logs every loop, nested ones indented below their parent, with its dependencies at debug level. */
     public void printLoopAnalysis() {
-        System.out.println("\n=== LOOP ANALYSIS RESULTS ===");
-        for (Loop loop : loops.values()) {
-            printLoopInfo(loop, 0);
+        DebugOutput.log(log, this::printLoopAnalysis);
+    }
+
+    public void printLoopAnalysis(PrintStream out) {
+        out.println("\n=== LOOP ANALYSIS RESULTS ===");
+        for (Loop loop : getTopLevelLoops()) {
+            printLoopInfo(loop, 0, out);
         }
     }
 
-    private void printLoopInfo(Loop loop, int depth) {
-        StringBuilder indent = new StringBuilder();
-        for (int i = 0; i < depth; i++) indent.append("  ");
+    private void printLoopInfo(Loop loop, int depth, PrintStream out) {
+        String indent = "  ".repeat(depth);
 
-        System.out.println(indent + "Loop Header: " + loop.getHeader());
-        System.out.println(indent + "Statements: " + loop.getStatements().size());
+        out.println(indent + "Loop Header: " + loop.getHeader());
+        out.println(indent + "Statements: " + loop.getStatements().size());
 
         for (Stmt s : loop.getStatements()) {
-            Set<LoopDependency> deps = loopDependencies.get(s);
-            if (deps != null && !deps.isEmpty()) {
-                System.out.println(indent + "  - " + s + " [Dependencies: " + deps.size() + "]");
+            Set<LoopDependency> deps = loopDependencies.rowsOf(index.indexOf(s));
+            if (!deps.isEmpty()) {
+                out.println(indent + "  - " + s + " [Dependencies: " + deps.size() + "]");
                 for (LoopDependency ld : deps) {
-                    System.out.println(indent + "     " + ld);
+                    out.println(indent + "     " + ld);
                 }
             }
         }
 
         for (Loop nested : loop.getNestedLoops()) {
-            printLoopInfo(nested, depth + 1);
+            printLoopInfo(nested, depth + 1, out);
         }
     }
 }
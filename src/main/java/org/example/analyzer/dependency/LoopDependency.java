@@ -3,6 +3,8 @@ package org.example.analyzer.dependency;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.core.jimple.basic.Value;
 
+import java.util.Objects;
+
 public class LoopDependency {
     public enum Type {
         CARRIED,       // Crosses iterations
@@ -47,4 +49,22 @@ public class LoopDependency {
                 (type == Type.CARRIED ? ", distance=" + distance : "") +
                 "} from " + sourceStmt + " to " + targetStmt;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        LoopDependency that = (LoopDependency) obj;
+        return type == that.type &&
+                distance == that.distance &&
+                Objects.equals(variable, that.variable) &&
+                Objects.equals(sourceStmt, that.sourceStmt) &&
+                Objects.equals(targetStmt, that.targetStmt) &&
+                Objects.equals(loop, that.loop);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, variable, distance, sourceStmt, targetStmt, loop);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,143 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.basic.Value;
+
+import java.util.*;
+
+/**
+ * LoopDependencyColumns - LoopDependency rows as parallel arrays keyed by the statement
+ * they are reported for: type, value number, distance, source and target statement,
+ * and loop number. Value numbers come from the body's VariableTable (values it does
+ * not know get numbers below -1); loops are numbered in order of first use.
+ */
+final class LoopDependencyColumns extends KeyedColumns<LoopDependency> {
+    private static final LoopDependency.Type[] TYPES = LoopDependency.Type.values();
+
+    private final VariableTable variables;
+    private final List<Value> otherValues = new ArrayList<>();
+    private final List<Loop> loops = new ArrayList<>();
+    private final Map<Loop, Integer> loopIds = new IdentityHashMap<>();
+    private byte[] types = new byte[16];
+    private int[] values = new int[16];
+    private int[] distances = new int[16];
+    private int[] sources = new int[16];
+    private int[] targets = new int[16];
+    private int[] loopColumn = new int[16];
+
+    LoopDependencyColumns(StmtIndex index, VariableTable variables) {
+        super(index);
+        this.variables = variables;
+    }
+
+    void add(int stmt, LoopDependency.Type type, int value, int distance, int source, int target, Loop loop) {
+        checkStatement(source);
+        checkStatement(target);
+        int r = append(stmt);
+        types[r] = (byte) type.ordinal();
+        values[r] = value;
+        distances[r] = distance;
+        sources[r] = source;
+        targets[r] = target;
+        loopColumn[r] = loopId(loop);
+    }
+
+    void add(int stmt, LoopDependency dep) {
+        add(stmt, dep.getType(), valueId(dep.getVariable()), dep.getDistance(),
+                statement(dep.getSourceStmt()), statement(dep.getTargetStmt()), dep.getLoop());
+    }
+
+    /** Appends every row of {@code other} (same body), keeping its order. */
+    void addAll(LoopDependencyColumns other) {
+        for (int r = 0; r < other.size; r++) {
+            add(other.keys[r], TYPES[other.types[r]], other.values[r], other.distances[r],
+                    other.sources[r], other.targets[r], other.loops.get(other.loopColumn[r]));
+        }
+    }
+
+    int getStmt(int r) {
+        return keys[r];
+    }
+
+    LoopDependency.Type getType(int r) {
+        return TYPES[types[r]];
+    }
+
+    Value getValue(int r) {
+        return value(values[r]);
+    }
+
+    int getDistance(int r) {
+        return distances[r];
+    }
+
+    Loop getLoop(int r) {
+        return loops.get(loopColumn[r]);
+    }
+
+    int getSource(int r) {
+        return sources[r];
+    }
+
+    int getTarget(int r) {
+        return targets[r];
+    }
+
+    private int loopId(Loop loop) {
+        Integer id = loopIds.get(loop);
+        if (id == null) {
+            id = loops.size();
+            loopIds.put(loop, id);
+            loops.add(loop);
+        }
+        return id;
+    }
+
+    private int valueId(Value value) {
+        int id = variables.getValueId(value);
+        if (id >= 0) return id;
+        id = otherValues.indexOf(value);
+        if (id < 0) {
+            id = otherValues.size();
+            otherValues.add(value);
+        }
+        return -2 - id;
+    }
+
+    private Value value(int id) {
+        return id >= 0 ? variables.getValue(id) : otherValues.get(-2 - id);
+    }
+
+    @Override
+    protected LoopDependency row(int r) {
+        return new LoopDependency(TYPES[types[r]], value(values[r]), distances[r],
+                index.get(sources[r]), index.get(targets[r]), loops.get(loopColumn[r]));
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        values = Arrays.copyOf(values, capacity);
+        distances = Arrays.copyOf(distances, capacity);
+        sources = Arrays.copyOf(sources, capacity);
+        targets = Arrays.copyOf(targets, capacity);
+        loopColumn = Arrays.copyOf(loopColumn, capacity);
+    }
+
+    @Override
+    protected void permute(int[] order) {
+        byte[] oldTypes = types;
+        int[][] old = {values, distances, sources, targets, loopColumn};
+        types = new byte[oldTypes.length];
+        for (int i = 0; i < size; i++) types[i] = oldTypes[order[i]];
+        int[][] fresh = new int[old.length][];
+        for (int c = 0; c < old.length; c++) {
+            fresh[c] = new int[old[c].length];
+            for (int i = 0; i < size; i++) fresh[c][i] = old[c][order[i]];
+        }
+        values = fresh[0];
+        distances = fresh[1];
+        sources = fresh[2];
+        targets = fresh[3];
+        loopColumn = fresh[4];
+    }
+}
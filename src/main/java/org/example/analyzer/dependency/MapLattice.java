@@ -0,0 +1,54 @@
+package org.example.analyzer.dependency;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * MapLattice - maps from keys (variables, fields, ...) to values of another lattice,
+ * joined key by key. A missing key stands for the value lattice's initial() value, so
+ * the identity is the empty map and only the keys a problem touches are stored; this
+ * suits sparse per-variable facts such as constants or value ranges.
+ */
+public final class MapLattice<K, V> implements Lattice<Map<K, V>> {
+    private final Lattice<V> values;
+
+    public MapLattice(Lattice<V> values) {
+        this.values = values;
+    }
+
+    public Lattice<V> getValueLattice() {
+        return values;
+    }
+
+    @Override
+    public Map<K, V> initial() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<K, V> boundary() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public Map<K, V> join(Map<K, V> target, Map<K, V> value) {
+        for (Map.Entry<K, V> entry : value.entrySet()) {
+            V current = target.get(entry.getKey());
+            V joined = values.join(current != null ? current : values.initial(), entry.getValue());
+            target.put(entry.getKey(), joined);
+        }
+        return target;
+    }
+
+    @Override
+    public Map<K, V> copy(Map<K, V> value) {
+        Map<K, V> copy = new HashMap<>();
+        value.forEach((key, v) -> copy.put(key, values.copy(v)));
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "MapLattice{" + values + "}";
+    }
+}
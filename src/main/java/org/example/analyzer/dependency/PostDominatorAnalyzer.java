@@ -1,178 +1,318 @@
 package org.example.analyzer.dependency;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.common.stmt.Stmt;
 
+import java.io.PrintStream;
 import java.util.*;
 
 /**
  * PostDominatorAnalyzer - computes post-dominators for a CFG built from StmtGraph.
  *
- * Algorithm: iterative dataflow (dual of dominators):
- *   postdom(exit) = { exit }
- *   postdom(n) = { n } ∪ ⋂ postdom(s) for all successors s of n
+ * Post-dominators are the dominators of the reversed graph. Every statement without
+ * successors (return, throw) gets an edge to one virtual exit node, and the
+ * Cooper-Harvey-Kennedy iteration runs from that node, so methods with several exits
+ * need no special casing. A statement whose immediate post-dominator is the virtual
+ * exit is a root of the post-dominator tree and reports no immediate post-dominator.
+ * Statements that reach no exit (infinite loops) keep the dataflow meaning of "post-
+ * dominated by every statement".
  *
+ * The post-dominance frontier of X - the statements Y where X stops post-dominating:
+ * X post-dominates a successor of Y but not Y itself - is collected in the same pass
+ * and stored in compressed form (offsets plus one array).
  *
+ * Both run on the blocks of a BasicBlocks partition. Within a block each statement is
+ * immediately post-dominated by the next one and shares the block's frontier, whose
+ * members are last statements (only they branch). When no statement lacks successors
+ * the fallback exit may sit inside a block, so such bodies run one statement per block.
  */
 public class PostDominatorAnalyzer {
+    private static final Logger log = LoggerFactory.getLogger(PostDominatorAnalyzer.class);
+
     private StmtGraph<?> cfg;
-    private Map<Stmt, Set<Stmt>> postDominators;
-    private Map<Stmt, Stmt> immediatePostDominators;
-    private Stmt exitStatement;
+    private StmtIndex index;
+    private BasicBlocks blocks;
+    private int[] immediatePostDominators;  // statement number, -1 for none (virtual exit)
+    private DominatorTree postDominatorTree;
+    private int[] frontierStart;            // PDF(v): frontier[frontierStart[v] .. frontierStart[v + 1])
+    private int[] frontier;
+    private int exit;
 
     public PostDominatorAnalyzer(StmtGraph<?> cfg) {
-        this.cfg = cfg;
-        this.postDominators = new HashMap<>();
-        this.immediatePostDominators = new HashMap<>();
+        this(StmtIndex.of(cfg));
+    }
+
+    public PostDominatorAnalyzer(StmtIndex index) {
+        this(BasicBlocks.singletons(index.getFlowGraph()));
+    }
+
+    public PostDominatorAnalyzer(BasicBlocks blocks) {
+        this.index = blocks.getFlowGraph().getStmtIndex();
+        this.cfg = index.getGraph();
+        this.blocks = blocks;
+        this.immediatePostDominators = new int[index.size()];
         analyze();
     }
 
     private void analyze() {
-        findExitStatement();
-        initializePostDominators();
-        computePostDominators();
-        computeImmediatePostDominators();
+        findExitStatement(blocks.getFlowGraph().getSuccessors());
+        if (exit >= 0 && blocks.getLast(blocks.getBlock(exit)) != exit) {
+            blocks = BasicBlocks.singletons(blocks.getFlowGraph());
+        }
+
+        int m = blocks.size();
+        FlowGraph.Edges succs = blocks.getSuccessors();
+        boolean[] terminal = new boolean[m];
+        for (int b = 0; b < m; b++) terminal[b] = succs.degree(b) == 0 || blocks.getLast(b) == exit;
+
+        int[] ipdom = computeImmediatePostDominators(succs, terminal);
+        computePostDominanceFrontiers(succs, terminal, ipdom);
     }
 
-    private void findExitStatement() {
-        // find a node with no successors - treat it as exit
-        for (Stmt stmt : cfg.getStmts()) {
-            if (cfg.successors(stmt).isEmpty()) {
-                exitStatement = stmt;
+    private void findExitStatement(FlowGraph.Edges succs) {
+        // the first node with no successors; reported by getExitStatement()
+        for (int i = 0; i < succs.nodeCount(); i++) {
+            if (succs.degree(i) == 0) {
+                exit = i;
                 return;
             }
         }
         // fallback: use last statement if no explicit exit
-        Iterator<Stmt> it = cfg.getStmts().iterator();
-        Stmt last = null;
-        while (it.hasNext()) last = it.next();
-        exitStatement = last;
-    }
-
-    private void initializePostDominators() {
-        Set<Stmt> all = getAllStatements();
-        for (Stmt stmt : all) {
-            if (stmt.equals(exitStatement)) {
-                postDominators.put(stmt, new HashSet<>(Set.of(stmt)));
-            } else {
-                postDominators.put(stmt, new HashSet<>(all));
-            }
-        }
+        exit = succs.nodeCount() - 1;
     }
 
-    private void computePostDominators() {
+    /** Immediate post-dominators per block (-1 for the virtual exit, -2 for none), expanded to the statements. */
+    private int[] computeImmediatePostDominators(FlowGraph.Edges succs, boolean[] terminal) {
+        int m = blocks.size();
+        int virtualExit = m;
+        int[] ipdom = new int[m + 1];
+        Arrays.fill(ipdom, -1);
+
+        // reverse post-order of the reversed graph, walking from the virtual exit to
+        // each terminal block and from there against the successor edges
+        int[] reversePostOrder = DataflowSolver.reversePostOrder(reverseGraph(terminal), virtualExit);
+        int[] order = new int[m + 1];           // position in reverse post-order, -1 if not reached
+        Arrays.fill(order, -1);
+        for (int i = 0; i < reversePostOrder.length; i++) order[reversePostOrder[i]] = i;
+
+        ipdom[virtualExit] = virtualExit;
         boolean changed;
-        int iteration = 0;
-        // We can iterate until fixpoint
         do {
             changed = false;
-            iteration++;
+            for (int block : reversePostOrder) {
+                if (block == virtualExit) continue;
 
-            for (Stmt stmt : getAllStatements()) {
-                if (stmt.equals(exitStatement)) continue;
-
-                // intersection of postdoms of all successors
-                Set<Stmt> newSet = null;
-                List<Stmt> succs = new ArrayList<>(cfg.successors(stmt));
-
-                if (succs.isEmpty()) {
-                    // If a node has no successors (shouldn't happen except exit),
-                    // then its postdoms is itself
-                    newSet = new HashSet<>();
+                int newIpdom;
+                if (terminal[block]) {
+                    newIpdom = virtualExit;
                 } else {
-                    // start with a copy of the first successor's postdoms
-                    newSet = new HashSet<>(postDominators.get(succs.get(0)));
-                    for (int i = 1; i < succs.size(); i++) {
-                        newSet.retainAll(postDominators.get(succs.get(i)));
+                    newIpdom = -1;
+                    for (int e = succs.start(block); e < succs.end(block); e++) {
+                        int succ = succs.target(e);
+                        if (ipdom[succ] < 0) continue;      // not processed yet, or reaches no exit
+                        newIpdom = newIpdom < 0 ? succ : intersect(ipdom, succ, newIpdom, order);
                     }
                 }
 
-                // Add the node itself
-                newSet.add(stmt);
-
-                if (!newSet.equals(postDominators.get(stmt))) {
-                    postDominators.put(stmt, new HashSet<>(newSet));
+                if (newIpdom != ipdom[block]) {
+                    ipdom[block] = newIpdom;
                     changed = true;
                 }
             }
-        } while (changed && iteration < 1000);
+        } while (changed);
+
+        Arrays.fill(immediatePostDominators, -1);
+        BitSet reachesExit = new BitSet(index.size());
+        int[] blockIpdom = new int[m];
+        for (int b = 0; b < m; b++) {
+            blockIpdom[b] = ipdom[b] < 0 ? -2 : ipdom[b] == virtualExit ? -1 : ipdom[b];
+            if (ipdom[b] < 0) continue;
+            int next = ipdom[b] == virtualExit ? -1 : blocks.getLeader(ipdom[b]);
+            for (int p = blocks.end(b) - 1; p >= blocks.start(b); p--) {
+                int stmt = blocks.stmt(p);
+                immediatePostDominators[stmt] = next;
+                reachesExit.set(stmt);
+                next = stmt;
+            }
+        }
+        postDominatorTree = new DominatorTree(index, immediatePostDominators, reachesExit);
+        return blockIpdom;
     }
 
-    private void computeImmediatePostDominators() {
-        for (Stmt stmt : getAllStatements()) {
-            if (stmt.equals(exitStatement)) {
-                immediatePostDominators.put(stmt, null);
-                continue;
+    private static int intersect(int[] ipdom, int a, int b, int[] order) {
+        while (a != b) {
+            while (order[a] > order[b]) a = ipdom[a];
+            while (order[b] > order[a]) b = ipdom[b];
+        }
+        return a;
+    }
+
+    /**
+     * The reversed block graph plus the virtual exit (number m), which leads to the
+     * terminal blocks; terminal blocks lead only to the virtual exit, so their own
+     * successor edges are left out.
+     */
+    private FlowGraph.Edges reverseGraph(boolean[] terminal) {
+        int m = blocks.size();
+        FlowGraph.Edges preds = blocks.getPredecessors();
+        int[][] reverse = new int[m + 1][];
+        for (int v = 0; v < m; v++) {
+            int count = 0;
+            for (int e = preds.start(v); e < preds.end(v); e++) if (!terminal[preds.target(e)]) count++;
+            reverse[v] = new int[count];
+            for (int e = preds.start(v), k = 0; e < preds.end(v); e++) {
+                if (!terminal[preds.target(e)]) reverse[v][k++] = preds.target(e);
             }
+        }
+        int terminals = 0;
+        for (boolean t : terminal) if (t) terminals++;
+        reverse[m] = new int[terminals];
+        for (int v = 0, k = 0; v < m; v++) if (terminal[v]) reverse[m][k++] = v;
+        return FlowGraph.Edges.of(reverse);
+    }
 
-            Set<Stmt> pdoms = new HashSet<>(postDominators.get(stmt));
-            pdoms.remove(stmt);
+    /**
+     * Cooper-Harvey-Kennedy frontier walk on the reversed graph: for each block Y with
+     * two or more successors, climb from every successor up the post-dominator tree until
+     * ipdom(Y), adding Y to the frontier of each block passed. The statements of a block
+     * all get its frontier, as the last statements of the member blocks.
+     */
+    private void computePostDominanceFrontiers(FlowGraph.Edges succs, boolean[] terminal, int[] ipdom) {
+        int m = blocks.size();
+        int[] owners = new int[8];
+        int[] members = new int[8];
+        int size = 0;
+        int[] lastAdded = new int[m];
+        Arrays.fill(lastAdded, -1);
 
-            // immediate postdom is the one in pdoms that is not post-dominated by any other
-            Stmt ipdom = null;
-            for (Stmt candidate : pdoms) {
-                if (ipdom == null) {
-                    ipdom = candidate;
-                } else if (postDominators.get(candidate).contains(ipdom)) {
-                    ipdom = candidate;
+        for (int y = 0; y < m; y++) {
+            if (terminal[y] || succs.degree(y) < 2 || ipdom[y] == -2) continue;
+            int stop = ipdom[y];
+            for (int e = succs.start(y); e < succs.end(y); e++) {
+                int succ = succs.target(e);
+                if (ipdom[succ] == -2) continue;
+                for (int runner = succ; runner >= 0 && runner != stop; runner = ipdom[runner]) {
+                    if (lastAdded[runner] == y) continue;
+                    lastAdded[runner] = y;
+                    if (size == owners.length) {
+                        owners = Arrays.copyOf(owners, size * 2);
+                        members = Arrays.copyOf(members, size * 2);
+                    }
+                    owners[size] = runner;
+                    members[size] = blocks.getLast(y);
+                    size++;
                 }
             }
-
-            immediatePostDominators.put(stmt, ipdom);
         }
-    }
 
-    private Set<Stmt> getAllStatements() {
-        return new HashSet<>(cfg.getStmts());
+        int n = index.size();
+        int[] blockFrontierStart = new int[m + 1];
+        for (int i = 0; i < size; i++) blockFrontierStart[owners[i] + 1]++;
+        for (int b = 0; b < m; b++) blockFrontierStart[b + 1] += blockFrontierStart[b];
+        int[] blockFrontier = new int[size];
+        int[] fill = Arrays.copyOf(blockFrontierStart, m);
+        for (int i = 0; i < size; i++) blockFrontier[fill[owners[i]]++] = members[i];
+        for (int b = 0; b < m; b++) Arrays.sort(blockFrontier, blockFrontierStart[b], blockFrontierStart[b + 1]);
+
+        frontierStart = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            int b = blocks.getBlock(v);
+            frontierStart[v + 1] = frontierStart[v] + blockFrontierStart[b + 1] - blockFrontierStart[b];
+        }
+        frontier = new int[frontierStart[n]];
+        for (int v = 0; v < n; v++) {
+            int b = blocks.getBlock(v);
+            System.arraycopy(blockFrontier, blockFrontierStart[b], frontier, frontierStart[v],
+                    blockFrontierStart[b + 1] - blockFrontierStart[b]);
+        }
     }
 
     // Public API
     public Set<Stmt> getPostDominators(Stmt stmt) {
-        return Collections.unmodifiableSet(postDominators.getOrDefault(stmt, new HashSet<>()));
+        int id = index.indexOf(stmt);
+        if (id < 0) return Collections.emptySet();
+
+        BitSet postDominators = new BitSet(index.size());
+        if (!postDominatorTree.contains(id)) {
+            postDominators.set(0, index.size());
+        } else {
+            for (int d = id; d >= 0; d = immediatePostDominators[d]) postDominators.set(d);
+        }
+        return index.asSet(postDominators);
     }
 
     public Stmt getImmediatePostDominator(Stmt stmt) {
-        return immediatePostDominators.get(stmt);
+        int id = index.indexOf(stmt);
+        return id >= 0 && immediatePostDominators[id] >= 0 ? index.get(immediatePostDominators[id]) : null;
     }
 
     public boolean postDominates(Stmt a, Stmt b) {
         // does a post-dominate b? i.e. is a in postDominators[b]
-        Set<Stmt> pdoms = postDominators.get(b);
-        return pdoms != null && pdoms.contains(a);
+        int ia = index.indexOf(a);
+        int ib = index.indexOf(b);
+        if (ia < 0 || ib < 0) return false;
+        if (!postDominatorTree.contains(ib)) return true;   // reaches no exit: post-dominated by everything
+        return postDominatorTree.isAncestor(ia, ib);
+    }
+
+    public DominatorTree getPostDominatorTree() {
+        return postDominatorTree;
+    }
+
+    /** Statements in the post-dominance frontier of {@code stmt}, in index order. */
+    public Set<Stmt> getPostDominanceFrontier(Stmt stmt) {
+        int id = index.indexOf(stmt);
+        if (id < 0) return Collections.emptySet();
+        BitSet bits = new BitSet(index.size());
+        for (int y : getPostDominanceFrontier(id)) bits.set(y);
+        return index.asSet(bits);
+    }
+
+    public int[] getPostDominanceFrontier(int stmt) {
+        return Arrays.copyOfRange(frontier, frontierStart[stmt], frontierStart[stmt + 1]);
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
     }
 
+    /** The blocks the analysis ran on. */
+    public BasicBlocks getBasicBlocks() {
+        return blocks;
+    }
+
+    /** The first statement without successors; the analysis itself treats every such statement as an exit. */
     public Stmt getExitStatement() {
-        return exitStatement;
+        return exit >= 0 ? index.get(exit) : null;
     }
 
+    /** Logs the post-dominator count and immediate post-dominator of every statement at debug level. */
     public void printPostDominators() {
-        System.out.println("\n=== POST-DOMINATOR ANALYSIS RESULTS ===");
-        System.out.println("Exit statement: " + exitStatement);
-
-        for (Stmt stmt : getAllStatements()) {
-            System.out.println("\nStatement: " + stmt);
-            Set<Stmt> pdomSet = postDominators.get(stmt);
-            System.out.println("  PostDominators: " + (pdomSet != null ? pdomSet.size() : 0) + " statements");
-            Stmt ipdom = immediatePostDominators.get(stmt);
-            System.out.println("  Immediate post-dominator: " + (ipdom != null ? ipdom : "EXIT"));
+        DebugOutput.log(log, this::printPostDominators);
+    }
+
+    public void printPostDominators(PrintStream out) {
+        out.println("\n=== POST-DOMINATOR ANALYSIS RESULTS ===");
+        out.println("Exit statement: " + getExitStatement());
+
+        for (int stmt = 0; stmt < index.size(); stmt++) {
+            out.println("\nStatement: " + index.get(stmt));
+            int count = postDominatorTree.contains(stmt) ? postDominatorTree.getDepth(stmt) + 1 : index.size();
+            out.println("  PostDominators: " + count + " statements");
+            int ipdom = immediatePostDominators[stmt];
+            out.println("  Immediate post-dominator: " + (ipdom >= 0 ? index.get(ipdom) : "EXIT"));
         }
     }
 
+    /** Logs the post-dominator tree, indented by depth, at debug level. */
     public void printPostDominatorTree() {
-        System.out.println("\n=== POST-DOMINATOR TREE ===");
-        printPostDominatorTreeRecursive(exitStatement, 0);
+        DebugOutput.log(log, this::printPostDominatorTree);
     }
 
-    private void printPostDominatorTreeRecursive(Stmt stmt, int depth) {
-        StringBuilder indent = new StringBuilder();
-        for (int i = 0; i < depth; i++) indent.append("  ");
-
-        System.out.println(indent + "└─ " + stmt);
-
-        for (Stmt child : getAllStatements()) {
-            if (stmt.equals(immediatePostDominators.get(child))) {
-                printPostDominatorTreeRecursive(child, depth + 1);
-            }
-        }
+    public void printPostDominatorTree(PrintStream out) {
+        out.println("\n=== POST-DOMINATOR TREE ===");
+        postDominatorTree.print(out);
     }
 }
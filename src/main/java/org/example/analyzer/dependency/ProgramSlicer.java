@@ -0,0 +1,147 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+/**
+ * ProgramSlicer - backward / forward slices and chops over the dependencies of one
+ * DependencyResult.
+ *
+ * The dependence edges are copied once into a compressed graph over the StmtIndex
+ * numbering, in both directions (FlowGraph.Edges), so a query is a plain worklist walk
+ * over int arrays with a BitSet for the visited statements. By default a slice follows
+ * RAW, CONTROL and loop dependencies - what a statement's value and execution depend
+ * on; WAR / WAW / DEF_ORDER can be added for slices that must preserve the order of
+ * writes. Pairs held as DefUseWebs are expanded while the graph is built.
+ *
+ * The slicer is a snapshot: dependencies added to the result later are not seen.
+ */
+public final class ProgramSlicer {
+    private final StmtIndex index;
+    private final FlowGraph.Edges dependsOn;     // target -> the sources it depends on
+    private final FlowGraph.Edges dependents;    // source -> the targets depending on it
+
+    /** Slices along RAW, CONTROL and loop dependencies. */
+    public ProgramSlicer(DependencyResult result) {
+        this(result, EnumSet.of(Dependency.Type.RAW, Dependency.Type.CONTROL), true);
+    }
+
+    /**
+     * @param types           the Dependency types to follow
+     * @param loopDependences whether to follow the LoopDependency source -> target edges too
+     */
+    public ProgramSlicer(DependencyResult result, Set<Dependency.Type> types, boolean loopDependences) {
+        this.index = result.getStmtIndex();
+        EdgeList edges = new EdgeList();
+
+        boolean[] follow = new boolean[Dependency.Type.values().length];
+        for (Dependency.Type type : types) follow[type.ordinal()] = true;
+        for (DependencyColumns columns : Arrays.asList(result.getDataColumns(), result.getControlColumns())) {
+            for (int r = 0; r < columns.size(); r++) {
+                if (follow[columns.getType(r).ordinal()]) edges.add(columns.getSource(r), columns.getTarget(r));
+            }
+        }
+        DefUseWebs webs = result.getDefUseWebs();
+        if (webs != null) {
+            for (int i = 0; i < index.size(); i++) {
+                webs.forEachPair(i, (type, source, target, variable) -> {
+                    if (follow[type.ordinal()]) edges.add(source, target);
+                });
+            }
+        }
+        if (loopDependences) {
+            LoopDependencyColumns loops = result.getLoopColumns();
+            for (int r = 0; r < loops.size(); r++) edges.add(loops.getSource(r), loops.getTarget(r));
+        }
+
+        dependents = FlowGraph.Edges.of(index.size(), edges.sources, edges.targets, edges.size);
+        dependsOn = dependents.inverse();
+    }
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    /** Number of dependence edges the slicer walks (duplicates included). */
+    public int getEdgeCount() {
+        return dependents.edgeCount();
+    }
+
+    /** The criteria and every statement they transitively depend on. */
+    public BitSet backward(BitSet criteria) {
+        return reach(criteria, dependsOn);
+    }
+
+    /** The criteria and every statement transitively depending on them. */
+    public BitSet forward(BitSet criteria) {
+        return reach(criteria, dependents);
+    }
+
+    /** Statements on some dependence path from a source to a target, both ends included. */
+    public BitSet chop(BitSet sources, BitSet targets) {
+        BitSet chop = forward(sources);
+        chop.and(backward(targets));
+        return chop;
+    }
+
+    public Set<Stmt> backwardSlice(Stmt... criteria) {
+        return index.asSet(backward(ids(criteria)));
+    }
+
+    public Set<Stmt> forwardSlice(Stmt... criteria) {
+        return index.asSet(forward(ids(criteria)));
+    }
+
+    public Set<Stmt> chop(Stmt source, Stmt target) {
+        return index.asSet(chop(ids(source), ids(target)));
+    }
+
+    private BitSet reach(BitSet criteria, FlowGraph.Edges edges) {
+        BitSet visited = (BitSet) criteria.clone();
+        int[] stack = new int[index.size()];
+        int top = 0;
+        for (int s = criteria.nextSetBit(0); s >= 0; s = criteria.nextSetBit(s + 1)) {
+            if (s >= index.size()) throw new IllegalArgumentException("not a statement of this body: " + s);
+            stack[top++] = s;
+        }
+        while (top > 0) {
+            int v = stack[--top];
+            for (int e = edges.start(v); e < edges.end(v); e++) {
+                int w = edges.target(e);
+                if (!visited.get(w)) {
+                    visited.set(w);
+                    stack[top++] = w;
+                }
+            }
+        }
+        return visited;
+    }
+
+    private BitSet ids(Stmt... stmts) {
+        BitSet ids = new BitSet(index.size());
+        for (Stmt stmt : stmts) {
+            int id = index.indexOf(stmt);
+            if (id < 0) throw new IllegalArgumentException("not a statement of this body: " + stmt);
+            ids.set(id);
+        }
+        return ids;
+    }
+
+    /** Growable pair of int columns. */
+    private static final class EdgeList {
+        int[] sources = new int[16];
+        int[] targets = new int[16];
+        int size;
+
+        void add(int source, int target) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            size++;
+        }
+    }
+}
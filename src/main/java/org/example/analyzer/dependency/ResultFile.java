@@ -0,0 +1,268 @@
+package org.example.analyzer.dependency;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * ResultFile - read-only view of a binary result file written by ResultFileWriter.
+ *
+ * The file is memory-mapped and nothing is decoded up front: a query reads the few ints
+ * it needs at their offsets, so opening the results of a whole product costs one map
+ * and a directory of 12 bytes per method. All numbers are big-endian.
+ *
+ *   file    = MAGIC VERSION block* directory trailer
+ *   directory: per method  long blockOffset, int blockLength
+ *   trailer : long directoryOffset, int methodCount, MAGIC
+ *
+ * A block holds one method. It starts with SECTION_COUNT int offsets (relative to the
+ * block) of its sections, which follow in that order:
+ *   STATEMENTS             int n; the text of statement i is string 1 + i
+ *   SUCCESSORS             int n, int m, int[n + 1] start, int[m] targets (normal edges)
+ *   EXCEPTIONAL_SUCCESSORS the same for the exceptional edges
+ *   DOMINATORS             int[n] immediate dominator, -1 for the entry and unreached statements
+ *   LOOPS                  int L; per loop int header, int parent loop (-1), int irreducible;
+ *                          int[L + 1] body start, int[] body statements
+ *   DEPENDENCIES           int d, int[n + 1] start per target statement, byte[d] type
+ *                          (Dependency.Type ordinal), int[d] source, int[d] variable string (-1)
+ *   LOOP_DEPENDENCIES      int k, int[n + 1] start per statement, byte[k] type
+ *                          (LoopDependency.Type ordinal), int[k] value string (-1), int[k] distance,
+ *                          int[k] source, int[k] target, int[k] loop
+ *   STRINGS                int count, int[count + 1] byte offsets, UTF-8 bytes; string 0 is the
+ *                          method signature
+ * Dependencies of a target are the data dependencies (webs expanded) followed by the
+ * control dependencies. Any change to the layout or to the enum orders bumps VERSION.
+ */
+public final class ResultFile implements Closeable {
+    static final int MAGIC = 0x41445246;    // "ADRF"
+    static final int VERSION = 1;
+    /** The file is mapped as one buffer, so ResultFileWriter stops before it gets larger. */
+    static final long MAX_SIZE = Integer.MAX_VALUE;
+
+    static final int STATEMENTS = 0;
+    static final int SUCCESSORS = 1;
+    static final int EXCEPTIONAL_SUCCESSORS = 2;
+    static final int DOMINATORS = 3;
+    static final int LOOPS = 4;
+    static final int DEPENDENCIES = 5;
+    static final int LOOP_DEPENDENCIES = 6;
+    static final int STRINGS = 7;
+    static final int SECTION_COUNT = 8;
+
+    private static final Dependency.Type[] TYPES = Dependency.Type.values();
+    private static final LoopDependency.Type[] LOOP_TYPES = LoopDependency.Type.values();
+
+    /** Receives the dependencies of one target statement. */
+    public interface DependencySink {
+        void accept(Dependency.Type type, int source, int target, String variable);
+    }
+
+    /** Receives the loop dependencies reported for one statement. */
+    public interface LoopDependencySink {
+        void accept(LoopDependency.Type type, String value, int distance, int source, int target, int loop);
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final long directoryOffset;
+    private final int methodCount;
+    private Map<String, Integer> bySignature;
+
+    private ResultFile(FileChannel channel, ByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+        int size = buffer.capacity();
+        if (size < 24 || buffer.getInt(0) != MAGIC || buffer.getInt(size - 4) != MAGIC) {
+            throw new IOException("not a result file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported result file version " + buffer.getInt(4) + " (expected " + VERSION + ")");
+        }
+        this.directoryOffset = buffer.getLong(size - 16);
+        this.methodCount = buffer.getInt(size - 8);
+        if (directoryOffset < 8 || directoryOffset + 12L * methodCount != size - 16) {
+            throw new IOException("corrupt result file directory");
+        }
+    }
+
+    public static ResultFile open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            if (channel.size() > MAX_SIZE) throw new IOException("result file larger than 2 GB: " + file);
+            return new ResultFile(channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    public Method getMethod(int i) {
+        Objects.checkIndex(i, methodCount);
+        int entry = (int) (directoryOffset + 12L * i);
+        return new Method((int) buffer.getLong(entry), buffer.getInt(entry + 8));
+    }
+
+    /** The method with this signature, or null; the first call reads every signature once. */
+    public synchronized Method findMethod(String signature) {
+        if (bySignature == null) {
+            bySignature = new HashMap<>();
+            for (int i = 0; i < methodCount; i++) bySignature.putIfAbsent(getMethod(i).getSignature(), i);
+        }
+        Integer i = bySignature.get(signature);
+        return i != null ? getMethod(i) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /** The results of one method, read from its block on each call. */
+    public final class Method {
+        private final ByteBuffer block;
+        private final int n;
+
+        private Method(int offset, int length) {
+            this.block = buffer.slice(offset, length);
+            this.n = block.getInt(section(STATEMENTS));
+        }
+
+        private int section(int id) {
+            return block.getInt(4 * id);
+        }
+
+        public String getSignature() {
+            return getString(0);
+        }
+
+        public int getStatementCount() {
+            return n;
+        }
+
+        public String getStatement(int stmt) {
+            return getString(1 + Objects.checkIndex(stmt, n));
+        }
+
+        public int[] getSuccessors(int stmt) {
+            return edges(SUCCESSORS, stmt);
+        }
+
+        public int[] getExceptionalSuccessors(int stmt) {
+            return edges(EXCEPTIONAL_SUCCESSORS, stmt);
+        }
+
+        private int[] edges(int id, int stmt) {
+            Objects.checkIndex(stmt, n);
+            int start = section(id) + 8;
+            int targets = start + 4 * (n + 1);
+            int from = block.getInt(start + 4 * stmt);
+            int to = block.getInt(start + 4 * (stmt + 1));
+            int[] result = new int[to - from];
+            for (int e = from; e < to; e++) result[e - from] = block.getInt(targets + 4 * e);
+            return result;
+        }
+
+        /** -1 for the entry and for statements the entry does not reach. */
+        public int getImmediateDominator(int stmt) {
+            return block.getInt(section(DOMINATORS) + 4 * Objects.checkIndex(stmt, n));
+        }
+
+        public int getLoopCount() {
+            return block.getInt(section(LOOPS));
+        }
+
+        public int getLoopHeader(int loop) {
+            return block.getInt(loopRecord(loop));
+        }
+
+        /** The loop directly enclosing this one, -1 for an outermost loop. */
+        public int getParentLoop(int loop) {
+            return block.getInt(loopRecord(loop) + 4);
+        }
+
+        public boolean isIrreducible(int loop) {
+            return block.getInt(loopRecord(loop) + 8) != 0;
+        }
+
+        /** The statements of the loop, nested loops included, in statement order. */
+        public int[] getLoopBody(int loop) {
+            int count = getLoopCount();
+            Objects.checkIndex(loop, count);
+            int starts = section(LOOPS) + 4 + 12 * count;
+            int body = starts + 4 * (count + 1);
+            int from = block.getInt(starts + 4 * loop);
+            int to = block.getInt(starts + 4 * (loop + 1));
+            int[] result = new int[to - from];
+            for (int i = from; i < to; i++) result[i - from] = block.getInt(body + 4 * i);
+            return result;
+        }
+
+        private int loopRecord(int loop) {
+            return section(LOOPS) + 4 + 12 * Objects.checkIndex(loop, getLoopCount());
+        }
+
+        /** Data and control dependencies together. */
+        public int getDependencyCount() {
+            return block.getInt(section(DEPENDENCIES));
+        }
+
+        public void forEachDependency(int target, DependencySink sink) {
+            Objects.checkIndex(target, n);
+            int base = section(DEPENDENCIES);
+            int d = block.getInt(base);
+            int starts = base + 4;
+            int types = starts + 4 * (n + 1);
+            int sources = types + d;
+            int variables = sources + 4 * d;
+            for (int r = block.getInt(starts + 4 * target); r < block.getInt(starts + 4 * (target + 1)); r++) {
+                int variable = block.getInt(variables + 4 * r);
+                sink.accept(TYPES[block.get(types + r)], block.getInt(sources + 4 * r), target,
+                        variable >= 0 ? getString(variable) : null);
+            }
+        }
+
+        public int getLoopDependencyCount() {
+            return block.getInt(section(LOOP_DEPENDENCIES));
+        }
+
+        public void forEachLoopDependency(int stmt, LoopDependencySink sink) {
+            Objects.checkIndex(stmt, n);
+            int base = section(LOOP_DEPENDENCIES);
+            int k = block.getInt(base);
+            int starts = base + 4;
+            int types = starts + 4 * (n + 1);
+            int values = types + k;
+            int distances = values + 4 * k;
+            int sources = distances + 4 * k;
+            int targets = sources + 4 * k;
+            int loops = targets + 4 * k;
+            for (int r = block.getInt(starts + 4 * stmt); r < block.getInt(starts + 4 * (stmt + 1)); r++) {
+                int value = block.getInt(values + 4 * r);
+                sink.accept(LOOP_TYPES[block.get(types + r)], value >= 0 ? getString(value) : null,
+                        block.getInt(distances + 4 * r), block.getInt(sources + 4 * r),
+                        block.getInt(targets + 4 * r), block.getInt(loops + 4 * r));
+            }
+        }
+
+        private String getString(int id) {
+            int base = section(STRINGS);
+            Objects.checkIndex(id, block.getInt(base));
+            int offsets = base + 4;
+            int bytes = offsets + 4 * (block.getInt(base) + 1);
+            int from = block.getInt(offsets + 4 * id);
+            int to = block.getInt(offsets + 4 * (id + 1));
+            byte[] text = new byte[to - from];
+            block.get(bytes + from, text);
+            return new String(text, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.basic.Value;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * ResultFileWriter - writes the analysis results of many methods into one ResultFile.
+ *
+ * Each method is encoded on its own into a block (encode() may run on any thread) and
+ * the blocks are appended in the order append() is called; close() writes the method
+ * directory and the trailer that ResultFile reads first. See ResultFile for the layout.
+ *
+ * Only a complete file gets a trailer. After a failed append, or abort() by a caller
+ * whose run did not finish, close() deletes the file instead, so ResultFile never
+ * opens a truncated one. An append that would take the file past ResultFile.MAX_SIZE
+ * fails rather than write a file that cannot be mapped.
+ */
+public final class ResultFileWriter implements Closeable {
+    private final Path file;
+    private final DataOutputStream out;
+    private final List<long[]> directory = new ArrayList<>();   // offset, length per block
+    private long position;
+    private boolean closed;
+    private boolean failed;
+
+    public ResultFileWriter(Path file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(ResultFile.MAGIC);
+        out.writeInt(ResultFile.VERSION);
+        position = 8;
+    }
+
+    /** Encodes and appends the results of one method. */
+    public void write(String signature, DependencyAnalyzer analyzer, DependencyResult result) throws IOException {
+        append(encode(signature, analyzer, result));
+    }
+
+    public synchronized void append(byte[] block) throws IOException {
+        if (closed) throw new IOException("result file already closed");
+        if (failed) throw new IOException("result file incomplete after an earlier failure");
+        long size = position + block.length + 12L * (directory.size() + 1) + 16;
+        if (size > ResultFile.MAX_SIZE) {
+            failed = true;
+            throw new IOException("result file would exceed " + ResultFile.MAX_SIZE + " bytes at method "
+                    + (directory.size() + 1));
+        }
+        try {
+            out.write(block);
+        } catch (IOException e) {
+            failed = true;
+            throw e;
+        }
+        directory.add(new long[]{position, block.length});
+        position += block.length;
+    }
+
+    public synchronized int getMethodCount() {
+        return directory.size();
+    }
+
+    /** Marks the results incomplete: close() deletes the file instead of finishing it. */
+    public synchronized void abort() throws IOException {
+        failed = true;
+        close();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        boolean complete = false;
+        try {
+            if (!failed) {
+                long directoryOffset = position;
+                for (long[] entry : directory) {
+                    out.writeLong(entry[0]);
+                    out.writeInt((int) entry[1]);
+                }
+                out.writeLong(directoryOffset);
+                out.writeInt(directory.size());
+                out.writeInt(ResultFile.MAGIC);
+                out.flush();
+                complete = true;
+            }
+        } finally {
+            try {
+                out.close();
+            } finally {
+                if (!complete) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /** The block of one method: the section offset table followed by the sections. */
+    public static byte[] encode(String signature, DependencyAnalyzer analyzer, DependencyResult result) {
+        StmtIndex index = result.getStmtIndex();
+        int n = index.size();
+        Strings strings = new Strings();
+        strings.add(signature);
+        for (int i = 0; i < n; i++) strings.add(index.get(i).toString());
+
+        Section[] sections = new Section[ResultFile.SECTION_COUNT];
+        for (int i = 0; i < sections.length; i++) sections[i] = new Section();
+
+        // statements: their texts are strings 1 .. n
+        sections[ResultFile.STATEMENTS].putInt(n);
+
+        FlowGraph graph = index.getFlowGraph();
+        writeEdges(sections[ResultFile.SUCCESSORS], graph.getSuccessors());
+        writeEdges(sections[ResultFile.EXCEPTIONAL_SUCCESSORS], graph.getExceptionalSuccessors());
+
+        Section dominators = sections[ResultFile.DOMINATORS];
+        DominatorTree tree = analyzer.getDominatorAnalyzer().getDominatorTree();
+        for (int i = 0; i < n; i++) dominators.putInt(tree.getParent(i));
+
+        List<Loop> loops = new ArrayList<>(analyzer.getLoopAnalyzer().getLoops().values());
+        Map<Loop, Integer> loopIds = new HashMap<>();
+        for (Loop loop : loops) loopIds.put(loop, loopIds.size());
+        Section loopSection = sections[ResultFile.LOOPS];
+        loopSection.putInt(loops.size());
+        int bodyStart = 0;
+        for (Loop loop : loops) {
+            loopSection.putInt(index.indexOf(loop.getHeader()));
+            loopSection.putInt(loop.getParentLoop() != null ? loopIds.get(loop.getParentLoop()) : -1);
+            loopSection.putInt(loop.isIrreducible() ? 1 : 0);
+        }
+        for (Loop loop : loops) {
+            loopSection.putInt(bodyStart);
+            bodyStart += loop.getBody().cardinality();
+        }
+        loopSection.putInt(bodyStart);
+        for (Loop loop : loops) {
+            BitSet body = loop.getBody();
+            for (int s = body.nextSetBit(0); s >= 0; s = body.nextSetBit(s + 1)) loopSection.putInt(s);
+        }
+
+        writeDependencies(sections[ResultFile.DEPENDENCIES], result, strings, n);
+        writeLoopDependencies(sections[ResultFile.LOOP_DEPENDENCIES], result.getLoopColumns(), loopIds, strings, n);
+
+        strings.write(sections[ResultFile.STRINGS]);
+        return Section.concat(sections);
+    }
+
+    private static void writeEdges(Section section, FlowGraph.Edges edges) {
+        int n = edges.nodeCount();
+        section.putInt(n);
+        section.putInt(edges.edgeCount());
+        for (int v = 0; v <= n; v++) section.putInt(v < n ? edges.start(v) : edges.edgeCount());
+        for (int e = 0; e < edges.edgeCount(); e++) section.putInt(edges.target(e));
+    }
+
+    /** Data (webs expanded) and control dependencies, grouped by target in statement order. */
+    private static void writeDependencies(Section section, DependencyResult result, Strings strings, int n) {
+        DependencyColumns data = result.getDataColumns();
+        DependencyColumns control = result.getControlColumns();
+        DefUseWebs webs = result.getDefUseWebs();
+
+        IntColumns rows = new IntColumns();
+        int[] start = new int[n + 1];
+        for (int target = 0; target < n; target++) {
+            start[target] = rows.size;
+            for (int r = data.firstRow(target); r < data.endRow(target); r++) {
+                rows.add(data.getType(r).ordinal(), data.getSource(r), variableString(strings, data, data.getVariable(r)));
+            }
+            if (webs != null) {
+                webs.forEachPair(target, (type, source, t, v) ->
+                        rows.add(type.ordinal(), source, strings.id(data.variableName(v))));
+            }
+            for (int r = control.firstRow(target); r < control.endRow(target); r++) {
+                rows.add(control.getType(r).ordinal(), control.getSource(r), -1);
+            }
+        }
+        start[n] = rows.size;
+
+        section.putInt(rows.size);
+        for (int s : start) section.putInt(s);
+        for (int r = 0; r < rows.size; r++) section.putByte(rows.a[r]);
+        for (int r = 0; r < rows.size; r++) section.putInt(rows.b[r]);
+        for (int r = 0; r < rows.size; r++) section.putInt(rows.c[r]);
+    }
+
+    private static int variableString(Strings strings, DependencyColumns columns, int variable) {
+        return variable == -1 ? -1 : strings.id(columns.variableName(variable));
+    }
+
+    private static void writeLoopDependencies(Section section, LoopDependencyColumns loopDeps,
+                                              Map<Loop, Integer> loopIds, Strings strings, int n) {
+        int k = loopDeps.size();
+        int[] start = new int[n + 1];
+        int[] order = new int[k];
+        int fill = 0;
+        for (int stmt = 0; stmt < n; stmt++) {
+            start[stmt] = fill;
+            for (int r = loopDeps.firstRow(stmt); r < loopDeps.endRow(stmt); r++) order[fill++] = r;
+        }
+        start[n] = fill;
+
+        section.putInt(k);
+        for (int s : start) section.putInt(s);
+        for (int r : order) section.putByte(loopDeps.getType(r).ordinal());
+        for (int r : order) {
+            Value value = loopDeps.getValue(r);
+            section.putInt(value != null ? strings.id(value.toString()) : -1);
+        }
+        for (int r : order) section.putInt(loopDeps.getDistance(r));
+        for (int r : order) section.putInt(loopDeps.getSource(r));
+        for (int r : order) section.putInt(loopDeps.getTarget(r));
+        for (int r : order) {
+            Integer loop = loopIds.get(loopDeps.getLoop(r));
+            section.putInt(loop != null ? loop : -1);
+        }
+    }
+
+    /** Strings of one block: string 0 is the signature, 1 .. n the statements, then names and values. */
+    private static final class Strings {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        /** Appends the string even if it is there already (statement texts repeat). */
+        void add(String s) {
+            ids.putIfAbsent(s, strings.size());
+            strings.add(s);
+        }
+
+        /** The number of the string, appended on first use; -1 for null. */
+        int id(String s) {
+            if (s == null) return -1;
+            Integer id = ids.get(s);
+            if (id != null) return id;
+            add(s);
+            return strings.size() - 1;
+        }
+
+        /** Count, byte offsets (count + 1 of them, relative to the first byte), UTF-8 bytes. */
+        void write(Section section) {
+            byte[][] bytes = new byte[strings.size()][];
+            section.putInt(strings.size());
+            int offset = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+                section.putInt(offset);
+                offset += bytes[i].length;
+            }
+            section.putInt(offset);
+            for (byte[] b : bytes) section.put(b);
+        }
+    }
+
+    /** Three growable int columns. */
+    private static final class IntColumns {
+        int[] a = new int[16];
+        int[] b = new int[16];
+        int[] c = new int[16];
+        int size;
+
+        void add(int x, int y, int z) {
+            if (size == a.length) {
+                a = Arrays.copyOf(a, size * 2);
+                b = Arrays.copyOf(b, size * 2);
+                c = Arrays.copyOf(c, size * 2);
+            }
+            a[size] = x;
+            b[size] = y;
+            c[size] = z;
+            size++;
+        }
+    }
+
+    /** Growable big-endian byte buffer for one section. */
+    private static final class Section {
+        private byte[] bytes = new byte[64];
+        private int size;
+
+        void putInt(int v) {
+            ensure(4);
+            bytes[size++] = (byte) (v >>> 24);
+            bytes[size++] = (byte) (v >>> 16);
+            bytes[size++] = (byte) (v >>> 8);
+            bytes[size++] = (byte) v;
+        }
+
+        void putByte(int v) {
+            ensure(1);
+            bytes[size++] = (byte) v;
+        }
+
+        void put(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        private void ensure(int more) {
+            if (size + more > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+        }
+
+        /** The offset table (section i starts at offsets[i], relative to the block) and the sections in order. */
+        static byte[] concat(Section[] sections) {
+            int offset = 4 * sections.length;
+            Section block = new Section();
+            for (Section section : sections) {
+                block.putInt(offset);
+                offset += section.size;
+            }
+            block.ensure(offset - block.size);
+            for (Section section : sections) {
+                System.arraycopy(section.bytes, 0, block.bytes, block.size, section.size);
+                block.size += section.size;
+            }
+            return Arrays.copyOf(block.bytes, block.size);
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package org.example.analyzer.dependency;
+
+import java.io.PrintStream;
+import java.util.*;
+
+/**
+ * SsaForm - static single assignment numbering of one body's definitions, the sparse
+ * replacement for the dense reaching-definitions sets (AnalysisOptions.DataflowForm.SSA).
+ *
+ * Phi nodes are placed on the iterated dominance frontiers of the definition sites
+ * (Cytron et al.), and one walk over the dominator tree renames: every statement records
+ * the value each of its names holds on entry, and every phi the value arriving along
+ * each predecessor edge. A reaching-definitions query follows these values back through
+ * the phis to the real definitions, so memory grows with the definitions, uses and phis,
+ * not with statements × definitions.
+ *
+ * The queries answer exactly what the dense problem in DependencyAnalyzer computes, on
+ * the same graph (all edges, as FlowGraph.getAllPredecessors()). That problem kills per
+ * statement: a statement defining several variables (a[i] = x defines a and i) stops
+ * reaching at the first write to any of them. So the renamed names are the variables plus
+ * one group per such variable set; a definition belongs to one name (its variable, or its
+ * group), and a statement writes every name sharing a variable with its definitions.
+ *
+ * Statements the entry does not reach are not renamed; queries there walk the
+ * predecessor edges backwards instead.
+ */
+public final class SsaForm {
+    private static final int[] NONE = new int[0];
+
+    private final StmtIndex index;
+    private final FlowGraph.Edges preds;
+    private final FlowGraph.Edges succs;
+    private final DominatorTree tree;
+    private final int n;
+
+    private final int[][] nameVars;     // name -> its variables, sorted; names 0..vars-1 are the variables
+    private final int[][] namesOfVar;   // variable -> the names containing it, the variable itself first
+    private final int[] owner;          // statement -> the name its definition belongs to, -1 if none
+    private final int[][] writes;       // statement -> the names it writes, sorted
+
+    // phis grouped by statement: phis of s are phiStart[s] .. phiStart[s + 1] - 1
+    private final int[] phiStart;
+    private final int[] phiName;
+    private final int[] operandStart;   // operands of p: one per predecessor edge of its statement
+    private final int[] operands;
+
+    // per statement, the value of every name sharing a variable with it, on entry
+    private final int[] slotStart;
+    private final int[] slotName;       // sorted per statement
+    private final int[] slotValue;
+
+    /*
+     * Value codes:
+     *   -1                  undefined (nothing reaches)
+     *   0 .. n-1            the definition made by that statement
+     *   n + p               phi p
+     *   -2 - s              whatever leaves statement s (s not renamed)
+     *   -2 - n - s          whatever enters statement s (s not renamed)
+     */
+
+    SsaForm(DefUseAnalyzer defUse, BasicBlocks blocks) {
+        this.index = defUse.getStmtIndex();
+        FlowGraph graph = blocks.getFlowGraph();
+        this.preds = graph.getAllPredecessors();
+        this.succs = graph.getAllSuccessors();
+        this.tree = new DominatorAnalyzer(blocks, true).getDominatorTree();
+        this.n = index.size();
+
+        // --- names ---
+        int vars = defUse.getVariableTable().size();
+        List<int[]> names = new ArrayList<>();
+        for (int v = 0; v < vars; v++) names.add(new int[] {v});
+        Map<List<Integer>, Integer> groups = new HashMap<>();
+        owner = new int[n];
+        for (int s = 0; s < n; s++) {
+            int[] defs = defUse.getDefVars(s);
+            if (defs.length == 0) {
+                owner[s] = -1;
+            } else if (defs.length == 1) {
+                owner[s] = defs[0];
+            } else {
+                List<Integer> key = new ArrayList<>();
+                for (int v : defs) key.add(v);
+                Integer group = groups.get(key);
+                if (group == null) {
+                    group = names.size();
+                    groups.put(key, group);
+                    names.add(defs);
+                }
+                owner[s] = group;
+            }
+        }
+        nameVars = names.toArray(new int[0][]);
+        List<List<Integer>> containing = new ArrayList<>();
+        for (int v = 0; v < vars; v++) containing.add(new ArrayList<>());
+        for (int k = 0; k < nameVars.length; k++) {
+            for (int v : nameVars[k]) containing.get(v).add(k);
+        }
+        namesOfVar = new int[vars][];
+        for (int v = 0; v < vars; v++) namesOfVar[v] = containing.get(v).stream().mapToInt(Integer::intValue).toArray();
+
+        writes = new int[n][];
+        int[][] related = new int[n][];
+        int[] buffer = new int[8];
+        for (int s = 0; s < n; s++) {
+            writes[s] = namesOf(defUse.getDefVars(s), NONE, buffer);
+            related[s] = namesOf(defUse.getDefVars(s), defUse.getUseVars(s), buffer);
+        }
+
+        // --- phi placement ---
+        FlowGraph.Edges frontiers = dominanceFrontiers();
+        int nameCount = nameVars.length;
+        int[] writerStart = new int[nameCount + 1];
+        for (int s = 0; s < n; s++) for (int k : writes[s]) writerStart[k + 1]++;
+        for (int k = 0; k < nameCount; k++) writerStart[k + 1] += writerStart[k];
+        int[] writers = new int[writerStart[nameCount]];
+        int[] fill = Arrays.copyOf(writerStart, nameCount);
+        for (int s = 0; s < n; s++) for (int k : writes[s]) writers[fill[k]++] = s;
+
+        // renamed statements with an edge from a statement that is not: whatever the
+        // unrenamed part writes may come in there
+        BitSet foreignJoins = new BitSet(n);
+        for (int t = 0; t < n; t++) {
+            if (!tree.contains(t)) continue;
+            for (int e = preds.start(t); e < preds.end(t); e++) {
+                if (!tree.contains(preds.target(e))) foreignJoins.set(t);
+            }
+        }
+
+        int[] phiStmtList = new int[16];
+        int[] phiNameList = new int[16];
+        int phis = 0;
+        int[] hasPhi = new int[n];
+        int[] queued = new int[n];
+        Arrays.fill(hasPhi, -1);
+        Arrays.fill(queued, -1);
+        int[] work = new int[n];
+        for (int k = 0; k < nameCount; k++) {
+            int top = 0;
+            boolean foreignWriter = false;
+            for (int w = writerStart[k]; w < writerStart[k + 1]; w++) {
+                int s = writers[w];
+                if (!tree.contains(s)) {
+                    foreignWriter = true;
+                } else if (queued[s] != k) {
+                    queued[s] = k;
+                    work[top++] = s;
+                }
+            }
+            if (foreignWriter) {
+                for (int t = foreignJoins.nextSetBit(0); t >= 0; t = foreignJoins.nextSetBit(t + 1)) {
+                    hasPhi[t] = k;
+                    if (phis == phiStmtList.length) {
+                        phiStmtList = Arrays.copyOf(phiStmtList, phis * 2);
+                        phiNameList = Arrays.copyOf(phiNameList, phis * 2);
+                    }
+                    phiStmtList[phis] = t;
+                    phiNameList[phis++] = k;
+                    if (queued[t] != k) {
+                        queued[t] = k;
+                        work[top++] = t;
+                    }
+                }
+            }
+            while (top > 0) {
+                int s = work[--top];
+                for (int f = frontiers.start(s); f < frontiers.end(s); f++) {
+                    int t = frontiers.target(f);
+                    if (hasPhi[t] == k) continue;
+                    hasPhi[t] = k;
+                    if (phis == phiStmtList.length) {
+                        phiStmtList = Arrays.copyOf(phiStmtList, phis * 2);
+                        phiNameList = Arrays.copyOf(phiNameList, phis * 2);
+                    }
+                    phiStmtList[phis] = t;
+                    phiNameList[phis++] = k;
+                    if (queued[t] != k) {
+                        queued[t] = k;
+                        work[top++] = t;
+                    }
+                }
+            }
+        }
+
+        // group the phis by statement (names stay in increasing order)
+        phiStart = new int[n + 1];
+        for (int p = 0; p < phis; p++) phiStart[phiStmtList[p] + 1]++;
+        for (int s = 0; s < n; s++) phiStart[s + 1] += phiStart[s];
+        phiName = new int[phis];
+        int[] phiStmt = new int[phis];
+        fill = Arrays.copyOf(phiStart, n);
+        for (int p = 0; p < phis; p++) {
+            int at = fill[phiStmtList[p]]++;
+            phiName[at] = phiNameList[p];
+            phiStmt[at] = phiStmtList[p];
+        }
+        operandStart = new int[phis + 1];
+        for (int p = 0; p < phis; p++) operandStart[p + 1] = operandStart[p] + preds.degree(phiStmt[p]);
+        operands = new int[operandStart[phis]];
+        for (int p = 0; p < phis; p++) {
+            int t = phiStmt[p];
+            for (int e = preds.start(t); e < preds.end(t); e++) {
+                int q = preds.target(e);
+                operands[operandStart[p] + e - preds.start(t)] = tree.contains(q) ? -1 : -2 - q;
+            }
+        }
+
+        // --- renaming, one pre-order walk over the dominator tree ---
+        slotStart = new int[n + 1];
+        for (int s = 0; s < n; s++) slotStart[s + 1] = slotStart[s] + related[s].length;
+        slotName = new int[slotStart[n]];
+        slotValue = new int[slotStart[n]];
+        for (int s = 0; s < n; s++) {
+            System.arraycopy(related[s], 0, slotName, slotStart[s], related[s].length);
+            if (!tree.contains(s)) Arrays.fill(slotValue, slotStart[s], slotStart[s + 1], -2 - n - s);
+        }
+        rename();
+    }
+
+    /** Static factory for a body analyzed on its own (one block per statement). */
+    public static SsaForm of(DefUseAnalyzer defUse) {
+        return new SsaForm(defUse, BasicBlocks.singletons(defUse.getStmtIndex().getFlowGraph()));
+    }
+
+    private int[] namesOf(int[] varsA, int[] varsB, int[] buffer) {
+        int count = 0;
+        for (int[] vars : new int[][] {varsA, varsB}) {
+            for (int v : vars) {
+                for (int k : namesOfVar[v]) {
+                    if (count == buffer.length) buffer = Arrays.copyOf(buffer, count * 2);
+                    buffer[count++] = k;
+                }
+            }
+        }
+        return count == 0 ? NONE : VariableTable.sortedSet(buffer, count);
+    }
+
+    /**
+     * Dominance frontiers by the Cooper-Harvey-Kennedy runner: from each predecessor of
+     * a join up to the join's immediate dominator. The entry counts as a join when it has
+     * any predecessor (the path from outside the body is the other one).
+     */
+    private FlowGraph.Edges dominanceFrontiers() {
+        int[] from = new int[16];
+        int[] to = new int[16];
+        int count = 0;
+        int[] last = new int[n];
+        Arrays.fill(last, -1);
+        for (int t = 0; t < n; t++) {
+            if (!tree.contains(t)) continue;
+            int reachedPreds = tree.getParent(t) < 0 ? 1 : 0;
+            for (int e = preds.start(t); e < preds.end(t); e++) {
+                if (tree.contains(preds.target(e))) reachedPreds++;
+            }
+            if (reachedPreds < 2) continue;
+            for (int e = preds.start(t); e < preds.end(t); e++) {
+                int runner = preds.target(e);
+                if (!tree.contains(runner)) continue;
+                while (runner >= 0 && runner != tree.getParent(t)) {
+                    if (last[runner] != t) {
+                        last[runner] = t;
+                        if (count == from.length) {
+                            from = Arrays.copyOf(from, count * 2);
+                            to = Arrays.copyOf(to, count * 2);
+                        }
+                        from[count] = runner;
+                        to[count++] = t;
+                    }
+                    runner = tree.getParent(runner);
+                }
+            }
+        }
+        return FlowGraph.Edges.of(n, from, to, count);
+    }
+
+    private void rename() {
+        int[] current = new int[nameVars.length];
+        Arrays.fill(current, -1);
+        // undo log: (name, previous value) pairs, unwound when the walk leaves a subtree
+        int[] logName = new int[16];
+        int[] logValue = new int[16];
+        int log = 0;
+        int[] openLog = new int[n];         // per depth on the current tree path: log size on entry
+        int depth = 0;
+
+        for (int s : tree.getPreOrder()) {
+            while (depth > tree.getDepth(s)) {
+                int mark = openLog[--depth];
+                while (log > mark) {
+                    log--;
+                    current[logName[log]] = logValue[log];
+                }
+            }
+            openLog[depth++] = log;
+
+            for (int p = phiStart[s]; p < phiStart[s + 1]; p++) {
+                if (log + 1 >= logName.length) {
+                    logName = Arrays.copyOf(logName, logName.length * 2);
+                    logValue = Arrays.copyOf(logValue, logValue.length * 2);
+                }
+                logName[log] = phiName[p];
+                logValue[log++] = current[phiName[p]];
+                current[phiName[p]] = n + p;
+            }
+            for (int slot = slotStart[s]; slot < slotStart[s + 1]; slot++) {
+                slotValue[slot] = current[slotName[slot]];
+            }
+            for (int k : writes[s]) {
+                if (log + 1 >= logName.length) {
+                    logName = Arrays.copyOf(logName, logName.length * 2);
+                    logValue = Arrays.copyOf(logValue, logValue.length * 2);
+                }
+                logName[log] = k;
+                logValue[log++] = current[k];
+                current[k] = s;
+            }
+            for (int e = succs.start(s); e < succs.end(s); e++) {
+                int t = succs.target(e);
+                for (int p = phiStart[t]; p < phiStart[t + 1]; p++) {
+                    for (int f = preds.start(t); f < preds.end(t); f++) {
+                        if (preds.target(f) == s) operands[operandStart[p] + f - preds.start(t)] = current[phiName[p]];
+                    }
+                }
+            }
+        }
+    }
+
+    // ---------- queries ----------
+
+    public StmtIndex getStmtIndex() {
+        return index;
+    }
+
+    /** Definitions of the variable that reach the entry of the statement, in statement order. */
+    public int[] reachingDefinitionsIn(int stmt, int var) {
+        Resolver resolver = new Resolver();
+        for (int k : namesOfVar[var]) resolver.resolve(k, valueAt(stmt, k));
+        return resolver.result();
+    }
+
+    /**
+     * Definitions of the variable that leave the statement: the statement itself if it
+     * defines the variable, otherwise those entering it that it does not kill.
+     */
+    public int[] reachingDefinitionsOut(int stmt, int var) {
+        if (owner[stmt] >= 0 && VariableTable.contains(nameVars[owner[stmt]], var)) return new int[] {stmt};
+        return withoutKilled(stmt, reachingDefinitionsIn(stmt, var));
+    }
+
+    /**
+     * The definitions leaving the statement that share a variable with it (with its
+     * definitions or its uses), in statement order; the statement itself included if it
+     * defines anything.
+     */
+    public int[] reachingDefinitionsOut(int stmt) {
+        Resolver resolver = new Resolver();
+        for (int slot = slotStart[stmt]; slot < slotStart[stmt + 1]; slot++) {
+            resolver.resolve(slotName[slot], slotValue[slot]);
+        }
+        if (owner[stmt] >= 0) resolver.add(stmt);
+        int[] defs = resolver.result();
+        int size = 0;
+        for (int def : defs) if (def == stmt || !kills(stmt, def)) defs[size++] = def;
+        return Arrays.copyOf(defs, size);
+    }
+
+    /** Does the definition made by {@code def} reach the entry of {@code stmt}? */
+    public boolean reachesIn(int def, int stmt) {
+        if (owner[def] < 0) return false;
+        Resolver resolver = new Resolver();
+        resolver.resolve(owner[def], valueAt(stmt, owner[def]));
+        return Arrays.binarySearch(resolver.result(), def) >= 0;
+    }
+
+    /** Does the definition made by {@code def} leave {@code stmt}? */
+    public boolean reachesOut(int def, int stmt) {
+        if (def == stmt) return owner[def] >= 0;
+        return !kills(stmt, def) && reachesIn(def, stmt);
+    }
+
+    /** Does stmt write a variable of def's definition? */
+    private boolean kills(int stmt, int def) {
+        return owner[def] >= 0 && VariableTable.contains(writes[stmt], owner[def]);
+    }
+
+    private int[] withoutKilled(int stmt, int[] defs) {
+        if (writes[stmt].length == 0) return defs;
+        int size = 0;
+        for (int def : defs) if (!kills(stmt, def)) defs[size++] = def;
+        return size == defs.length ? defs : Arrays.copyOf(defs, size);
+    }
+
+    /** Value of a name on entry to a statement. */
+    private int valueAt(int stmt, int name) {
+        int slot = Arrays.binarySearch(slotName, slotStart[stmt], slotStart[stmt + 1], name);
+        if (slot >= 0) return slotValue[slot];
+        if (!tree.contains(stmt)) return -2 - n - stmt;
+        // the closest phi or write up the dominator tree
+        int phi = phiOf(stmt, name);
+        if (phi >= 0) return n + phi;
+        for (int d = tree.getParent(stmt); d >= 0; d = tree.getParent(d)) {
+            if (VariableTable.contains(writes[d], name)) return d;
+            phi = phiOf(d, name);
+            if (phi >= 0) return n + phi;
+        }
+        return -1;
+    }
+
+    private int phiOf(int stmt, int name) {
+        int p = Arrays.binarySearch(phiName, phiStart[stmt], phiStart[stmt + 1], name);
+        return p >= 0 ? p : -1;
+    }
+
+    /** Follows values back through phis (and unrenamed statements) to the definitions of one name. */
+    private final class Resolver {
+        private final BitSet defs = new BitSet();
+        private final BitSet seenPhis = new BitSet();
+        private final BitSet seenStmts = new BitSet();
+        private int[] stack = new int[16];
+
+        void add(int def) {
+            defs.set(def);
+        }
+
+        void resolve(int name, int value) {
+            seenPhis.clear();
+            seenStmts.clear();
+            int top = 0;
+            stack[top++] = value;
+            while (top > 0) {
+                int v = stack[--top];
+                if (v == -1) continue;
+                if (v >= n) {
+                    int p = v - n;
+                    if (seenPhis.get(p)) continue;
+                    seenPhis.set(p);
+                    for (int o = operandStart[p]; o < operandStart[p + 1]; o++) top = push(top, operands[o]);
+                } else if (v >= 0) {
+                    if (owner[v] == name) defs.set(v);
+                } else if (-2 - v < n) {
+                    // leaving an unrenamed statement
+                    int s = -2 - v;
+                    if (seenStmts.get(s)) continue;
+                    seenStmts.set(s);
+                    if (VariableTable.contains(writes[s], name)) {
+                        if (owner[s] == name) defs.set(s);
+                    } else {
+                        top = push(top, -2 - n - s);
+                    }
+                } else {
+                    // entering an unrenamed statement
+                    int s = -2 - n - v;
+                    for (int e = preds.start(s); e < preds.end(s); e++) top = push(top, -2 - preds.target(e));
+                }
+            }
+        }
+
+        private int push(int top, int value) {
+            if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+            stack[top] = value;
+            return top + 1;
+        }
+
+        int[] result() {
+            return defs.stream().toArray();
+        }
+    }
+
+    // ---------- statistics / printing ----------
+
+    /** Variables plus the groups of variables defined together. */
+    public int getNameCount() {
+        return nameVars.length;
+    }
+
+    public int getPhiCount() {
+        return phiName.length;
+    }
+
+    /** Stored entries: per statement one value per related name, per phi one per predecessor edge. */
+    public int getValueCount() {
+        return slotValue.length + operands.length;
+    }
+
+    public void print(PrintStream out, VariableTable variables) {
+        out.println("\n=== SSA FORM ===");
+        for (int s = 0; s < n; s++) {
+            if (phiStart[s] == phiStart[s + 1]) continue;
+            out.println("Stmt: " + index.get(s));
+            for (int p = phiStart[s]; p < phiStart[s + 1]; p++) {
+                StringJoiner vars = new StringJoiner(", ");
+                for (int v : nameVars[phiName[p]]) vars.add(variables.getName(v));
+                out.println("  phi(" + vars + ")");
+            }
+        }
+        out.println("Phi nodes: " + getPhiCount() + ", names: " + getNameCount() + ", stored values: " + getValueCount());
+    }
+}
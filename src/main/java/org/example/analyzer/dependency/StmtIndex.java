@@ -0,0 +1,205 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.types.ClassType;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * StmtIndex - numbers the statements of one body 0..n-1, once.
+ *
+ * The analyzers keep their per-statement results in arrays / BitSets indexed by these
+ * numbers instead of HashMaps keyed by Stmt. The asSet / asMap views adapt those arrays
+ * back to the Stmt-based collections of the public getters without copying.
+ *
+ * The numbering is stable: it walks the graph from the starting statement, following
+ * the fall-through successor first, then branch targets in successor order, then
+ * exception handlers ordered by exception type. (StmtGraph.getStmts() is not stable
+ * from run to run for bodies with exception handlers.) Statements the walk cannot
+ * reach are numbered last.
+ */
+public final class StmtIndex {
+    private final StmtGraph<?> cfg;
+    private final Stmt[] stmts;
+    private final Map<Stmt, Integer> ids;
+    private FlowGraph flowGraph;
+    private BasicBlocks basicBlocks;
+
+    private StmtIndex(StmtGraph<?> cfg) {
+        this.cfg = cfg;
+        this.ids = new IdentityHashMap<>();
+        List<Stmt> order = new ArrayList<>(cfg.getNodes().size());
+
+        Deque<Stmt> pending = new ArrayDeque<>();
+        Stmt start = cfg.getStartingStmt();
+        if (start != null) pending.push(start);
+
+        while (!pending.isEmpty()) {
+            Stmt current = pending.pop();
+            // follow the fall-through chain, deferring every other target
+            while (current != null && !ids.containsKey(current)) {
+                ids.put(current, order.size());
+                order.add(current);
+
+                List<Stmt> succs = cfg.successors(current);
+                Stmt next = (current.fallsThrough() && !succs.isEmpty()) ? succs.get(0) : null;
+
+                List<Stmt> deferred = new ArrayList<>();
+                for (Stmt succ : succs) {
+                    if (succ != next) deferred.add(succ);
+                }
+                cfg.exceptionalSuccessors(current).entrySet().stream()
+                        .sorted(Comparator.comparing((Map.Entry<ClassType, Stmt> e) -> e.getKey().toString()))
+                        .forEach(e -> deferred.add(e.getValue()));
+
+                for (int i = deferred.size() - 1; i >= 0; i--) {
+                    if (!ids.containsKey(deferred.get(i))) pending.push(deferred.get(i));
+                }
+                current = next;
+            }
+        }
+
+        for (Stmt stmt : cfg.getStmts()) {
+            if (!ids.containsKey(stmt)) {
+                ids.put(stmt, order.size());
+                order.add(stmt);
+            }
+        }
+        this.stmts = order.toArray(new Stmt[0]);
+    }
+
+    public static StmtIndex of(StmtGraph<?> cfg) {
+        return new StmtIndex(cfg);
+    }
+
+    public StmtGraph<?> getGraph() {
+        return cfg;
+    }
+
+    /** The int snapshot of the graph's edges, built on first use and shared afterwards. */
+    public FlowGraph getFlowGraph() {
+        if (flowGraph == null) flowGraph = FlowGraph.of(this);
+        return flowGraph;
+    }
+
+    /** The maximal basic blocks of the flow graph, built on first use and shared afterwards. */
+    public BasicBlocks getBasicBlocks() {
+        if (basicBlocks == null) basicBlocks = BasicBlocks.of(getFlowGraph());
+        return basicBlocks;
+    }
+
+    public int size() {
+        return stmts.length;
+    }
+
+    public Stmt get(int id) {
+        return stmts[id];
+    }
+
+    /** Returns the number of the statement, or -1 if it is not part of this body. */
+    public int indexOf(Object stmt) {
+        Integer id = ids.get(stmt);
+        return id != null ? id : -1;
+    }
+
+    /** All statements, in index order. */
+    public List<Stmt> getStmts() {
+        return Collections.unmodifiableList(Arrays.asList(stmts));
+    }
+
+    /** Live, read-only Set view of the statements whose bits are set. */
+    public Set<Stmt> asSet(BitSet bits) {
+        return new AbstractSet<Stmt>() {
+            @Override
+            public boolean contains(Object o) {
+                int id = indexOf(o);
+                return id >= 0 && bits.get(id);
+            }
+
+            @Override
+            public int size() {
+                return bits.cardinality();
+            }
+
+            @Override
+            public Iterator<Stmt> iterator() {
+                return new Iterator<Stmt>() {
+                    int next = bits.nextSetBit(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next >= 0 && next < stmts.length;
+                    }
+
+                    @Override
+                    public Stmt next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        Stmt stmt = stmts[next];
+                        next = bits.nextSetBit(next + 1);
+                        return stmt;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Read-only Map view over every statement of the body, in index order. Values are
+     * produced by {@code values} on access; a null value means "no entry".
+     */
+    public <V> Map<Stmt, V> asMap(IntFunction<V> values) {
+        return new AbstractMap<Stmt, V>() {
+            @Override
+            public V get(Object key) {
+                int id = indexOf(key);
+                return id >= 0 ? values.apply(id) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public Set<Entry<Stmt, V>> entrySet() {
+                return new AbstractSet<Entry<Stmt, V>>() {
+                    @Override
+                    public int size() {
+                        int size = 0;
+                        for (int i = 0; i < stmts.length; i++) {
+                            if (values.apply(i) != null) size++;
+                        }
+                        return size;
+                    }
+
+                    @Override
+                    public Iterator<Entry<Stmt, V>> iterator() {
+                        return new Iterator<Entry<Stmt, V>>() {
+                            int next = advance(0);
+
+                            private int advance(int from) {
+                                while (from < stmts.length && values.apply(from) == null) from++;
+                                return from;
+                            }
+
+                            @Override
+                            public boolean hasNext() {
+                                return next < stmts.length;
+                            }
+
+                            @Override
+                            public Entry<Stmt, V> next() {
+                                if (!hasNext()) throw new NoSuchElementException();
+                                Entry<Stmt, V> e = new SimpleImmutableEntry<>(stmts[next], values.apply(next));
+                                next = advance(next + 1);
+                                return e;
+                            }
+                        };
+                    }
+                };
+            }
+        };
+    }
+}
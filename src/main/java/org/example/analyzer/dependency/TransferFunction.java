@@ -0,0 +1,27 @@
+package org.example.analyzer.dependency;
+
+import java.util.BitSet;
+
+/**
+ * TransferFunction - the effect of one statement in a DataflowSolver problem: maps the
+ * value flowing into the statement (before it for forward problems, after it for
+ * backward ones) to the value flowing out. The input is a fresh value owned by the
+ * function, so it may be updated in place and returned.
+ */
+@FunctionalInterface
+public interface TransferFunction<V> {
+
+    V apply(int stmt, V input);
+
+    /**
+     * The classic bit-vector transfer OUT = GEN ∪ (IN - KILL), per statement number;
+     * null GEN / KILL entries mean empty.
+     */
+    static TransferFunction<BitSet> genKill(BitSet[] gen, BitSet[] kill) {
+        return (stmt, input) -> {
+            if (kill[stmt] != null) input.andNot(kill[stmt]);
+            if (gen[stmt] != null) input.or(gen[stmt]);
+            return input;
+        };
+    }
+}
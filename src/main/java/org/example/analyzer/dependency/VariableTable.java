@@ -0,0 +1,162 @@
+package org.example.analyzer.dependency;
+
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.basic.Value;
+
+import java.util.*;
+
+/**
+ * VariableTable - per-body interning of the locals (by name) and of the Values the
+ * statements define and use, each numbered 0..n-1 in order of first appearance.
+ *
+ * DefUseAnalyzer keeps its def/use sets as small sorted int arrays of these numbers,
+ * so the downstream analyses compare and index ints instead of hashing strings and
+ * Values. Names are only looked up when something is printed or reported.
+ */
+public final class VariableTable {
+    private final Map<String, Integer> variableIds = new HashMap<>();
+    private final List<String> variables = new ArrayList<>();
+    private final Map<Value, Integer> valueIds = new HashMap<>();
+    private final List<Value> values = new ArrayList<>();
+
+    int intern(Local local) {
+        return internName(local.getName());
+    }
+
+    int internName(String name) {
+        Integer id = variableIds.get(name);
+        if (id == null) {
+            id = variables.size();
+            variableIds.put(name, id);
+            variables.add(name);
+        }
+        return id;
+    }
+
+    int internValue(Value value) {
+        Integer id = valueIds.get(value);
+        if (id == null) {
+            id = values.size();
+            valueIds.put(value, id);
+            values.add(value);
+        }
+        return id;
+    }
+
+    /**
+     * An independent table with the same numbers, for the next version of an edited body:
+     * new locals and values are numbered after the existing ones. Numbers of locals the
+     * edit removed stay taken.
+     */
+    VariableTable copy() {
+        VariableTable copy = new VariableTable();
+        copy.variableIds.putAll(variableIds);
+        copy.variables.addAll(variables);
+        copy.valueIds.putAll(valueIds);
+        copy.values.addAll(values);
+        return copy;
+    }
+
+    /** Number of distinct variables. */
+    public int size() {
+        return variables.size();
+    }
+
+    public int valueCount() {
+        return values.size();
+    }
+
+    /** Number of the variable, or -1 if no statement of the body defines or uses it. */
+    public int getId(String name) {
+        Integer id = variableIds.get(name);
+        return id != null ? id : -1;
+    }
+
+    public String getName(int id) {
+        return variables.get(id);
+    }
+
+    /** Number of the value, or -1 if it does not occur in the body. */
+    public int getValueId(Value value) {
+        Integer id = valueIds.get(value);
+        return id != null ? id : -1;
+    }
+
+    public Value getValue(int id) {
+        return values.get(id);
+    }
+
+    /** Read-only Set view of the variable names for a sorted array of variable numbers. */
+    public Set<String> asNames(int[] ids) {
+        return new AbstractSet<String>() {
+            @Override
+            public boolean contains(Object o) {
+                Integer id = o instanceof String ? variableIds.get(o) : null;
+                return id != null && Arrays.binarySearch(ids, id) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return Arrays.stream(ids).mapToObj(variables::get).iterator();
+            }
+        };
+    }
+
+    /** Read-only Set view of the values for a sorted array of value numbers. */
+    public Set<Value> asValues(int[] ids) {
+        return new AbstractSet<Value>() {
+            @Override
+            public boolean contains(Object o) {
+                Integer id = valueIds.get(o);
+                return id != null && Arrays.binarySearch(ids, id) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+
+            @Override
+            public Iterator<Value> iterator() {
+                return Arrays.stream(ids).mapToObj(values::get).iterator();
+            }
+        };
+    }
+
+    /** Sorted, duplicate-free copy of the first {@code length} entries of {@code ids}. */
+    static int[] sortedSet(int[] ids, int length) {
+        int[] copy = Arrays.copyOf(ids, length);
+        Arrays.sort(copy);
+        int unique = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (i == 0 || copy[i] != copy[i - 1]) copy[unique++] = copy[i];
+        }
+        return unique == copy.length ? copy : Arrays.copyOf(copy, unique);
+    }
+
+    /** Does the sorted array contain id? */
+    static boolean contains(int[] sorted, int id) {
+        return Arrays.binarySearch(sorted, id) >= 0;
+    }
+
+    /** Intersection of two sorted arrays, sorted. */
+    static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int size = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) i++;
+            else if (a[i] > b[j]) j++;
+            else {
+                out[size++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return size == out.length ? out : Arrays.copyOf(out, size);
+    }
+}
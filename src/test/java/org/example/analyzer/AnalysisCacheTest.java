@@ -0,0 +1,249 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.AnalysisOptions;
+import org.example.analyzer.dependency.ResultFileWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+public class AnalysisCacheTest extends TestCase {
+
+    private static final List<String> CLASSES = List.of(
+            "org.example.programs.ForExample",
+            "org.example.programs.NestedLoops",
+            "org.example.programs.specified.BreakStatement",
+            "org.example.programs.specified.DoesNotExist");
+
+    private AnalysisSession session;
+    private Path directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+        directory = Files.createTempDirectory("analysis-cache");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+        super.tearDown();
+    }
+
+    public void testKeyCoversBytesToolAndConfiguration() throws Exception {
+        byte[] bytes = session.readClassFile("org.example.programs.ForExample").orElseThrow();
+        String key = AnalysisCache.key("cfg", "", bytes);
+        assertEquals(64, key.length());
+        assertEquals(key, AnalysisCache.key("cfg", "", bytes.clone()));
+        assertFalse(key.equals(AnalysisCache.key("ir", "", bytes)));
+        assertFalse(key.equals(AnalysisCache.key("cfg", "x", bytes)));
+
+        byte[] edited = bytes.clone();
+        edited[edited.length - 1] ^= 1;
+        assertFalse(key.equals(AnalysisCache.key("cfg", "", edited)));
+
+        assertTrue(session.readClassFile("org.example.programs.specified.DoesNotExist").isEmpty());
+        assertNull(AnalysisCache.classKey(session, "cfg", "", "org.example.programs.specified.DoesNotExist"));
+    }
+
+    public void testKeyCoversTheSupertypesOnTheClassPath() throws Exception {
+        // DependencyColumns extends KeyedColumns; both are copied to a class path of their own
+        Path classes = directory.resolve("classes");
+        Path dependency = classes.resolve("org/example/analyzer/dependency");
+        Files.createDirectories(dependency);
+        for (String name : List.of("DependencyColumns.class", "KeyedColumns.class")) {
+            Files.copy(Paths.get("target/classes/org/example/analyzer/dependency", name), dependency.resolve(name));
+        }
+        String className = "org.example.analyzer.dependency.DependencyColumns";
+        try (AnalysisSession copy = AnalysisSession.forClassPath(classes.toString())) {
+            String key = AnalysisCache.classKey(copy, "cfg", "", className);
+            assertNotNull(key);
+            assertFalse(key.equals(AnalysisCache.key("cfg", "", copy.readClassFile(className).orElseThrow())));
+
+            // an edit of the superclass alone (one character of a message) changes the key of the subclass
+            Path superclass = dependency.resolve("KeyedColumns.class");
+            byte[] bytes = Files.readAllBytes(superclass);
+            int at = new String(bytes, StandardCharsets.ISO_8859_1).indexOf("not a statement of this body");
+            assertTrue(at > 0);
+            bytes[at] = 'N';
+            Files.write(superclass, bytes);
+            assertFalse(key.equals(AnalysisCache.classKey(copy, "cfg", "", className)));
+        }
+    }
+
+    public void testEntryIsReadBackOnlyUnderItsKey() throws Exception {
+        AnalysisCache cache = new AnalysisCache(directory);
+        assertTrue(cache.lookup("cfg", "a.B", "k1").isEmpty());
+
+        // longer than one chunk, with multi-byte characters across the chunk boundaries
+        String large = "digraph { ü → ".repeat(2000) + "}";
+        try (AnalysisCache.Recorder recorder = cache.record("cfg", "a.B", "k1")) {
+            ArtifactSink tee = recorder.tee(new ArtifactSink.Directory(directory.resolve("written")));
+            tee.write("a_B/m.dot", large);
+            tee.write("a_B/n.dot", "");
+            recorder.commit("report ü\n");
+        }
+        assertEquals(large, Files.readString(directory.resolve("written/a_B/m.dot")));
+        AnalysisCache.Entry entry = cache.lookup("cfg", "a.B", "k1").orElseThrow();
+        assertEquals("report ü\n", entry.getReport());
+        assertEquals(List.of("a_B/m.dot", "a_B/n.dot"), entry.getFiles());
+        assertTrue(cache.lookup("cfg", "a.B", "k2").isEmpty());
+        assertTrue(cache.lookup("ir", "a.B", "k1").isEmpty());
+        assertEquals(1, cache.getHits());
+        assertEquals(3, cache.getMisses());
+
+        Path out = directory.resolve("out");
+        entry.writeFiles(new ArtifactSink.Directory(out));
+        assertEquals(large, Files.readString(out.resolve("a_B/m.dot")));
+        assertEquals("", Files.readString(out.resolve("a_B/n.dot")));
+    }
+
+    public void testUncommittedEntryIsDiscarded() throws Exception {
+        AnalysisCache cache = new AnalysisCache(directory);
+        cache.store("cfg", "a.B", "k1", new AnalysisCache.Entry("first\n"));
+        try (AnalysisCache.Recorder recorder = cache.record("cfg", "a.B", "k2")) {
+            try (Writer writer = recorder.file("a_B/m.dot")) {
+                writer.write("digraph {}");
+            }
+        }
+        assertEquals("first\n", cache.lookup("cfg", "a.B", "k1").orElseThrow().getReport());
+        try (Stream<Path> files = Files.list(directory.resolve("cfg"))) {
+            assertEquals(List.of("a.B.cache"), files.map(p -> p.getFileName().toString()).toList());
+        }
+    }
+
+    public void testPipelineReusesUnchangedClasses() throws Exception {
+        AnalysisOptions options = new AnalysisOptions();
+        String uncached = runPipeline(null, options);
+
+        AnalysisCache first = new AnalysisCache(directory);
+        assertEquals(uncached, runPipeline(first, options));
+        assertEquals(0, first.getHits());
+        assertEquals(3, first.getMisses());
+
+        AnalysisCache second = new AnalysisCache(directory);
+        assertEquals(uncached, runPipeline(second, options));
+        assertEquals(3, second.getHits());
+
+        // other options give other reports, so they are keyed apart
+        AnalysisCache nearest = new AnalysisCache(directory);
+        runPipeline(nearest, new AnalysisOptions().setAntiOutputMode(AnalysisOptions.AntiOutputMode.NEAREST));
+        assertEquals(0, nearest.getHits());
+    }
+
+    public void testResultFileAndJsonLinesRunsReuseUnchangedClasses() throws Exception {
+        String uncached = runOutputs(null, "uncached");
+
+        AnalysisCache first = new AnalysisCache(directory);
+        assertEquals(uncached, runOutputs(first, "first"));
+        assertEquals(3, first.getMisses());
+
+        AnalysisCache second = new AnalysisCache(directory);
+        assertEquals(uncached, runOutputs(second, "second"));
+        assertEquals(3, second.getHits());
+
+        // the entries hold no text report, so a text run does not take them
+        AnalysisCache text = new AnalysisCache(directory);
+        runPipeline(text, new AnalysisOptions());
+        assertEquals(0, text.getHits());
+    }
+
+    public void testSlowStoreDoesNotHoldUpThePrinting() throws Exception {
+        CountDownLatch lastClassPrinted = new CountDownLatch(1);
+        AnalysisCache slow = new AnalysisCache(directory) {
+            @Override
+            public void store(String tool, String className, String key, Entry entry) throws IOException {
+                try {
+                    // the first entry is only stored once the report of the last class is out
+                    lastClassPrinted.await();
+                } catch (InterruptedException e) {
+                    throw new InterruptedIOException();
+                }
+                super.store(tool, className, key, entry);
+            }
+        };
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8) {
+            @Override
+            public void print(Object report) {
+                if (String.valueOf(report).contains("CLASS: " + CLASSES.get(2))) lastClassPrinted.countDown();
+                super.print(report);
+            }
+        };
+        List<Throwable> failures = runInThread(() ->
+                new AnalysisPipeline(session, 2, 1, 2, out, out).withCache(slow).run(CLASSES));
+        assertEquals(List.of(), failures);
+        // every entry was still stored before run() returned
+        AnalysisCache reread = new AnalysisCache(directory);
+        runPipeline(reread, new AnalysisOptions());
+        assertEquals(3, reread.getHits());
+    }
+
+    public void testFailedStoreFailsTheRun() throws Exception {
+        AnalysisCache broken = new AnalysisCache(directory) {
+            @Override
+            public void store(String tool, String className, String key, Entry entry) {
+                throw new IllegalStateException("broken cache");
+            }
+        };
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        List<Throwable> failures = runInThread(() ->
+                new AnalysisPipeline(session, 2, 1, 2, out, out).withCache(broken).run(CLASSES));
+        assertEquals(1, failures.size());
+        assertEquals("broken cache", failures.get(0).getCause().getMessage());
+    }
+
+    private interface Run {
+        void run() throws Exception;
+    }
+
+    /** Runs in another thread, so that a hanging pipeline fails the test instead of the build. */
+    private static List<Throwable> runInThread(Run run) throws InterruptedException {
+        List<Throwable> failures = new ArrayList<>();
+        Thread thread = new Thread(() -> {
+            try {
+                run.run();
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        thread.start();
+        thread.join(30_000);
+        assertFalse("the pipeline hangs", thread.isAlive());
+        return failures;
+    }
+
+    /** The JSON records and the bytes of the result file of a quiet run, as one string. */
+    private String runOutputs(AnalysisCache cache, String name) throws Exception {
+        Path resultFile = directory.resolve(name + ".results");
+        StringWriter records = new StringWriter();
+        PrintStream console = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        try (ResultFileWriter results = new ResultFileWriter(resultFile);
+             JsonLinesWriter jsonLines = new JsonLinesWriter(records, 4)) {
+            new AnalysisPipeline(session, 2, 1, 2, console, console).withQuiet(true).withCache(cache)
+                    .withResultFile(results).withJsonLines(jsonLines).run(CLASSES);
+        }
+        return records + Base64.getEncoder().encodeToString(Files.readAllBytes(resultFile));
+    }
+
+    private String runPipeline(AnalysisCache cache, AnalysisOptions options) throws InterruptedException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        new AnalysisPipeline(session, 2, 1, 2, out, out).withOptions(options).withCache(cache).run(CLASSES);
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AnalysisPipelineTest extends TestCase {
+
+    private static final List<String> CLASSES = List.of(
+            "org.example.programs.ForExample",
+            "org.example.programs.NestedLoops",
+            "org.example.programs.specified.BreakStatement",
+            "org.example.programs.specified.MultipleTryCatch",
+            "org.example.programs.specified.NestedSwitchCase",
+            "org.example.programs.specified.DoesNotExist");
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testOutputDoesNotDependOnWorkerCount() throws InterruptedException {
+        String sequential = runPipeline(1, 1, 1);
+        String parallel = runPipeline(4, 2, 2);
+
+        assertTrue(sequential.contains("================ CLASS: org.example.programs.ForExample"));
+        assertTrue(sequential.contains("Class not found in view: org.example.programs.specified.DoesNotExist"));
+        assertEquals(sequential, parallel);
+    }
+
+    public void testFailedReportFailsTheRunInsteadOfHanging() throws InterruptedException {
+        Throwable failure = runFailing(new IllegalStateException("console closed"));
+        assertTrue(failure instanceof IllegalStateException);
+        assertEquals("console closed", failure.getCause().getMessage());
+    }
+
+    public void testErrorInAStageFailsTheRun() throws InterruptedException {
+        Throwable failure = runFailing(new OutOfMemoryError("simulated"));
+        assertTrue(failure.getCause() instanceof OutOfMemoryError);
+    }
+
+    /** Runs the pipeline with an out that throws on its fifth report; returns what run() threw. */
+    private Throwable runFailing(Throwable thrown) throws InterruptedException {
+        AtomicInteger reports = new AtomicInteger();
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8) {
+            @Override
+            public void print(Object report) {
+                if (reports.incrementAndGet() == 5) {
+                    if (thrown instanceof Error) throw (Error) thrown;
+                    throw (RuntimeException) thrown;
+                }
+            }
+        };
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread run = new Thread(() -> {
+            try {
+                new AnalysisPipeline(session, 2, 1, 1, out, out).run(CLASSES);
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        run.start();
+        run.join(30_000);
+        assertFalse("the pipeline hangs after a failed stage", run.isAlive());
+        assertNotNull(failure.get());
+        return failure.get();
+    }
+
+    private String runPipeline(int analysisWorkers, int loadWorkers, int queueCapacity) throws InterruptedException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        new AnalysisPipeline(session, analysisWorkers, loadWorkers, queueCapacity, out, out).run(CLASSES);
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,57 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import sootup.core.model.Body;
+import sootup.java.core.JavaSootClass;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.List;
+
+public class AnalysisSessionTest extends TestCase {
+
+    public void testSessionIsSharedPerClassPath() {
+        AnalysisSession a = AnalysisSession.forClassPath("target/classes");
+        AnalysisSession b = AnalysisSession.forClassPath("./target/classes");
+        assertSame(a, b);
+        assertNotSame(a, AnalysisSession.forClassPath("target/test-classes", "target/classes"));
+    }
+
+    public void testClassesAndBodiesAreCached() {
+        AnalysisSession session = AnalysisSession.forClassPath("target/classes");
+        JavaSootClass first = session.getSootClass("org.example.programs.ForExample").orElseThrow();
+        JavaSootClass second = session.getSootClass("org.example.programs.ForExample").orElseThrow();
+        assertSame(first, second);
+
+        for (JavaSootMethod m : first.getMethods()) {
+            assertSame(session.getBody(m), session.getBody(m));
+        }
+        assertTrue(session.getSootClass("org.example.programs.DoesNotExist").isEmpty());
+    }
+
+    public void testLoadedBodiesAreNotKept() {
+        AnalysisSession session = AnalysisSession.forClassPath("target/classes");
+        for (JavaSootMethod m : session.getSootClass("org.example.programs.NestedLoops").orElseThrow().getMethods()) {
+            Body loaded = session.loadBody(m);
+            assertNotSame(loaded, session.loadBody(m));
+            assertNotSame(session.getBody(m), loaded);
+            assertEquals(session.getBody(m).getStmts().toString(), loaded.getStmts().toString());
+        }
+    }
+
+    public void testClosedSessionIsReplaced() {
+        AnalysisSession session = AnalysisSession.forClassPath("target/test-classes");
+        session.close();
+        AnalysisSession next = AnalysisSession.forClassPath("target/test-classes");
+        assertNotSame(session, next);
+        // closing the old one again does not drop its replacement
+        session.close();
+        assertSame(next, AnalysisSession.forClassPath("target/test-classes"));
+        next.close();
+    }
+
+    public void testFindClasses() throws Exception {
+        List<String> classes = AnalysisSession.forClassPath("target/classes").findClasses("org.example.programs.specified");
+        assertTrue(classes.contains("org.example.programs.specified.BreakStatement"));
+        assertFalse(classes.contains("org.example.programs.ForExample"));
+    }
+}
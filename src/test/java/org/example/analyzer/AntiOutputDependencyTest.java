@@ -0,0 +1,79 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.*;
+
+public class AntiOutputDependencyTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testNearestPairsMatchPathSearch() throws Exception {
+        AnalysisOptions nearest = new AnalysisOptions().setAntiOutputMode(AnalysisOptions.AntiOutputMode.NEAREST);
+        int fewer = 0;
+
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+
+            DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+            Set<String> all = pairs(new DependencyAnalyzer(cfg, defUse).analyze());
+            Set<String> near = pairs(new DependencyAnalyzer(cfg, defUse, nearest).analyze());
+
+            assertTrue(m.getSignature().toString(), all.containsAll(near));
+            if (near.size() < all.size()) fewer++;
+
+            Set<String> expected = new HashSet<>();
+            for (Stmt stmt : cfg.getNodes()) {
+                for (String var : defUse.getDefSet(stmt)) {
+                    expected.addAll(nearestAccesses(cfg, defUse, stmt, var));
+                }
+            }
+            Set<String> actual = new HashSet<>(near);
+            actual.removeIf(pair -> pair.startsWith("DEF_ORDER"));
+            assertEquals(m.getSignature().toString(), expected, actual);
+        }
+        assertTrue(fewer > 0);
+    }
+
+    private static Set<String> pairs(DependencyResult result) {
+        Set<String> pairs = new HashSet<>();
+        result.getDataDependencies().values().forEach(deps -> deps.forEach(dep -> {
+            if (dep.getType() != Dependency.Type.RAW) {
+                pairs.add(dep.getType() + " " + System.identityHashCode(dep.getSource())
+                        + " " + System.identityHashCode(dep.getTarget()) + " " + dep.getVariable());
+            }
+        }));
+        return pairs;
+    }
+
+    // walk backwards from the write: reads of var seen on the way are WAR sources,
+    // writes of var are WAW sources and end the walk along that path (a statement that
+    // reads and writes var reads first, so its own write is in between)
+    private static Set<String> nearestAccesses(StmtGraph<?> cfg, DefUseAnalyzer defUse, Stmt write, String var) {
+        Set<String> found = new HashSet<>();
+        Set<Stmt> visited = new HashSet<>();
+        Deque<Stmt> pending = new ArrayDeque<>(cfg.predecessors(write));
+        while (!pending.isEmpty()) {
+            Stmt stmt = pending.pop();
+            if (!visited.add(stmt)) continue;
+            String suffix = " " + System.identityHashCode(stmt) + " " + System.identityHashCode(write) + " " + var;
+            if (defUse.getDefSet(stmt).contains(var)) {
+                if (stmt != write) found.add("WAW" + suffix);
+                continue;
+            }
+            if (stmt != write && defUse.getUseSet(stmt).contains(var)) found.add("WAR" + suffix);
+            pending.addAll(cfg.predecessors(stmt));
+        }
+        return found;
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class ArtifactArchiveTest extends TestCase {
+
+    private Path archive;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        archive = Files.createTempFile("artifacts", ".zip");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(archive);
+        super.tearDown();
+    }
+
+    public void testOverloadsGetDistinctNames() {
+        Set<String> taken = new HashSet<>();
+        assertEquals("a_B/run.dot", ArtifactSink.fileName("a.B", "run", "dot", taken));
+        assertEquals("a_B/run_2.dot", ArtifactSink.fileName("a.B", "run", "dot", taken));
+        assertEquals("a_B/run_3.dot", ArtifactSink.fileName("a.B", "run", "dot", taken));
+        assertEquals("a_B/_init_.dot", ArtifactSink.fileName("a.B", "<init>", "dot", taken));
+        assertEquals("a_B/run.jimple", ArtifactSink.fileName("a.B", "run", "jimple", taken));
+    }
+
+    public void testArtifactsAreReadBackByName() throws Exception {
+        try (ArtifactSink sink = new ArtifactSink.Zip(archive)) {
+            sink.write("a_B/run.dot", "digraph CFG_run {}");
+            sink.write("a_B/_init_.dot", "digraph CFG__init_ { ü }");
+            sink.write("a_B/run.dot", "skipped");
+            assertTrue(sink.location("a_B/run.dot").endsWith("!/a_B/run.dot"));
+        }
+        try (ArtifactArchive artifacts = new ArtifactArchive(archive)) {
+            assertEquals(List.of("a_B/run.dot", "a_B/_init_.dot"), artifacts.getNames());
+            assertEquals("digraph CFG_run {}", artifacts.read("a_B/run.dot").orElseThrow());
+            assertEquals("digraph CFG__init_ { ü }", artifacts.read("a.B", "<init>", "dot").orElseThrow());
+            assertTrue(artifacts.contains("a_B/run.dot"));
+            assertFalse(artifacts.contains("a_B/missing.dot"));
+            assertTrue(artifacts.read("a_B/missing.dot").isEmpty());
+        }
+    }
+
+    public void testIrGeneratorWritesOneArchive() throws Exception {
+        IRGenerator.main(new String[]{"--no-cache", "--zip=" + archive, "target/classes",
+                "org.example.programs.specified"});
+        try (ArtifactArchive artifacts = new ArtifactArchive(archive)) {
+            assertTrue(artifacts.getNames().size() > 10);
+            for (String name : artifacts.getNames()) {
+                assertTrue(name, name.startsWith("org_example_programs_specified_") && name.endsWith(".jimple"));
+            }
+            String main = artifacts.read("org.example.programs.specified.BreakStatement", "main", "jimple").orElseThrow();
+            assertTrue(main.contains("args := @parameter0: java.lang.String[]"));
+        }
+    }
+}
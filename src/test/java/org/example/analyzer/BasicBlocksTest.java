@@ -0,0 +1,97 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+public class BasicBlocksTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testBlocksPartitionStraightLineCode() throws Exception {
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            StmtIndex index = StmtIndex.of(cfg);
+            FlowGraph graph = index.getFlowGraph();
+            BasicBlocks blocks = index.getBasicBlocks();
+            assertSame(blocks, index.getBasicBlocks());
+            assertEquals(index.size(), blocks.getStatementCount());
+            assertTrue(blocks.size() <= index.size());
+
+            BitSet seen = new BitSet(index.size());
+            for (int b = 0; b < blocks.size(); b++) {
+                int[] stmts = blocks.getStatements(b);
+                assertEquals(blocks.getLeader(b), stmts[0]);
+                assertEquals(blocks.getLast(b), stmts[stmts.length - 1]);
+                if (b > 0) assertTrue(blocks.getLeader(b - 1) < blocks.getLeader(b));
+                for (int k = 0; k < stmts.length; k++) {
+                    assertFalse(seen.get(stmts[k]));
+                    seen.set(stmts[k]);
+                    assertEquals(b, blocks.getBlock(stmts[k]));
+                    if (k == 0) continue;
+                    // straight line: the only way in and out, in both graphs
+                    assertTrue(Arrays.equals(new int[] {stmts[k]}, graph.getSuccessors().get(stmts[k - 1])));
+                    assertTrue(Arrays.equals(new int[] {stmts[k]}, graph.getAllSuccessors().get(stmts[k - 1])));
+                    assertTrue(Arrays.equals(new int[] {stmts[k - 1]}, graph.getAllPredecessors().get(stmts[k])));
+                }
+            }
+            assertEquals(index.size(), seen.cardinality());
+        }
+    }
+
+    public void testNestedLoopsCompress() {
+        BasicBlocks blocks = StmtIndex.of(Programs.graph(session, "org.example.programs.NestedLoops", "pairs")).getBasicBlocks();
+        assertTrue(blocks.size() < blocks.getStatementCount());
+        assertTrue(blocks.getMaxBlockSize() > 1);
+        assertTrue(blocks.getCompressionRatio() > 1);
+
+        BasicBlocks singletons = BasicBlocks.singletons(blocks.getFlowGraph());
+        assertEquals(blocks.getStatementCount(), singletons.size());
+        assertEquals(1.0, singletons.getCompressionRatio());
+    }
+
+    public void testBlockGranularityGivesSameResults() throws Exception {
+        AnalysisOptions.Granularity block = AnalysisOptions.Granularity.BASIC_BLOCK;
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            for (AnalysisOptions.AntiOutputMode mode : AnalysisOptions.AntiOutputMode.values()) {
+                assertEquals(cfg.toString(), report(cfg, new AnalysisOptions().setAntiOutputMode(mode)),
+                        report(cfg, new AnalysisOptions().setAntiOutputMode(mode).setGranularity(block)));
+            }
+
+            StmtIndex index = StmtIndex.of(cfg);
+            DominatorAnalyzer dom = new DominatorAnalyzer(index);
+            DominatorAnalyzer blockDom = new DominatorAnalyzer(index.getBasicBlocks());
+            PostDominatorAnalyzer pdom = new PostDominatorAnalyzer(index);
+            PostDominatorAnalyzer blockPdom = new PostDominatorAnalyzer(index.getBasicBlocks());
+            for (int i = 0; i < index.size(); i++) {
+                Stmt stmt = index.get(i);
+                assertEquals(dom.getImmediateDominator(stmt), blockDom.getImmediateDominator(stmt));
+                assertEquals(dom.getDominators(stmt), blockDom.getDominators(stmt));
+                assertEquals(pdom.getImmediatePostDominator(stmt), blockPdom.getImmediatePostDominator(stmt));
+                assertEquals(pdom.getPostDominators(stmt), blockPdom.getPostDominators(stmt));
+                assertTrue(Arrays.equals(pdom.getPostDominanceFrontier(i), blockPdom.getPostDominanceFrontier(i)));
+            }
+        }
+    }
+
+    private static String report(StmtGraph<?> cfg, AnalysisOptions options) {
+        DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), options);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer);
+        analyzer.analyze().printResults(out);
+        analyzer.printReachingDefinitions(out);
+        out.println(analyzer.getReachingDefinitions());
+        out.flush();
+        return buffer.toString();
+    }
+}
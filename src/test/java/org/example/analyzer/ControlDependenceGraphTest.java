@@ -0,0 +1,66 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.Set;
+
+public class ControlDependenceGraphTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testBothDirectionsAgreeWithResult() throws Exception {
+        int beyondSuccessors = 0;
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg));
+            DependencyResult result = analyzer.analyze();
+            ControlDependenceGraph cdg = result.getControlDependenceGraph();
+            assertNotNull(cdg);
+
+            int edges = 0;
+            for (Stmt controlled : cfg.getNodes()) {
+                Set<Stmt> controllers = cdg.getControllers(controlled);
+                Set<Dependency> deps = result.getControlDependencies().get(controlled);
+                assertEquals(controllers.size(), deps == null ? 0 : deps.size());
+                for (Stmt controller : controllers) {
+                    edges++;
+                    assertTrue(cdg.isControlDependent(controlled, controller));
+                    assertTrue(cdg.getDependents(controller).contains(controlled));
+                    assertTrue(cfg.successors(controller).size() > 1);
+                    if (!cfg.successors(controller).contains(controlled)) beyondSuccessors++;
+                }
+            }
+            assertEquals(edges, cdg.size());
+        }
+        // statements deeper inside a branch depend on it too, not only its direct successors
+        assertTrue(beyondSuccessors > 0);
+    }
+
+    public void testBranchSuccessorsThatDoNotPostDominateAreDependent() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+
+            PostDominatorAnalyzer postDominators = new PostDominatorAnalyzer(cfg);
+            ControlDependenceGraph cdg = new ControlDependenceGraph(postDominators);
+            DominatorTree tree = postDominators.getPostDominatorTree();
+            StmtIndex index = postDominators.getStmtIndex();
+            for (Stmt branch : cfg.getNodes()) {
+                if (cfg.successors(branch).size() < 2 || !tree.contains(index.indexOf(branch))) continue;
+                for (Stmt succ : cfg.successors(branch)) {
+                    if (tree.contains(index.indexOf(succ)) && !postDominators.postDominates(succ, branch)) {
+                        assertTrue(m.getSignature() + " / " + succ, cdg.isControlDependent(succ, branch));
+                    }
+                }
+            }
+        }
+    }
+}
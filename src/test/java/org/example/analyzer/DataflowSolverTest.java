@@ -0,0 +1,143 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+public class DataflowSolverTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    private static int[][] predecessors(StmtIndex index) {
+        int[][] preds = new int[index.size()][];
+        for (int i = 0; i < preds.length; i++) {
+            preds[i] = index.getGraph().predecessors(index.get(i)).stream().mapToInt(index::indexOf).toArray();
+        }
+        return preds;
+    }
+
+    // liveness: LIVE_IN = USE ∪ (LIVE_OUT - DEF), against a round-robin iteration
+    public void testBackwardLivenessMatchesRoundRobin() throws Exception {
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+            StmtIndex index = defUse.getStmtIndex();
+            int n = index.size();
+            int vars = defUse.getVariableTable().size();
+            FlowGraph.Edges preds = index.getFlowGraph().getAllPredecessors();
+            FlowGraph.Edges succs = index.getFlowGraph().getAllSuccessors();
+
+            BitSet[] use = new BitSet[n];
+            BitSet[] def = new BitSet[n];
+            for (int i = 0; i < n; i++) {
+                use[i] = new BitSet(vars);
+                def[i] = new BitSet(vars);
+                for (int v : defUse.getUseVars(i)) use[i].set(v);
+                for (int v : defUse.getDefVars(i)) def[i].set(v);
+            }
+
+            DataflowSolver.Solution<BitSet> live = new DataflowSolver<>(preds, succs,
+                    DataflowSolver.Direction.BACKWARD, BitSetLattice.union(vars),
+                    TransferFunction.genKill(use, def)).solve();
+
+            BitSet[] liveIn = new BitSet[n];
+            for (int i = 0; i < n; i++) liveIn[i] = new BitSet(vars);
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int i = n - 1; i >= 0; i--) {
+                    BitSet in = new BitSet(vars);
+                    for (int succ : succs.get(i)) in.or(liveIn[succ]);
+                    in.andNot(def[i]);
+                    in.or(use[i]);
+                    if (!in.equals(liveIn[i])) {
+                        liveIn[i] = in;
+                        changed = true;
+                    }
+                }
+            }
+
+            for (int i = 0; i < n; i++) {
+                assertEquals(index.get(i).toString(), liveIn[i], live.before(i));
+                BitSet out = new BitSet(vars);
+                for (int succ : succs.get(i)) out.or(liveIn[succ]);
+                assertEquals(out, live.after(i));
+            }
+            DataflowSolver.Stats stats = live.getStats();
+            assertEquals(n, stats.getStatements());
+            assertTrue(stats.getVisits() >= n);
+            assertTrue(stats.getUpdates() <= stats.getVisits());
+            assertTrue(stats.getPasses() >= 1);
+        }
+    }
+
+    // DOM(s) = {s} ∪ intersection of DOM(p): the textbook must-problem, against the dominator tree
+    public void testIntersectionLatticeComputesDominators() throws Exception {
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DominatorAnalyzer dominators = new DominatorAnalyzer(cfg);
+            StmtIndex index = dominators.getStmtIndex();
+            DominatorTree tree = dominators.getDominatorTree();
+            int n = index.size();
+
+            // the statements the entry reaches, and the edges between them
+            int[][] preds = predecessors(index);
+            for (int i = 0; i < n; i++) {
+                preds[i] = tree.contains(i) ? Arrays.stream(preds[i]).filter(tree::contains).toArray() : new int[0];
+            }
+            BitSet[] self = new BitSet[n];
+            for (int i = 0; i < n; i++) {
+                self[i] = new BitSet(n);
+                self[i].set(i);
+            }
+
+            FlowGraph.Edges reached = FlowGraph.Edges.of(preds);
+            DataflowSolver.Solution<BitSet> dom = new DataflowSolver<>(reached, reached.inverse(),
+                    DataflowSolver.Direction.FORWARD, BitSetLattice.intersection(n),
+                    TransferFunction.genKill(self, new BitSet[n])).solve();
+
+            for (int i = 0; i < n; i++) {
+                if (!tree.contains(i)) continue;
+                Set<Stmt> expected = dominators.getDominators(index.get(i));
+                assertEquals(index.get(i).toString(), expected, index.asSet(dom.after(i)));
+            }
+        }
+    }
+
+    // reaching definitions keyed by variable name, against the bit-vector result
+    public void testMapLatticeJoinsPerKey() throws Exception {
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+            StmtIndex index = defUse.getStmtIndex();
+            Map<Stmt, Set<Stmt>> reaching = new DependencyAnalyzer(cfg, defUse).getReachingDefinitions();
+            int n = index.size();
+            FlowGraph.Edges preds = index.getFlowGraph().getAllPredecessors();
+
+            MapLattice<String, BitSet> lattice = new MapLattice<>(BitSetLattice.union(n));
+            DataflowSolver.Solution<Map<String, BitSet>> byVariable = new DataflowSolver<>(preds, preds.inverse(),
+                    DataflowSolver.Direction.FORWARD, lattice, (stmt, in) -> {
+                        for (String var : defUse.getDefSet(stmt)) {
+                            BitSet here = new BitSet(n);
+                            here.set(stmt);
+                            in.put(var, here);
+                        }
+                        return in;
+                    }).solve();
+
+            for (int i = 0; i < n; i++) {
+                BitSet expected = new BitSet(n);
+                for (Stmt d : reaching.get(index.get(i))) expected.set(index.indexOf(d));
+                BitSet actual = new BitSet(n);
+                byVariable.after(i).values().forEach(actual::or);
+                assertEquals(index.get(i).toString(), expected, actual);
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.DefUseAnalyzer;
+import org.example.analyzer.dependency.StmtIndex;
+import org.example.analyzer.dependency.VariableTable;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.common.stmt.JAssignStmt;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class DefUseAnalyzerTest extends TestCase {
+
+    private DefUseAnalyzer analyze(String className, String methodName) {
+        AnalysisSession session = AnalysisSession.forClassPath("target/classes");
+        return new DefUseAnalyzer(Programs.graph(session, className, methodName));
+    }
+
+    public void testVariablesAreNumberedOncePerBody() {
+        DefUseAnalyzer defUse = analyze("org.example.programs.ForExample", "factorial");
+        StmtIndex index = defUse.getStmtIndex();
+        VariableTable variables = defUse.getVariableTable();
+
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < index.size(); i++) {
+            int[] defs = defUse.getDefVars(i);
+            int[] uses = defUse.getUseVars(i);
+            assertEquals(defs.length, defUse.getDefSet(i).size());
+            assertEquals(uses.length, defUse.getUseSet(i).size());
+            for (int var : defs) {
+                String name = variables.getName(var);
+                assertEquals(var, variables.getId(name));
+                assertTrue(defUse.getDefSet(index.get(i)).contains(name));
+                names.add(name);
+            }
+            for (int k = 1; k < uses.length; k++) assertTrue(uses[k - 1] < uses[k]);
+            for (int var : uses) names.add(variables.getName(var));
+        }
+        assertEquals(variables.size(), names.size());
+        assertEquals(-1, variables.getId("no such local"));
+    }
+
+    public void testValuesMatchStatementOperands() {
+        DefUseAnalyzer defUse = analyze("org.example.programs.WhileExample", "sumToN");
+        StmtIndex index = defUse.getStmtIndex();
+
+        for (int i = 0; i < index.size(); i++) {
+            Stmt stmt = index.get(i);
+            Set<Object> uses = new HashSet<>();
+            stmt.getUses().forEach(uses::add);
+            assertEquals(uses, new HashSet<>(defUse.getUseValues(i)));
+
+            if (stmt instanceof JAssignStmt) {
+                assertTrue(defUse.getDefValues(stmt).contains(((JAssignStmt) stmt).getLeftOp()));
+                if (((JAssignStmt) stmt).getLeftOp() instanceof Local) {
+                    assertTrue(defUse.getDefSet(stmt).contains(((Local) ((JAssignStmt) stmt).getLeftOp()).getName()));
+                }
+            }
+        }
+    }
+}
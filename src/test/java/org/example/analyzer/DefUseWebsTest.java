@@ -0,0 +1,59 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+public class DefUseWebsTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testWebsExpandToThePairs() throws Exception {
+        AnalysisOptions webs = new AnalysisOptions().setDataDependenceForm(AnalysisOptions.DataDependenceForm.WEBS);
+        boolean smaller = false;
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DependencyResult pairs = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg)).analyze();
+            DependencyResult implicit = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), webs).analyze();
+            assertNull(pairs.getDefUseWebs());
+            assertNotNull(implicit.getDefUseWebs());
+
+            assertEquals(cfg.toString(), flatten(pairs.getDataDependencies()), flatten(implicit.getDataDependencies()));
+            assertEquals(pairs.getDataDependencyCount(), implicit.getDataDependencyCount());
+            for (Stmt stmt : cfg.getNodes()) {
+                assertEquals(pairs.getAllDependenciesForStmt(stmt), implicit.getAllDependenciesForStmt(stmt));
+            }
+            if (implicit.getStoredDataDependencyCount() < pairs.getStoredDataDependencyCount()) smaller = true;
+        }
+        assertTrue(smaller);
+    }
+
+    public void testNearestKeepsItsPairs() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        AnalysisOptions options = new AnalysisOptions()
+                .setAntiOutputMode(AnalysisOptions.AntiOutputMode.NEAREST)
+                .setDataDependenceForm(AnalysisOptions.DataDependenceForm.WEBS);
+        DependencyResult result = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), options).analyze();
+        assertNull(result.getDefUseWebs());
+        assertEquals(result.getDataDependencyCount(), result.getStoredDataDependencyCount());
+    }
+
+    private static List<Dependency> flatten(Map<Stmt, Set<Dependency>> deps) {
+        List<Dependency> list = new ArrayList<>();
+        deps.forEach((stmt, set) -> {
+            for (Dependency dep : set) {
+                assertEquals(stmt, dep.getTarget());
+                list.add(dep);
+            }
+        });
+        return list;
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+public class DependencyResultTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testViewsMatchCounts() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        DependencyResult result = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg)).analyze();
+
+        int data = 0;
+        for (Map.Entry<Stmt, Set<Dependency>> e : result.getDataDependencies().entrySet()) {
+            assertFalse(e.getValue().isEmpty());
+            for (Dependency dep : e.getValue()) {
+                assertEquals(e.getKey(), dep.getTarget());
+                assertTrue(e.getValue().contains(dep));
+                data++;
+            }
+            assertEquals(e.getValue().size(), new HashSet<>(e.getValue()).size());
+        }
+        assertEquals(result.getDataDependencyCount(), data);
+        assertTrue(data > 0);
+
+        int control = 0;
+        for (Set<Dependency> deps : result.getControlDependencies().values()) control += deps.size();
+        assertEquals(result.getControlDependencyCount(), control);
+
+        int loop = 0;
+        for (Map.Entry<Stmt, Set<LoopDependency>> e : result.getLoopDependencies().entrySet()) {
+            for (LoopDependency dep : e.getValue()) {
+                assertEquals(e.getKey(), dep.getTargetStmt());
+                assertTrue(e.getValue().contains(dep));
+                loop++;
+            }
+        }
+        assertEquals(result.getLoopDependencyCount(), loop);
+        assertTrue(loop > 0);
+    }
+
+    public void testRowsOfOneTargetStayTogether() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+        StmtIndex index = defUse.getStmtIndex();
+        DependencyResult result = new DependencyResult(index, defUse.getVariableTable());
+
+        Stmt a = index.get(1);
+        Stmt b = index.get(2);
+        Dependency first = new Dependency(Dependency.Type.RAW, index.get(0), a, "x");
+        Dependency second = new Dependency(Dependency.Type.WAW, index.get(0), b, null);
+        Dependency third = new Dependency(Dependency.Type.WAR, index.get(2), a, "not-a-local");
+        result.addDataDependency(first);
+        result.addDataDependency(second);
+        result.addDataDependency(third);
+        result.addDataDependency(new Dependency(Dependency.Type.RAW, index.get(0), a, "x"));   // duplicate
+
+        assertEquals(3, result.getDataDependencyCount());
+        assertEquals(Arrays.asList(a, b), new ArrayList<>(result.getDataDependencies().keySet()));
+        assertEquals(Arrays.asList(first, third), new ArrayList<>(result.getDataDependencies().get(a)));
+        assertEquals(Collections.singletonList(second), new ArrayList<>(result.getDataDependencies().get(b)));
+        assertNull(result.getDataDependencies().get(index.get(3)));
+        assertEquals(new HashSet<>(Arrays.asList(first, third)), result.getAllDependenciesForStmt(a));
+    }
+
+    public void testForeignSourceIsRejectedWhenAdded() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+        StmtIndex index = defUse.getStmtIndex();
+        DependencyResult result = new DependencyResult(index, defUse.getVariableTable());
+        Stmt foreign = Programs.graph(session, "org.example.programs.ForExample", "factorial").getStartingStmt();
+        assertEquals(-1, index.indexOf(foreign));
+
+        try {
+            result.addDataDependency(new Dependency(Dependency.Type.RAW, foreign, index.get(1), "x"));
+            fail("a source outside the body was stored");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            result.addControlDependency(index.get(1), foreign);
+            fail("a controller outside the body was stored");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, result.getDataDependencyCount());
+        assertEquals(0, result.getControlDependencyCount());
+        assertTrue(result.getDataDependencies().isEmpty());
+    }
+}
@@ -4,30 +4,22 @@ import org.example.analyzer.dependency.*;
 import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.java.core.JavaSootMethod;
-import sootup.java.core.views.JavaView;
-import sootup.core.inputlocation.AnalysisInputLocation;
-import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
 import sootup.java.core.JavaSootClass;
-import sootup.core.types.ClassType;
 import sootup.core.model.Body;
 
 import junit.framework.TestCase;
 
-import java.util.List;
 import java.util.Optional;
 
 public class DependencyTest extends TestCase {
 
-    private JavaView view;
+    private AnalysisSession session;
 
     @Override
     protected void setUp() throws Exception {
         super.setUp();
-        // Initialize SootUp view (point to test classes)
-        List<AnalysisInputLocation> inputLocations = List.of(
-                new JavaClassPathAnalysisInputLocation("target/test-classes"),
-                new JavaClassPathAnalysisInputLocation("target/classes"));
-        view = new JavaView(inputLocations);
+        // Shared SootUp session (test classes + main classes)
+        session = AnalysisSession.forClassPath("target/test-classes", "target/classes");
     }
 
     public void testSimpleLoopDependencies() {
@@ -59,8 +51,7 @@ public class DependencyTest extends TestCase {
         System.out.println("ANALYZING DEPENDENCIES FOR: " + className);
         System.out.println("=".repeat(60));
 
-        ClassType classType = view.getIdentifierFactory().getClassType(className);
-        Optional<JavaSootClass> opt = view.getClass(classType);
+        Optional<JavaSootClass> opt = session.getSootClass(className);
 
         if (opt.isEmpty()) {
             System.out.println("Class not found: " + className);
@@ -72,7 +63,7 @@ public class DependencyTest extends TestCase {
         for (JavaSootMethod m : sc.getMethods()) {
             System.out.println("\n--- METHOD: " + m.getName() + " ---");
 
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) {
                 System.out.println("  <no body>");
                 continue;
@@ -103,8 +94,7 @@ public class DependencyTest extends TestCase {
         System.out.println("ANALYZING DOMINATORS FOR: " + className);
         System.out.println("=".repeat(60));
 
-        ClassType classType = view.getIdentifierFactory().getClassType(className);
-        Optional<JavaSootClass> opt = view.getClass(classType);
+        Optional<JavaSootClass> opt = session.getSootClass(className);
 
         if (opt.isEmpty()) {
             System.out.println("Class not found: " + className);
@@ -116,7 +106,7 @@ public class DependencyTest extends TestCase {
         for (JavaSootMethod m : sc.getMethods()) {
             System.out.println("\n--- METHOD: " + m.getName() + " ---");
 
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) {
                 System.out.println("  <no body>");
                 continue;
@@ -140,8 +130,7 @@ public class DependencyTest extends TestCase {
         System.out.println("ANALYZING LOOPS FOR: " + className);
         System.out.println("=".repeat(60));
 
-        ClassType classType = view.getIdentifierFactory().getClassType(className);
-        Optional<JavaSootClass> opt = view.getClass(classType);
+        Optional<JavaSootClass> opt = session.getSootClass(className);
 
         if (opt.isEmpty()) {
             System.out.println("Class not found: " + className);
@@ -153,7 +142,7 @@ public class DependencyTest extends TestCase {
         for (JavaSootMethod m : sc.getMethods()) {
             System.out.println("\n--- METHOD: " + m.getName() + " ---");
 
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) {
                 System.out.println("  <no body>");
                 continue;
@@ -0,0 +1,89 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.MutableBlockStmtGraph;
+import sootup.core.graph.MutableStmtGraph;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.Jimple;
+import sootup.core.jimple.basic.Local;
+import sootup.core.jimple.basic.StmtPositionInfo;
+import sootup.core.jimple.common.constant.IntConstant;
+import sootup.core.jimple.common.stmt.*;
+import sootup.core.types.PrimitiveType;
+
+import java.util.*;
+
+public class DependencyUpdateTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    /** $aux0 = $aux0 + 1 before every return, as an instrumentation pass would add. */
+    private static List<Stmt> bumpBeforeReturns(MutableStmtGraph graph, Local aux) {
+        List<Stmt> added = new ArrayList<>();
+        for (Stmt stmt : new ArrayList<>(graph.getNodes())) {
+            if ((stmt instanceof JReturnStmt || stmt instanceof JReturnVoidStmt) && stmt != graph.getStartingStmt()) {
+                JAssignStmt bump = Jimple.newAssignStmt(aux, Jimple.newAddExpr(aux, IntConstant.getInstance(1)),
+                        StmtPositionInfo.getNoStmtPositionInfo());
+                graph.insertBefore(stmt, bump);
+                added.add(bump);
+            }
+        }
+        return added;
+    }
+
+    public void testUpdateMatchesFullAnalysis() throws Exception {
+        Local aux = Jimple.newLocal("$aux0", PrimitiveType.getInt());
+        boolean partial = false;
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            for (AnalysisOptions options : Arrays.asList(new AnalysisOptions(),
+                    new AnalysisOptions().setAntiOutputMode(AnalysisOptions.AntiOutputMode.NEAREST)
+                            .setGranularity(AnalysisOptions.Granularity.BASIC_BLOCK),
+                    new AnalysisOptions().setDataflowForm(AnalysisOptions.DataflowForm.SSA))) {
+                DependencyAnalyzer original = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), options);
+
+                MutableStmtGraph edited = new MutableBlockStmtGraph(cfg);
+                List<Stmt> added = bumpBeforeReturns(edited, aux);
+                DependencyAnalyzer updated = original.update(edited);
+                assertSameAnalysis(cfg.toString(), new DependencyAnalyzer(edited, new DefUseAnalyzer(edited), options), updated);
+                if (updated.getAffectedStatements().size() < edited.getNodes().size()) partial = true;
+                for (Stmt stmt : added) assertTrue(updated.getAffectedStatements().contains(stmt));
+
+                // taking the instrumentation out again gives the original results
+                MutableStmtGraph restored = new MutableBlockStmtGraph(edited);
+                for (Stmt stmt : added) restored.removeNode(stmt, true);
+                assertSameAnalysis(cfg.toString(), original, updated.update(restored));
+            }
+        }
+        assertTrue(partial);
+    }
+
+    public void testNewEntryIsAnalyzedAgain() throws Exception {
+        Local aux = Jimple.newLocal("$aux0", PrimitiveType.getInt());
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DependencyAnalyzer original = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg));
+            MutableStmtGraph edited = new MutableBlockStmtGraph(cfg);
+            JAssignStmt init = Jimple.newAssignStmt(aux, IntConstant.getInstance(0), StmtPositionInfo.getNoStmtPositionInfo());
+            edited.insertBefore(edited.getStartingStmt(), init);
+            edited.setStartingStmt(init);
+
+            DependencyAnalyzer updated = original.update(edited);
+            assertSameAnalysis(cfg.toString(), new DependencyAnalyzer(edited, new DefUseAnalyzer(edited)), updated);
+        }
+    }
+
+    private static void assertSameAnalysis(String message, DependencyAnalyzer expected, DependencyAnalyzer actual) {
+        DependencyResult a = expected.analyze();
+        DependencyResult b = actual.analyze();
+        assertEquals(message, a.getDataDependencies(), b.getDataDependencies());
+        assertEquals(message, a.getControlDependencies(), b.getControlDependencies());
+        assertEquals(message, a.getLoopDependencies(), b.getLoopDependencies());
+        assertEquals(message, expected.getReachingDefinitions(), actual.getReachingDefinitions());
+    }
+}
@@ -0,0 +1,208 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.DefUseAnalyzer;
+import org.example.analyzer.dependency.DependencyAnalyzer;
+import org.example.analyzer.dependency.DominatorAnalyzer;
+import org.example.analyzer.dependency.DominatorTree;
+import org.example.analyzer.dependency.PostDominatorAnalyzer;
+import org.example.analyzer.dependency.StmtIndex;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+public class DominatorAnalyzerTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testPrintersWriteToTheGivenStreamOnly() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg));
+        analyzer.analyze();
+        PostDominatorAnalyzer post = new PostDominatorAnalyzer(cfg);
+
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(console, true, StandardCharsets.UTF_8));
+        try {
+            // debug is off, so the no-argument printers do not even build their text
+            analyzer.printDominatorAnalysis();
+            analyzer.printLoopAnalysis();
+            analyzer.printReachingDefinitions();
+            post.printPostDominators();
+            post.printPostDominatorTree();
+        } finally {
+            System.setOut(original);
+        }
+        assertEquals("", console.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+        analyzer.printDominatorAnalysis(out);
+        analyzer.printLoopAnalysis(out);
+        post.printPostDominators(out);
+        String text = buffer.toString(StandardCharsets.UTF_8);
+        assertTrue(text.contains("=== DOMINATOR ANALYSIS RESULTS ==="));
+        assertTrue(text.contains("=== DOMINATOR TREE ==="));
+        assertTrue(text.contains("=== LOOP ANALYSIS RESULTS ===\nLoop Header: "));
+        assertTrue(text.contains("\n  Loop Header: "));
+        assertTrue(text.contains("=== POST-DOMINATOR ANALYSIS RESULTS ==="));
+    }
+
+    public void testMatchesIterativeDominatorSets() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+
+            DominatorAnalyzer analyzer = new DominatorAnalyzer(cfg);
+            Map<Stmt, Set<Stmt>> expected = iterativeDominators(cfg, analyzer.getEntryStatement());
+
+            for (Stmt stmt : cfg.getNodes()) {
+                String where = m.getSignature() + " / " + stmt;
+                assertEquals(where, expected.get(stmt), new HashSet<>(analyzer.getDominators(stmt)));
+                for (Stmt other : cfg.getNodes()) {
+                    assertEquals(where, expected.get(stmt).contains(other), analyzer.dominates(other, stmt));
+                }
+
+                Stmt idom = analyzer.getImmediateDominator(stmt);
+                if (idom != null) {
+                    Set<Stmt> strict = new HashSet<>(expected.get(stmt));
+                    strict.remove(stmt);
+                    assertEquals(where, strict, expected.get(idom));
+                }
+            }
+        }
+    }
+
+    public void testPostDominatesMatchesPostDominatorSets() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+
+            PostDominatorAnalyzer analyzer = new PostDominatorAnalyzer(cfg);
+            for (Stmt stmt : cfg.getNodes()) {
+                Set<Stmt> postDominators = analyzer.getPostDominators(stmt);
+                for (Stmt other : cfg.getNodes()) {
+                    assertEquals(m.getSignature() + " / " + stmt, postDominators.contains(other), analyzer.postDominates(other, stmt));
+                }
+            }
+        }
+    }
+
+    public void testPostDominanceFrontiers() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+
+            // Y is in PDF(X) iff X post-dominates a successor of Y but does not strictly post-dominate Y
+            PostDominatorAnalyzer analyzer = new PostDominatorAnalyzer(cfg);
+            for (Stmt x : cfg.getNodes()) {
+                if (analyzer.getPostDominatorTree().contains(analyzer.getStmtIndex().indexOf(x))) {
+                    Set<Stmt> expected = new HashSet<>();
+                    for (Stmt y : cfg.getNodes()) {
+                        boolean strictly = x != y && analyzer.postDominates(x, y);
+                        if (!strictly && cfg.successors(y).stream().anyMatch(succ -> analyzer.postDominates(x, succ)
+                                && analyzer.getPostDominatorTree().contains(analyzer.getStmtIndex().indexOf(succ)))) {
+                            expected.add(y);
+                        }
+                    }
+                    assertEquals(m.getSignature() + " / " + x, expected, new HashSet<>(analyzer.getPostDominanceFrontier(x)));
+                }
+            }
+        }
+    }
+
+    public void testEveryExitIsAPostDominatorRoot() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.specified.IntermediateReturn", "checkEven");
+        PostDominatorAnalyzer analyzer = new PostDominatorAnalyzer(cfg);
+
+        int exits = 0;
+        for (Stmt stmt : cfg.getNodes()) {
+            if (cfg.successors(stmt).isEmpty()) {
+                exits++;
+                assertNull(analyzer.getImmediatePostDominator(stmt));
+                assertEquals(Collections.singleton(stmt), analyzer.getPostDominators(stmt));
+            }
+        }
+        assertEquals(2, exits);
+        // the two returns, and the branch between them: only the virtual exit post-dominates it
+        assertEquals(3, analyzer.getPostDominatorTree().getRoots().length);
+
+        // the branch is post-dominated by neither return, so both are control dependent on it
+        Stmt branch = cfg.getStartingStmt();
+        while (cfg.successors(branch).size() < 2) branch = cfg.successors(branch).get(0);
+        for (Stmt succ : cfg.successors(branch)) {
+            assertTrue(analyzer.getPostDominanceFrontier(succ).contains(branch));
+        }
+    }
+
+    public void testTreeNumberingMatchesParentChains() {
+        StmtIndex index = StmtIndex.of(Programs.graph(session, "org.example.programs.specified.NestedSwitchCase", "main"));
+        DominatorTree tree = new DominatorAnalyzer(index).getDominatorTree();
+
+        assertEquals(1, tree.getRoots().length);
+        int[] preOrder = tree.getPreOrder();
+        Set<Integer> seen = new HashSet<>();
+        for (int node : preOrder) {
+            int parent = tree.getParent(node);
+            assertTrue(parent < 0 || seen.contains(parent));
+            assertEquals(parent < 0 ? 0 : tree.getDepth(parent) + 1, tree.getDepth(node));
+            seen.add(node);
+        }
+        for (int a : preOrder) {
+            for (int b : preOrder) {
+                boolean onChain = false;
+                for (int d = b; d >= 0; d = tree.getParent(d)) onChain |= d == a;
+                assertEquals(onChain, tree.isAncestor(a, b));
+            }
+        }
+    }
+
+    public void testEntryHasNoImmediateDominator() {
+        DominatorAnalyzer analyzer = new DominatorAnalyzer(Programs.graph(session, "org.example.programs.NestedLoops", "pairs"));
+
+        Stmt entry = analyzer.getEntryStatement();
+        assertNull(analyzer.getImmediateDominator(entry));
+        assertEquals(Collections.singleton(entry), analyzer.getDominators(entry));
+        assertFalse(analyzer.dominates(entry, null));
+    }
+
+    // dom(entry) = {entry}; dom(n) = {n} ∪ ⋂ dom(p) over the predecessors p, starting from "all".
+    // Only statements reached from the entry are solved; the rest keep "all".
+    private static Map<Stmt, Set<Stmt>> iterativeDominators(StmtGraph<?> cfg, Stmt entry) {
+        Set<Stmt> all = new HashSet<>(cfg.getNodes());
+        Map<Stmt, Set<Stmt>> dom = new HashMap<>();
+        for (Stmt stmt : all) dom.put(stmt, stmt == entry ? Collections.singleton(entry) : all);
+
+        Set<Stmt> reached = new HashSet<>();
+        Deque<Stmt> pending = new ArrayDeque<>(Collections.singleton(entry));
+        while (!pending.isEmpty()) {
+            Stmt stmt = pending.pop();
+            if (reached.add(stmt)) pending.addAll(cfg.successors(stmt));
+        }
+
+        boolean changed;
+        do {
+            changed = false;
+            for (Stmt stmt : reached) {
+                if (stmt == entry) continue;
+                Set<Stmt> newDom = new HashSet<>(all);
+                for (Stmt pred : cfg.predecessors(stmt)) newDom.retainAll(dom.get(pred));
+                newDom.add(stmt);
+                if (!newDom.equals(dom.get(stmt))) {
+                    dom.put(stmt, newDom);
+                    changed = true;
+                }
+            }
+        } while (changed);
+        return dom;
+    }
+}
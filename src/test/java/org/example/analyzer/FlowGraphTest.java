@@ -0,0 +1,72 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+public class FlowGraphTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    private static Set<Stmt> stmts(StmtIndex index, int[] targets) {
+        Set<Stmt> set = new HashSet<>();
+        for (int t : targets) set.add(index.get(t));
+        return set;
+    }
+
+    public void testEdgesMatchStmtGraph() throws Exception {
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            StmtIndex index = StmtIndex.of(cfg);
+            FlowGraph graph = index.getFlowGraph();
+            assertSame(graph, index.getFlowGraph());
+
+            for (int i = 0; i < index.size(); i++) {
+                Stmt stmt = index.get(i);
+                assertEquals(new HashSet<>(cfg.successors(stmt)), stmts(index, graph.getSuccessors().get(i)));
+                assertEquals(new HashSet<>(cfg.predecessors(stmt)), stmts(index, graph.getAllPredecessors().get(i)));
+                assertEquals(new HashSet<>(cfg.exceptionalSuccessors(stmt).values()),
+                        stmts(index, graph.getExceptionalSuccessors().get(i)));
+            }
+        }
+    }
+
+    public void testInverseReversesEveryEdge() throws Exception {
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            FlowGraph graph = StmtIndex.of(cfg).getFlowGraph();
+            checkInverse(graph.getSuccessors(), graph.getPredecessors());
+            checkInverse(graph.getExceptionalSuccessors(), graph.getExceptionalPredecessors());
+            checkInverse(graph.getAllPredecessors(), graph.getAllSuccessors());
+        }
+    }
+
+    private static void checkInverse(FlowGraph.Edges forward, FlowGraph.Edges backward) {
+        assertEquals(forward.nodeCount(), backward.nodeCount());
+        assertEquals(forward.edgeCount(), backward.edgeCount());
+        for (int v = 0; v < forward.nodeCount(); v++) {
+            for (int e = forward.start(v); e < forward.end(v); e++) {
+                assertTrue(backward.contains(forward.target(e), v));
+            }
+            int[] sources = backward.get(v);
+            for (int k = 1; k < sources.length; k++) assertTrue(sources[k - 1] <= sources[k]);
+        }
+    }
+
+    public void testEdgesOfKeepsInsertionOrder() {
+        FlowGraph.Edges edges = FlowGraph.Edges.of(new int[][] {{2, 1}, {}, {0}});
+        assertEquals(3, edges.nodeCount());
+        assertEquals(3, edges.edgeCount());
+        assertTrue(Arrays.equals(new int[] {2, 1}, edges.get(0)));
+        assertEquals(0, edges.degree(1));
+        assertTrue(Arrays.equals(new int[] {2}, edges.inverse().get(0)));
+        assertTrue(Arrays.equals(new int[] {0}, edges.inverse().get(2)));
+    }
+}
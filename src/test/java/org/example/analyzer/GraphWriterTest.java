@@ -0,0 +1,121 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.w3c.dom.Document;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class GraphWriterTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testDotIsTheTextCfgAlwaysWrote() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+            assertEquals(m.getName(), builtDot(cfg, m.getName()),
+                    GraphWriter.toString(GraphWriter.Format.DOT, cfg, m.getName(), GraphWriter.Clustering.NONE));
+            assertEquals(builtDot(cfg, m.getName()), CFGGenerator.generateDOTCFG(cfg, m.getName()));
+        }
+    }
+
+    /** The StringBuilder version CFG and CFGGenerator used before. */
+    private static String builtDot(StmtGraph<?> cfg, String methodName) {
+        StringBuilder dot = new StringBuilder();
+        Map<Stmt, Integer> stmtToId = new HashMap<>();
+        int nodeId = 1;
+        dot.append("digraph CFG_").append(methodName).append(" {\n");
+        dot.append("  rankdir=TB;\n  node [shape=rectangle, style=filled, fillcolor=lightblue];\n\n");
+        for (Stmt stmt : cfg.getNodes()) {
+            stmtToId.put(stmt, nodeId);
+            String label = stmt.toString().replace("\"", "\\\"").replace("\n", "\\l");
+            dot.append("  node").append(nodeId).append(" [label=\"").append(label).append("\"];\n");
+            nodeId++;
+        }
+        dot.append("\n");
+        for (Stmt source : cfg.getNodes()) {
+            for (Stmt target : cfg.successors(source)) {
+                dot.append("  node").append(stmtToId.get(source)).append(" -> node").append(stmtToId.get(target)).append(";\n");
+            }
+        }
+        dot.append("}");
+        return dot.toString();
+    }
+
+    public void testGraphMlIsWellFormed() throws Exception {
+        for (GraphWriter.Clustering clustering : GraphWriter.Clustering.values()) {
+            for (JavaSootMethod m : Programs.methods(session)) {
+                StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+                String xml = GraphWriter.toString(GraphWriter.Format.GRAPHML, cfg, m.getName(), clustering);
+                Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                        .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+                int edges = 0;
+                for (Stmt stmt : cfg.getNodes()) edges += cfg.successors(stmt).size();
+                assertEquals(edges, doc.getElementsByTagName("edge").getLength());
+                assertEquals(nodeIds(xml, "<node id=\"node(\\d+)\"").size(), cfg.getNodes().size());
+            }
+        }
+    }
+
+    public void testJsonEscapesLabels() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.specified.ThrowException", "validateAge");
+        String json = GraphWriter.toString(GraphWriter.Format.JSON, cfg, "validateAge", GraphWriter.Clustering.NONE);
+        assertTrue(json.startsWith("{\"name\": \"CFG_validateAge\",\n\"nodes\": ["));
+        assertTrue(json, json.contains("(\\\"Age must be 18 or older.\\\")"));
+        assertEquals(cfg.getNodes().size(), nodeIds(json, "\\{\"id\": (\\d+)").size());
+        assertFalse(json.contains("\"clusters\""));
+    }
+
+    public void testLoopClustersNestLikeTheLoops() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        String dot = GraphWriter.toString(GraphWriter.Format.DOT, cfg, "pairs", GraphWriter.Clustering.LOOPS);
+        assertEquals(2, count(dot, "subgraph cluster_"));
+        // the inner loop's cluster opens before the outer one closes
+        int outer = dot.indexOf("subgraph cluster_0");
+        int inner = dot.indexOf("subgraph cluster_1");
+        assertTrue(outer >= 0 && outer < inner);
+        assertEquals(inner - 4, dot.indexOf("    subgraph cluster_1"));
+        assertTrue(dot.indexOf("  }\n  }\n") > inner);
+        assertEquals(cfg.getNodes().size(), nodeIds(dot, "node(\\d+) \\[label").size());
+
+        String json = GraphWriter.toString(GraphWriter.Format.JSON, cfg, "pairs", GraphWriter.Clustering.LOOPS);
+        assertTrue(json.contains("{\"id\": 1, \"label\": \"loop at node"));
+        assertTrue(json.contains("\"parent\": 0}"));
+    }
+
+    public void testBlockClustersHoldEveryNodeOnce() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+            String dot = GraphWriter.toString(GraphWriter.Format.DOT, cfg, m.getName(), GraphWriter.Clustering.BASIC_BLOCKS);
+            Set<Integer> ids = nodeIds(dot, "node(\\d+) \\[label");
+            assertEquals(cfg.getNodes().size(), ids.size());
+            assertEquals(cfg.getNodes().size(), count(dot, "[label="));
+        }
+    }
+
+    private static Set<Integer> nodeIds(String text, String regex) {
+        Set<Integer> ids = new HashSet<>();
+        Matcher m = Pattern.compile(regex).matcher(text);
+        while (m.find()) assertTrue(ids.add(Integer.parseInt(m.group(1))));
+        return ids;
+    }
+
+    private static int count(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) count++;
+        return count;
+    }
+}
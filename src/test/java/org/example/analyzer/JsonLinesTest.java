@@ -0,0 +1,140 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsonLinesTest extends TestCase {
+
+    private static final List<String> CLASSES = List.of(
+            "org.example.programs.ForExample",
+            "org.example.programs.NestedLoops",
+            "org.example.programs.specified.BreakStatement",
+            "org.example.programs.specified.DoesNotExist");
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testWriterKeepsTheOrderOfTheRecords() throws IOException {
+        StringWriter text = new StringWriter();
+        JsonLinesWriter writer = new JsonLinesWriter(text, 2);
+        for (int i = 0; i < 100; i++) writer.write("{\"n\": " + i + "}");
+        writer.close();
+        assertEquals(100, writer.getLineCount());
+        String[] lines = text.toString().split("\n");
+        assertEquals(100, lines.length);
+        for (int i = 0; i < 100; i++) assertEquals("{\"n\": " + i + "}", lines[i]);
+    }
+
+    public void testWriterFailureIsReportedOnClose() throws IOException {
+        JsonLinesWriter writer = new JsonLinesWriter(new FullDisk(), 2);
+        try {
+            // more than the 64 KB buffer, so the writer thread hits the failure
+            for (int i = 0; i < 2000; i++) writer.write("x".repeat(100));
+            writer.close();
+            fail("the failure of the writer thread was lost");
+        } catch (IOException e) {
+            assertEquals("disk full", e.getMessage());
+        }
+    }
+
+    public void testOneRecordPerMethodWhateverTheWorkerCount() throws Exception {
+        List<String> sequential = records(1, 1, 1);
+        assertEquals(sequential, records(4, 2, 2));
+
+        assertEquals(methodCount(), sequential.size());
+        for (String record : sequential) {
+            assertFalse(record.contains("\n"));
+            assertTrue(record, record.startsWith("{\"class\": \"org.example.programs."));
+            assertTrue(record.contains("\"statements\": [{\"text\": "));
+            assertTrue(record.endsWith("]}"));
+        }
+        String pairs = sequential.stream().filter(r -> r.contains("\"method\": \"pairs\"")).findFirst().orElseThrow();
+        assertTrue(pairs, pairs.contains("{\"type\": \"RAW\", \"source\": "));
+        assertTrue(pairs, pairs.contains("\"loopDependencies\": [{\"type\": "));
+    }
+
+    public void testFailedOutputFailsTheRunInsteadOfHanging() throws Exception {
+        List<String> everything = session.findClasses("org.example");
+        PrintStream console = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        JsonLinesWriter writer = new JsonLinesWriter(new FullDisk(), 4);
+        List<Throwable> failures = new ArrayList<>();
+        Thread run = new Thread(() -> {
+            try {
+                new AnalysisPipeline(session, 2, 1, 2, console, console).withJsonLines(writer).run(everything);
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        run.start();
+        run.join(60_000);
+        assertFalse("the pipeline hangs after the output failed", run.isAlive());
+        try {
+            writer.close();
+        } catch (IOException e) {
+            failures.add(e);
+        }
+        // the run fails once the writer thread has hit the failure; the records before that fail on close
+        assertFalse(failures.isEmpty());
+        Throwable first = failures.get(0);
+        while (first.getCause() != null) first = first.getCause();
+        assertEquals("disk full", first.getMessage());
+    }
+
+    public void testQuietPrintsOnlyTheErrors() throws InterruptedException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        new AnalysisPipeline(session, 2, 1, 2, new PrintStream(out, true, StandardCharsets.UTF_8),
+                new PrintStream(err, true, StandardCharsets.UTF_8)).withQuiet(true).run(CLASSES);
+        assertEquals("", out.toString(StandardCharsets.UTF_8));
+        assertEquals("Class not found in view: org.example.programs.specified.DoesNotExist\n",
+                err.toString(StandardCharsets.UTF_8));
+    }
+
+    private List<String> records(int analysisWorkers, int loadWorkers, int queueCapacity) throws Exception {
+        StringWriter text = new StringWriter();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream console = new PrintStream(out, true, StandardCharsets.UTF_8);
+        try (JsonLinesWriter writer = new JsonLinesWriter(text, 4)) {
+            new AnalysisPipeline(session, analysisWorkers, loadWorkers, queueCapacity, console, console)
+                    .withJsonLines(writer).run(CLASSES);
+        }
+        assertEquals("Class not found in view: org.example.programs.specified.DoesNotExist\n",
+                out.toString(StandardCharsets.UTF_8));
+        return List.of(text.toString().split("\n"));
+    }
+
+    private static final class FullDisk extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            throw new IOException("disk full");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            throw new IOException("disk full");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private int methodCount() {
+        List<String> found = new ArrayList<>();
+        for (String className : CLASSES) {
+            session.getSootClass(className).ifPresent(c -> c.getMethods().forEach(m -> {
+                if (session.getBody(m) != null) found.add(m.getSignature().toString());
+            }));
+        }
+        return found.size();
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.basic.Value;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.*;
+
+public class LoopDependencyTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testChainsMatchAllPairsInEveryLoop() throws Exception {
+        int total = 0;
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+            DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+            Map<Stmt, Set<Stmt>> reaching = new DependencyAnalyzer(cfg, defUse).getReachingDefinitions();
+            LoopAnalyzer analyzer = new LoopAnalyzer(cfg, new DominatorAnalyzer(defUse.getStmtIndex()), defUse, reaching);
+
+            // every (def, use) pair of every loop body, in the order the dense pass produced them
+            Map<Stmt, List<String>> expected = new HashMap<>();
+            for (Loop loop : analyzer.getLoops().values()) {
+                for (Stmt def : loop.getStatements()) {
+                    for (Stmt use : loop.getStatements()) {
+                        for (Value v : defUse.getDefValues(def)) {
+                            if (!defUse.getUseValues(use).contains(v)) continue;
+                            if (def != use && !reaching.get(use).contains(def)) continue;
+                            expected.computeIfAbsent(use, k -> new ArrayList<>()).add(key(def, v, loop));
+                        }
+                    }
+                }
+            }
+
+            for (Stmt use : cfg.getNodes()) {
+                List<String> actual = new ArrayList<>();
+                for (LoopDependency dep : analyzer.getLoopDependencies(use)) {
+                    assertSame(use, dep.getTargetStmt());
+                    actual.add(key(dep.getSourceStmt(), dep.getVariable(), dep.getLoop()));
+                }
+                List<String> want = expected.getOrDefault(use, Collections.emptyList());
+                assertEquals(m.getSignature() + " " + use, want, actual);
+                total += actual.size();
+            }
+        }
+        assertTrue(total > 0);
+    }
+
+    private static String key(Stmt def, Value v, Loop loop) {
+        return System.identityHashCode(def) + " " + v + " " + System.identityHashCode(loop.getHeader());
+    }
+}
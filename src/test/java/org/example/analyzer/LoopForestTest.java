@@ -0,0 +1,101 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.*;
+
+public class LoopForestTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    private LoopAnalyzer loops(StmtGraph<?> cfg) {
+        DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+        DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, defUse);
+        return new LoopAnalyzer(cfg, new DominatorAnalyzer(defUse.getStmtIndex()), defUse,
+                analyzer.getReachingDefinitions());
+    }
+
+    public void testInnerLoopHangsBelowOuterLoop() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        LoopAnalyzer analyzer = loops(cfg);
+
+        assertEquals(2, analyzer.getLoops().size());
+        List<Loop> roots = analyzer.getTopLevelLoops();
+        assertEquals(1, roots.size());
+        Loop outer = roots.get(0);
+        assertEquals(1, outer.getNestedLoops().size());
+        Loop inner = outer.getNestedLoops().iterator().next();
+        assertSame(outer, inner.getParentLoop());
+        assertEquals(1, inner.getNestingDepth());
+        assertTrue(outer.getStatements().containsAll(inner.getStatements()));
+        assertTrue(outer.getStatements().size() > inner.getStatements().size());
+
+        for (Stmt stmt : cfg.getNodes()) {
+            Loop expected = inner.contains(stmt) ? inner : outer.contains(stmt) ? outer : null;
+            assertSame(stmt.toString(), expected, analyzer.getLoopForStatement(stmt));
+        }
+    }
+
+    public void testForestMatchesNaturalLoops() throws Exception {
+        int loopCount = 0;
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+            LoopAnalyzer analyzer = loops(cfg);
+            DominatorAnalyzer dom = new DominatorAnalyzer(cfg);
+            String where = m.getSignature().toString();
+
+            // on code reached from the entry every loop is a natural loop: the union of
+            // the back edges into its header
+            for (Loop loop : analyzer.getLoops().values()) {
+                Stmt header = loop.getHeader();
+                if (!dom.getDominatorTree().contains(dom.getStmtIndex().indexOf(header))) continue;
+                assertFalse(where, loop.isIrreducible());
+                assertEquals(where, naturalLoop(cfg, dom, header), loop.getStatements());
+                loopCount++;
+            }
+
+            // the lookup table names the innermost loop; parents enclose their children
+            for (Stmt stmt : cfg.getNodes()) {
+                Loop innermost = analyzer.getLoopForStatement(stmt);
+                for (Loop loop : analyzer.getLoops().values()) {
+                    if (!loop.contains(stmt)) continue;
+                    assertNotNull(where, innermost);
+                    Loop enclosing = innermost;
+                    while (enclosing != null && enclosing != loop) enclosing = enclosing.getParentLoop();
+                    assertSame(where, loop, enclosing);
+                }
+                if (innermost != null) {
+                    for (Loop nested : innermost.getNestedLoops()) assertFalse(where, nested.contains(stmt));
+                }
+            }
+        }
+        assertTrue(loopCount > 0);
+    }
+
+    private static Set<Stmt> naturalLoop(StmtGraph<?> cfg, DominatorAnalyzer dom, Stmt header) {
+        Set<Stmt> body = new HashSet<>();
+        body.add(header);
+        Deque<Stmt> pending = new ArrayDeque<>();
+        for (Stmt tail : cfg.getNodes()) {
+            if (cfg.successors(tail).contains(header) && dom.dominates(header, tail)) pending.push(tail);
+        }
+        while (!pending.isEmpty()) {
+            Stmt stmt = pending.pop();
+            if (!body.add(stmt)) continue;
+            for (Stmt pred : cfg.predecessors(stmt)) {
+                if (cfg.successors(pred).contains(stmt)) pending.push(pred);
+            }
+        }
+        return body;
+    }
+}
@@ -5,38 +5,30 @@ import sootup.core.graph.StmtGraph;
 import sootup.core.jimple.common.stmt.Stmt;
 import sootup.java.core.JavaSootClass;
 import sootup.java.core.JavaSootMethod;
-import sootup.java.core.views.JavaView;
-import sootup.core.inputlocation.AnalysisInputLocation;
-import sootup.java.bytecode.frontend.inputlocation.JavaClassPathAnalysisInputLocation;
 import sootup.core.model.Body;
 
-import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
 public class LoopProgramTest extends TestCase {
 
-    private JavaView view;
+    private AnalysisSession session;
 
     @Override
     protected void setUp() throws Exception {
         super.setUp();
-        List<AnalysisInputLocation> inputLocations = List.of(
-                new JavaClassPathAnalysisInputLocation("target/test-classes"),
-                new JavaClassPathAnalysisInputLocation("target/classes")
-        );
-        view = new JavaView(inputLocations);
+        session = AnalysisSession.forClassPath("target/test-classes", "target/classes");
     }
 
     private Optional<JavaSootClass> getClass(String className) {
-        return view.getClass(view.getIdentifierFactory().getClassType(className));
+        return session.getSootClass(className);
     }
 
     // === 1️⃣ Def-Use Analysis ===
     public void testDefUse() {
         String className = "org.example.programs.LoopTest";
         getClass(className).ifPresent(sc -> sc.getMethods().forEach(m -> {
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) return;
 
             StmtGraph<?> cfg = body.getStmtGraph();
@@ -58,7 +50,7 @@ public class LoopProgramTest extends TestCase {
     public void testReachingDefinitions() {
         String className = "org.example.programs.LoopTest";
         getClass(className).ifPresent(sc -> sc.getMethods().forEach(m -> {
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) return;
 
             StmtGraph<?> cfg = body.getStmtGraph();
@@ -79,7 +71,7 @@ public class LoopProgramTest extends TestCase {
     public void testControlDependencies() {
         String className = "org.example.programs.LoopTest";
         getClass(className).ifPresent(sc -> sc.getMethods().forEach(m -> {
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) return;
 
             StmtGraph<?> cfg = body.getStmtGraph();
@@ -101,7 +93,7 @@ public class LoopProgramTest extends TestCase {
     public void testLoopAnalysis() {
         String className = "org.example.programs.LoopTest";
         getClass(className).ifPresent(sc -> sc.getMethods().forEach(m -> {
-            Body body = m.getBody();
+            Body body = session.getBody(m);
             if (body == null) return;
 
             StmtGraph<?> cfg = body.getStmtGraph();
@@ -0,0 +1,86 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.util.*;
+
+public class ProgramSlicerTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testSlicesMatchRepeatedLookups() throws Exception {
+        AnalysisOptions webs = new AnalysisOptions().setDataDependenceForm(AnalysisOptions.DataDependenceForm.WEBS);
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DependencyResult result = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg)).analyze();
+            ProgramSlicer slicer = new ProgramSlicer(result);
+            Set<Dependency.Type> all = EnumSet.allOf(Dependency.Type.class);
+            ProgramSlicer everything = new ProgramSlicer(result, all, true);
+            ProgramSlicer fromWebs = new ProgramSlicer(
+                    new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), webs).analyze(), all, true);
+
+            for (Stmt stmt : cfg.getNodes()) {
+                assertEquals(slice(result, stmt, EnumSet.of(Dependency.Type.RAW, Dependency.Type.CONTROL)),
+                        slicer.backwardSlice(stmt));
+                Set<Stmt> full = slice(result, stmt, all);
+                assertEquals(full, everything.backwardSlice(stmt));
+                assertEquals(full, fromWebs.backwardSlice(stmt));
+                for (Stmt other : slicer.backwardSlice(stmt)) {
+                    assertTrue(slicer.forwardSlice(other).contains(stmt));
+                }
+            }
+        }
+    }
+
+    public void testChopLiesBetweenItsEnds() {
+        StmtGraph<?> cfg = Programs.graph(session, "org.example.programs.NestedLoops", "pairs");
+        ProgramSlicer slicer = new ProgramSlicer(new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg)).analyze());
+        assertTrue(slicer.getEdgeCount() > 0);
+
+        boolean nonTrivial = false;
+        for (Stmt source : cfg.getNodes()) {
+            for (Stmt target : slicer.forwardSlice(source)) {
+                Set<Stmt> chop = slicer.chop(source, target);
+                assertTrue(chop.contains(source));
+                assertTrue(chop.contains(target));
+                for (Stmt stmt : chop) {
+                    assertTrue(slicer.forwardSlice(source).contains(stmt));
+                    assertTrue(slicer.backwardSlice(target).contains(stmt));
+                }
+                if (chop.size() > 2) nonTrivial = true;
+            }
+            assertTrue(slicer.chop(source, source).contains(source));
+        }
+        assertTrue(nonTrivial);
+    }
+
+    /** Backward slice by repeated lookups in the result maps. */
+    private static Set<Stmt> slice(DependencyResult result, Stmt criterion, Set<Dependency.Type> types) {
+        Set<Stmt> slice = new HashSet<>();
+        Deque<Stmt> work = new ArrayDeque<>();
+        slice.add(criterion);
+        work.push(criterion);
+        while (!work.isEmpty()) {
+            Stmt stmt = work.pop();
+            List<Stmt> sources = new ArrayList<>();
+            for (Dependency dep : result.getAllDependenciesForStmt(stmt)) {
+                if (types.contains(dep.getType())) sources.add(dep.getSource());
+            }
+            for (LoopDependency dep : result.getLoopDependencies().getOrDefault(stmt, Collections.emptySet())) {
+                if (dep.getTargetStmt() == stmt) sources.add(dep.getSourceStmt());
+            }
+            for (Stmt source : sources) {
+                if (slice.add(source)) work.push(source);
+            }
+        }
+        return slice;
+    }
+}
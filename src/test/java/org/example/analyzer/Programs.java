@@ -0,0 +1,46 @@
+package org.example.analyzer;
+
+import sootup.core.graph.StmtGraph;
+import sootup.java.core.JavaSootMethod;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Programs - the example programs the analysis tests run over: every method with a body
+ * under org.example.programs in discovery order, or one method by class and name.
+ */
+final class Programs {
+    static final String PACKAGE = "org.example.programs";
+
+    private Programs() {
+    }
+
+    static List<JavaSootMethod> methods(AnalysisSession session) throws IOException {
+        List<JavaSootMethod> methods = new ArrayList<>();
+        for (String className : session.findClasses(PACKAGE)) {
+            for (JavaSootMethod m : session.getSootClass(className).orElseThrow().getMethods()) {
+                if (session.getBody(m) != null) methods.add(m);
+            }
+        }
+        return methods;
+    }
+
+    static List<StmtGraph<?>> graphs(AnalysisSession session) throws IOException {
+        List<StmtGraph<?>> graphs = new ArrayList<>();
+        for (JavaSootMethod m : methods(session)) {
+            graphs.add(session.getBody(m).getStmtGraph());
+        }
+        return graphs;
+    }
+
+    static JavaSootMethod method(AnalysisSession session, String className, String methodName) {
+        return session.getSootClass(className).orElseThrow().getMethods().stream()
+                .filter(m -> m.getName().equals(methodName)).findFirst().orElseThrow();
+    }
+
+    static StmtGraph<?> graph(AnalysisSession session, String className, String methodName) {
+        return session.getBody(method(session, className, methodName)).getStmtGraph();
+    }
+}
@@ -0,0 +1,63 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.DefUseAnalyzer;
+import org.example.analyzer.dependency.DependencyAnalyzer;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.*;
+
+public class ReachingDefinitionsTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testWorklistMatchesRoundRobin() throws Exception {
+        for (JavaSootMethod m : Programs.methods(session)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+
+            DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+            DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, defUse);
+            Map<Stmt, Set<Stmt>> expected = roundRobin(cfg, defUse);
+
+            Map<Stmt, Set<Stmt>> actual = analyzer.getReachingDefinitions();
+            assertEquals(m.getSignature().toString(), expected.size(), actual.size());
+            for (Stmt stmt : cfg.getNodes()) {
+                assertEquals(m.getSignature() + " / " + stmt, expected.get(stmt), new HashSet<>(actual.get(stmt)));
+            }
+        }
+    }
+
+    // The straightforward formulation: iterate over all statements until no OUT set changes
+    private static Map<Stmt, Set<Stmt>> roundRobin(StmtGraph<?> cfg, DefUseAnalyzer defUse) {
+        Map<Stmt, Set<Stmt>> out = new HashMap<>();
+        for (Stmt stmt : cfg.getNodes()) out.put(stmt, new HashSet<>());
+
+        boolean changed;
+        do {
+            changed = false;
+            for (Stmt stmt : cfg.getNodes()) {
+                Set<Stmt> newOut = new HashSet<>();
+                for (Stmt pred : cfg.predecessors(stmt)) newOut.addAll(out.get(pred));
+
+                Set<String> defs = defUse.getDefSet(stmt);
+                if (!defs.isEmpty()) {
+                    newOut.removeIf(def -> !Collections.disjoint(defUse.getDefSet(def), defs));
+                    newOut.add(stmt);
+                }
+                if (!newOut.equals(out.get(stmt))) {
+                    out.put(stmt, newOut);
+                    changed = true;
+                }
+            }
+        } while (changed);
+        return out;
+    }
+}
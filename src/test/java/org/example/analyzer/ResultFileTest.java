@@ -0,0 +1,173 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
+import sootup.java.core.JavaSootMethod;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+public class ResultFileTest extends TestCase {
+
+    private AnalysisSession session;
+    private Path file;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+        file = Files.createTempFile("results", ".bin");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+        super.tearDown();
+    }
+
+    public void testFileAnswersLikeTheAnalysis() throws Exception {
+        AnalysisOptions webs = new AnalysisOptions().setDataDependenceForm(AnalysisOptions.DataDependenceForm.WEBS);
+        List<JavaSootMethod> methods = Programs.methods(session);
+        try (ResultFileWriter writer = new ResultFileWriter(file)) {
+            for (JavaSootMethod m : methods) {
+                StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+                DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), webs);
+                writer.write(m.getSignature().toString(), analyzer, analyzer.analyze());
+            }
+        }
+
+        try (ResultFile results = ResultFile.open(file)) {
+            assertEquals(methods.size(), results.getMethodCount());
+            for (JavaSootMethod m : methods) {
+                ResultFile.Method stored = results.findMethod(m.getSignature().toString());
+                assertNotNull(m.getSignature().toString(), stored);
+                compare(session.getBody(m), stored);
+            }
+            assertNull(results.findMethod("<no.Such: void method()>"));
+        }
+    }
+
+    private static void compare(Body body, ResultFile.Method stored) {
+        StmtGraph<?> cfg = body.getStmtGraph();
+        DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+        DependencyResult result = new DependencyAnalyzer(cfg, defUse).analyze();
+        StmtIndex index = result.getStmtIndex();
+        DominatorAnalyzer dominators = new DominatorAnalyzer(cfg);
+        FlowGraph graph = index.getFlowGraph();
+
+        assertEquals(index.size(), stored.getStatementCount());
+        int loopDependencies = 0;
+        for (int i = 0; i < index.size(); i++) {
+            Stmt stmt = index.get(i);
+            assertEquals(stmt.toString(), stored.getStatement(i));
+            assertTrue(Arrays.equals(graph.getSuccessors().get(i), stored.getSuccessors(i)));
+            assertTrue(Arrays.equals(graph.getExceptionalSuccessors().get(i), stored.getExceptionalSuccessors(i)));
+            Stmt idom = dominators.getImmediateDominator(stmt);
+            assertEquals(idom != null ? index.indexOf(idom) : -1, stored.getImmediateDominator(i));
+
+            Set<String> expected = new HashSet<>();
+            for (Dependency dep : result.getAllDependenciesForStmt(stmt)) {
+                expected.add(dep.getType() + " " + index.indexOf(dep.getSource()) + " " + i + " " + dep.getVariable());
+            }
+            Set<String> actual = new HashSet<>();
+            stored.forEachDependency(i, (type, source, target, variable) ->
+                    actual.add(type + " " + source + " " + target + " " + variable));
+            assertEquals(stmt.toString(), expected, actual);
+
+            Set<LoopDependency> loopDeps = result.getLoopDependencies().getOrDefault(stmt, Collections.emptySet());
+            List<String> expectedLoop = new ArrayList<>();
+            for (LoopDependency dep : loopDeps) {
+                expectedLoop.add(dep.getType() + " " + dep.getVariable() + " " + dep.getDistance() + " "
+                        + index.indexOf(dep.getSourceStmt()) + " " + index.indexOf(dep.getTargetStmt())
+                        + " " + index.indexOf(dep.getLoop().getHeader()));
+            }
+            List<String> actualLoop = new ArrayList<>();
+            stored.forEachLoopDependency(i, (type, value, distance, source, target, loop) ->
+                    actualLoop.add(type + " " + value + " " + distance + " " + source + " " + target
+                            + " " + stored.getLoopHeader(loop)));
+            assertEquals(expectedLoop, actualLoop);
+            loopDependencies += actualLoop.size();
+        }
+        assertEquals(result.getDataDependencyCount() + result.getControlDependencyCount(), stored.getDependencyCount());
+        assertEquals(result.getLoopDependencyCount(), loopDependencies);
+        assertEquals(result.getLoopDependencyCount(), stored.getLoopDependencyCount());
+
+        for (int l = 0; l < stored.getLoopCount(); l++) {
+            int[] loopBody = stored.getLoopBody(l);
+            assertTrue(Arrays.binarySearch(loopBody, stored.getLoopHeader(l)) >= 0);
+            int parent = stored.getParentLoop(l);
+            if (parent >= 0) {
+                int[] parentBody = stored.getLoopBody(parent);
+                for (int s : loopBody) assertTrue(Arrays.binarySearch(parentBody, s) >= 0);
+            }
+        }
+    }
+
+    public void testPipelineFileDoesNotDependOnWorkerCount() throws Exception {
+        List<String> classes = List.of("org.example.programs.ForExample", "org.example.programs.NestedLoops");
+        byte[] sequential = runPipeline(classes, 1);
+        byte[] parallel = runPipeline(classes, 4);
+        assertTrue(Arrays.equals(sequential, parallel));
+        try (ResultFile results = ResultFile.open(file)) {
+            assertTrue(results.getMethodCount() > 2);
+            assertTrue(results.getMethod(0).getSignature().startsWith("<org.example.programs.ForExample"));
+        }
+    }
+
+    private byte[] runPipeline(List<String> classes, int workers) throws Exception {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        try (ResultFileWriter writer = new ResultFileWriter(file)) {
+            new AnalysisPipeline(session, workers, workers, workers, out, out).withResultFile(writer).run(classes);
+        }
+        return Files.readAllBytes(file);
+    }
+
+    public void testFailedWriteFailsTheRun() throws Exception {
+        PrintStream out = new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8);
+        ResultFileWriter writer = new ResultFileWriter(file);
+        writer.close();
+        try {
+            new AnalysisPipeline(session, 2, 1, 2, out, out).withResultFile(writer)
+                    .run(List.of("org.example.programs.ForExample", "org.example.programs.NestedLoops"));
+            fail("expected the run to fail");
+        } catch (IllegalStateException expected) {
+            assertTrue(expected.getCause().getMessage().startsWith("Failed to write the result file"));
+        }
+    }
+
+    public void testAbortedFileIsNotLeftBehind() throws Exception {
+        ResultFileWriter writer = new ResultFileWriter(file);
+        for (JavaSootMethod m : Programs.methods(session).subList(0, 3)) {
+            StmtGraph<?> cfg = session.getBody(m).getStmtGraph();
+            DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg));
+            writer.write(m.getSignature().toString(), analyzer, analyzer.analyze());
+        }
+        writer.abort();
+        assertFalse(Files.exists(file));
+        writer.close();
+        try {
+            writer.append(new byte[0]);
+            fail("expected an IOException");
+        } catch (IOException expected) {
+            assertEquals("result file already closed", expected.getMessage());
+        }
+    }
+
+    public void testRejectsOtherFiles() throws Exception {
+        Files.write(file, "not a result file at all".getBytes(StandardCharsets.UTF_8));
+        try {
+            ResultFile.open(file).close();
+            fail("expected an IOException");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage().contains("not a result file"));
+        }
+    }
+}
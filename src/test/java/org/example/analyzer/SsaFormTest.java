@@ -0,0 +1,85 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.*;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.*;
+
+public class SsaFormTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testQueriesMatchDenseReachingDefinitions() throws Exception {
+        int phis = 0;
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            DefUseAnalyzer defUse = new DefUseAnalyzer(cfg);
+            StmtIndex index = defUse.getStmtIndex();
+            Map<Stmt, Set<Stmt>> dense = new DependencyAnalyzer(cfg, defUse).getReachingDefinitions();
+            SsaForm ssa = SsaForm.of(defUse);
+            phis += ssa.getPhiCount();
+
+            for (int s = 0; s < index.size(); s++) {
+                Set<Stmt> out = dense.get(index.get(s));
+                Set<Integer> vars = new TreeSet<>();
+                for (int v : defUse.getDefVars(s)) vars.add(v);
+                for (int v : defUse.getUseVars(s)) vars.add(v);
+                for (int var : vars) {
+                    List<Integer> expected = new ArrayList<>();
+                    for (int d = 0; d < index.size(); d++) {
+                        if (out.contains(index.get(d)) && contains(defUse.getDefVars(d), var)) expected.add(d);
+                    }
+                    assertEquals(cfg.toString(), expected, list(ssa.reachingDefinitionsOut(s, var)));
+                }
+                for (int d = 0; d < index.size(); d++) {
+                    assertEquals(out.contains(index.get(d)), ssa.reachesOut(d, s));
+                }
+            }
+        }
+        assertTrue(phis > 0);
+    }
+
+    public void testSsaGivesSameDependencies() throws Exception {
+        AnalysisOptions.DataflowForm ssa = AnalysisOptions.DataflowForm.SSA;
+        for (StmtGraph<?> cfg : Programs.graphs(session)) {
+            for (AnalysisOptions.AntiOutputMode mode : AnalysisOptions.AntiOutputMode.values()) {
+                for (AnalysisOptions.Granularity granularity : AnalysisOptions.Granularity.values()) {
+                    AnalysisOptions options = new AnalysisOptions().setAntiOutputMode(mode).setGranularity(granularity);
+                    assertEquals(cfg.toString(), report(cfg, options),
+                            report(cfg, new AnalysisOptions().setAntiOutputMode(mode).setGranularity(granularity)
+                                    .setDataflowForm(ssa)));
+                }
+            }
+        }
+    }
+
+    private static String report(StmtGraph<?> cfg, AnalysisOptions options) {
+        DependencyAnalyzer analyzer = new DependencyAnalyzer(cfg, new DefUseAnalyzer(cfg), options);
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer);
+        analyzer.analyze().printResults(out);
+        out.println(analyzer.getReachingDefinitions());
+        out.flush();
+        return buffer.toString();
+    }
+
+    private static boolean contains(int[] ids, int id) {
+        for (int i : ids) if (i == id) return true;
+        return false;
+    }
+
+    private static List<Integer> list(int[] ids) {
+        List<Integer> list = new ArrayList<>();
+        for (int i : ids) list.add(i);
+        return list;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.analyzer;
+
+import junit.framework.TestCase;
+import org.example.analyzer.dependency.StmtIndex;
+import sootup.core.graph.StmtGraph;
+import sootup.core.jimple.common.stmt.Stmt;
+import sootup.core.model.Body;
+import sootup.java.core.JavaSootMethod;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+public class StmtIndexTest extends TestCase {
+
+    private AnalysisSession session;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        session = AnalysisSession.forClassPath("target/classes");
+    }
+
+    public void testNumbersEveryStatementOnceInStableOrder() {
+        for (JavaSootMethod m : session.getSootClass("org.example.programs.specified.MultipleTryCatchFinally").orElseThrow().getMethods()) {
+            Body body = session.getBody(m);
+            if (body == null) continue;
+            StmtGraph<?> cfg = body.getStmtGraph();
+
+            StmtIndex index = StmtIndex.of(cfg);
+            assertEquals(cfg.getNodes().size(), index.size());
+            assertEquals(cfg.getStartingStmt(), index.get(0));
+            assertEquals(new HashSet<>(cfg.getNodes()), new HashSet<>(index.getStmts()));
+            for (int i = 0; i < index.size(); i++) {
+                assertEquals(i, index.indexOf(index.get(i)));
+            }
+            assertEquals(index.getStmts(), StmtIndex.of(cfg).getStmts());
+        }
+    }
+
+    public void testViews() {
+        StmtIndex index = StmtIndex.of(Programs.graph(session, "org.example.programs.ForExample", "factorial"));
+
+        BitSet bits = new BitSet();
+        bits.set(1);
+        bits.set(3);
+        Set<Stmt> set = index.asSet(bits);
+        assertEquals(2, set.size());
+        assertTrue(set.contains(index.get(3)));
+        assertFalse(set.contains(index.get(2)));
+        assertFalse(set.contains("not a statement"));
+
+        Map<Stmt, Integer> map = index.asMap(i -> i % 2 == 0 ? i : null);
+        assertEquals(Integer.valueOf(2), map.get(index.get(2)));
+        assertNull(map.get(index.get(1)));
+        assertEquals((index.size() + 1) / 2, map.size());
+    }
+}